@@ -0,0 +1,149 @@
+package no.sikt.nva.fs.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.io.IOException;
+import java.text.Collator;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.Term;
+import no.unit.nva.commons.json.JsonUtils;
+
+/**
+ * The way courses were read from FS and sorted before the streaming parser and {@link no.sikt.nva.fs.CourseSorter}
+ * replaced it, kept here as the baseline they are measured against: the whole response is bound to DTOs with the
+ * object mapper of the handler, each item is turned into a {@link Course}, and courses are sorted with a comparator
+ * getting a Norwegian {@link Collator} for every comparison of codes.
+ */
+public final class BaselineCourses {
+
+    private BaselineCourses() {
+    }
+
+    public static List<Course> parse(final byte[] payload, final Set<Term> terms) throws IOException {
+        final List<String> termCodes = terms.stream().map(Term::getCode).collect(Collectors.toList());
+        return JsonUtils.dtoObjectMapper.readValue(payload, FsCollectionResponse.class)
+                   .getItems()
+                   .stream()
+                   .map(BaselineCourses::asCourse)
+                   .filter(course -> termCodes.contains(course.getTerm()))
+                   .collect(Collectors.toList());
+    }
+
+    public static List<Course> sort(final List<Course> courses) {
+        return courses.stream().sorted(new CourseComparator()).collect(Collectors.toList());
+    }
+
+    private static Course asCourse(final Item item) {
+        final FsCourse course = item.getId().getCourse();
+        final FsSemester semester = item.getId().getSemester();
+
+        return new Course(course.getCode(), semester.getTerm(), semester.getYear());
+    }
+
+    private static class CourseComparator implements Comparator<Course> {
+
+        private final Comparator<Term> termComparator = Comparator.comparingInt(Term::getSeqNo);
+
+        @Override
+        public int compare(Course course1, Course course2) {
+            int result = Integer.compare(course1.getYear(), course2.getYear());
+            if (result == 0) {
+                final Term term1 = Term.fromCode(course1.getTerm());
+                final Term term2 = Term.fromCode(course2.getTerm());
+                result = termComparator.compare(term1, term2);
+            }
+            if (result == 0) {
+                final Collator norwegianCollator = Collator.getInstance(new Locale("nb", "NO"));
+                result = norwegianCollator.compare(course1.getCode(), course2.getCode());
+            }
+
+            return result;
+        }
+    }
+
+    public static final class FsCollectionResponse {
+        private final List<Item> items;
+
+        @JsonCreator
+        public FsCollectionResponse(@JsonProperty("items") final List<Item> items) {
+            this.items = items;
+        }
+
+        public List<Item> getItems() {
+            return items;
+        }
+    }
+
+    @SuppressWarnings("PMD.ShortClassName")
+    public static final class Item {
+        @SuppressWarnings("PMD.ShortFieldName")
+        private final FsIdentifier id;
+
+        @JsonCreator
+        public Item(@JsonProperty("id") final FsIdentifier id) {
+            this.id = id;
+        }
+
+        public FsIdentifier getId() {
+            return id;
+        }
+    }
+
+    public static final class FsIdentifier {
+
+        private final FsCourse course;
+        private final FsSemester semester;
+
+        @JsonCreator
+        public FsIdentifier(@JsonProperty("emne") final FsCourse course,
+                            @JsonProperty("semester") final FsSemester semester) {
+            this.course = course;
+            this.semester = semester;
+        }
+
+        public FsCourse getCourse() {
+            return course;
+        }
+
+        public FsSemester getSemester() {
+            return semester;
+        }
+    }
+
+    public static final class FsCourse {
+        private final String code;
+
+        @JsonCreator
+        public FsCourse(@JsonProperty("kode") final String code) {
+            this.code = code;
+        }
+
+        public String getCode() {
+            return code;
+        }
+    }
+
+    public static final class FsSemester {
+        private final int year;
+        private final String term;
+
+        @JsonCreator
+        public FsSemester(@JsonProperty("ar") final int year, @JsonProperty("termin") final String term) {
+            this.year = year;
+            this.term = term;
+        }
+
+        public int getYear() {
+            return year;
+        }
+
+        public String getTerm() {
+            return term;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package no.sikt.nva.fs.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import no.sikt.nva.fs.ColdStartPriming;
+import no.sikt.nva.fs.CoursesByInstitutionOfLoggedInUserHandler;
+import no.sikt.nva.fs.TimeProvider;
+import no.sikt.nva.fs.client.FsClientRegistry;
+import no.sikt.nva.fs.snapshot.InMemoryCoursesSnapshotStore;
+import no.unit.nva.commons.json.JsonUtils;
+import no.unit.nva.stubs.FakeSecretsManagerClient;
+import no.unit.nva.testutils.HandlerRequestBuilder;
+import nva.commons.core.Environment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The first request a fresh JVM serves through {@link CoursesByInstitutionOfLoggedInUserHandler}, from creating the
+ * handler to the written API Gateway response, with a fake secrets manager and the FS stub behind it. When primed,
+ * the handler class is initialized before the measurement, as Lambda does while the container initializes, which
+ * runs {@link ColdStartPriming}; otherwise initializing it is part of the measurement. Every measurement is a single
+ * shot in its own fork, so the spread between forks is part of the result. All FS responses are generated before
+ * measuring.
+ *
+ * <p>Annotations set the mode, forks and iterations; run it with the {@code jmhColdStart} task, which keeps them and
+ * sets the environment the handler reads, rather than the {@code jmh} task, which overrides them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(20)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class ColdStartBenchmark {
+
+    private static final Clock AFTER_SUMMER = Clock.fixed(Instant.parse("2022-08-10T10:15:30.00Z"),
+                                                          TimeProvider.ZONE_ID);
+    private static final int YEAR = 2022;
+    private static final int ITEM_COUNT = 500;
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+    @Param({"false", "true"})
+    public boolean primed;
+
+    private FsStubServer fsStubServer;
+    private FakeSecretsManagerClient secretsManagerClient;
+    private byte[] event;
+
+    @Setup
+    public void setUp() throws IOException, ClassNotFoundException {
+        fsStubServer = new FsStubServer(Map.of(YEAR, SyntheticFsPayloads.courses(ITEM_COUNT, YEAR),
+                                               YEAR + 1, SyntheticFsPayloads.courses(ITEM_COUNT, YEAR + 1)));
+        fsStubServer.prepare(FsClientRegistry.DEFAULT_PAGE_SIZE);
+        secretsManagerClient = new FakeSecretsManagerClient();
+        secretsManagerClient.putPlainTextSecret(
+            new Environment().readEnv(CoursesByInstitutionOfLoggedInUserHandler.FS_CONFIG_SECRET_NAME_ENV_KEY),
+            LoadTest.fsConfig(fsStubServer.getBaseUri(), List.of(SyntheticFsPayloads.INSTITUTION_CODE)));
+        try (InputStream request = new HandlerRequestBuilder<Void>(JsonUtils.dtoObjectMapper)
+                                       .withTopLevelCristinOrgId(
+                                           LoadTest.topLevelOrgCristinIdOf(SyntheticFsPayloads.INSTITUTION_CODE))
+                                       .build()) {
+            event = request.readAllBytes();
+        }
+        if (primed) {
+            Class.forName(CoursesByInstitutionOfLoggedInUserHandler.class.getName(), true,
+                          ColdStartBenchmark.class.getClassLoader());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        fsStubServer.close();
+    }
+
+    @Benchmark
+    public byte[] firstRequest() throws IOException {
+        final CoursesByInstitutionOfLoggedInUserHandler handler =
+            new CoursesByInstitutionOfLoggedInUserHandler(secretsManagerClient, new InMemoryCoursesSnapshotStore(),
+                                                          AFTER_SUMMER);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        handler.handleRequest(new ByteArrayInputStream(event), output, new LoadTestContext(TIMEOUT));
+        return output.toByteArray();
+    }
+}
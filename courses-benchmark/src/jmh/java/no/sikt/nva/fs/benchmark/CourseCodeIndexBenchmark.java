@@ -0,0 +1,49 @@
+package no.sikt.nva.fs.benchmark;
+
+import java.time.Instant;
+import java.util.List;
+import no.sikt.nva.fs.CourseCodeIndex;
+import no.sikt.nva.fs.CourseCodesQuery;
+import no.sikt.nva.fs.CourseSorter;
+import no.sikt.nva.fs.TaughtCourses;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Completing a course code from the index, as done for every keystroke in the typeahead, and building the index,
+ * as done once for each version of the courses of an institution.
+ */
+@State(Scope.Benchmark)
+public class CourseCodeIndexBenchmark {
+
+    private static final int YEAR = 2022;
+
+    @Param({"1000", "10000", "100000"})
+    public int itemCount;
+
+    @Param({"m", "mat1", "\u00E6st"}) // æst
+    public String prefix;
+
+    private TaughtCourses taughtCourses;
+    private CourseCodeIndex index;
+
+    @Setup
+    public void setUp() {
+        taughtCourses = new TaughtCourses(CourseSorter.sort(SyntheticFsPayloads.courses(itemCount, YEAR)),
+                                          "\"benchmark\"", Instant.now());
+        index = CourseCodeIndex.build(taughtCourses);
+    }
+
+    @Benchmark
+    public List<String> complete() {
+        return index.complete(prefix, CourseCodesQuery.DEFAULT_LIMIT);
+    }
+
+    @Benchmark
+    public CourseCodeIndex build() {
+        return CourseCodeIndex.build(taughtCourses);
+    }
+}
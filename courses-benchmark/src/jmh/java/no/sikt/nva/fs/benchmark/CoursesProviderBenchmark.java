@@ -0,0 +1,75 @@
+package no.sikt.nva.fs.benchmark;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Month;
+import java.util.Map;
+import no.sikt.nva.fs.CoursesProvider;
+import no.sikt.nva.fs.TaughtCourses;
+import no.sikt.nva.fs.cache.CoursesCache;
+import no.sikt.nva.fs.client.FsClient;
+import no.sikt.nva.fs.client.FsClientRegistry;
+import no.sikt.nva.fs.config.InstitutionConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * The whole provider run after the start of July, fetching this fall and next spring over HTTP from a local FS
+ * stub. The cold variant has a cache that never holds entries, so that every run goes all the way to FS; the
+ * warm variant is answered from the cache, as warm Lambda invocations are.
+ */
+@State(Scope.Benchmark)
+public class CoursesProviderBenchmark {
+
+    private static final int YEAR = 2022;
+    private static final int MONTH = Month.AUGUST.getValue();
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    @Param({"1000", "10000", "100000"})
+    public int itemCount;
+
+    private FsStubServer fsStubServer;
+    private CoursesProvider coldProvider;
+    private CoursesProvider warmProvider;
+
+    @Setup
+    public void setUp() throws IOException {
+        fsStubServer = new FsStubServer(Map.of(YEAR, SyntheticFsPayloads.courses(itemCount, YEAR),
+                                               YEAR + 1, SyntheticFsPayloads.courses(itemCount, YEAR + 1)));
+        final String baseUri = fsStubServer.getBaseUri();
+        final InstitutionConfig institutionConfig =
+            new InstitutionConfig(SyntheticFsPayloads.INSTITUTION_CODE, "benchmark", "benchmark");
+        final FsClient fsClient = new FsClientRegistry(CONNECT_TIMEOUT, REQUEST_TIMEOUT,
+                                                       FsClientRegistry.DEFAULT_PAGE_SIZE)
+                                      .getClient(baseUri, institutionConfig);
+
+        coldProvider = new CoursesProvider(baseUri, institutionConfig, fsClient,
+                                           new CoursesCache(Duration.ZERO, Duration.ZERO, Clock.systemUTC()));
+        warmProvider = new CoursesProvider(baseUri, institutionConfig, fsClient,
+                                           new CoursesCache(CoursesCache.DEFAULT_TIME_TO_LIVE,
+                                                            CoursesCache.DEFAULT_STALE_WHILE_REVALIDATE,
+                                                            Clock.systemUTC()));
+        warmProvider.getCurrentlyTaughtCourses(YEAR, MONTH);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fsStubServer.close();
+    }
+
+    @Benchmark
+    public TaughtCourses cold() {
+        return coldProvider.getCurrentlyTaughtCourses(YEAR, MONTH);
+    }
+
+    @Benchmark
+    public TaughtCourses warm() {
+        return warmProvider.getCurrentlyTaughtCourses(YEAR, MONTH);
+    }
+}
@@ -0,0 +1,163 @@
+package no.sikt.nva.fs.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.Term;
+
+/**
+ * Local stand-in for the FS {@code /undervisning} resource, serving synthetic courses by year, term and page
+ * like FS does. Responses are generated once per distinct query, so that benchmarks measure the client rather
+ * than the stub. Benchmarks that must not generate responses while measuring, such as cold start ones, can
+ * {@link #prepare(int) prepare} all of them up front.
+ *
+ * <p>For load tests, the stub can simulate FS latency and errors: each response is delayed by a time drawn from a
+ * {@link LatencyDistribution}, and a share of requests is answered with {@code 503 Service Unavailable}. Delayed
+ * responses are sent from a scheduler rather than by sleeping, so that slow responses do not hold up others.
+ */
+public class FsStubServer implements AutoCloseable {
+
+    private static final String TEACHING_PATH = "/undervisning";
+    private static final int THREADS = 4;
+
+    private final Map<Integer, List<Course>> coursesByYear;
+    private final Map<String, byte[]> responses = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(THREADS);
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final HttpServer server;
+
+    public FsStubServer(final Map<Integer, List<Course>> coursesByYear) throws IOException {
+        this(coursesByYear, LatencyDistribution.NONE, 0);
+    }
+
+    /**
+     * A stub whose responses are delayed by the latency, and of which the given share, from 0 to 1, fails.
+     */
+    public FsStubServer(final Map<Integer, List<Course>> coursesByYear,
+                        final LatencyDistribution latency,
+                        final double errorRate) throws IOException {
+        this.coursesByYear = coursesByYear;
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(TEACHING_PATH, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String getBaseUri() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Generates the responses to every query the stub can be asked, of all years and terms, with the given page
+     * size.
+     */
+    public void prepare(final int limit) {
+        final List<String> terms = new ArrayList<>();
+        terms.add(null);
+        for (final Term term : Term.values()) {
+            terms.add(term.getCode());
+        }
+        coursesByYear.forEach((year, courses) -> {
+            final int lastPage = courses.size() / limit + 1;
+            for (final String term : terms) {
+                for (int page = 1; page <= lastPage; page++) {
+                    final String key = responseKey(year, term, limit, page);
+                    responses.put(key, createResponse(year, term, limit, page));
+                }
+            }
+        });
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        final Duration delay = latency.sample(ThreadLocalRandom.current());
+        if (delay.isZero() || delay.isNegative()) {
+            respond(exchange);
+        } else {
+            scheduler.schedule(() -> respondLater(exchange), delay.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void respondLater(final HttpExchange exchange) {
+        try {
+            respond(exchange);
+        } catch (IOException e) {
+            exchange.close();
+        }
+    }
+
+    private void respond(final HttpExchange exchange) throws IOException {
+        if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_UNAVAILABLE, -1);
+            exchange.close();
+            return;
+        }
+        final Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+        final int year = Integer.parseInt(parameters.get("semester.ar"));
+        final String term = parameters.get("semester.termin");
+        final int limit = Integer.parseInt(parameters.getOrDefault("limit", "0"));
+        final int page = Integer.parseInt(parameters.getOrDefault("page", "1"));
+        final byte[] body = responses.computeIfAbsent(responseKey(year, term, limit, page),
+                                                      key -> createResponse(year, term, limit, page));
+        exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+    private static String responseKey(final int year, final String term, final int limit, final int page) {
+        return year + "|" + term + "|" + limit + "|" + page;
+    }
+
+    private byte[] createResponse(final int year, final String term, final int limit, final int page) {
+        final List<Course> matchingCourses = coursesByYear.getOrDefault(year, List.of())
+                                                 .stream()
+                                                 .filter(course -> term == null || term.equals(course.getTerm()))
+                                                 .collect(Collectors.toList());
+        if (limit == 0) {
+            return SyntheticFsPayloads.collection(matchingCourses);
+        }
+        final int fromIndex = Math.min((page - 1) * limit, matchingCourses.size());
+        final int toIndex = Math.min(fromIndex + limit, matchingCourses.size());
+        return SyntheticFsPayloads.collection(matchingCourses.subList(fromIndex, toIndex));
+    }
+
+    private static Map<String, String> parseQuery(final String query) {
+        final Map<String, String> parameters = new HashMap<>();
+        for (final String parameter : query.split("&")) {
+            final int separator = parameter.indexOf('=');
+            parameters.put(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+                           URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,154 @@
+package no.sikt.nva.fs.benchmark;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Follows garbage collections from the notifications the collectors send, from when it is started until it is
+ * stopped: the time each collector spends, the most heap still in use after a collection, which is what the
+ * courses and caches take and what the memory of the Lambda function must hold, and how much is allocated, which
+ * is estimated from how much the heap grows between collections. Allocation by everything in the JVM is counted,
+ * including the FS stub, whose responses are generated before measuring.
+ */
+public final class GcMonitor implements NotificationListener {
+
+    private final Object lock = new Object();
+    private final Set<String> heapPools;
+    private final SortedMap<String, CollectorTimes> collectorTimes = new TreeMap<>();
+    private long heapUsedAfterLastCollection;
+    private long allocatedBytes;
+    private long maxHeapUsedAfterCollection;
+
+    private GcMonitor() {
+        this.heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                             .filter(pool -> pool.getType() == MemoryType.HEAP)
+                             .map(MemoryPoolMXBean::getName)
+                             .collect(Collectors.toSet());
+        this.heapUsedAfterLastCollection = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    public static GcMonitor start() {
+        final GcMonitor monitor = new GcMonitor();
+        for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) collector).addNotificationListener(monitor, null, null);
+        }
+        return monitor;
+    }
+
+    @Override
+    public void handleNotification(final Notification notification, final Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        final GarbageCollectionNotificationInfo info =
+            GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        final long heapUsedBefore = heapUsed(info.getGcInfo().getMemoryUsageBeforeGc());
+        final long heapUsedAfter = heapUsed(info.getGcInfo().getMemoryUsageAfterGc());
+        synchronized (lock) {
+            allocatedBytes += Math.max(0, heapUsedBefore - heapUsedAfterLastCollection);
+            heapUsedAfterLastCollection = heapUsedAfter;
+            maxHeapUsedAfterCollection = Math.max(maxHeapUsedAfterCollection, heapUsedAfter);
+            collectorTimes.computeIfAbsent(info.getGcName(), name -> new CollectorTimes())
+                .add(info.getGcInfo().getDuration());
+        }
+    }
+
+    /**
+     * Stops following collections, and counts what has been allocated since the last one.
+     */
+    public void stop() {
+        for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            try {
+                ((NotificationEmitter) collector).removeNotificationListener(this);
+            } catch (ListenerNotFoundException e) {
+                throw new IllegalStateException("GC monitor was not listening to " + collector.getName(), e);
+            }
+        }
+        final long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        synchronized (lock) {
+            allocatedBytes += Math.max(0, heapUsed - heapUsedAfterLastCollection);
+            heapUsedAfterLastCollection = heapUsed;
+        }
+    }
+
+    public long getAllocatedBytes() {
+        synchronized (lock) {
+            return allocatedBytes;
+        }
+    }
+
+    public long getMaxHeapUsedAfterCollection() {
+        synchronized (lock) {
+            return maxHeapUsedAfterCollection;
+        }
+    }
+
+    /**
+     * The collections of each collector, by its name, such as "G1 Young Generation".
+     */
+    public SortedMap<String, CollectorTimes> getCollectorTimes() {
+        synchronized (lock) {
+            final SortedMap<String, CollectorTimes> copy = new TreeMap<>();
+            collectorTimes.forEach((name, times) -> copy.put(name, times.copy()));
+            return copy;
+        }
+    }
+
+    private long heapUsed(final Map<String, MemoryUsage> usageByPool) {
+        return usageByPool.entrySet().stream()
+                   .filter(pool -> heapPools.contains(pool.getKey()))
+                   .mapToLong(pool -> pool.getValue().getUsed())
+                   .sum();
+    }
+
+    /**
+     * The number of collections of a collector, and the total and longest time they took. For collectors that
+     * stop the application, such as the young and old generation collectors of G1, these are pauses.
+     */
+    public static final class CollectorTimes {
+
+        private int count;
+        private long totalMillis;
+        private long maxMillis;
+
+        private void add(final long millis) {
+            count++;
+            totalMillis += millis;
+            maxMillis = Math.max(maxMillis, millis);
+        }
+
+        private CollectorTimes copy() {
+            final CollectorTimes copy = new CollectorTimes();
+            copy.count = count;
+            copy.totalMillis = totalMillis;
+            copy.maxMillis = maxMillis;
+            return copy;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getTotalMillis() {
+            return totalMillis;
+        }
+
+        public long getMaxMillis() {
+            return maxMillis;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package no.sikt.nva.fs.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import no.sikt.nva.fs.CoursesByInstitutionOfLoggedInUserHandler;
+import no.sikt.nva.fs.snapshot.InMemoryCoursesSnapshotStore;
+import no.unit.nva.commons.json.JsonUtils;
+import no.unit.nva.testutils.HandlerRequestBuilder;
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+
+/**
+ * Invokes the Lambda handler with API Gateway events, the way Lambda does. Lambda gives each container one request
+ * at a time, so each virtual user has a handler of its own, with caches of its own, as if it were a container.
+ */
+public final class HandlerLoadTestTarget implements LoadTestTarget {
+
+    private static final String STATUS_CODE_FIELD = "statusCode";
+
+    private final CoursesByInstitutionOfLoggedInUserHandler[] handlers;
+    private final Map<Integer, byte[]> events = new ConcurrentHashMap<>();
+    private final Duration timeout;
+
+    public HandlerLoadTestTarget(final SecretsManagerClient secretsManagerClient,
+                                 final int users,
+                                 final List<Integer> institutionCodes,
+                                 final Duration timeout,
+                                 final Clock clock) throws IOException {
+        this.handlers = new CoursesByInstitutionOfLoggedInUserHandler[users];
+        for (int user = 0; user < users; user++) {
+            handlers[user] = new CoursesByInstitutionOfLoggedInUserHandler(secretsManagerClient,
+                                                                          new InMemoryCoursesSnapshotStore(),
+                                                                          clock);
+        }
+        for (final Integer institutionCode : institutionCodes) {
+            try (InputStream event = new HandlerRequestBuilder<Void>(JsonUtils.dtoObjectMapper)
+                                         .withTopLevelCristinOrgId(LoadTest.topLevelOrgCristinIdOf(institutionCode))
+                                         .build()) {
+                events.put(institutionCode, event.readAllBytes());
+            }
+        }
+        this.timeout = timeout;
+    }
+
+    /**
+     * The time includes reading the status code from the response, as API Gateway does.
+     */
+    @Override
+    public int send(final int user, final int institutionCode) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        handlers[user].handleRequest(new ByteArrayInputStream(events.get(institutionCode)), output,
+                                     new LoadTestContext(timeout));
+        return JsonUtils.dtoObjectMapper.readTree(output.toByteArray()).get(STATUS_CODE_FIELD).asInt();
+    }
+
+    @Override
+    public void close() {
+        // Handlers hold nothing that needs closing.
+    }
+}
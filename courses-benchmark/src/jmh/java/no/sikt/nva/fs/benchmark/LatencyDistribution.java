@@ -0,0 +1,81 @@
+package no.sikt.nva.fs.benchmark;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * How long the FS stub takes to answer a request, drawn anew for each request. Written as {@code none},
+ * {@code fixed:<ms>}, {@code uniform:<min ms>-<max ms>} or {@code lognormal:<median ms>,<p99 ms>}, the last of
+ * which has the long tail that FS response times have.
+ */
+public final class LatencyDistribution {
+
+    public static final LatencyDistribution NONE = new LatencyDistribution("none", random -> 0);
+
+    /**
+     * The standard normal quantile of the 99th percentile.
+     */
+    private static final double Z_99 = 2.326_348;
+    private static final long NANOS_PER_MILLISECOND = Duration.ofMillis(1).toNanos();
+
+    private final String description;
+    private final ToDoubleFunction<Random> millisSampler;
+
+    private LatencyDistribution(final String description, final ToDoubleFunction<Random> millisSampler) {
+        this.description = description;
+        this.millisSampler = millisSampler;
+    }
+
+    public static LatencyDistribution parse(final String value) {
+        final String[] kindAndParameters = value.trim().toLowerCase(Locale.ROOT).split(":", 2);
+        try {
+            switch (kindAndParameters[0]) {
+                case "none":
+                    return NONE;
+                case "fixed":
+                    return fixed(Double.parseDouble(kindAndParameters[1]));
+                case "uniform":
+                    final String[] bounds = kindAndParameters[1].split("-", 2);
+                    return uniform(Double.parseDouble(bounds[0]), Double.parseDouble(bounds[1]));
+                case "lognormal":
+                    final String[] percentiles = kindAndParameters[1].split(",", 2);
+                    return logNormal(Double.parseDouble(percentiles[0]), Double.parseDouble(percentiles[1]));
+                default:
+                    throw new IllegalArgumentException("Unknown latency distribution: " + value);
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed latency distribution: " + value, e);
+        }
+    }
+
+    public static LatencyDistribution fixed(final double millis) {
+        return new LatencyDistribution("fixed:" + millis, random -> millis);
+    }
+
+    public static LatencyDistribution uniform(final double minimumMillis, final double maximumMillis) {
+        return new LatencyDistribution("uniform:" + minimumMillis + "-" + maximumMillis,
+                                       random -> minimumMillis + random.nextDouble() * (maximumMillis
+                                                                                        - minimumMillis));
+    }
+
+    /**
+     * A log-normal distribution with the given median and 99th percentile.
+     */
+    public static LatencyDistribution logNormal(final double medianMillis, final double p99Millis) {
+        final double mu = Math.log(medianMillis);
+        final double sigma = (Math.log(p99Millis) - mu) / Z_99;
+        return new LatencyDistribution("lognormal:" + medianMillis + "," + p99Millis,
+                                       random -> Math.exp(mu + sigma * random.nextGaussian()));
+    }
+
+    public Duration sample(final Random random) {
+        return Duration.ofNanos((long) (millisSampler.applyAsDouble(random) * NANOS_PER_MILLISECOND));
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
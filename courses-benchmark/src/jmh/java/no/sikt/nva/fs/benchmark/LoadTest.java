@@ -0,0 +1,240 @@
+package no.sikt.nva.fs.benchmark;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import no.sikt.nva.fs.CoursesByInstitutionOfLoggedInUserHandler;
+import no.sikt.nva.fs.client.FsClientRegistry;
+import no.unit.nva.commons.json.JsonUtils;
+import no.unit.nva.stubs.FakeSecretsManagerClient;
+import nva.commons.core.Environment;
+
+/**
+ * Load test of the Lambda handler or the standalone server, run in this JVM against the FS stub, which serves
+ * synthetic courses for this year and the next with simulated latency and errors. Virtual users send requests
+ * one after the other, as fast as they are answered, spread at random over the institutions. After a warmup,
+ * which is not measured, the test reports throughput, latency percentiles, allocation, garbage collections and
+ * the heap in use after collections.
+ *
+ * <p>Run it with the {@code loadTest} task, giving {@link LoadTestSettings settings} as {@code name=value}
+ * arguments. The cache, hedging, circuit breaker and server are configured by the same environment variables as
+ * in production, which the task passes on.
+ */
+public final class LoadTest {
+
+    /**
+     * The status code recorded for a request that got no response.
+     */
+    private static final int NO_RESPONSE = 0;
+    private static final String CRISTIN_UNITS_URI = "https://api.cristin.no/v2/units/";
+    private static final String CRISTIN_UNIT_SUFFIX = ".0.0.0";
+    private static final String CREDENTIALS = "load-test";
+    private static final double NANOS_PER_MILLISECOND = Duration.ofMillis(1).toNanos();
+    private static final double NANOS_PER_SECOND = Duration.ofSeconds(1).toNanos();
+    private static final double BYTES_PER_KILOBYTE = 1024;
+    private static final double BYTES_PER_MEGABYTE = BYTES_PER_KILOBYTE * 1024;
+    private static final int[] PERCENTILES = {50, 95, 99};
+    private static final double PERCENT = 100;
+
+    private LoadTest() {
+    }
+
+    public static void main(final String... args) throws IOException, InterruptedException, ExecutionException {
+        final LoadTestSettings settings = LoadTestSettings.parse(args);
+        final PrintStream report = System.out;
+        // The handler and server write the metrics of every request to standard output, which would bury the report:
+        System.setOut(new PrintStream(OutputStream.nullOutputStream(), false, StandardCharsets.UTF_8));
+
+        final Clock clock = Clock.systemDefaultZone();
+        final int year = Year.now(clock).getValue();
+        final List<Integer> institutionCodes = IntStream.range(0, settings.getInstitutions())
+                                                   .mapToObj(index -> SyntheticFsPayloads.INSTITUTION_CODE + index)
+                                                   .collect(Collectors.toList());
+        try (FsStubServer fsStubServer = new FsStubServer(
+            Map.of(year, SyntheticFsPayloads.courses(settings.getItems(), year),
+                   year + 1, SyntheticFsPayloads.courses(settings.getItems(), year + 1)),
+            settings.getLatency(),
+            settings.getErrorRate())) {
+            fsStubServer.prepare(FsClientRegistry.DEFAULT_PAGE_SIZE);
+            final Environment environment = new Environment();
+            final FakeSecretsManagerClient secretsManagerClient = new FakeSecretsManagerClient();
+            secretsManagerClient.putPlainTextSecret(
+                environment.readEnv(CoursesByInstitutionOfLoggedInUserHandler.FS_CONFIG_SECRET_NAME_ENV_KEY),
+                fsConfig(fsStubServer.getBaseUri(), institutionCodes));
+            try (LoadTestTarget target = createTarget(settings, secretsManagerClient, environment, institutionCodes,
+                                                      clock)) {
+                run(target, settings, institutionCodes, report);
+            }
+        }
+    }
+
+    /* default */ static URI topLevelOrgCristinIdOf(final int institutionCode) {
+        return URI.create(CRISTIN_UNITS_URI + institutionCode + CRISTIN_UNIT_SUFFIX);
+    }
+
+    /* default */ static String fsConfig(final String baseUri, final List<Integer> institutionCodes) {
+        final ObjectNode fsConfig = JsonUtils.dtoObjectMapper.createObjectNode();
+        fsConfig.put("baseUri", baseUri);
+        final ArrayNode institutions = fsConfig.putArray("institutions");
+        for (final Integer institutionCode : institutionCodes) {
+            institutions.addObject()
+                .put("code", institutionCode)
+                .put("username", CREDENTIALS)
+                .put("password", CREDENTIALS);
+        }
+        return fsConfig.toString();
+    }
+
+    private static LoadTestTarget createTarget(final LoadTestSettings settings,
+                                               final FakeSecretsManagerClient secretsManagerClient,
+                                               final Environment environment,
+                                               final List<Integer> institutionCodes,
+                                               final Clock clock) throws IOException {
+        return LoadTestSettings.SERVER_TARGET.equals(settings.getTarget())
+                   ? new ServerLoadTestTarget(secretsManagerClient, environment, clock)
+                   : new HandlerLoadTestTarget(secretsManagerClient, settings.getUsers(), institutionCodes,
+                                               settings.getTimeout(), clock);
+    }
+
+    private static void run(final LoadTestTarget target,
+                            final LoadTestSettings settings,
+                            final List<Integer> institutionCodes,
+                            final PrintStream report) throws InterruptedException, ExecutionException {
+        final long measureFrom = System.nanoTime() + settings.getWarmup().toNanos();
+        final long measureUntil = measureFrom + settings.getDuration().toNanos();
+        final ExecutorService users = Executors.newFixedThreadPool(settings.getUsers());
+        final List<Future<Requests>> userRequests = new ArrayList<>();
+        for (int user = 0; user < settings.getUsers(); user++) {
+            final int virtualUser = user;
+            userRequests.add(users.submit(() -> sendRequests(target, virtualUser, institutionCodes, measureFrom,
+                                                             measureUntil)));
+        }
+        Thread.sleep(Math.max(0, Duration.ofNanos(measureFrom - System.nanoTime()).toMillis()));
+
+        final GcMonitor gcMonitor = GcMonitor.start();
+        final Requests requests = new Requests();
+        for (final Future<Requests> sentByUser : userRequests) {
+            requests.addAll(sentByUser.get());
+        }
+        users.shutdown();
+        final double measuredSeconds = (System.nanoTime() - measureFrom) / NANOS_PER_SECOND;
+        gcMonitor.stop();
+        print(report, settings, requests, measuredSeconds, gcMonitor);
+    }
+
+    private static Requests sendRequests(final LoadTestTarget target,
+                                         final int user,
+                                         final List<Integer> institutionCodes,
+                                         final long measureFrom,
+                                         final long measureUntil) {
+        final Random random = new Random(user);
+        final Requests requests = new Requests();
+        long start = System.nanoTime();
+        while (start < measureUntil) {
+            final int institutionCode = institutionCodes.get(random.nextInt(institutionCodes.size()));
+            int statusCode;
+            try {
+                statusCode = target.send(user, institutionCode);
+            } catch (IOException e) {
+                statusCode = NO_RESPONSE;
+            }
+            final long end = System.nanoTime();
+            if (start >= measureFrom) {
+                requests.add(end - start, statusCode);
+            }
+            start = end;
+        }
+        return requests;
+    }
+
+    private static void print(final PrintStream report,
+                              final LoadTestSettings settings,
+                              final Requests requests,
+                              final double measuredSeconds,
+                              final GcMonitor gcMonitor) {
+        report.printf(Locale.ROOT, "Load test of the %s%n", settings);
+        report.printf(Locale.ROOT, "Requests      %d in %.1f s, %.1f per second%n", requests.count,
+                      measuredSeconds, requests.count / measuredSeconds);
+        report.printf(Locale.ROOT, "Status codes  %s%n", requests.statusCodes.entrySet().stream()
+                                                          .map(entry -> (entry.getKey() == NO_RESPONSE
+                                                                             ? "no response"
+                                                                             : entry.getKey())
+                                                                        + ": " + entry.getValue())
+                                                          .collect(Collectors.joining(", ")));
+        if (requests.count > 0) {
+            final long[] latencies = Arrays.copyOf(requests.latencies, requests.count);
+            Arrays.sort(latencies);
+            final StringBuilder percentiles = new StringBuilder();
+            for (final int percentile : PERCENTILES) {
+                final int rank = (int) Math.ceil(percentile / PERCENT * latencies.length);
+                percentiles.append(String.format(Locale.ROOT, "p%d %.1f ms, ", percentile,
+                                                 latencies[rank - 1] / NANOS_PER_MILLISECOND));
+            }
+            report.printf(Locale.ROOT, "Latency       %smax %.1f ms%n", percentiles,
+                          latencies[latencies.length - 1] / NANOS_PER_MILLISECOND);
+            report.printf(Locale.ROOT, "Allocated     %.1f MB, %.1f MB per second, %.1f kB per request%n",
+                          gcMonitor.getAllocatedBytes() / BYTES_PER_MEGABYTE,
+                          gcMonitor.getAllocatedBytes() / BYTES_PER_MEGABYTE / measuredSeconds,
+                          gcMonitor.getAllocatedBytes() / BYTES_PER_KILOBYTE / requests.count);
+        }
+        report.printf(Locale.ROOT, "Live heap     %.1f MB at most after a collection%n",
+                      gcMonitor.getMaxHeapUsedAfterCollection() / BYTES_PER_MEGABYTE);
+        gcMonitor.getCollectorTimes().forEach(
+            (collector, times) -> report.printf(Locale.ROOT, "GC            %s: %d collections, %d ms in total, "
+                                                             + "%d ms at most%n",
+                                                collector, times.getCount(), times.getTotalMillis(),
+                                                times.getMaxMillis()));
+    }
+
+    /**
+     * The time each measured request took, and how many were answered with each status code.
+     */
+    private static final class Requests {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private final SortedMap<Integer, Integer> statusCodes = new TreeMap<>();
+        private long[] latencies = new long[INITIAL_CAPACITY];
+        private int count;
+
+        private void add(final long latencyNanos, final int statusCode) {
+            addLatency(latencyNanos);
+            statusCodes.merge(statusCode, 1, Integer::sum);
+        }
+
+        private void addAll(final Requests other) {
+            for (int index = 0; index < other.count; index++) {
+                addLatency(other.latencies[index]);
+            }
+            other.statusCodes.forEach((statusCode, times) -> statusCodes.merge(statusCode, times, Integer::sum));
+        }
+
+        private void addLatency(final long latencyNanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package no.sikt.nva.fs.benchmark;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * The Lambda context of one invocation of the handler, which counts down the timeout of the function from when
+ * the invocation starts. What is logged through it goes to standard error.
+ */
+public final class LoadTestContext implements Context {
+
+    private static final String FUNCTION_NAME = "load-test";
+    private static final int MEMORY_LIMIT_MB = 1798;
+    private static final LambdaLogger LOGGER = new LambdaLogger() {
+        @Override
+        public void log(final String message) {
+            System.err.println(message);
+        }
+
+        @Override
+        public void log(final byte[] message) {
+            log(new String(message, StandardCharsets.UTF_8));
+        }
+    };
+
+    private final String awsRequestId = UUID.randomUUID().toString();
+    private final long deadline;
+
+    public LoadTestContext(final Duration timeout) {
+        this.deadline = System.nanoTime() + timeout.toNanos();
+    }
+
+    @Override
+    public String getAwsRequestId() {
+        return awsRequestId;
+    }
+
+    @Override
+    public String getLogGroupName() {
+        return "/aws/lambda/" + FUNCTION_NAME;
+    }
+
+    @Override
+    public String getLogStreamName() {
+        return FUNCTION_NAME;
+    }
+
+    @Override
+    public String getFunctionName() {
+        return FUNCTION_NAME;
+    }
+
+    @Override
+    public String getFunctionVersion() {
+        return "$LATEST";
+    }
+
+    @Override
+    public String getInvokedFunctionArn() {
+        return "arn:aws:lambda:eu-west-1:000000000000:function:" + FUNCTION_NAME;
+    }
+
+    @Override
+    public CognitoIdentity getIdentity() {
+        return null;
+    }
+
+    @Override
+    public ClientContext getClientContext() {
+        return null;
+    }
+
+    @Override
+    public int getRemainingTimeInMillis() {
+        return (int) Math.max(0, Duration.ofNanos(deadline - System.nanoTime()).toMillis());
+    }
+
+    @Override
+    public int getMemoryLimitInMB() {
+        return MEMORY_LIMIT_MB;
+    }
+
+    @Override
+    public LambdaLogger getLogger() {
+        return LOGGER;
+    }
+}
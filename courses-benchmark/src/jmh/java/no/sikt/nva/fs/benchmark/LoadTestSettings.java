@@ -0,0 +1,116 @@
+package no.sikt.nva.fs.benchmark;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Settings of a {@link LoadTest}, given as {@code name=value} arguments; every setting has a default.
+ */
+public final class LoadTestSettings {
+
+    public static final String HANDLER_TARGET = "handler";
+    public static final String SERVER_TARGET = "server";
+    private static final Set<String> NAMES = Set.of("target", "users", "institutions", "items", "warmupSeconds",
+                                                    "durationSeconds", "latency", "errorRate", "timeoutSeconds");
+
+    private final String target;
+    private final int users;
+    private final int institutions;
+    private final int items;
+    private final Duration warmup;
+    private final Duration duration;
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final Duration timeout;
+
+    private LoadTestSettings(final Map<String, String> values) {
+        this.target = values.getOrDefault("target", HANDLER_TARGET);
+        this.users = Integer.parseInt(values.getOrDefault("users", "8"));
+        this.institutions = Integer.parseInt(values.getOrDefault("institutions", "1"));
+        this.items = Integer.parseInt(values.getOrDefault("items", "10000"));
+        this.warmup = Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmupSeconds", "10")));
+        this.duration = Duration.ofSeconds(Long.parseLong(values.getOrDefault("durationSeconds", "60")));
+        this.latency = LatencyDistribution.parse(values.getOrDefault("latency", "none"));
+        this.errorRate = Double.parseDouble(values.getOrDefault("errorRate", "0"));
+        this.timeout = Duration.ofSeconds(Long.parseLong(values.getOrDefault("timeoutSeconds", "900")));
+        if (!HANDLER_TARGET.equals(target) && !SERVER_TARGET.equals(target)) {
+            throw new IllegalArgumentException("Unknown target, expected handler or server: " + target);
+        }
+    }
+
+    public static LoadTestSettings parse(final String... args) {
+        final Map<String, String> values = new ConcurrentHashMap<>();
+        for (final String arg : args) {
+            final String[] nameAndValue = arg.split("=", 2);
+            if (nameAndValue.length != 2 || !NAMES.contains(nameAndValue[0])) {
+                throw new IllegalArgumentException("Expected name=value with a name among " + NAMES + ": " + arg);
+            }
+            values.put(nameAndValue[0], nameAndValue[1]);
+        }
+        return new LoadTestSettings(values);
+    }
+
+    /**
+     * What is driven: the Lambda handler, of which each virtual user has its own as if it were a Lambda
+     * container, or the standalone server, which all virtual users share.
+     */
+    public String getTarget() {
+        return target;
+    }
+
+    /**
+     * How many virtual users send requests at the same time, each sending its next request when the last one is
+     * answered.
+     */
+    public int getUsers() {
+        return users;
+    }
+
+    /**
+     * How many institutions requests are spread over, each of which FS teaches the same courses.
+     */
+    public int getInstitutions() {
+        return institutions;
+    }
+
+    /**
+     * How many courses FS teaches each year.
+     */
+    public int getItems() {
+        return items;
+    }
+
+    public Duration getWarmup() {
+        return warmup;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public LatencyDistribution getLatency() {
+        return latency;
+    }
+
+    /**
+     * The share of FS requests, from 0 to 1, that fail with {@code 503 Service Unavailable}.
+     */
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    /**
+     * The timeout of the Lambda function, which each invocation of the handler is given to run.
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    @Override
+    public String toString() {
+        return target + ", " + users + " users, " + institutions + " institutions, " + items
+               + " courses a year, FS latency " + latency + ", FS error rate " + errorRate;
+    }
+}
@@ -0,0 +1,18 @@
+package no.sikt.nva.fs.benchmark;
+
+import java.io.IOException;
+
+/**
+ * What a {@link LoadTest} sends requests to. Each virtual user sends its requests from a thread of its own.
+ */
+public interface LoadTestTarget extends AutoCloseable {
+
+    /**
+     * Asks for the courses of an institution on behalf of a virtual user, and returns the status code of the
+     * answer.
+     */
+    int send(int user, int institutionCode) throws IOException;
+
+    @Override
+    void close();
+}
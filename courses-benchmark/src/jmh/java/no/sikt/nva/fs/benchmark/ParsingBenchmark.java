@@ -0,0 +1,67 @@
+package no.sikt.nva.fs.benchmark;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.Term;
+import no.sikt.nva.fs.client.TaughtCoursesPage;
+import no.sikt.nva.fs.client.TaughtCoursesParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parsing of FS responses into courses, keeping all terms or only the terms from fall onward, against the
+ * {@link BaselineCourses baseline} of binding the whole response to DTOs.
+ */
+@State(Scope.Benchmark)
+public class ParsingBenchmark {
+
+    private static final int YEAR = 2022;
+    private static final int CHUNK_SIZE = 16 * 1024;
+    private static final Set<Term> ALL_TERMS = EnumSet.allOf(Term.class);
+    private static final Set<Term> FALL_ONWARD = EnumSet.copyOf(Term.getAfterIncluding(Term.FALL));
+
+    @Param({"1000", "10000", "100000"})
+    public int itemCount;
+
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        payload = SyntheticFsPayloads.collection(SyntheticFsPayloads.courses(itemCount, YEAR));
+    }
+
+    @Benchmark
+    public TaughtCoursesPage parseAllTerms() throws IOException {
+        return TaughtCoursesParser.parse(payload, ALL_TERMS);
+    }
+
+    @Benchmark
+    public TaughtCoursesPage parseFilteringOnTerms() throws IOException {
+        return TaughtCoursesParser.parse(payload, FALL_ONWARD);
+    }
+
+    @Benchmark
+    public List<Course> parseAllTermsBaseline() throws IOException {
+        return BaselineCourses.parse(payload, ALL_TERMS);
+    }
+
+    @Benchmark
+    public List<Course> parseFilteringOnTermsBaseline() throws IOException {
+        return BaselineCourses.parse(payload, FALL_ONWARD);
+    }
+
+    @Benchmark
+    public TaughtCoursesPage parseInChunks() throws IOException {
+        final TaughtCoursesParser parser = new TaughtCoursesParser(ALL_TERMS);
+        for (int offset = 0; offset < payload.length; offset += CHUNK_SIZE) {
+            parser.feed(payload, offset, Math.min(CHUNK_SIZE, payload.length - offset));
+        }
+        return parser.finish();
+    }
+}
@@ -0,0 +1,73 @@
+package no.sikt.nva.fs.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.util.List;
+import no.sikt.nva.fs.ContentEncoding;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.CourseCatalog;
+import no.sikt.nva.fs.CourseSorter;
+import no.sikt.nva.fs.CoursesRepresentation;
+import no.sikt.nva.fs.CoursesResponse;
+import no.sikt.nva.fs.EncodedBody;
+import no.sikt.nva.fs.metrics.RequestMetrics;
+import no.unit.nva.commons.json.JsonUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Serialization of the response body, with the object mapper the handler uses, of courses held as a list of
+ * {@link Course} and as the {@link CourseCatalog} that is served, of the catalog in the other
+ * {@link CoursesRepresentation representations} a client may ask for, and of its JSON compressed with gzip.
+ */
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    private static final int YEAR = 2022;
+
+    @Param({"1000", "10000", "100000"})
+    public int itemCount;
+
+    private CoursesResponse response;
+    private CoursesResponse catalogResponse;
+
+    @Setup
+    public void setUp() {
+        final List<Course> courses = CourseSorter.sort(SyntheticFsPayloads.courses(itemCount, YEAR));
+        response = new CoursesResponse(courses);
+        catalogResponse = new CoursesResponse(CourseCatalog.copyOf(courses));
+    }
+
+    @Benchmark
+    public String serialize() throws JsonProcessingException {
+        return JsonUtils.dtoObjectMapper.writeValueAsString(response);
+    }
+
+    @Benchmark
+    public String serializeCatalog() throws JsonProcessingException {
+        return JsonUtils.dtoObjectMapper.writeValueAsString(catalogResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeCatalogBytes() throws JsonProcessingException {
+        return CoursesRepresentation.JSON.write(catalogResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeCompact() throws JsonProcessingException {
+        return CoursesRepresentation.COMPACT_JSON.write(catalogResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeCbor() throws JsonProcessingException {
+        return CoursesRepresentation.CBOR.write(catalogResponse);
+    }
+
+    @Benchmark
+    public EncodedBody serializeGzip() throws JsonProcessingException {
+        return EncodedBody.encode(CoursesRepresentation.JSON, catalogResponse, ContentEncoding.GZIP,
+                                  RequestMetrics.discarding());
+    }
+}
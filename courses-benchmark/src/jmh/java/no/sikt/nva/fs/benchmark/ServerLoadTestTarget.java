@@ -0,0 +1,59 @@
+package no.sikt.nva.fs.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Clock;
+import no.sikt.nva.fs.CoursesService;
+import no.sikt.nva.fs.server.CoursesServer;
+import no.sikt.nva.fs.snapshot.InMemoryCoursesSnapshotStore;
+import nva.commons.core.Environment;
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+
+/**
+ * Sends HTTP requests to the standalone server, started in this JVM on the port and with the worker pool
+ * configured in the environment, and shared by all virtual users.
+ */
+public final class ServerLoadTestTarget implements LoadTestTarget {
+
+    private final CoursesServer server;
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final URI coursesUri;
+    private final String institutionHeader;
+
+    public ServerLoadTestTarget(final SecretsManagerClient secretsManagerClient,
+                                final Environment environment,
+                                final Clock clock) throws IOException {
+        final CoursesService coursesService =
+            CoursesService.fromEnvironment(environment, secretsManagerClient, new InMemoryCoursesSnapshotStore(),
+                                           clock);
+        this.server = CoursesServer.start(coursesService, environment, clock);
+        this.coursesUri = URI.create("http://localhost:" + server.getPort() + "/");
+        this.institutionHeader = environment.readEnv(CoursesServer.INSTITUTION_HEADER_ENV_KEY);
+    }
+
+    /**
+     * The time includes receiving the whole body of the response.
+     */
+    @Override
+    public int send(final int user, final int institutionCode) throws IOException {
+        final HttpRequest request = HttpRequest.newBuilder(coursesUri)
+                                        .header(institutionHeader,
+                                                LoadTest.topLevelOrgCristinIdOf(institutionCode).toString())
+                                        .GET()
+                                        .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray()).statusCode();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the server", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.close();
+    }
+}
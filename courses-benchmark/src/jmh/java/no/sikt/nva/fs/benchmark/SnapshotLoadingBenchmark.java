@@ -0,0 +1,87 @@
+package no.sikt.nva.fs.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import no.sikt.nva.fs.AcademicWindow;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.CourseSorter;
+import no.sikt.nva.fs.snapshot.CoursesSnapshot;
+import no.sikt.nva.fs.snapshot.CoursesSnapshotFormat;
+import no.sikt.nva.fs.snapshot.FileSystemCoursesSnapshotStore;
+import no.unit.nva.commons.json.JsonUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Loading a stored snapshot: mapping the binary file, with and without creating every course from it, compared to
+ * reading the file and decoding every course up front, and to parsing the same snapshot from JSON.
+ */
+@State(Scope.Benchmark)
+public class SnapshotLoadingBenchmark {
+
+    private static final int YEAR = 2022;
+
+    @Param({"1000", "50000"})
+    public int itemCount;
+
+    private Path directory;
+    private Path snapshotFile;
+    private FileSystemCoursesSnapshotStore snapshotStore;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        final List<Course> courses = CourseSorter.sort(SyntheticFsPayloads.courses(itemCount, YEAR));
+        final CoursesSnapshot snapshot = new CoursesSnapshot(SyntheticFsPayloads.INSTITUTION_CODE,
+                                                             AcademicWindow.forMonth(YEAR, 8).getKey(),
+                                                             courses, "\"benchmark\"", Instant.now());
+        directory = Files.createTempDirectory("courses-snapshots");
+        snapshotStore = new FileSystemCoursesSnapshotStore(directory);
+        snapshotStore.save(snapshot);
+        try (var files = Files.list(directory)) {
+            snapshotFile = files.findFirst().orElseThrow();
+        }
+        json = JsonUtils.dtoObjectMapper.writeValueAsBytes(snapshot);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (final Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public CoursesSnapshot readBinary() throws IOException {
+        return snapshotStore.find(SyntheticFsPayloads.INSTITUTION_CODE).orElseThrow();
+    }
+
+    @Benchmark
+    public void readBinaryAndCreateAll(final Blackhole blackhole) throws IOException {
+        for (final Course course : readBinary().getCourses()) {
+            blackhole.consume(course);
+        }
+    }
+
+    @Benchmark
+    public CoursesSnapshot decodeBinary() throws IOException {
+        return CoursesSnapshotFormat.read(ByteBuffer.wrap(Files.readAllBytes(snapshotFile)));
+    }
+
+    @Benchmark
+    public CoursesSnapshot parseJson() throws IOException {
+        return JsonUtils.dtoObjectMapper.readValue(json, CoursesSnapshot.class);
+    }
+}
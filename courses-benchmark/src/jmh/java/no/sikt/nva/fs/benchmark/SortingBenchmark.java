@@ -0,0 +1,40 @@
+package no.sikt.nva.fs.benchmark;
+
+import java.util.List;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.CourseSorter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Sorting of unsorted courses by year, term and Norwegian course code, against the {@link BaselineCourses baseline}
+ * comparator.
+ */
+@State(Scope.Benchmark)
+public class SortingBenchmark {
+
+    private static final int YEAR = 2022;
+
+    @Param({"1000", "10000", "100000"})
+    public int itemCount;
+
+    private List<Course> courses;
+
+    @Setup
+    public void setUp() {
+        courses = SyntheticFsPayloads.courses(itemCount, YEAR);
+    }
+
+    @Benchmark
+    public List<Course> sort() {
+        return CourseSorter.sort(courses);
+    }
+
+    @Benchmark
+    public List<Course> sortBaseline() {
+        return BaselineCourses.sort(courses);
+    }
+}
@@ -0,0 +1,79 @@
+package no.sikt.nva.fs.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.Term;
+
+/**
+ * Generates FS {@code /undervisning} responses of a given size, shaped like the ones FS returns. Course codes
+ * include Norwegian letters, so that parsing and collation meet them as they do in production. The same
+ * arguments always give the same courses.
+ */
+public final class SyntheticFsPayloads {
+
+    public static final int INSTITUTION_CODE = 215;
+    private static final String FS_BASE_URI = "https://api.fellesstudentsystem.no";
+    private static final String[] CODE_PREFIXES = {
+        "MAT", "INF", "BIO", "FYS", "SYKP", "ENG",
+        "\u00C6KON", "\u00D8KAD", "\u00C5RSST", "\u00E6st" // ÆKON, ØKAD, ÅRSST, æst
+    };
+    private static final String[] CODE_SUFFIXES = {"", "A", "B", "\u00C6", "\u00D8", "\u00C5"}; // Æ, Ø, Å
+    private static final int PERCENT = 100;
+    private static final int SPRING_SHARE = 45;
+    private static final int FALL_SHARE = 90;
+    private static final int SUMMER_SHARE = 95;
+    private static final int MAX_COURSE_NUMBER = 10_000;
+
+    private SyntheticFsPayloads() {
+    }
+
+    public static List<Course> courses(final int count, final int year) {
+        final Random random = new Random(31L * count + year);
+        final List<Course> courses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final String code = CODE_PREFIXES[random.nextInt(CODE_PREFIXES.length)]
+                                + random.nextInt(MAX_COURSE_NUMBER)
+                                + CODE_SUFFIXES[random.nextInt(CODE_SUFFIXES.length)];
+            courses.add(new Course(code, randomTerm(random).getCode(), year));
+        }
+        return courses;
+    }
+
+    public static byte[] collection(final List<Course> courses) {
+        final StringBuilder json = new StringBuilder(courses.size() * 512);
+        json.append("{\"href\": \"").append(FS_BASE_URI).append("/undervisning\", \"rel\": [\"collection\"], ")
+            .append("\"page\": 1, \"limit\": 0, \"size\": ").append(courses.size()).append(", \"items\": [");
+        for (int i = 0; i < courses.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendItem(json, courses.get(i));
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendItem(final StringBuilder json, final Course course) {
+        json.append("{\"id\": {\"href\": \"").append(FS_BASE_URI).append("/undervisning/").append(INSTITUTION_CODE)
+            .append(',').append(course.getCode()).append(",1,").append(course.getYear()).append(',')
+            .append(course.getTerm()).append(",1\", \"emne\": {\"href\": \"").append(FS_BASE_URI).append("/emner/")
+            .append(INSTITUTION_CODE).append(',').append(course.getCode()).append(",1\", \"institusjon\": ")
+            .append(INSTITUTION_CODE).append(", \"kode\": \"").append(course.getCode())
+            .append("\", \"versjon\": \"1\"}, \"semester\": {\"href\": \"").append(FS_BASE_URI).append("/semestre/")
+            .append(course.getYear()).append(',').append(course.getTerm()).append("\", \"ar\": ")
+            .append(course.getYear()).append(", \"termin\": \"").append(course.getTerm()).append("\"}}}");
+    }
+
+    private static Term randomTerm(final Random random) {
+        final int share = random.nextInt(PERCENT);
+        if (share < SPRING_SHARE) {
+            return Term.SPRING;
+        }
+        if (share < FALL_SHARE) {
+            return Term.FALL;
+        }
+        return share < SUMMER_SHARE ? Term.SUMMER : Term.WINTER;
+    }
+}
@@ -0,0 +1,45 @@
+package no.sikt.nva.fs;
+
+import java.time.Month;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The years and terms whose courses are considered currently taught at a given point in time.
+ */
+public final class AcademicWindow {
+
+    private final SortedMap<Integer, List<Term>> yearsToTerms;
+
+    private AcademicWindow(final SortedMap<Integer, List<Term>> yearsToTerms) {
+        this.yearsToTerms = yearsToTerms;
+    }
+
+    public static AcademicWindow forMonth(final int year, final int month) {
+        final SortedMap<Integer, List<Term>> yearsToTerms = new TreeMap<>();
+        /*
+            During the first half of the year, we look up all courses for the current year. In the last half of the
+            year, we look up courses for the rest of the current year and the first half of the next year:
+         */
+        if (month > Month.JUNE.getValue()) {
+            yearsToTerms.put(year, Term.getAfterIncluding(Term.FALL));
+            yearsToTerms.put(year + 1, Term.getBeforeExcluding(Term.FALL));
+        } else {
+            yearsToTerms.put(year, Term.getAfterIncluding(Term.SPRING));
+        }
+        return new AcademicWindow(yearsToTerms);
+    }
+
+    public SortedMap<Integer, List<Term>> getYearsToTerms() {
+        return Collections.unmodifiableSortedMap(yearsToTerms);
+    }
+
+    /**
+     * Identifies the window, so that courses stored for one window are not served for another.
+     */
+    public String getKey() {
+        return yearsToTerms.toString();
+    }
+}
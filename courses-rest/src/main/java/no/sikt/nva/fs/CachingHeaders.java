@@ -0,0 +1,83 @@
+package no.sikt.nva.fs;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The caching headers of a courses response, and the check of a conditional request against them, shared by the
+ * Lambda handler and the standalone server.
+ */
+public final class CachingHeaders {
+
+    public static final String ETAG_HEADER = "ETag";
+    public static final String CACHE_CONTROL_HEADER = "Cache-Control";
+    public static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+    public static final String ACCEPT_HEADER = "Accept";
+    public static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+    public static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+    public static final String VARY_HEADER = "Vary";
+    /**
+     * The value of {@code Vary} of courses responses, which depend on the representation and coding asked for.
+     */
+    public static final String NEGOTIATED_HEADERS = ACCEPT_HEADER + ", " + ACCEPT_ENCODING_HEADER;
+    public static final String WARNING_HEADER = "Warning";
+    public static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
+    private static final String CACHE_CONTROL_TEMPLATE = "private, max-age=%d";
+    private static final String WEAK_ENTITY_TAG_PREFIX = "W/";
+    private static final String ANY_ENTITY_TAG = "*";
+
+    private CachingHeaders() {
+    }
+
+    /**
+     * Returns the {@code Cache-Control} value letting clients keep the courses until they need refreshing.
+     */
+    public static String cacheControl(final TaughtCourses taughtCourses, final Instant now) {
+        final long maxAge = Math.max(0, Duration.between(now, taughtCourses.getFreshUntil()).getSeconds());
+        return String.format(CACHE_CONTROL_TEMPLATE, maxAge);
+    }
+
+    /**
+     * Returns the headers to send along with a representation of the courses in a coding the client accepts: its
+     * entity tag and {@code Cache-Control}, and a {@code Warning} when the courses are stale. As every courses
+     * response depends on the {@link #NEGOTIATED_HEADERS}, {@code Vary} is sent with all of them, and is left to the
+     * caller.
+     */
+    public static Map<String, String> headers(final TaughtCourses taughtCourses,
+                                              final CoursesRepresentation representation,
+                                              final ContentEncoding acceptedEncoding,
+                                              final Instant now) {
+        final String entityTag = acceptedEncoding.entityTagOf(representation.entityTagOf(
+            taughtCourses.getEntityTag()));
+        return taughtCourses.isStale()
+                   ? Map.of(ETAG_HEADER, entityTag,
+                            CACHE_CONTROL_HEADER, cacheControl(taughtCourses, now),
+                            WARNING_HEADER, STALE_WARNING)
+                   : Map.of(ETAG_HEADER, entityTag,
+                            CACHE_CONTROL_HEADER, cacheControl(taughtCourses, now));
+    }
+
+    /**
+     * Tells whether any of the {@code If-None-Match} values of a request matches the entity tag, in which case the
+     * request is answered with 304 Not Modified. Each value may hold a list of entity tags, weak or strong.
+     */
+    public static boolean matchesIfNoneMatch(final Collection<String> ifNoneMatchValues, final String entityTag) {
+        return ifNoneMatchValues.stream()
+                   .filter(Objects::nonNull)
+                   .flatMap(value -> Arrays.stream(value.split(",")))
+                   .map(String::trim)
+                   .map(CachingHeaders::stripWeakPrefix)
+                   .anyMatch(candidate -> ANY_ENTITY_TAG.equals(candidate) || entityTag.equals(candidate));
+    }
+
+    private static String stripWeakPrefix(final String entityTag) {
+        return entityTag.startsWith(WEAK_ENTITY_TAG_PREFIX)
+                   ? entityTag.substring(WEAK_ENTITY_TAG_PREFIX.length())
+                   : entityTag;
+    }
+}
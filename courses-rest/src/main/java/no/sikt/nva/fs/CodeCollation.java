@@ -0,0 +1,69 @@
+package no.sikt.nva.fs;
+
+import java.text.CollationElementIterator;
+import java.text.Collator;
+import java.text.RuleBasedCollator;
+
+/**
+ * Primary keys of course codes in the Norwegian collation that courses are sorted by: the primary orders of the
+ * collation elements of a code, one {@code char} each. Primary keys leave out what only breaks ties between codes,
+ * such as case and hyphens, and compare as the codes sort. The codes whose primary key starts with that of a prefix
+ * therefore sort next to each other, which is what lets them be found by binary search.
+ */
+/* default */ final class CodeCollation {
+
+    private CodeCollation() {
+    }
+
+    /**
+     * A collator of its own, as collators are not thread safe.
+     */
+    /* default */ static RuleBasedCollator newCollator() {
+        return (RuleBasedCollator) Collator.getInstance(CourseSorter.NORWEGIAN_BOKMAL);
+    }
+
+    /**
+     * An iterator over collation elements, to be given the code to read each time; reusing it is much cheaper than
+     * creating one for every code. Not thread safe.
+     */
+    /* default */ static CollationElementIterator newElementIterator() {
+        return newCollator().getCollationElementIterator("");
+    }
+
+    /* default */ static String primaryKey(final CollationElementIterator elements, final String code) {
+        elements.setText(code);
+        final StringBuilder primaryKey = new StringBuilder(code.length());
+        for (int order = nextPrimaryOrder(elements); order != CollationElementIterator.NULLORDER;
+             order = nextPrimaryOrder(elements)) {
+            primaryKey.append((char) order);
+        }
+        return primaryKey.toString();
+    }
+
+    /**
+     * Zero if the primary key of the code starts with the given primary key of a prefix, otherwise negative or
+     * positive as the code sorts before or after the codes that do. Only reads as much of the code as it takes.
+     */
+    /* default */ static int comparePrefix(final CollationElementIterator elements, final String code,
+                                           final String prefixKey) {
+        elements.setText(code);
+        for (int i = 0; i < prefixKey.length(); i++) {
+            // A code that ends before the prefix does sorts before it, and NULLORDER is below every order:
+            final int codeOrder = nextPrimaryOrder(elements);
+            if (codeOrder != prefixKey.charAt(i)) {
+                return Integer.compare(codeOrder, prefixKey.charAt(i));
+            }
+        }
+        return 0;
+    }
+
+    private static int nextPrimaryOrder(final CollationElementIterator elements) {
+        int element = elements.next();
+        while (element != CollationElementIterator.NULLORDER && CollationElementIterator.primaryOrder(element) == 0) {
+            element = elements.next();
+        }
+        return element == CollationElementIterator.NULLORDER
+                   ? CollationElementIterator.NULLORDER
+                   : CollationElementIterator.primaryOrder(element);
+    }
+}
@@ -0,0 +1,96 @@
+package no.sikt.nva.fs;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import javax.net.ssl.SSLContext;
+import no.sikt.nva.fs.cache.CachedCourses;
+import no.sikt.nva.fs.client.TaughtCoursesParser;
+import no.sikt.nva.fs.config.FsConfig;
+import no.sikt.nva.fs.snapshot.CoursesSnapshot;
+import no.sikt.nva.fs.snapshot.CoursesSnapshotFormat;
+import no.unit.nva.commons.json.JsonUtils;
+import nva.commons.apigateway.RequestInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the code paths that are slow the first time they are used on synthetic data: creating Jackson
+ * (de)serializers for the request, the FS configuration and the response, parsing an FS page, parsing the collation
+ * rules of the Norwegian {@link java.text.Collator}, computing entity tags, reading a snapshot, building a course
+ * code index, and loading the TLS provider and HTTP client. Meant to run while the Lambda container initializes,
+ * which is given extra CPU, so that the first user request does not pay for it.
+ *
+ * <p>Priming is an optimization only. If it fails, the failure is logged and the paths are left to be initialized
+ * by the first request as before.
+ */
+public final class ColdStartPriming {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ColdStartPriming.class);
+    private static final String SYNTHETIC_FS_CONFIG = "{\"baseUri\": \"https://fs.invalid\", \"institutions\": ["
+                                                      + "{\"code\": 0, \"username\": \"priming\", "
+                                                      + "\"password\": \"priming\"}]}";
+    private static final String SYNTHETIC_REQUEST = "{}";
+    private static final String SYNTHETIC_URI = "https://fs.invalid/undervisning";
+    private static final String SYNTHETIC_ENTITY_TAG = "\"priming\"";
+    private static final String ITEM_TEMPLATE = "{\"id\": {\"emne\": {\"kode\": \"%s\"}, "
+                                                + "\"semester\": {\"ar\": %d, \"termin\": \"%s\"}}}";
+    private static final String FIRST_CODE = "\u00C6RE101"; // ÆRE101
+    private static final String SECOND_CODE = "\u00D8KO200"; // ØKO200
+    private static final String THIRD_CODE = "\u00C5RS300"; // ÅRS300
+    private static final String FOURTH_CODE = "ABC400";
+    private static final int YEAR = 2022;
+
+    private ColdStartPriming() {
+    }
+
+    public static void prime() {
+        final long startNanos = System.nanoTime();
+        try {
+            JsonUtils.dtoObjectMapper.readValue(SYNTHETIC_REQUEST, RequestInfo.class);
+            JsonUtils.dtoObjectMapper.readValue(SYNTHETIC_FS_CONFIG, FsConfig.class);
+            final List<Course> courses = CourseSorter.sort(parseSyntheticPage());
+            final CachedCourses cachedCourses = new CachedCourses(courses, Instant.EPOCH);
+            JsonUtils.dtoObjectMapper.writeValueAsString(new CoursesResponse(readBackSnapshot(cachedCourses)));
+            CourseCodeIndex.build(new TaughtCourses(courses, SYNTHETIC_ENTITY_TAG, Instant.EPOCH))
+                .complete(FOURTH_CODE, 1);
+            primeHttpClient();
+            LOGGER.info("Primed cold start paths in {} ms", Duration.ofNanos(System.nanoTime() - startNanos)
+                                                                .toMillis());
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            LOGGER.warn("Priming cold start paths failed, leaving them to the first request", e);
+        }
+    }
+
+    private static List<Course> parseSyntheticPage() throws IOException {
+        final String items = String.join(",",
+                                         String.format(ITEM_TEMPLATE, FIRST_CODE, YEAR, Term.FALL.getCode()),
+                                         String.format(ITEM_TEMPLATE, SECOND_CODE, YEAR, Term.SPRING.getCode()),
+                                         String.format(ITEM_TEMPLATE, THIRD_CODE, YEAR, Term.SUMMER.getCode()),
+                                         String.format(ITEM_TEMPLATE, FOURTH_CODE, YEAR, Term.WINTER.getCode()));
+        final byte[] page = ("{\"items\": [" + items + "]}").getBytes(StandardCharsets.UTF_8);
+        return TaughtCoursesParser.parse(page, EnumSet.allOf(Term.class)).getCourses();
+    }
+
+    private static List<Course> readBackSnapshot(final CachedCourses cachedCourses) throws IOException {
+        final CoursesSnapshot snapshot = new CoursesSnapshot(0, AcademicWindow.forMonth(YEAR, 1).getKey(),
+                                                             cachedCourses.getCourses(), SYNTHETIC_ENTITY_TAG,
+                                                             cachedCourses.getFreshUntil());
+        return CoursesSnapshotFormat.read(ByteBuffer.wrap(CoursesSnapshotFormat.write(snapshot))).getCourses();
+    }
+
+    private static void primeHttpClient() throws GeneralSecurityException {
+        SSLContext.getDefault().createSSLEngine().getSupportedCipherSuites();
+        // No request is sent; building the client and a request loads and initializes their classes:
+        HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+        HttpRequest.newBuilder(URI.create(SYNTHETIC_URI)).GET().build();
+    }
+}
@@ -0,0 +1,104 @@
+package no.sikt.nva.fs;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The slim shape of a {@link CoursesResponse}: the courses grouped by year and term, each group listing only the
+ * codes of its courses, in the order of the response.
+ *
+ * <pre>{@code
+ * {"type":"CompactCourseList",
+ *  "terms":[{"year":2023,"term":"VÅR","codes":["A","B"]},{"year":2023,"term":"HØST","codes":["A"]}],
+ *  "nextCursor":"..."}
+ * }</pre>
+ *
+ * <p>The year and term are written once a group rather than once a course, and no course repeats its type, which
+ * makes it a fraction of the size of the default shape for institutions teaching many courses.
+ */
+@JsonSerialize(using = CompactCoursesResponse.Serializer.class)
+public final class CompactCoursesResponse {
+
+    private static final SerializableString TYPE_FIELD = new SerializedString("type");
+    private static final SerializableString COMPACT_COURSE_LIST_TYPE = new SerializedString("CompactCourseList");
+    private static final SerializableString TERMS_FIELD = new SerializedString("terms");
+    private static final SerializableString YEAR_FIELD = new SerializedString("year");
+    private static final SerializableString TERM_FIELD = new SerializedString("term");
+    private static final SerializableString CODES_FIELD = new SerializedString("codes");
+    private static final SerializableString NEXT_CURSOR_FIELD = new SerializedString("nextCursor");
+    private static final SerializableString[] TERM_CODES = Arrays.stream(Term.values())
+                                                               .map(term -> new SerializedString(term.getCode()))
+                                                               .toArray(SerializableString[]::new);
+
+    private final CourseCatalog courses;
+    private final String nextCursor;
+
+    private CompactCoursesResponse(final CourseCatalog courses, final String nextCursor) {
+        this.courses = courses;
+        this.nextCursor = nextCursor;
+    }
+
+    public static CompactCoursesResponse from(final CoursesResponse response) {
+        return new CompactCoursesResponse(CourseCatalog.copyOf(response.getCourses()), response.getNextCursor());
+    }
+
+    private void writeJson(final JsonGenerator generator) throws IOException {
+        generator.writeStartObject(this);
+        generator.writeFieldName(TYPE_FIELD);
+        generator.writeString(COMPACT_COURSE_LIST_TYPE);
+        generator.writeFieldName(TERMS_FIELD);
+        generator.writeStartArray();
+        int start = 0;
+        while (start < courses.size()) {
+            final long yearAndTerm = courses.getYearAndTerm(start);
+            int end = start + 1;
+            while (end < courses.size() && courses.getYearAndTerm(end) == yearAndTerm) {
+                end++;
+            }
+            writeGroup(generator, start, end);
+            start = end;
+        }
+        generator.writeEndArray();
+        if (nextCursor != null) {
+            generator.writeFieldName(NEXT_CURSOR_FIELD);
+            generator.writeString(nextCursor);
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeGroup(final JsonGenerator generator, final int start, final int end) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(YEAR_FIELD);
+        generator.writeNumber(courses.getYear(start));
+        generator.writeFieldName(TERM_FIELD);
+        generator.writeString(TERM_CODES[courses.getTerm(start).ordinal()]);
+        generator.writeFieldName(CODES_FIELD);
+        generator.writeStartArray(courses, end - start);
+        for (int index = start; index < end; index++) {
+            generator.writeString(courses.getCode(index));
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    /* default */ static final class Serializer extends StdSerializer<CompactCoursesResponse> {
+
+        private static final long serialVersionUID = 1L;
+
+        /* default */ Serializer() {
+            super(CompactCoursesResponse.class);
+        }
+
+        @Override
+        public void serialize(final CompactCoursesResponse response, final JsonGenerator generator,
+                              final SerializerProvider provider) throws IOException {
+            response.writeJson(generator);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package no.sikt.nva.fs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The content codings a response body can be sent in, of which the client accepts some by the
+ * {@code Accept-Encoding} header. Only gzip is offered: the JDK has no Brotli encoder, and gzip is what every client
+ * decodes.
+ */
+public enum ContentEncoding {
+
+    IDENTITY("identity"),
+    GZIP("gzip");
+
+    private static final double NOT_ACCEPTABLE = 0;
+    private static final String ANY_CODING = "*";
+    private static final String WEAK_ENTITY_TAG_PREFIX = "W/";
+
+    private final String name;
+
+    ContentEncoding(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Picks gzip when the {@code Accept-Encoding} values of a request accept it, by name or by {@code *}, with a
+     * quality above zero; a coding named outright overrides {@code *}. Otherwise the body is sent as it is.
+     */
+    public static ContentEncoding negotiate(final Collection<String> acceptEncodingValues) {
+        final String[] codings = QualityValues.elements(acceptEncodingValues);
+        final Optional<Double> gzipQuality = findQuality(GZIP.name, codings);
+        final double quality = gzipQuality.isPresent()
+                                   ? gzipQuality.orElseThrow()
+                                   : findQuality(ANY_CODING, codings).orElse(NOT_ACCEPTABLE);
+        return quality > NOT_ACCEPTABLE ? GZIP : IDENTITY;
+    }
+
+    /**
+     * The value of {@code Content-Encoding}.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The entity tag to send along with a representation having the given entity tag when this coding is
+     * accepted. A compressed body is not byte for byte the representation, so the tag is weakened, which still
+     * lets {@code If-None-Match} match it; it is weakened whether or not a particular body turns out to be worth
+     * compressing, so that 304 Not Modified responses carry the same tag without having the body at hand.
+     */
+    public String entityTagOf(final String entityTag) {
+        return this == IDENTITY || entityTag.startsWith(WEAK_ENTITY_TAG_PREFIX)
+                   ? entityTag
+                   : WEAK_ENTITY_TAG_PREFIX + entityTag;
+    }
+
+    /**
+     * Encodes a body in this coding.
+     */
+    public byte[] encode(final byte[] body) {
+        if (this == IDENTITY) {
+            return body;
+        }
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Writing to memory failed", e);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static Optional<Double> findQuality(final String coding, final String... codings) {
+        return Arrays.stream(codings)
+                   .map(value -> value.split(QualityValues.PARAMETER_SEPARATOR))
+                   .filter(nameAndParameters -> coding.equals(nameAndParameters[0].trim().toLowerCase(Locale.ROOT)))
+                   .findFirst()
+                   .map(QualityValues::qualityOf);
+    }
+}
@@ -0,0 +1,280 @@
+package no.sikt.nva.fs;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list of courses stored as columns rather than as one object each: the year and term ordinal of every
+ * course, and an index into a dictionary holding each course code once. That takes 9 bytes a course, plus the codes,
+ * which is what lets the cache hold the courses of many institutions at once. Courses are created when they are
+ * asked for, and are not needed for writing the catalog as JSON, which is done straight from the columns in the form
+ * Jackson gives a list of {@link Course}.
+ *
+ * <p>Sub-lists, ranges and concatenations of catalogs sharing a dictionary share the columns too. Ranges by year and
+ * term assume courses sorted by year and term, as {@link CourseSorter} does.
+ */
+@JsonSerialize(using = CourseCatalog.Serializer.class)
+public final class CourseCatalog extends AbstractList<Course> implements RandomAccess {
+
+    private static final Term[] TERMS = Term.values();
+    private static final CourseCatalog EMPTY_CATALOG = new CourseCatalog(new String[0], new int[0], new int[0],
+                                                                         new byte[0]);
+    private static final SerializableString TYPE_FIELD = new SerializedString("type");
+    private static final SerializableString COURSE_TYPE = new SerializedString(Course.class.getSimpleName());
+    private static final SerializableString CODE_FIELD = new SerializedString("code");
+    private static final SerializableString TERM_FIELD = new SerializedString("term");
+    private static final SerializableString YEAR_FIELD = new SerializedString("year");
+    private static final SerializableString[] TERM_CODES = Arrays.stream(TERMS)
+                                                               .map(term -> new SerializedString(term.getCode()))
+                                                               .toArray(SerializableString[]::new);
+    private static final int NOT_IN_DICTIONARY = -1;
+    private static final int SINGLE_CATALOG = 1;
+
+    private final String[] codes;
+    private final int[] codeIndexes;
+    private final int[] years;
+    private final byte[] terms;
+    private final int offset;
+    private final int length;
+
+    private CourseCatalog(final String[] codes, final int[] codeIndexes, final int[] years, final byte[] terms) {
+        this(codes, codeIndexes, years, terms, 0, years.length);
+    }
+
+    private CourseCatalog(final String[] codes, final int[] codeIndexes, final int[] years, final byte[] terms,
+                          final int offset, final int length) {
+        super();
+        this.codes = codes;
+        this.codeIndexes = codeIndexes;
+        this.years = years;
+        this.terms = terms;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public static CourseCatalog empty() {
+        return EMPTY_CATALOG;
+    }
+
+    /**
+     * Returns the courses as a catalog, in the same order; a catalog is returned as it is.
+     */
+    public static CourseCatalog copyOf(final List<Course> courses) {
+        if (courses instanceof CourseCatalog) {
+            return (CourseCatalog) courses;
+        }
+        final CodeDictionary dictionary = new CodeDictionary();
+        final int[] codeIndexes = new int[courses.size()];
+        final int[] years = new int[courses.size()];
+        final byte[] terms = new byte[courses.size()];
+        int index = 0;
+        for (final Course course : courses) {
+            codeIndexes[index] = dictionary.indexOf(course.getCode());
+            years[index] = course.getYear();
+            terms[index] = (byte) Term.fromCode(course.getTerm()).ordinal();
+            index++;
+        }
+        return new CourseCatalog(dictionary.toArray(), codeIndexes, years, terms);
+    }
+
+    /**
+     * Returns a catalog of columns already decoded, such as those of a snapshot. The arrays are kept, not copied, and
+     * every code index and term ordinal must be within bounds.
+     */
+    public static CourseCatalog fromColumns(final String[] codes, final int[] codeIndexes, final int[] years,
+                                            final byte[] terms) {
+        return new CourseCatalog(codes, codeIndexes, years, terms);
+    }
+
+    /**
+     * Returns the courses of the catalogs one after the other. Catalogs that share a dictionary are concatenated by
+     * copying their columns; otherwise the codes they use are gathered into a new dictionary.
+     */
+    public static CourseCatalog concat(final List<CourseCatalog> catalogs) {
+        if (catalogs.size() == SINGLE_CATALOG) {
+            return catalogs.get(0);
+        }
+        final int totalSize = catalogs.stream().mapToInt(CourseCatalog::size).sum();
+        final int[] codeIndexes = new int[totalSize];
+        final int[] years = new int[totalSize];
+        final byte[] terms = new byte[totalSize];
+        final String[] sharedCodes = catalogs.isEmpty() ? EMPTY_CATALOG.codes : catalogs.get(0).codes;
+        final boolean shareDictionary = catalogs.stream()
+                                            .allMatch(catalog -> Arrays.equals(catalog.codes, sharedCodes));
+        final CodeDictionary dictionary = new CodeDictionary();
+        int position = 0;
+        for (final CourseCatalog catalog : catalogs) {
+            System.arraycopy(catalog.years, catalog.offset, years, position, catalog.length);
+            System.arraycopy(catalog.terms, catalog.offset, terms, position, catalog.length);
+            if (shareDictionary) {
+                System.arraycopy(catalog.codeIndexes, catalog.offset, codeIndexes, position, catalog.length);
+            } else {
+                catalog.copyCodeIndexesInto(dictionary, codeIndexes, position);
+            }
+            position += catalog.length;
+        }
+        return new CourseCatalog(shareDictionary ? sharedCodes : dictionary.toArray(), codeIndexes, years, terms);
+    }
+
+    @Override
+    public Course get(final int index) {
+        return new Course(getCode(index), getTerm(index).getCode(), getYear(index));
+    }
+
+    @Override
+    public int size() {
+        return length;
+    }
+
+    public String getCode(final int index) {
+        return codes[codeIndexes[offset + Objects.checkIndex(index, length)]];
+    }
+
+    public Term getTerm(final int index) {
+        return TERMS[terms[offset + Objects.checkIndex(index, length)]];
+    }
+
+    public int getYear(final int index) {
+        return years[offset + Objects.checkIndex(index, length)];
+    }
+
+    /**
+     * The sort key of the year and term of a course, as given by {@link CourseSorter#yearAndTerm(int, int)}.
+     */
+    public long getYearAndTerm(final int index) {
+        return CourseSorter.yearAndTerm(getYear(index), getTerm(index).getSeqNo());
+    }
+
+    /**
+     * A view of the courses from one index up to, but not including, another.
+     */
+    @Override
+    public CourseCatalog subList(final int fromIndex, final int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, length);
+        return new CourseCatalog(codes, codeIndexes, years, terms, offset + fromIndex, toIndex - fromIndex);
+    }
+
+    /**
+     * A view of the courses of a year and term, found by binary search.
+     */
+    public CourseCatalog range(final int year, final Term term) {
+        final long yearAndTerm = CourseSorter.yearAndTerm(year, term.getSeqNo());
+        final int start = lowerBound(yearAndTerm);
+        return subList(start, lowerBound(yearAndTerm + 1));
+    }
+
+    /**
+     * The distinct codes of the courses, in the order they are first taught.
+     */
+    public List<String> distinctCodes() {
+        final boolean[] seen = new boolean[codes.length];
+        final List<String> distinctCodes = new ArrayList<>();
+        for (int index = offset; index < offset + length; index++) {
+            if (!seen[codeIndexes[index]]) {
+                seen[codeIndexes[index]] = true;
+                distinctCodes.add(codes[codeIndexes[index]]);
+            }
+        }
+        return distinctCodes;
+    }
+
+    /**
+     * Writes the courses as a JSON array of course objects, the same as Jackson writes a list of {@link Course}.
+     */
+    public void writeJson(final JsonGenerator generator) throws IOException {
+        generator.writeStartArray(this, length);
+        for (int index = offset; index < offset + length; index++) {
+            generator.writeStartObject();
+            generator.writeFieldName(TYPE_FIELD);
+            generator.writeString(COURSE_TYPE);
+            generator.writeFieldName(CODE_FIELD);
+            generator.writeString(codes[codeIndexes[index]]);
+            generator.writeFieldName(TERM_FIELD);
+            generator.writeString(TERM_CODES[terms[index]]);
+            generator.writeFieldName(YEAR_FIELD);
+            generator.writeNumber(years[index]);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private int lowerBound(final long yearAndTerm) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (getYearAndTerm(middle) < yearAndTerm) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void copyCodeIndexesInto(final CodeDictionary dictionary, final int[] target, final int position) {
+        // Only the codes that are used are looked up, each once:
+        final int[] dictionaryIndexes = new int[codes.length];
+        Arrays.fill(dictionaryIndexes, NOT_IN_DICTIONARY);
+        for (int index = 0; index < length; index++) {
+            final int codeIndex = codeIndexes[offset + index];
+            if (dictionaryIndexes[codeIndex] == NOT_IN_DICTIONARY) {
+                dictionaryIndexes[codeIndex] = dictionary.indexOf(codes[codeIndex]);
+            }
+            target[position + index] = dictionaryIndexes[codeIndex];
+        }
+    }
+
+    /**
+     * Assigns each code an index the first time it is seen.
+     */
+    private static final class CodeDictionary {
+
+        private final Map<String, Integer> indexes;
+        private final List<String> codes = new ArrayList<>();
+
+        private CodeDictionary() {
+            // Only ever used by the thread concatenating catalogs:
+            this.indexes = new HashMap<>();
+        }
+
+        private int indexOf(final String code) {
+            return indexes.computeIfAbsent(code, ignored -> {
+                codes.add(code);
+                return codes.size() - 1;
+            });
+        }
+
+        private String[] toArray() {
+            return codes.toArray(new String[0]);
+        }
+    }
+
+    /* default */ static final class Serializer extends StdSerializer<CourseCatalog> {
+
+        private static final long serialVersionUID = 1L;
+
+        /* default */ Serializer() {
+            super(CourseCatalog.class);
+        }
+
+        @Override
+        public void serialize(final CourseCatalog catalog, final JsonGenerator generator,
+                              final SerializerProvider provider) throws IOException {
+            catalog.writeJson(generator);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package no.sikt.nva.fs;
+
+import java.text.CollationElementIterator;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The distinct codes of the courses an institution teaches, for completing a code as the user types it. Codes are
+ * kept in arrays ordered by primary key (see {@link CodeCollation}), so the codes starting with a prefix, regardless
+ * of case, are a range found by binary search. Completing reads nothing but that range, and is meant to be cheap
+ * enough to do for every keystroke; the index is built once for each version of the courses, as told by their
+ * entity tag.
+ */
+public final class CourseCodeIndex {
+
+    private final String[] codes;
+    private final String[] primaryKeys;
+    private final String entityTag;
+
+    private CourseCodeIndex(final String[] codes, final String[] primaryKeys, final String entityTag) {
+        this.codes = codes;
+        this.primaryKeys = primaryKeys;
+        this.entityTag = entityTag;
+    }
+
+    public static CourseCodeIndex build(final TaughtCourses taughtCourses) {
+        final CollationElementIterator elements = CodeCollation.newElementIterator();
+        final Collator collator = CodeCollation.newCollator();
+        // Codes of equal primary keys, which are few, are ordered the way courses are sorted:
+        final Comparator<IndexedCode> order = Comparator.<IndexedCode, String>comparing(indexed -> indexed.primaryKey)
+                                                  .thenComparing(indexed -> indexed.code, collator);
+        final List<IndexedCode> indexedCodes = taughtCourses.getCourses().distinctCodes().stream()
+                                                   .map(code -> new IndexedCode(code, elements))
+                                                   .sorted(order)
+                                                   .collect(Collectors.toList());
+        final String[] codes = new String[indexedCodes.size()];
+        final String[] primaryKeys = new String[indexedCodes.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = indexedCodes.get(i).code;
+            primaryKeys[i] = indexedCodes.get(i).primaryKey;
+        }
+        return new CourseCodeIndex(codes, primaryKeys, taughtCourses.getEntityTag());
+    }
+
+    /**
+     * Returns the first codes, at most as many as the limit, that start with the prefix, in the order courses are
+     * sorted by code.
+     */
+    public List<String> complete(final String prefix, final int limit) {
+        final String prefixKey = CodeCollation.primaryKey(CodeCollation.newElementIterator(), prefix);
+        final List<String> completions = new ArrayList<>();
+        for (int i = lowerBound(prefixKey); i < codes.length && completions.size() < limit
+                                            && primaryKeys[i].startsWith(prefixKey); i++) {
+            completions.add(codes[i]);
+        }
+        return completions;
+    }
+
+    public String getEntityTag() {
+        return entityTag;
+    }
+
+    public int size() {
+        return codes.length;
+    }
+
+    private int lowerBound(final String primaryKey) {
+        int low = 0;
+        int high = primaryKeys.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (primaryKeys[middle].compareTo(primaryKey) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static final class IndexedCode {
+
+        private final String code;
+        private final String primaryKey;
+
+        private IndexedCode(final String code, final CollationElementIterator elements) {
+            this.code = code;
+            this.primaryKey = CodeCollation.primaryKey(elements, code);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package no.sikt.nva.fs;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.time.Clock;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import no.sikt.nva.fs.client.Deadline;
+import no.sikt.nva.fs.metrics.EmfWriter;
+import no.sikt.nva.fs.metrics.RequestMetrics;
+import no.sikt.nva.fs.snapshot.CoursesSnapshotStore;
+import no.sikt.nva.fs.snapshot.S3CoursesSnapshotStore;
+import nva.commons.apigateway.ApiGatewayHandler;
+import nva.commons.apigateway.RequestInfo;
+import nva.commons.apigateway.exceptions.ApiGatewayException;
+import nva.commons.core.Environment;
+import nva.commons.core.JacocoGenerated;
+import nva.commons.secrets.SecretsReader;
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+
+/**
+ * Completes the course code the user is typing with codes of courses currently taught by the institution of the
+ * logged-in user, for a typeahead. Answers with a few codes rather than the courses themselves.
+ */
+public class CourseCodesByInstitutionOfLoggedInUserHandler extends ApiGatewayHandler<Void, CourseCodesResponse> {
+
+    static {
+        // Lambda loads the handler class while the container initializes, before any user request waits for it:
+        ColdStartPriming.prime();
+    }
+
+    private final CoursesService coursesService;
+    private final EmfWriter metricsWriter;
+
+    @JacocoGenerated
+    public CourseCodesByInstitutionOfLoggedInUserHandler() {
+        this(SecretsReader.defaultSecretsManagerClient(),
+             S3CoursesSnapshotStore.fromEnvironment(new Environment()),
+             Clock.system(ZoneId.systemDefault()));
+    }
+
+    public CourseCodesByInstitutionOfLoggedInUserHandler(final SecretsManagerClient secretsManagerClient,
+                                                         final CoursesSnapshotStore snapshotStore,
+                                                         final Clock clock) {
+        super(Void.class);
+        final Environment environment = new Environment();
+        this.coursesService = CoursesService.fromEnvironment(environment, secretsManagerClient, snapshotStore, clock);
+        this.metricsWriter = EmfWriter.fromEnvironment(environment, clock);
+    }
+
+    @Override
+    protected CourseCodesResponse processInput(final Void input,
+                                               final RequestInfo requestInfo,
+                                               final Context context) throws ApiGatewayException {
+        final RequestMetrics metrics = new RequestMetrics();
+        try {
+            return completeCourseCode(requestInfo, metrics, CoursesService.deadlineOf(context));
+        } finally {
+            metricsWriter.write(metrics);
+        }
+    }
+
+    private CourseCodesResponse completeCourseCode(final RequestInfo requestInfo, final RequestMetrics metrics,
+                                                   final Deadline deadline)
+        throws ApiGatewayException {
+        final CourseCodesQuery query = CourseCodesQuery.fromParameters(requestInfo.getQueryParameters());
+        final Optional<URI> topLevelOrgCristinId = requestInfo.getTopLevelOrgCristinId();
+        if (topLevelOrgCristinId.isPresent()) {
+            final int institutionCode = CoursesService.institutionCodeOf(topLevelOrgCristinId.orElseThrow());
+            metrics.setInstitutionCode(institutionCode);
+            final Optional<List<String>> codes = coursesService.completeCourseCode(institutionCode, query.getPrefix(),
+                                                                                   query.getLimit(), metrics,
+                                                                                   deadline);
+            if (codes.isPresent()) {
+                return new CourseCodesResponse(codes.orElseThrow());
+            }
+        }
+        return new CourseCodesResponse();
+    }
+
+    @Override
+    protected Integer getSuccessStatusCode(Void input, CourseCodesResponse output) {
+        return HttpURLConnection.HTTP_OK;
+    }
+}
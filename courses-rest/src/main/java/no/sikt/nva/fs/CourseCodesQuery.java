@@ -0,0 +1,42 @@
+package no.sikt.nva.fs;
+
+import java.util.Map;
+import java.util.Optional;
+import nva.commons.apigateway.exceptions.BadRequestException;
+
+/**
+ * A prefix of a course code to complete, and how many completions to return at most. Without a prefix, the first
+ * codes are returned.
+ */
+public final class CourseCodesQuery {
+
+    public static final String PREFIX_PARAMETER = "prefix";
+    public static final String LIMIT_PARAMETER = "limit";
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 50;
+
+    private final String prefix;
+    private final int limit;
+
+    private CourseCodesQuery(final String prefix, final int limit) {
+        this.prefix = prefix;
+        this.limit = limit;
+    }
+
+    /**
+     * Reads the query from request parameters; a limit above {@link #MAX_LIMIT} is lowered to it.
+     */
+    public static CourseCodesQuery fromParameters(final Map<String, String> parameters) throws BadRequestException {
+        final Map<String, String> present = Optional.ofNullable(parameters).orElse(Map.of());
+        final int limit = CoursesQuery.readWholeNumber(present, LIMIT_PARAMETER, 1).orElse(DEFAULT_LIMIT);
+        return new CourseCodesQuery(present.getOrDefault(PREFIX_PARAMETER, ""), Math.min(limit, MAX_LIMIT));
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+}
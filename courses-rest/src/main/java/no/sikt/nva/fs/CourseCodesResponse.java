@@ -0,0 +1,28 @@
+package no.sikt.nva.fs;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import java.util.Collections;
+import java.util.List;
+
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+@JsonTypeName("CourseCodeList")
+public class CourseCodesResponse {
+
+    private final List<String> codes;
+
+    public CourseCodesResponse() {
+        this(Collections.emptyList());
+    }
+
+    @JsonCreator
+    public CourseCodesResponse(@JsonProperty("codes") final List<String> codes) {
+        this.codes = codes;
+    }
+
+    public List<String> getCodes() {
+        return codes;
+    }
+}
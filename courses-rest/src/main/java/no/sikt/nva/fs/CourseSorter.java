@@ -0,0 +1,79 @@
+package no.sikt.nva.fs;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Sorts courses by year, then by term, then by code in Norwegian alphabetical order.
+ *
+ * <p>Every course is given a sort key once: year and term packed into a {@code long}, and a collation key of the
+ * code. The keys are then sorted, instead of comparing courses with a {@link Collator} over and over. Large inputs
+ * are sorted in parallel. Both sorts are stable, so courses that compare as equal keep their order.
+ */
+public final class CourseSorter {
+
+    public static final int PARALLEL_SORT_THRESHOLD = 8192;
+    /* default */ static final Locale NORWEGIAN_BOKMAL = new Locale("nb", "NO");
+
+    private CourseSorter() {
+    }
+
+    public static List<Course> sort(final List<Course> courses) {
+        // Collators are not thread safe, so each sort gets its own:
+        final Collator collator = Collator.getInstance(NORWEGIAN_BOKMAL);
+        final SortKey[] sortKeys = new SortKey[courses.size()];
+        for (int i = 0; i < sortKeys.length; i++) {
+            sortKeys[i] = createSortKey(courses.get(i), collator);
+        }
+
+        if (sortKeys.length >= PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(sortKeys);
+        } else {
+            Arrays.sort(sortKeys);
+        }
+
+        final List<Course> sortedCourses = new ArrayList<>(sortKeys.length);
+        for (final SortKey sortKey : sortKeys) {
+            sortedCourses.add(sortKey.course);
+        }
+        return sortedCourses;
+    }
+
+    /**
+     * Year and term sequence number packed into a {@code long} that orders courses the way they are sorted.
+     */
+    /* default */ static long yearAndTerm(final int year, final int termSeqNo) {
+        return (long) year << Integer.SIZE | termSeqNo;
+    }
+
+    /* default */ static long yearAndTerm(final Course course) {
+        return yearAndTerm(course.getYear(), Term.fromCode(course.getTerm()).getSeqNo());
+    }
+
+    private static SortKey createSortKey(final Course course, final Collator collator) {
+        return new SortKey(yearAndTerm(course), collator.getCollationKey(course.getCode()), course);
+    }
+
+    private static final class SortKey implements Comparable<SortKey> {
+
+        private final long yearAndTerm;
+        private final CollationKey codeKey;
+        private final Course course;
+
+        private SortKey(final long yearAndTerm, final CollationKey codeKey, final Course course) {
+            this.yearAndTerm = yearAndTerm;
+            this.codeKey = codeKey;
+            this.course = course;
+        }
+
+        @Override
+        public int compareTo(final SortKey other) {
+            final int result = Long.compare(yearAndTerm, other.yearAndTerm);
+            return result == 0 ? codeKey.compareTo(other.codeKey) : result;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package no.sikt.nva.fs;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Clock;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import no.sikt.nva.fs.snapshot.CoursesSnapshotStore;
+import no.sikt.nva.fs.snapshot.S3CoursesSnapshotStore;
+import no.unit.nva.commons.json.JsonUtils;
+import nva.commons.core.Environment;
+import nva.commons.core.JacocoGenerated;
+import nva.commons.secrets.SecretsReader;
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+
+/**
+ * Returns the courses currently taught by each of a list of institutions, for admin and reporting tools that would
+ * otherwise call the courses endpoint once per institution. Invoked directly, with an event like
+ * {@code {"institutionCodes": [215, 185]}}, and access is granted by IAM.
+ *
+ * <p>Institutions are fetched side by side, at most {@code COURSES_BATCH_CONCURRENCY} (default 8) at a time. Each
+ * institution gets its own result, so an institution that is not configured for FS, or whose courses FS fails to
+ * return, does not fail the others.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads") // Fetches the courses of the institutions in a batch on a pool of its own
+public class CoursesBatchHandler implements RequestStreamHandler {
+
+    public static final String CONCURRENCY_ENV_KEY = "COURSES_BATCH_CONCURRENCY";
+    public static final int DEFAULT_CONCURRENCY = 8;
+
+    private final CoursesService coursesService;
+    private final ExecutorService executor;
+
+    @JacocoGenerated
+    public CoursesBatchHandler() {
+        this(SecretsReader.defaultSecretsManagerClient(),
+             S3CoursesSnapshotStore.fromEnvironment(new Environment()),
+             Clock.system(ZoneId.systemDefault()));
+    }
+
+    public CoursesBatchHandler(final SecretsManagerClient secretsManagerClient,
+                               final CoursesSnapshotStore snapshotStore,
+                               final Clock clock) {
+        final Environment environment = new Environment();
+        this.coursesService = CoursesService.fromEnvironment(environment, secretsManagerClient, snapshotStore, clock);
+        this.executor = Executors.newFixedThreadPool(environment.readEnvOpt(CONCURRENCY_ENV_KEY)
+                                                         .map(Integer::parseInt)
+                                                         .orElse(DEFAULT_CONCURRENCY));
+    }
+
+    @Override
+    public void handleRequest(final InputStream input, final OutputStream output, final Context context)
+        throws IOException {
+        final CoursesBatchRequest request = JsonUtils.dtoObjectMapper.readValue(input, CoursesBatchRequest.class);
+        final List<InstitutionCoursesResult> results =
+            coursesService.getCurrentlyTaughtCourses(request.getInstitutionCodes(), executor,
+                                                     CoursesService.deadlineOf(context));
+        JsonUtils.dtoObjectMapper.writeValue(output, new CoursesBatchResponse(results));
+    }
+}
@@ -0,0 +1,19 @@
+package no.sikt.nva.fs;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+public class CoursesBatchRequest {
+
+    private final List<Integer> institutionCodes;
+
+    @JsonCreator
+    public CoursesBatchRequest(@JsonProperty("institutionCodes") final List<Integer> institutionCodes) {
+        this.institutionCodes = institutionCodes;
+    }
+
+    public List<Integer> getInstitutionCodes() {
+        return institutionCodes;
+    }
+}
@@ -0,0 +1,23 @@
+package no.sikt.nva.fs;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import java.util.List;
+
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+@JsonTypeName("InstitutionCoursesList")
+public class CoursesBatchResponse {
+
+    private final List<InstitutionCoursesResult> results;
+
+    @JsonCreator
+    public CoursesBatchResponse(@JsonProperty("results") final List<InstitutionCoursesResult> results) {
+        this.results = results;
+    }
+
+    public List<InstitutionCoursesResult> getResults() {
+        return results;
+    }
+}
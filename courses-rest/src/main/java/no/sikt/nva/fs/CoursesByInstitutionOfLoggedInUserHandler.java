@@ -1,120 +1,256 @@
 package no.sikt.nva.fs;
 
 import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.time.Clock;
 import java.time.ZoneId;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import no.sikt.nva.fs.client.HttpException;
-import no.sikt.nva.fs.config.FsConfig;
-import no.sikt.nva.fs.config.InstitutionConfig;
+import java.util.Set;
+import java.util.stream.Collectors;
+import no.sikt.nva.fs.client.Deadline;
+import no.sikt.nva.fs.metrics.EmfWriter;
+import no.sikt.nva.fs.metrics.Metric;
+import no.sikt.nva.fs.metrics.RequestMetrics;
+import no.sikt.nva.fs.snapshot.CoursesSnapshotStore;
+import no.sikt.nva.fs.snapshot.S3CoursesSnapshotStore;
 import no.unit.nva.commons.json.JsonUtils;
-import nva.commons.apigateway.ApiGatewayHandler;
 import nva.commons.apigateway.RequestInfo;
 import nva.commons.apigateway.exceptions.ApiGatewayException;
+import nva.commons.apigateway.exceptions.BadRequestException;
 import nva.commons.core.Environment;
 import nva.commons.core.JacocoGenerated;
-import nva.commons.core.paths.UriWrapper;
 import nva.commons.secrets.SecretsReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 
-public class CoursesByInstitutionOfLoggedInUserHandler extends ApiGatewayHandler<Void, CoursesResponse> {
+/**
+ * Answers API Gateway with the courses currently taught by the institution of the logged-in user. The body of a
+ * courses response is put into the proxy integration response as the bytes encoded for it, in base64 when they are
+ * compressed, so the handler writes its proxy integration responses itself, failures being answered with problems.
+ */
+public class CoursesByInstitutionOfLoggedInUserHandler implements RequestStreamHandler {
 
-    /* default */ static final String FS_CONFIG_SECRET_NAME_ENV_KEY = "FS_CONFIG_SECRET_NAME";
+    public static final String FS_CONFIG_SECRET_NAME_ENV_KEY = "FS_CONFIG_SECRET_NAME";
+    public static final String ALLOWED_ORIGIN_ENV_KEY = "ALLOWED_ORIGIN";
     /* default */ static final String FS_CONFIG_NOT_PROPERLY_FORMATTED_JSON = "FS configuration from secrets manager "
                                                                               + "does not contain properly formatted "
                                                                               + "JSON!";
 
-    private final TimeProvider timeProvider;
-    private final SecretsReader secretsReader;
-    private final Environment environment = new Environment();
+    /* default */ static final String ETAG_HEADER = CachingHeaders.ETAG_HEADER;
+    /* default */ static final String CACHE_CONTROL_HEADER = CachingHeaders.CACHE_CONTROL_HEADER;
+    /* default */ static final String IF_NONE_MATCH_HEADER = CachingHeaders.IF_NONE_MATCH_HEADER;
+    /* default */ static final String CONTENT_TYPE_HEADER = "Content-Type";
+    /* default */ static final String COURSES_NOT_SERIALIZABLE = "Courses could not be serialized";
+    /* default */ static final String MALFORMED_REQUEST = "Request is not a proxy integration event";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CoursesByInstitutionOfLoggedInUserHandler.class);
+
+    private static final String ACCESS_CONTROL_ALLOW_ORIGIN_HEADER = "Access-Control-Allow-Origin";
+    private static final String STATUS_CODE_FIELD = "statusCode";
+    private static final String HEADERS_FIELD = "headers";
+    private static final String BODY_FIELD = "body";
+    private static final String IS_BASE64_ENCODED_FIELD = "isBase64Encoded";
+    private static final String APPLICATION_PROBLEM_JSON = "application/problem+json";
+    private static final String INTERNAL_SERVER_ERROR_TITLE = "Internal Server Error";
+    private static final Map<Integer, String> PROBLEM_TITLES = Map.of(
+        HttpURLConnection.HTTP_BAD_REQUEST, "Bad Request",
+        HttpURLConnection.HTTP_BAD_GATEWAY, "Bad Gateway",
+        HttpURLConnection.HTTP_INTERNAL_ERROR, INTERNAL_SERVER_ERROR_TITLE);
+
+    /**
+     * The representations the handler sends; CBOR is left to the standalone server, as the handler only sends
+     * JSON text, compressed or not.
+     */
+    private static final Set<CoursesRepresentation> REPRESENTATIONS = EnumSet.of(CoursesRepresentation.JSON,
+                                                                                 CoursesRepresentation.COMPACT_JSON);
+
+    static {
+        // Lambda loads the handler class while the container initializes, before any user request waits for it:
+        ColdStartPriming.prime();
+    }
+
+    private final Clock clock;
+    private final CoursesService coursesService;
+    private final EmfWriter metricsWriter;
+    private final Optional<String> allowedOrigin;
 
     @JacocoGenerated
     public CoursesByInstitutionOfLoggedInUserHandler() {
-        this(SecretsReader.defaultSecretsManagerClient(), Clock.system(ZoneId.systemDefault()));
+        this(SecretsReader.defaultSecretsManagerClient(),
+             S3CoursesSnapshotStore.fromEnvironment(new Environment()),
+             Clock.system(ZoneId.systemDefault()));
     }
 
     public CoursesByInstitutionOfLoggedInUserHandler(final SecretsManagerClient secretsManagerClient,
+                                                     final CoursesSnapshotStore snapshotStore,
                                                      final Clock clock) {
-        super(Void.class);
-        this.timeProvider = new TimeProvider(clock);
-        this.secretsReader = new SecretsReader(secretsManagerClient);
+        final Environment environment = new Environment();
+        this.clock = clock;
+        this.coursesService = CoursesService.fromEnvironment(environment, secretsManagerClient, snapshotStore, clock);
+        this.metricsWriter = EmfWriter.fromEnvironment(environment, clock);
+        this.allowedOrigin = environment.readEnvOpt(ALLOWED_ORIGIN_ENV_KEY);
     }
 
+    /**
+     * Answers with the courses in the representation the {@code Accept} header asks for, compressed when the
+     * {@code Accept-Encoding} header allows it, or with 304 Not Modified when the entity tag in
+     * {@code If-None-Match} still matches. A request that fails is answered with a problem: one that is not a proxy
+     * integration event with 400 Bad Request, one that fails in a way API Gateway knows a status for with that
+     * status, and any other with 500 Internal Server Error. The metrics of each invocation are written once it has
+     * been answered.
+     */
     @Override
-    protected CoursesResponse processInput(final Void input,
-                                           final RequestInfo requestInfo,
-                                           final Context context) throws ApiGatewayException {
-
-        var inst = getInstitutionCodeOfCurrentlyLoggedInUser(requestInfo);
-        if (inst.isPresent()) {
-            return fetchInstitutionCourses(inst.orElseThrow());
+    public void handleRequest(final InputStream input, final OutputStream output, final Context context)
+        throws IOException {
+        final RequestMetrics metrics = new RequestMetrics();
+        try {
+            respond(readRequestInfo(input), output, metrics, CoursesService.deadlineOf(context));
+        } catch (ApiGatewayException e) {
+            LOGGER.warn("Answering request failed: {}", e.getMessage(), e);
+            writeProblem(output, e.getStatusCode(), Optional.ofNullable(e.getMessage()));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Answering request failed: {}", e.getMessage(), e);
+            writeProblem(output, HttpURLConnection.HTTP_INTERNAL_ERROR, Optional.empty());
+        } finally {
+            metricsWriter.write(metrics);
         }
-        return new CoursesResponse();
-    }
-
-    @Override
-    protected Integer getSuccessStatusCode(Void input, CoursesResponse output) {
-        return HttpURLConnection.HTTP_OK;
     }
 
-    private CoursesResponse fetchInstitutionCourses(int institutionCode) throws ApiGatewayException {
-        var fsConfigSecretName = environment.readEnv(FS_CONFIG_SECRET_NAME_ENV_KEY);
-        var fsConfigAsString = secretsReader.fetchPlainTextSecret(fsConfigSecretName);
+    private static RequestInfo readRequestInfo(final InputStream input) throws IOException, BadRequestException {
         try {
-            var fsConfig = parseFsConfigJson(fsConfigAsString);
-            var institution = fetchInstitutionConfig(fsConfig, institutionCode);
-            return fetchCoursesByInstitutionConfig(fsConfig.getBaseUri(), institution);
-        } catch (InstitutionNotFoundException e) {
-            return new CoursesResponse();
+            return JsonUtils.dtoObjectMapper.readValue(input.readAllBytes(), RequestInfo.class);
         } catch (JsonProcessingException e) {
-            throw new RuntimeException(FS_CONFIG_NOT_PROPERLY_FORMATTED_JSON, e);
+            throw new BadRequestException(MALFORMED_REQUEST + ": " + e.getOriginalMessage());
         }
     }
 
-    private static FsConfig parseFsConfigJson(String jsonAsString) throws JsonProcessingException {
-        return JsonUtils.dtoObjectMapper.readValue(jsonAsString, FsConfig.class);
+    @SuppressWarnings("PMD.UseConcurrentHashMap") // headers of a single response, filled by a single thread
+    private void respond(final RequestInfo requestInfo, final OutputStream output, final RequestMetrics metrics,
+                         final Deadline deadline) throws ApiGatewayException, IOException {
+        final CoursesRepresentation representation = CoursesRepresentation.negotiate(
+            headerValues(requestInfo, CachingHeaders.ACCEPT_HEADER), REPRESENTATIONS);
+        final ContentEncoding acceptedEncoding = ContentEncoding.negotiate(
+            headerValues(requestInfo, CachingHeaders.ACCEPT_ENCODING_HEADER));
+        final Map<String, String> headers = new HashMap<>();
+        headers.put(CachingHeaders.VARY_HEADER, CachingHeaders.NEGOTIATED_HEADERS);
+        allowedOrigin.ifPresent(origin -> headers.put(ACCESS_CONTROL_ALLOW_ORIGIN_HEADER, origin));
+
+        final Optional<EncodedBody> body = findBody(requestInfo, representation, acceptedEncoding, headers, metrics,
+                                                    deadline);
+        if (body.isEmpty()) {
+            writeProxyResponse(output, HttpURLConnection.HTTP_NOT_MODIFIED, headers, body);
+            return;
+        }
+        final EncodedBody encodedBody = body.orElseThrow();
+        headers.put(CONTENT_TYPE_HEADER, representation.getMediaType());
+        if (encodedBody.getEncoding() != ContentEncoding.IDENTITY) {
+            headers.put(CachingHeaders.CONTENT_ENCODING_HEADER, encodedBody.getEncoding().getName());
+        }
+        metrics.record(Metric.RESPONSE_BYTES, encodedBody.getLength());
+        writeProxyResponse(output, HttpURLConnection.HTTP_OK, headers, body);
     }
 
-    private InstitutionConfig fetchInstitutionConfig(FsConfig fsConfig, int institutionCode)
-        throws InstitutionNotFoundException {
-        return fsConfig.getInstitutions().stream()
-                   .filter(inst -> inst.getCode() == institutionCode)
-                   .findFirst()
-                   .orElseThrow(InstitutionNotFoundException::new);
+    /**
+     * Writes a problem in the form the standalone server writes them, with the detail of the failure when it is
+     * one the client may be told about.
+     */
+    @SuppressWarnings("PMD.UseConcurrentHashMap") // headers of a single response, filled by a single thread
+    private void writeProblem(final OutputStream output, final int statusCode, final Optional<String> detail)
+        throws IOException {
+        final Map<String, Object> problem = new HashMap<>();
+        problem.put("title", PROBLEM_TITLES.getOrDefault(statusCode, INTERNAL_SERVER_ERROR_TITLE));
+        problem.put("status", statusCode);
+        detail.ifPresent(value -> problem.put("detail", value));
+        final Map<String, String> headers = new HashMap<>();
+        headers.put(CONTENT_TYPE_HEADER, APPLICATION_PROBLEM_JSON);
+        allowedOrigin.ifPresent(origin -> headers.put(ACCESS_CONTROL_ALLOW_ORIGIN_HEADER, origin));
+        writeProxyResponse(output, statusCode, headers,
+                           Optional.of(EncodedBody.identity(JsonUtils.dtoObjectMapper.writeValueAsBytes(problem))));
     }
 
-    private FailedFsResponseException handleFsFailingServerResponse(final HttpException httpException) {
-        return new FailedFsResponseException(httpException);
+    /**
+     * Writes the response of a Lambda proxy integration, holding the encoded body, if any, as it is.
+     */
+    private static void writeProxyResponse(final OutputStream output, final int statusCode,
+                                           final Map<String, String> headers, final Optional<EncodedBody> body)
+        throws IOException {
+        try (JsonGenerator generator = JsonUtils.dtoObjectMapper.createGenerator(output)) {
+            generator.writeStartObject();
+            generator.writeNumberField(STATUS_CODE_FIELD, statusCode);
+            generator.writeObjectField(HEADERS_FIELD, headers);
+            if (body.isPresent()) {
+                generator.writeStringField(BODY_FIELD, body.orElseThrow().toApiGatewayBody());
+                generator.writeBooleanField(IS_BASE64_ENCODED_FIELD, body.orElseThrow().isBase64Encoded());
+            }
+            generator.writeEndObject();
+        }
     }
 
-    private CoursesResponse fetchCoursesByInstitutionConfig(final String fsBaseUri,
-                                                            final InstitutionConfig institutionConfig)
-        throws FailedFsResponseException {
+    private Optional<EncodedBody> findBody(final RequestInfo requestInfo,
+                                           final CoursesRepresentation representation,
+                                           final ContentEncoding acceptedEncoding,
+                                           final Map<String, String> headers,
+                                           final RequestMetrics metrics,
+                                           final Deadline deadline) throws ApiGatewayException {
+        final CoursesQuery query = CoursesQuery.fromParameters(requestInfo.getQueryParameters());
+        var inst = getInstitutionCodeOfCurrentlyLoggedInUser(requestInfo);
         try {
-            final CoursesProvider coursesProvider = new CoursesProvider(fsBaseUri, institutionConfig);
-            return new CoursesResponse(coursesProvider.getCurrentlyTaughtCourses(timeProvider.getYear(),
-                                                                                 timeProvider.getMonthValue()));
-        } catch (HttpException exception) {
-            throw handleFsFailingServerResponse(exception);
+            if (inst.isPresent()) {
+                metrics.setInstitutionCode(inst.orElseThrow());
+                final Optional<TaughtCourses> taughtCourses = coursesService.getCurrentlyTaughtCourses(
+                    inst.orElseThrow(), metrics, deadline);
+                if (taughtCourses.isPresent()) {
+                    return respondWithCachingHeaders(inst.orElseThrow(), taughtCourses.orElseThrow(), query,
+                                                     requestInfo, representation, acceptedEncoding, headers,
+                                                     metrics);
+                }
+            }
+            return Optional.of(EncodedBody.encode(representation, new CoursesResponse(), acceptedEncoding, metrics));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(COURSES_NOT_SERIALIZABLE, e);
         }
     }
 
+    private Optional<EncodedBody> respondWithCachingHeaders(final int institutionCode,
+                                                            final TaughtCourses taughtCourses,
+                                                            final CoursesQuery query,
+                                                            final RequestInfo requestInfo,
+                                                            final CoursesRepresentation representation,
+                                                            final ContentEncoding acceptedEncoding,
+                                                            final Map<String, String> headers,
+                                                            final RequestMetrics metrics)
+        throws BadRequestException, JsonProcessingException {
+        headers.putAll(CachingHeaders.headers(taughtCourses, representation, acceptedEncoding, clock.instant()));
+
+        return CachingHeaders.matchesIfNoneMatch(headerValues(requestInfo, IF_NONE_MATCH_HEADER),
+                                                 representation.entityTagOf(taughtCourses.getEntityTag()))
+                   ? Optional.empty()
+                   : Optional.of(coursesService.encodeCourses(institutionCode, taughtCourses, query, representation,
+                                                              acceptedEncoding, metrics));
+    }
+
+    private static List<String> headerValues(final RequestInfo requestInfo, final String name) {
+        final Map<String, String> headers = Optional.ofNullable(requestInfo.getHeaders()).orElse(Map.of());
+        return headers.entrySet().stream()
+                   .filter(header -> name.equalsIgnoreCase(header.getKey()))
+                   .map(Map.Entry::getValue)
+                   .collect(Collectors.toList());
+    }
+
     private Optional<Integer> getInstitutionCodeOfCurrentlyLoggedInUser(final RequestInfo requestInfo) {
-        // We do not want to pick the FS institution code off the organizational URI like this, but
-        // rather make it available directly in the RequestInfo object itself. Until this is supported,
-        // we leave this as technical dept.
         final Optional<URI> topLevelOrgCristinId = requestInfo.getTopLevelOrgCristinId();
-
-        if (topLevelOrgCristinId.isPresent()) {
-            final String lastPathElement = UriWrapper.fromUri(topLevelOrgCristinId.get())
-                                               .getLastPathElement();
-            final String[] parts = lastPathElement.split("\\.");
-            return Optional.of(Integer.parseInt(parts[0]));
-        } else {
-            return Optional.empty();
-        }
+        return topLevelOrgCristinId.map(CoursesService::institutionCodeOf);
     }
 }
@@ -1,21 +1,26 @@
 package no.sikt.nva.fs;
 
-import java.text.Collator;
-import java.time.Month;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Base64;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import no.sikt.nva.fs.cache.CachedCourses;
+import no.sikt.nva.fs.cache.CoursesCache;
+import no.sikt.nva.fs.cache.CoursesCacheKey;
+import no.sikt.nva.fs.cache.Digests;
 import no.sikt.nva.fs.client.FsClient;
-import no.sikt.nva.fs.client.FsCollectionResponse;
-import no.sikt.nva.fs.client.FsCourse;
-import no.sikt.nva.fs.client.FsSemester;
-import no.sikt.nva.fs.client.HttpUrlConnectionFsClient;
-import no.sikt.nva.fs.client.Item;
+import no.sikt.nva.fs.client.FsFutures;
 import no.sikt.nva.fs.config.InstitutionConfig;
+import no.sikt.nva.fs.metrics.Metric;
+import no.sikt.nva.fs.metrics.RequestMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,88 +30,98 @@ public class CoursesProvider {
 
     private final String fsBaseUri;
     private final InstitutionConfig institutionConfig;
+    private final FsClient fsClient;
+    private final FsClient backgroundFsClient;
+    private final CoursesCache coursesCache;
+    private final RequestMetrics metrics;
+
+    public CoursesProvider(final String fsBaseUri,
+                           final InstitutionConfig institutionConfig,
+                           final FsClient fsClient,
+                           final CoursesCache coursesCache) {
+        this(fsBaseUri, institutionConfig, fsClient, fsClient, coursesCache, RequestMetrics.discarding());
+    }
 
-    public CoursesProvider(final String fsBaseUri, final InstitutionConfig institutionConfig) {
+    /**
+     * A provider fetching courses for a request with a client bound to the deadline and metrics of the request, and
+     * refreshing stale cached courses in the background with a client bound to neither, as the refresh may outlive
+     * the request.
+     */
+    public CoursesProvider(final String fsBaseUri,
+                           final InstitutionConfig institutionConfig,
+                           final FsClient fsClient,
+                           final FsClient backgroundFsClient,
+                           final CoursesCache coursesCache,
+                           final RequestMetrics metrics) {
 
         this.fsBaseUri = fsBaseUri;
         this.institutionConfig = institutionConfig;
+        this.fsClient = fsClient;
+        this.backgroundFsClient = backgroundFsClient;
+        this.coursesCache = coursesCache;
+        this.metrics = metrics;
     }
 
-    public List<Course> getCurrentlyTaughtCourses(final int year, final int month) {
-
-        LOGGER.debug("Fetching courses by institution '{}' from FS", institutionConfig.getCode());
+    public TaughtCourses getCurrentlyTaughtCourses(final int year, final int month) {
 
-        final FsClient fsClient = new HttpUrlConnectionFsClient(fsBaseUri, institutionConfig.getCode(),
-                                                                institutionConfig.getUsername(),
-                                                                institutionConfig.getPassword());
+        LOGGER.debug("Fetching courses by institution '{}'", institutionConfig.getCode());
 
-        final Map<Integer, List<Term>> yearsToTerms = findRelevantYearsAndTerms(year, month);
+        final SortedMap<Integer, List<Term>> yearsToTerms = AcademicWindow.forMonth(year, month).getYearsToTerms();
 
-        final List<Course> courses = new ArrayList<>();
+        // All years are requested at once, so that the slowest FS call decides how long we wait:
+        final SortedMap<Integer, CompletableFuture<CachedCourses>> coursesByYear = new TreeMap<>();
+        yearsToTerms.forEach((yearToFetch, terms) -> coursesByYear.put(yearToFetch,
+                                                                       fetchCoursesForYear(yearToFetch, terms)));
 
-        final Comparator<Course> courseComparator = new CourseComparator();
+        final List<CourseCatalog> courses = new ArrayList<>();
+        final MessageDigest entityTagDigest = Digests.sha256();
+        entityTagDigest.update(Integer.toString(institutionConfig.getCode()).getBytes(StandardCharsets.UTF_8));
+        Instant freshUntil = Instant.MAX;
+        for (final Map.Entry<Integer, List<Term>> yearAndTerms : yearsToTerms.entrySet()) {
+            final CachedCourses cachedCourses = FsFutures.join(coursesByYear.get(yearAndTerms.getKey()));
+            // Cached courses are sorted, so the courses of each term are a range of them:
+            for (final Term term : yearAndTerms.getValue()) {
+                courses.add(cachedCourses.getCourses().range(yearAndTerms.getKey(), term));
+            }
 
-        yearsToTerms.forEach((entryYear, terms) -> courses.addAll(
-            fetchCoursesForYearFilteringOnTerm(fsClient, courseComparator, entryYear, terms)));
+            // The entity tag changes with the years and terms asked for, as well as with the courses cached:
+            entityTagDigest.update(yearAndTerms.toString().getBytes(StandardCharsets.UTF_8));
+            entityTagDigest.update(cachedCourses.getDigest());
+            if (cachedCourses.getFreshUntil().isBefore(freshUntil)) {
+                freshUntil = cachedCourses.getFreshUntil();
+            }
+        }
 
-        return courses;
+        return new TaughtCourses(CourseCatalog.concat(courses), toEntityTag(entityTagDigest.digest()), freshUntil);
     }
 
-    private Map<Integer, List<Term>> findRelevantYearsAndTerms(final int year, final int month) {
-        final Map<Integer, List<Term>> yearsToTerms = new ConcurrentHashMap<>();
-        /*
-            During the first half of the year, we look up all courses for the current year. In the last half of the
-            year, we look up courses for the rest of the current year and the first half of the next year:
-         */
-        if (month > Month.JUNE.getValue()) {
-            yearsToTerms.put(year, Term.getAfterIncluding(Term.FALL));
-            yearsToTerms.put(year + 1, Term.getBeforeExcluding(Term.FALL));
-        } else {
-            yearsToTerms.put(year, Term.getAfterIncluding(Term.SPRING));
-        }
-        return yearsToTerms;
+    private CompletableFuture<CachedCourses> fetchCoursesForYear(final int year, final List<Term> terms) {
+        final CoursesCacheKey cacheKey = new CoursesCacheKey(fsBaseUri, institutionConfig.getCode(), year);
+        return coursesCache.get(cacheKey, EnumSet.copyOf(terms),
+                                termsToFetch -> fetchSortedCoursesForYear(fsClient, metrics, year, termsToFetch),
+                                termsToFetch -> fetchSortedCoursesForYear(backgroundFsClient,
+                                                                          RequestMetrics.discarding(), year,
+                                                                          termsToFetch),
+                                metrics);
     }
 
-    private List<Course> fetchCoursesForYearFilteringOnTerm(final FsClient fsClient,
-                                                            final Comparator<Course> courseComparator, final int year,
-                                                            final List<Term> terms) {
-        final List<String> termCodes = terms.stream().map(Term::getCode).collect(Collectors.toList());
-
-        final FsCollectionResponse response = fsClient.getTaughtCourses(year);
-        return response
-                   .getItems()
-                   .stream()
-                   .map(this::asCourse)
-                   .filter(course -> termCodes.contains(course.getTerm()))
-                   .sorted(courseComparator)
-                   .collect(Collectors.toList());
+    private static String toEntityTag(final byte[] digest) {
+        return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + '"';
     }
 
-    private Course asCourse(final Item item) {
-        final FsCourse course = item.getId().getCourse();
-        final FsSemester semester = item.getId().getSemester();
+    private CompletableFuture<List<Course>> fetchSortedCoursesForYear(final FsClient client,
+                                                                      final RequestMetrics sortMetrics,
+                                                                      final int year,
+                                                                      final Set<Term> terms) {
+        LOGGER.debug("Fetching courses by institution '{}' for year {} from FS", institutionConfig.getCode(), year);
 
-        return new Course(course.getCode(), semester.getTerm(), semester.getYear());
+        return client.getTaughtCoursesAsync(year, terms).thenApply(courses -> sort(courses, sortMetrics));
     }
 
-    private static class CourseComparator implements Comparator<Course> {
-
-        private final Comparator<Term> termComparator = Comparator.comparingInt(Term::getSeqNo);
-
-        @Override
-        public int compare(Course course1, Course course2) {
-            int result = Integer.compare(course1.getYear(), course2.getYear());
-            if (result == 0) {
-                final Term term1 = Term.fromCode(course1.getTerm());
-                final Term term2 = Term.fromCode(course2.getTerm());
-                result = termComparator.compare(term1, term2);
-            }
-            if (result == 0) {
-                final Collator norwegianCollator = Collator.getInstance(new Locale("nb", "NO"));
-                result = norwegianCollator.compare(course1.getCode(), course2.getCode());
-            }
-
-            return result;
-        }
+    private static List<Course> sort(final List<Course> courses, final RequestMetrics metrics) {
+        final long sortStart = RequestMetrics.startTimer();
+        final List<Course> sortedCourses = CourseSorter.sort(courses);
+        metrics.recordTimeSince(Metric.SORT_TIME, sortStart);
+        return sortedCourses;
     }
 }
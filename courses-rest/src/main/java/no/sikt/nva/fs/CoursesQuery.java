@@ -0,0 +1,267 @@
+package no.sikt.nva.fs;
+
+import java.nio.charset.StandardCharsets;
+import java.text.CollationElementIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import nva.commons.apigateway.exceptions.BadRequestException;
+
+/**
+ * Selects a page of the courses of a {@link TaughtCourses} by year, term and code prefix, each optional.
+ *
+ * <p>Courses are sorted by year, then term, then code (see {@link CourseSorter}), so the courses of a year and term
+ * are a contiguous block that is found by binary search. Within a block, codes are in Norwegian collation order, in
+ * which codes starting with the same characters are not always next to each other: "AA" sorts as "Å", and case
+ * and hyphens only break ties. A code therefore matches a prefix when its primary key starts with that of the
+ * prefix (see {@link CodeCollation}), which keeps the matches of a block contiguous, so they are found by binary
+ * search too. That way "mat1" matches both "MAT100" and "MAT-100", and "aa" matches "AAR100", while "a" does not.
+ *
+ * <p>A cursor holds the position in the sorted courses at which the next page starts, a hash of the year, term and
+ * code prefix it was given for, and the entity tag of the courses. A cursor used with another year, term or code
+ * prefix, or into courses that have changed since, is rejected rather than skipping or repeating courses.
+ */
+public final class CoursesQuery {
+
+    public static final String YEAR_PARAMETER = "year";
+    public static final String TERM_PARAMETER = "term";
+    public static final String CODE_PREFIX_PARAMETER = "codePrefix";
+    public static final String LIMIT_PARAMETER = "limit";
+    public static final String CURSOR_PARAMETER = "cursor";
+    /* default */ static final String INVALID_CURSOR_MESSAGE = "Invalid cursor";
+    /* default */ static final String OUTDATED_CURSOR_MESSAGE = "The courses have changed since the cursor was "
+                                                              + "given, start again from the first page";
+    /* default */ static final String MISMATCHED_CURSOR_MESSAGE = "The cursor was given for another year, term or "
+                                                                + "code prefix";
+    private static final int FIRST_TERM_SEQ_NO = 0;
+    private static final String CURSOR_SEPARATOR = ":";
+    private static final int CURSOR_PARTS = 3;
+    private static final String FILTER_SEPARATOR = ",";
+    private static final String NO_FILTER = "";
+    private static final Pattern WHOLE_NUMBER = Pattern.compile("\\d{1,9}");
+
+    private final Optional<Integer> year;
+    private final Optional<Term> term;
+    private final Optional<CodePrefix> codePrefix;
+    private final int limit;
+    private final Optional<String> cursor;
+
+    private CoursesQuery(final Optional<Integer> year, final Optional<Term> term,
+                         final Optional<CodePrefix> codePrefix, final int limit, final Optional<String> cursor) {
+        this.year = year;
+        this.term = term;
+        this.codePrefix = codePrefix;
+        this.limit = limit;
+        this.cursor = cursor;
+    }
+
+    /**
+     * Reads the query from request parameters; every parameter is optional, and without a limit all matching
+     * courses are selected.
+     */
+    public static CoursesQuery fromParameters(final Map<String, String> parameters) throws BadRequestException {
+        final Map<String, String> present = Optional.ofNullable(parameters).orElse(Map.of());
+        final Optional<Integer> year = readWholeNumber(present, YEAR_PARAMETER, 0);
+        final Optional<Term> term = readTerm(present);
+        final Optional<CodePrefix> codePrefix = Optional.ofNullable(present.get(CODE_PREFIX_PARAMETER))
+                                                    .filter(prefix -> !prefix.isBlank())
+                                                    .map(CodePrefix::new);
+        final int limit = readWholeNumber(present, LIMIT_PARAMETER, 1).orElse(Integer.MAX_VALUE);
+        return new CoursesQuery(year, term, codePrefix, limit, Optional.ofNullable(present.get(CURSOR_PARAMETER)));
+    }
+
+    /**
+     * Tells whether the query selects all the courses on one page, as it does without any parameter.
+     */
+    public boolean selectsAll() {
+        return year.isEmpty() && term.isEmpty() && codePrefix.isEmpty() && limit == Integer.MAX_VALUE
+               && cursor.isEmpty();
+    }
+
+    /**
+     * Selects the matching courses from the position of the cursor on, at most as many as the limit, and the cursor
+     * of the next page if more courses match.
+     */
+    public CoursesResponse select(final TaughtCourses taughtCourses) throws BadRequestException {
+        final CourseCatalog courses = taughtCourses.getCourses();
+        int position = cursor.isPresent() ? readCursor(taughtCourses) : 0;
+        // The page is made of views of the runs of matching courses, so no course is copied until it is written:
+        final List<CourseCatalog> page = new ArrayList<>();
+        int pageSize = 0;
+        position = findMatch(courses, position);
+        while (position < courses.size() && pageSize < limit) {
+            final int endOfMatches = findEndOfMatches(courses, position);
+            final int end = position + Math.min(endOfMatches - position, limit - pageSize);
+            page.add(courses.subList(position, end));
+            pageSize += end - position;
+            position = findMatch(courses, end);
+        }
+        final String nextCursor = position < courses.size() ? writeCursor(position, taughtCourses) : null;
+        return new CoursesResponse(CourseCatalog.concat(page), nextCursor);
+    }
+
+    /**
+     * Finds the first matching course at or after a position, jumping over blocks of courses of a year and term
+     * that do not match.
+     */
+    private int findMatch(final CourseCatalog courses, final int from) {
+        int position = from;
+        while (position < courses.size()) {
+            final long yearAndTerm = courses.getYearAndTerm(position);
+            final int courseYear = courses.getYear(position);
+            final int courseTermSeqNo = courses.getTerm(position).getSeqNo();
+            final int wantedYear = year.orElse(courseYear);
+            final int wantedTermSeqNo = term.map(Term::getSeqNo).orElse(courseTermSeqNo);
+            if (courseYear > wantedYear) {
+                return courses.size();
+            } else if (courseYear < wantedYear) {
+                position = lowerBound(courses, position, CourseSorter.yearAndTerm(wantedYear, FIRST_TERM_SEQ_NO));
+            } else if (courseTermSeqNo < wantedTermSeqNo) {
+                position = lowerBound(courses, position, CourseSorter.yearAndTerm(courseYear, wantedTermSeqNo));
+            } else if (courseTermSeqNo > wantedTermSeqNo) {
+                position = lowerBound(courses, position, CourseSorter.yearAndTerm(courseYear + 1, FIRST_TERM_SEQ_NO));
+            } else if (codePrefix.isPresent()) {
+                final int endOfBlock = lowerBound(courses, position, yearAndTerm + 1);
+                final int match = findCodePrefixMatch(courses, position, endOfBlock, codePrefix.orElseThrow());
+                if (match < endOfBlock) {
+                    return match;
+                }
+                position = endOfBlock;
+            } else {
+                return position;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Finds the first course in a part of a block whose code starts with the prefix; the end of the part if none
+     * does.
+     */
+    private static int findCodePrefixMatch(final CourseCatalog courses, final int from, final int to,
+                                           final CodePrefix prefix) {
+        final int match = firstIndex(from, to, index -> prefix.compareCode(courses.getCode(index)) >= 0);
+        return match < to && prefix.compareCode(courses.getCode(match)) == 0 ? match : to;
+    }
+
+    /**
+     * Finds the end of the matching courses starting at a position, which is at most the end of its block.
+     */
+    private int findEndOfMatches(final CourseCatalog courses, final int position) {
+        final int endOfBlock = lowerBound(courses, position, courses.getYearAndTerm(position) + 1);
+        return codePrefix.map(prefix -> firstIndex(position, endOfBlock,
+                                                   index -> prefix.compareCode(courses.getCode(index)) > 0))
+                   .orElse(endOfBlock);
+    }
+
+    private int readCursor(final TaughtCourses taughtCourses) throws BadRequestException {
+        final String[] parts;
+        final int position;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor.orElseThrow()), StandardCharsets.UTF_8)
+                        .split(CURSOR_SEPARATOR, CURSOR_PARTS);
+            position = Integer.parseInt(parts[0]);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(INVALID_CURSOR_MESSAGE);
+        }
+        if (parts.length != CURSOR_PARTS || position < 0) {
+            throw new BadRequestException(INVALID_CURSOR_MESSAGE);
+        }
+        if (!parts[1].equals(filterHash())) {
+            throw new BadRequestException(MISMATCHED_CURSOR_MESSAGE);
+        }
+        if (!parts[2].equals(taughtCourses.getEntityTag()) || position > taughtCourses.getCourses().size()) {
+            throw new BadRequestException(OUTDATED_CURSOR_MESSAGE);
+        }
+        return position;
+    }
+
+    private String writeCursor(final int position, final TaughtCourses taughtCourses) {
+        final String cursor = position + CURSOR_SEPARATOR + filterHash() + CURSOR_SEPARATOR
+                              + taughtCourses.getEntityTag();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A hash of the year, term and code prefix, the prefix taken by its primary key so that prefixes matching the
+     * same codes hash the same. String hashes are the same in every JVM, so cursors outlive the container.
+     */
+    private String filterHash() {
+        final String filter = year.map(String::valueOf).orElse(NO_FILTER) + FILTER_SEPARATOR
+                              + term.map(Term::getCode).orElse(NO_FILTER) + FILTER_SEPARATOR
+                              + codePrefix.map(prefix -> prefix.primaryKey).orElse(NO_FILTER);
+        return Integer.toHexString(filter.hashCode());
+    }
+
+    private static int lowerBound(final CourseCatalog courses, final int from, final long yearAndTerm) {
+        return firstIndex(from, courses.size(), index -> courses.getYearAndTerm(index) >= yearAndTerm);
+    }
+
+    /**
+     * Binary search for the first index in a range at which a condition holds, given that once it holds, it holds
+     * for the rest of the range; the end of the range if it never holds.
+     */
+    private static int firstIndex(final int from, final int to, final IntPredicate condition) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (condition.test(middle)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    /* default */ static Optional<Integer> readWholeNumber(final Map<String, String> parameters, final String name,
+                                                           final int minimum) throws BadRequestException {
+        final String value = parameters.get(name);
+        if (value == null) {
+            return Optional.empty();
+        }
+        if (!WHOLE_NUMBER.matcher(value).matches() || Integer.parseInt(value) < minimum) {
+            throw new BadRequestException("Parameter " + name + " must be a whole number of at least " + minimum);
+        }
+        return Optional.of(Integer.parseInt(value));
+    }
+
+    private static Optional<Term> readTerm(final Map<String, String> parameters) throws BadRequestException {
+        final String value = parameters.get(TERM_PARAMETER);
+        if (value == null) {
+            return Optional.empty();
+        }
+        if (!Term.isSupportedCode(value)) {
+            throw new BadRequestException("Parameter " + TERM_PARAMETER + " must be one of the term codes "
+                                          + Arrays.stream(Term.values())
+                                                .map(Term::getCode)
+                                                .collect(Collectors.joining(", ")));
+        }
+        return Optional.of(Term.fromCode(value));
+    }
+
+    /**
+     * The primary key of a code prefix, compared with codes; see {@link CodeCollation}.
+     */
+    private static final class CodePrefix {
+
+        private final CollationElementIterator elements;
+        private final String primaryKey;
+
+        private CodePrefix(final String prefix) {
+            this.elements = CodeCollation.newElementIterator();
+            this.primaryKey = CodeCollation.primaryKey(elements, prefix);
+        }
+
+        private int compareCode(final String code) {
+            return CodeCollation.comparePrefix(elements, code, primaryKey);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package no.sikt.nva.fs;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import no.unit.nva.commons.json.JsonUtils;
+
+/**
+ * The forms a courses response can be sent in, of which the client picks one by the {@code Accept} header:
+ * <ul>
+ *     <li>{@code application/json}, the default, with a course object for each course;</li>
+ *     <li>{@code application/vnd.nva.courses.compact+json}, a {@link CompactCoursesResponse} listing only the course
+ *     codes of each year and term;</li>
+ *     <li>{@code application/cbor}, the default shape in CBOR (RFC 8949), which any Jackson client reads into the
+ *     same classes by an {@code ObjectMapper} for CBOR.</li>
+ * </ul>
+ * Each has its own entity tag, derived from that of the courses, so that a cached representation is only ever
+ * revalidated by a request for the same one.
+ */
+public enum CoursesRepresentation {
+
+    JSON("application/json", "", JsonUtils.dtoObjectMapper, Function.identity()),
+    COMPACT_JSON("application/vnd.nva.courses.compact+json", "-compact", JsonUtils.dtoObjectMapper,
+                 CompactCoursesResponse::from),
+    CBOR("application/cbor", "-cbor", new CBORMapper(), Function.identity());
+
+    private static final String WILDCARD = "*";
+    private static final String TYPE_SEPARATOR = "/";
+    private static final int EXACT_MATCH = 2;
+    private static final int SUBTYPE_WILDCARD_MATCH = 1;
+    private static final int FULL_WILDCARD_MATCH = 0;
+    private static final char ENTITY_TAG_QUOTE = '"';
+
+    private final String mediaType;
+    private final String entityTagSuffix;
+    private final ObjectMapper objectMapper;
+    private final Function<CoursesResponse, ?> shape;
+
+    CoursesRepresentation(final String mediaType, final String entityTagSuffix, final ObjectMapper objectMapper,
+                          final Function<CoursesResponse, ?> shape) {
+        this.mediaType = mediaType;
+        this.entityTagSuffix = entityTagSuffix;
+        this.objectMapper = objectMapper;
+        this.shape = shape;
+    }
+
+    /**
+     * Picks the representation the {@code Accept} values of a request ask for among those that can be sent. The
+     * media ranges are weighed by their quality; of ranges of the same quality, an exact media type beats a
+     * wildcard, and one listed earlier beats one listed later. Without an {@code Accept} header, or when it names
+     * none of the representations that can be sent, the default JSON is sent rather than 406 Not Acceptable, which
+     * is what clients written before there was a choice expect.
+     */
+    public static CoursesRepresentation negotiate(final Collection<String> acceptValues,
+                                                  final Set<CoursesRepresentation> available) {
+        final String[] mediaRanges = QualityValues.elements(acceptValues);
+        return available.stream()
+                   .map(representation -> representation.bestMatch(mediaRanges))
+                   .flatMap(Optional::stream)
+                   .filter(match -> match.quality > 0)
+                   .min(Comparator.<Match>comparingDouble(match -> -match.quality)
+                            .thenComparing(match -> -match.specificity)
+                            .thenComparing(match -> match.position)
+                            .thenComparing(match -> match.representation))
+                   .map(match -> match.representation)
+                   .orElse(JSON);
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * The entity tag of this representation of courses having the given entity tag. That of the default JSON is
+     * the entity tag of the courses itself, so that responses cached before there was a choice stay valid.
+     */
+    public String entityTagOf(final String entityTag) {
+        return entityTagSuffix.isEmpty()
+                   ? entityTag
+                   : entityTag.substring(0, entityTag.length() - 1) + entityTagSuffix + ENTITY_TAG_QUOTE;
+    }
+
+    /**
+     * The object the response is written as in this representation: the response itself, or its compact form.
+     * {@link #write(CoursesResponse)} hands it to the object mapper of the representation, JSON or CBOR.
+     */
+    public Object shape(final CoursesResponse response) {
+        return shape.apply(response);
+    }
+
+    public byte[] write(final CoursesResponse response) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(shape(response));
+    }
+
+    private Optional<Match> bestMatch(final String... mediaRanges) {
+        return IntStream.range(0, mediaRanges.length)
+                   .mapToObj(position -> match(mediaRanges[position], position))
+                   .flatMap(Optional::stream)
+                   .max(Comparator.<Match>comparingInt(match -> match.specificity)
+                            .thenComparing(match -> -match.position));
+    }
+
+    private Optional<Match> match(final String mediaRange, final int position) {
+        final String[] typeAndParameters = mediaRange.split(QualityValues.PARAMETER_SEPARATOR);
+        final String range = typeAndParameters[0].trim().toLowerCase(Locale.ROOT);
+        final int specificity = specificityOf(range);
+        return specificity < FULL_WILDCARD_MATCH
+                   ? Optional.empty()
+                   : Optional.of(new Match(this, QualityValues.qualityOf(typeAndParameters), specificity, position));
+    }
+
+    /**
+     * How specifically a media range names this representation, or -1 if it does not.
+     */
+    private int specificityOf(final String range) {
+        if (mediaType.equals(range)) {
+            return EXACT_MATCH;
+        }
+        if ((WILDCARD + TYPE_SEPARATOR + WILDCARD).equals(range)) {
+            return FULL_WILDCARD_MATCH;
+        }
+        final String type = mediaType.substring(0, mediaType.indexOf(TYPE_SEPARATOR) + 1);
+        return range.equals(type + WILDCARD) ? SUBTYPE_WILDCARD_MATCH : -1;
+    }
+
+    /**
+     * A media range of an {@code Accept} header that names a representation.
+     */
+    private static final class Match {
+
+        private final CoursesRepresentation representation;
+        private final double quality;
+        private final int specificity;
+        private final int position;
+
+        private Match(final CoursesRepresentation representation, final double quality, final int specificity,
+                      final int position) {
+            this.representation = representation;
+            this.quality = quality;
+            this.specificity = specificity;
+            this.position = position;
+        }
+    }
+}
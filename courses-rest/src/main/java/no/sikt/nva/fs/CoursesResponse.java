@@ -1,6 +1,7 @@
 package no.sikt.nva.fs;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.JsonTypeName;
@@ -12,17 +13,32 @@ import java.util.List;
 public class CoursesResponse {
 
     private final List<Course> courses;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final String nextCursor;
 
     public CoursesResponse() {
-        this.courses = Collections.emptyList();
+        this(Collections.emptyList());
+    }
+
+    public CoursesResponse(final List<Course> courses) {
+        this(courses, null);
     }
 
     @JsonCreator
-    public CoursesResponse(@JsonProperty("courses") final List<Course> courses) {
+    public CoursesResponse(@JsonProperty("courses") final List<Course> courses,
+                           @JsonProperty("nextCursor") final String nextCursor) {
         this.courses = courses;
+        this.nextCursor = nextCursor;
     }
 
     public List<Course> getCourses() {
         return courses;
     }
+
+    /**
+     * The cursor of the next page of courses, or {@code null} if this is the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
 }
@@ -0,0 +1,447 @@
+package no.sikt.nva.fs;
+
+import static no.sikt.nva.fs.CoursesByInstitutionOfLoggedInUserHandler.FS_CONFIG_NOT_PROPERLY_FORMATTED_JSON;
+import static no.sikt.nva.fs.CoursesByInstitutionOfLoggedInUserHandler.FS_CONFIG_SECRET_NAME_ENV_KEY;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import no.sikt.nva.fs.cache.CoursesCache;
+import no.sikt.nva.fs.cache.EncodedBodyCache;
+import no.sikt.nva.fs.cache.LastKnownCourses;
+import no.sikt.nva.fs.client.CircuitOpenException;
+import no.sikt.nva.fs.client.Deadline;
+import no.sikt.nva.fs.client.FsClientRegistry;
+import no.sikt.nva.fs.client.HttpException;
+import no.sikt.nva.fs.config.FsConfig;
+import no.sikt.nva.fs.config.FsConfigHolder;
+import no.sikt.nva.fs.config.InstitutionConfig;
+import no.sikt.nva.fs.metrics.Metric;
+import no.sikt.nva.fs.metrics.RequestMetrics;
+import no.sikt.nva.fs.snapshot.CoursesSnapshot;
+import no.sikt.nva.fs.snapshot.CoursesSnapshotStore;
+import nva.commons.apigateway.exceptions.BadRequestException;
+import nva.commons.core.Environment;
+import nva.commons.core.paths.UriWrapper;
+import nva.commons.secrets.SecretsReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+
+/**
+ * Finds the courses currently taught by an institution configured for FS, from its snapshot when there is a recent
+ * one for the current academic window, and otherwise from FS through the cache. Shared by the Lambda handler and the
+ * standalone server, so that both answer the same way; an instance is meant to live as long as the process or
+ * container does.
+ *
+ * <p>The last courses found for each institution, in a snapshot or from FS, are kept, and served marked as stale
+ * while the circuit breaker of FS is open, rather than failing every request until FS is back.
+ */
+public class CoursesService {
+
+    public static final String SNAPSHOT_GRACE_PERIOD_ENV_KEY = "COURSES_SNAPSHOT_GRACE_PERIOD_SECONDS";
+    public static final Duration DEFAULT_SNAPSHOT_GRACE_PERIOD = Duration.ofHours(1);
+    /* default */ static final Duration MIN_COURSE_CODE_INDEX_CHECK_INTERVAL = Duration.ofMinutes(1);
+    /* default */ static final Duration MIN_SNAPSHOT_CHECK_INTERVAL = Duration.ofMinutes(1);
+    /* default */ static final Duration RESPONSE_TIME_RESERVE = Duration.ofSeconds(1);
+    /* default */ static final String MISSING_INSTITUTION_CODES_MESSAGE = "Missing institutionCodes";
+    /* default */ static final String MISSING_INSTITUTION_CODE_MESSAGE = "Missing institution code";
+    private static final Logger LOGGER = LoggerFactory.getLogger(CoursesService.class);
+
+    private final Clock clock;
+    private final TimeProvider timeProvider;
+    private final FsConfigHolder fsConfigHolder;
+    private final CoursesCache coursesCache;
+    private final FsClientRegistry fsClientRegistry;
+    private final CoursesSnapshotStore snapshotStore;
+    private final EncodedBodyCache encodedBodyCache;
+    private final Duration snapshotGracePeriod;
+    private final Map<Integer, CheckedSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final Map<Integer, CheckedCourseCodeIndex> courseCodeIndexes = new ConcurrentHashMap<>();
+    private final LastKnownCourses lastKnownCourses;
+
+    public CoursesService(final FsConfigHolder fsConfigHolder,
+                          final CoursesCache coursesCache,
+                          final FsClientRegistry fsClientRegistry,
+                          final CoursesSnapshotStore snapshotStore,
+                          final Clock clock) {
+        this(fsConfigHolder, coursesCache, fsClientRegistry, snapshotStore,
+             new EncodedBodyCache(EncodedBodyCache.DEFAULT_MAX_BYTES), clock);
+    }
+
+    public CoursesService(final FsConfigHolder fsConfigHolder,
+                          final CoursesCache coursesCache,
+                          final FsClientRegistry fsClientRegistry,
+                          final CoursesSnapshotStore snapshotStore,
+                          final EncodedBodyCache encodedBodyCache,
+                          final Clock clock) {
+        this(fsConfigHolder, coursesCache, fsClientRegistry, snapshotStore, encodedBodyCache,
+             DEFAULT_SNAPSHOT_GRACE_PERIOD, clock);
+    }
+
+    /**
+     * A service serving snapshots until they have been stale for longer than the grace period.
+     */
+    public CoursesService(final FsConfigHolder fsConfigHolder,
+                          final CoursesCache coursesCache,
+                          final FsClientRegistry fsClientRegistry,
+                          final CoursesSnapshotStore snapshotStore,
+                          final EncodedBodyCache encodedBodyCache,
+                          final Duration snapshotGracePeriod,
+                          final Clock clock) {
+        this.clock = clock;
+        this.timeProvider = new TimeProvider(clock);
+        this.fsConfigHolder = fsConfigHolder;
+        this.coursesCache = coursesCache;
+        this.fsClientRegistry = fsClientRegistry;
+        this.snapshotStore = snapshotStore;
+        this.encodedBodyCache = encodedBodyCache;
+        this.snapshotGracePeriod = snapshotGracePeriod;
+        this.lastKnownCourses = new LastKnownCourses(coursesCache.getMaxEntries());
+    }
+
+    public static CoursesService fromEnvironment(final Environment environment,
+                                                 final SecretsManagerClient secretsManagerClient,
+                                                 final CoursesSnapshotStore snapshotStore,
+                                                 final Clock clock) {
+        final SecretsReader secretsReader = new SecretsReader(secretsManagerClient);
+        final String fsConfigSecretName = environment.readEnv(FS_CONFIG_SECRET_NAME_ENV_KEY);
+        return new CoursesService(FsConfigHolder.fromEnvironment(
+            environment, () -> secretsReader.fetchPlainTextSecret(fsConfigSecretName), clock),
+                                  CoursesCache.fromEnvironment(environment, clock),
+                                  FsClientRegistry.fromEnvironment(environment, clock),
+                                  snapshotStore,
+                                  EncodedBodyCache.fromEnvironment(environment),
+                                  environment.readEnvOpt(SNAPSHOT_GRACE_PERIOD_ENV_KEY)
+                                      .map(Long::parseLong)
+                                      .map(Duration::ofSeconds)
+                                      .orElse(DEFAULT_SNAPSHOT_GRACE_PERIOD),
+                                  clock);
+    }
+
+    /**
+     * Returns the FS institution code of an organization, given the Cristin identifier of its top level
+     * organization, such as {@code https://api.dev.nva.aws.unit.no/cristin/organization/215.0.0.0}.
+     */
+    public static int institutionCodeOf(final URI topLevelOrgCristinId) {
+        // We do not want to pick the FS institution code off the organizational URI like this, but
+        // rather make it available directly in the RequestInfo object itself. Until this is supported,
+        // we leave this as technical dept.
+        final String lastPathElement = UriWrapper.fromUri(topLevelOrgCristinId).getLastPathElement();
+        final String[] parts = lastPathElement.split("\\.");
+        return Integer.parseInt(parts[0]);
+    }
+
+    /**
+     * Returns the deadline of a Lambda invocation: the time it has left, less the time kept for writing the response.
+     */
+    public static Deadline deadlineOf(final Context context) {
+        return Deadline.after(Duration.ofMillis(context.getRemainingTimeInMillis()).minus(RESPONSE_TIME_RESERVE));
+    }
+
+    /**
+     * Returns the courses currently taught by the institution, or nothing when the institution is not configured
+     * for FS. What it takes to find them is recorded in the metrics of the request, and calls to FS are given up at
+     * its deadline.
+     */
+    public Optional<TaughtCourses> getCurrentlyTaughtCourses(final int institutionCode,
+                                                             final RequestMetrics metrics,
+                                                             final Deadline deadline)
+        throws FailedFsResponseException {
+        try {
+            return Optional.of(fetchCurrentlyTaughtCourses(institutionCode, metrics, deadline));
+        } catch (InstitutionNotFoundException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns the courses currently taught by each of the institutions, fetched side by side on the executor, which
+     * bounds how many are fetched at a time. There is one result per distinct institution, in the order asked for;
+     * an institution whose courses cannot be fetched gets a result telling why, instead of failing the others.
+     * Institution codes that are missing, or a missing list of them, get a result with status 400.
+     */
+    public List<InstitutionCoursesResult> getCurrentlyTaughtCourses(final List<Integer> institutionCodes,
+                                                                    final Executor executor,
+                                                                    final Deadline deadline) {
+        if (institutionCodes == null) {
+            return List.of(InstitutionCoursesResult.failed(null, HttpURLConnection.HTTP_BAD_REQUEST,
+                                                           MISSING_INSTITUTION_CODES_MESSAGE));
+        }
+        final List<CompletableFuture<InstitutionCoursesResult>> results =
+            institutionCodes.stream()
+                .distinct()
+                .map(institutionCode -> fetchResultAsync(institutionCode, executor, deadline))
+                .collect(Collectors.toList());
+        return results.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the body of a response holding the courses of an institution that the query selects, in a
+     * representation and, when it pays off, compressed in the coding the client accepts. Bodies of all the courses,
+     * which is what clients ask for unless they filter or page through them, are kept for each version of the
+     * courses, so that they are serialized and compressed once rather than at every request.
+     */
+    public EncodedBody encodeCourses(final int institutionCode,
+                                     final TaughtCourses taughtCourses,
+                                     final CoursesQuery query,
+                                     final CoursesRepresentation representation,
+                                     final ContentEncoding acceptedEncoding,
+                                     final RequestMetrics metrics)
+        throws BadRequestException, JsonProcessingException {
+        if (!query.selectsAll()) {
+            return EncodedBody.encode(representation, query.select(taughtCourses), acceptedEncoding, metrics);
+        }
+        final Optional<EncodedBody> cachedBody = encodedBodyCache.get(institutionCode, taughtCourses.getEntityTag(),
+                                                                      representation, acceptedEncoding);
+        if (cachedBody.isPresent()) {
+            metrics.count(Metric.BODY_CACHE_HIT_COUNT);
+            return cachedBody.orElseThrow();
+        }
+        metrics.count(Metric.BODY_CACHE_MISS_COUNT);
+        final EncodedBody body = EncodedBody.encode(representation, query.select(taughtCourses), acceptedEncoding,
+                                                    metrics);
+        encodedBodyCache.put(institutionCode, taughtCourses.getEntityTag(), representation, acceptedEncoding, body);
+        return body;
+    }
+
+    /**
+     * Returns the first codes, at most as many as the limit, of courses currently taught by the institution that
+     * start with the prefix, or nothing when the institution is not configured for FS.
+     *
+     * <p>Codes are completed from an index of the courses of the institution, which is kept until they change. Until
+     * the courses the index was built from are no longer fresh, it is used without checking for changes, so that
+     * completing a code does not even read the courses.
+     */
+    public Optional<List<String>> completeCourseCode(final int institutionCode, final String prefix,
+                                                     final int limit, final RequestMetrics metrics,
+                                                     final Deadline deadline)
+        throws FailedFsResponseException {
+        try {
+            return Optional.of(findCourseCodeIndex(institutionCode, metrics, deadline).complete(prefix, limit));
+        } catch (InstitutionNotFoundException e) {
+            return Optional.empty();
+        }
+    }
+
+    private CourseCodeIndex findCourseCodeIndex(final int institutionCode, final RequestMetrics metrics,
+                                                final Deadline deadline)
+        throws InstitutionNotFoundException, FailedFsResponseException {
+        final Instant now = clock.instant();
+        final Optional<CheckedCourseCodeIndex> checkedIndex = Optional.ofNullable(
+            courseCodeIndexes.get(institutionCode));
+        if (checkedIndex.isPresent() && now.isBefore(checkedIndex.orElseThrow().checkAfter)) {
+            return checkedIndex.orElseThrow().index;
+        }
+        final TaughtCourses taughtCourses = fetchCurrentlyTaughtCourses(institutionCode, metrics, deadline);
+        final CourseCodeIndex index = checkedIndex.map(checked -> checked.index)
+                                          .filter(indexed -> indexed.getEntityTag()
+                                                                 .equals(taughtCourses.getEntityTag()))
+                                          .orElseGet(() -> CourseCodeIndex.build(taughtCourses));
+        // Courses served stale while they are refreshed are no longer fresh, but are not checked at every keystroke:
+        final Instant earliestCheck = now.plus(MIN_COURSE_CODE_INDEX_CHECK_INTERVAL);
+        final Instant checkAfter = taughtCourses.getFreshUntil().isAfter(earliestCheck)
+                                       ? taughtCourses.getFreshUntil()
+                                       : earliestCheck;
+        courseCodeIndexes.put(institutionCode, new CheckedCourseCodeIndex(index, checkAfter));
+        return index;
+    }
+
+    private CompletableFuture<InstitutionCoursesResult> fetchResultAsync(final Integer institutionCode,
+                                                                         final Executor executor,
+                                                                         final Deadline deadline) {
+        if (institutionCode == null) {
+            return CompletableFuture.completedFuture(InstitutionCoursesResult.failed(
+                null, HttpURLConnection.HTTP_BAD_REQUEST, MISSING_INSTITUTION_CODE_MESSAGE));
+        }
+        return CompletableFuture.supplyAsync(() -> fetchResult(institutionCode, deadline), executor);
+    }
+
+    private InstitutionCoursesResult fetchResult(final int institutionCode, final Deadline deadline) {
+        try {
+            return InstitutionCoursesResult.found(institutionCode,
+                                                  fetchCurrentlyTaughtCourses(institutionCode,
+                                                                              RequestMetrics.discarding(),
+                                                                              deadline));
+        } catch (InstitutionNotFoundException e) {
+            return InstitutionCoursesResult.failed(institutionCode, HttpURLConnection.HTTP_NOT_FOUND,
+                                                   "Institution is not configured for FS");
+        } catch (FailedFsResponseException e) {
+            LOGGER.warn("Fetching courses of institution '{}' from FS failed", institutionCode, e);
+            return InstitutionCoursesResult.failed(institutionCode, HttpURLConnection.HTTP_BAD_GATEWAY,
+                                                   e.getMessage());
+        } catch (RuntimeException e) {
+            LOGGER.error("Fetching courses of institution '{}' failed", institutionCode, e);
+            return InstitutionCoursesResult.failed(institutionCode, HttpURLConnection.HTTP_INTERNAL_ERROR,
+                                                   e.getMessage());
+        }
+    }
+
+    private TaughtCourses fetchCurrentlyTaughtCourses(final int institutionCode, final RequestMetrics metrics,
+                                                      final Deadline deadline)
+        throws InstitutionNotFoundException, FailedFsResponseException {
+        final TaughtCourses taughtCourses = findCurrentlyTaughtCourses(institutionCode, metrics, deadline);
+        metrics.record(Metric.COURSE_COUNT, taughtCourses.getCourses().size());
+        return taughtCourses;
+    }
+
+    private TaughtCourses findCurrentlyTaughtCourses(final int institutionCode, final RequestMetrics metrics,
+                                                     final Deadline deadline)
+        throws InstitutionNotFoundException, FailedFsResponseException {
+        try {
+            var fsConfig = fsConfigHolder.getFsConfig(metrics);
+            // Looked up first, so that an institution no longer configured is not served from its snapshot:
+            var institution = fetchInstitutionConfig(fsConfig, institutionCode);
+            final Optional<TaughtCourses> snapshotCourses = findSnapshotCourses(institutionCode, metrics, deadline);
+            if (snapshotCourses.isEmpty()) {
+                return fetchCoursesByInstitutionConfig(fsConfig.getBaseUri(), institution, metrics, deadline);
+            }
+            lastKnownCourses.remember(institutionCode, snapshotCourses.orElseThrow());
+            return snapshotCourses.orElseThrow();
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(FS_CONFIG_NOT_PROPERLY_FORMATTED_JSON, e);
+        }
+    }
+
+    /**
+     * Returns the courses of the snapshot of the institution for the current academic window, unless it has been
+     * stale for longer than the grace period. The snapshot read is kept until its courses are no longer fresh, and
+     * the absence of one for a minute, so that the store is not read at every request.
+     */
+    private Optional<TaughtCourses> findSnapshotCourses(final int institutionCode, final RequestMetrics metrics,
+                                                        final Deadline deadline) {
+        final Instant now = clock.instant();
+        final AcademicWindow academicWindow = AcademicWindow.forMonth(timeProvider.getYear(),
+                                                                      timeProvider.getMonthValue());
+        final Optional<CheckedSnapshot> checkedSnapshot =
+            Optional.ofNullable(snapshots.get(institutionCode))
+                .filter(checked -> checked.window.equals(academicWindow.getKey()) && now.isBefore(checked.checkAfter));
+        final Optional<TaughtCourses> courses = checkedSnapshot.isPresent()
+                                                    ? checkedSnapshot.orElseThrow().courses
+                                                    : readSnapshotCourses(institutionCode, academicWindow, now,
+                                                                          metrics, deadline);
+        final Optional<TaughtCourses> servedCourses = courses.filter(found -> isWithinGracePeriod(found, now));
+        metrics.count(servedCourses.isPresent() ? Metric.SNAPSHOT_HIT_COUNT : Metric.SNAPSHOT_MISS_COUNT);
+        return servedCourses;
+    }
+
+    private Optional<TaughtCourses> readSnapshotCourses(final int institutionCode,
+                                                        final AcademicWindow academicWindow,
+                                                        final Instant now,
+                                                        final RequestMetrics metrics,
+                                                        final Deadline deadline) {
+        final Optional<TaughtCourses> courses;
+        final long readStart = RequestMetrics.startTimer();
+        try {
+            // A snapshot stored for the previous academic window is as good as no snapshot:
+            courses = snapshotStore.find(institutionCode, deadline)
+                          .filter(snapshot -> snapshot.isFor(academicWindow))
+                          .map(CoursesSnapshot::toTaughtCourses);
+        } catch (IOException | RuntimeException e) {
+            // Not kept, so that the next request reads the snapshot again:
+            LOGGER.warn("Reading snapshot for institution '{}' failed, fetching courses from FS", institutionCode, e);
+            return Optional.empty();
+        } finally {
+            metrics.recordTimeSince(Metric.SNAPSHOT_READ_TIME, readStart);
+        }
+        if (courses.isPresent() && !isWithinGracePeriod(courses.orElseThrow(), now)) {
+            LOGGER.warn("Snapshot for institution '{}' has been stale since {}, fetching courses from FS",
+                        institutionCode, courses.orElseThrow().getFreshUntil());
+        }
+        final Instant earliestCheck = now.plus(MIN_SNAPSHOT_CHECK_INTERVAL);
+        final Instant checkAfter = courses.map(TaughtCourses::getFreshUntil)
+                                       .filter(freshUntil -> freshUntil.isAfter(earliestCheck))
+                                       .orElse(earliestCheck);
+        snapshots.put(institutionCode, new CheckedSnapshot(academicWindow.getKey(), courses, checkAfter));
+        return courses;
+    }
+
+    /*
+        The warmer writes snapshots more often than they go stale. One that has been stale for longer than the grace
+        period means that the warmer has stopped, and its courses are too old to be served as if they were current.
+     */
+    private boolean isWithinGracePeriod(final TaughtCourses snapshotCourses, final Instant now) {
+        return now.isBefore(snapshotCourses.getFreshUntil().plus(snapshotGracePeriod));
+    }
+
+    private InstitutionConfig fetchInstitutionConfig(FsConfig fsConfig, int institutionCode)
+        throws InstitutionNotFoundException {
+        return fsConfig.findInstitution(institutionCode).orElseThrow(InstitutionNotFoundException::new);
+    }
+
+    private FailedFsResponseException handleFsFailingServerResponse(final HttpException httpException) {
+        return new FailedFsResponseException(httpException);
+    }
+
+    private TaughtCourses fetchCoursesByInstitutionConfig(final String fsBaseUri,
+                                                          final InstitutionConfig institutionConfig,
+                                                          final RequestMetrics metrics,
+                                                          final Deadline deadline)
+        throws FailedFsResponseException {
+        final int institutionCode = institutionConfig.getCode();
+        try {
+            final CoursesProvider coursesProvider =
+                new CoursesProvider(fsBaseUri, institutionConfig,
+                                    fsClientRegistry.getClient(fsBaseUri, institutionConfig, metrics, deadline),
+                                    fsClientRegistry.getClient(fsBaseUri, institutionConfig),
+                                    coursesCache, metrics);
+            final TaughtCourses taughtCourses =
+                coursesProvider.getCurrentlyTaughtCourses(timeProvider.getYear(), timeProvider.getMonthValue());
+            lastKnownCourses.remember(institutionCode, taughtCourses);
+            return taughtCourses;
+        } catch (CircuitOpenException exception) {
+            final Optional<TaughtCourses> lastKnown = lastKnownCourses.find(institutionCode);
+            if (lastKnown.isEmpty()) {
+                throw handleFsFailingServerResponse(exception);
+            }
+            LOGGER.warn("FS is failing, serving the last known courses of institution '{}'", institutionCode);
+            metrics.count(Metric.STALE_FALLBACK_COUNT);
+            return lastKnown.orElseThrow().asStale(clock.instant());
+        } catch (HttpException exception) {
+            throw handleFsFailingServerResponse(exception);
+        }
+    }
+
+    /**
+     * The courses of a snapshot read for an academic window, or none if there was no snapshot, and the time after
+     * which the snapshot should be read again.
+     */
+    private static final class CheckedSnapshot {
+
+        private final String window;
+        private final Optional<TaughtCourses> courses;
+        private final Instant checkAfter;
+
+        private CheckedSnapshot(final String window, final Optional<TaughtCourses> courses,
+                                final Instant checkAfter) {
+            this.window = window;
+            this.courses = courses;
+            this.checkAfter = checkAfter;
+        }
+    }
+
+    /**
+     * A course code index, and the time after which the courses should be checked for changes.
+     */
+    private static final class CheckedCourseCodeIndex {
+
+        private final CourseCodeIndex index;
+        private final Instant checkAfter;
+
+        private CheckedCourseCodeIndex(final CourseCodeIndex index, final Instant checkAfter) {
+            this.index = index;
+            this.checkAfter = checkAfter;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package no.sikt.nva.fs;
+
+import static no.sikt.nva.fs.CoursesByInstitutionOfLoggedInUserHandler.FS_CONFIG_NOT_PROPERLY_FORMATTED_JSON;
+import static no.sikt.nva.fs.CoursesByInstitutionOfLoggedInUserHandler.FS_CONFIG_SECRET_NAME_ENV_KEY;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import no.sikt.nva.fs.cache.CoursesCache;
+import no.sikt.nva.fs.client.Deadline;
+import no.sikt.nva.fs.client.FsClientRegistry;
+import no.sikt.nva.fs.config.FsConfig;
+import no.sikt.nva.fs.config.FsConfigHolder;
+import no.sikt.nva.fs.config.InstitutionConfig;
+import no.sikt.nva.fs.metrics.RequestMetrics;
+import no.sikt.nva.fs.snapshot.CoursesSnapshot;
+import no.sikt.nva.fs.snapshot.CoursesSnapshotStore;
+import no.sikt.nva.fs.snapshot.S3CoursesSnapshotStore;
+import nva.commons.core.Environment;
+import nva.commons.core.JacocoGenerated;
+import nva.commons.secrets.SecretsReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+
+/**
+ * Runs on a schedule and stores a snapshot of the currently taught courses of every institution configured for FS,
+ * so that {@link CoursesByInstitutionOfLoggedInUserHandler} can answer without waiting for FS. An institution whose
+ * courses cannot be fetched keeps its previous snapshot, and does not stop the others from being warmed.
+ *
+ * <p>Institutions are warmed side by side, at most {@code COURSES_WARMER_CONCURRENCY} (default 4) at a time. Calls
+ * to FS are given up at the deadline of the invocation, and institutions not yet started by then are skipped, so
+ * that an FS that stalls cannot use up the timeout of the function before the snapshots already fetched are stored.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads") // Warms institutions side by side on a pool of its own
+public class CoursesSnapshotWarmerHandler implements RequestHandler<Map<String, Object>, Void> {
+
+    public static final String SNAPSHOT_TIME_TO_LIVE_ENV_KEY = "COURSES_SNAPSHOT_TIME_TO_LIVE_SECONDS";
+    public static final Duration DEFAULT_SNAPSHOT_TIME_TO_LIVE = Duration.ofMinutes(15);
+    public static final String CONCURRENCY_ENV_KEY = "COURSES_WARMER_CONCURRENCY";
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CoursesSnapshotWarmerHandler.class);
+
+    private final Clock clock;
+    private final TimeProvider timeProvider;
+    private final Environment environment = new Environment();
+    private final FsConfigHolder fsConfigHolder;
+    private final CoursesCache coursesCache;
+    private final FsClientRegistry fsClientRegistry;
+    private final CoursesSnapshotStore snapshotStore;
+    private final Duration snapshotTimeToLive;
+    private final ExecutorService executor;
+
+    @JacocoGenerated
+    public CoursesSnapshotWarmerHandler() {
+        this(SecretsReader.defaultSecretsManagerClient(),
+             S3CoursesSnapshotStore.fromEnvironment(new Environment()),
+             Clock.system(ZoneId.systemDefault()));
+    }
+
+    public CoursesSnapshotWarmerHandler(final SecretsManagerClient secretsManagerClient,
+                                        final CoursesSnapshotStore snapshotStore,
+                                        final Clock clock) {
+        this.clock = clock;
+        this.timeProvider = new TimeProvider(clock);
+        final SecretsReader secretsReader = new SecretsReader(secretsManagerClient);
+        final String fsConfigSecretName = environment.readEnv(FS_CONFIG_SECRET_NAME_ENV_KEY);
+        this.fsConfigHolder = FsConfigHolder.fromEnvironment(
+            environment, () -> secretsReader.fetchPlainTextSecret(fsConfigSecretName), clock);
+        // Every run should see what FS holds now. Unchanged pages are still revalidated cheaply by the FS clients:
+        this.coursesCache = new CoursesCache(Duration.ZERO, Duration.ZERO, clock);
+        this.fsClientRegistry = FsClientRegistry.fromEnvironment(environment, clock);
+        this.snapshotStore = snapshotStore;
+        this.snapshotTimeToLive = environment.readEnvOpt(SNAPSHOT_TIME_TO_LIVE_ENV_KEY)
+                                      .map(Long::parseLong)
+                                      .map(Duration::ofSeconds)
+                                      .orElse(DEFAULT_SNAPSHOT_TIME_TO_LIVE);
+        this.executor = Executors.newFixedThreadPool(environment.readEnvOpt(CONCURRENCY_ENV_KEY)
+                                                         .map(Integer::parseInt)
+                                                         .orElse(DEFAULT_CONCURRENCY));
+    }
+
+    @Override
+    public Void handleRequest(final Map<String, Object> event, final Context context) {
+        final FsConfig fsConfig = readFsConfig();
+        final Deadline deadline = CoursesService.deadlineOf(context);
+        final CompletableFuture<?>[] warmings =
+            fsConfig.getInstitutions()
+                .stream()
+                .map(institutionConfig -> CompletableFuture.runAsync(
+                    () -> warmSnapshot(fsConfig.getBaseUri(), institutionConfig, deadline), executor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(warmings).join();
+        return null;
+    }
+
+    private FsConfig readFsConfig() {
+        try {
+            return fsConfigHolder.getFsConfig();
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(FS_CONFIG_NOT_PROPERLY_FORMATTED_JSON, e);
+        }
+    }
+
+    private void warmSnapshot(final String fsBaseUri, final InstitutionConfig institutionConfig,
+                              final Deadline deadline) {
+        if (deadline.hasPassed()) {
+            LOGGER.warn("Out of time before warming snapshot for institution '{}', keeping previous snapshot",
+                        institutionConfig.getCode());
+            return;
+        }
+        final int year = timeProvider.getYear();
+        final int month = timeProvider.getMonthValue();
+        try {
+            final CoursesProvider coursesProvider =
+                new CoursesProvider(fsBaseUri, institutionConfig,
+                                    fsClientRegistry.getClient(fsBaseUri, institutionConfig,
+                                                               RequestMetrics.discarding(), deadline),
+                                    coursesCache);
+            final TaughtCourses taughtCourses = coursesProvider.getCurrentlyTaughtCourses(year, month);
+            snapshotStore.save(CoursesSnapshot.fromTaughtCourses(institutionConfig.getCode(),
+                                                                 AcademicWindow.forMonth(year, month),
+                                                                 taughtCourses,
+                                                                 clock.instant().plus(snapshotTimeToLive)));
+            LOGGER.info("Stored snapshot of {} courses for institution '{}'",
+                        taughtCourses.getCourses().size(), institutionConfig.getCode());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Warming snapshot for institution '{}' failed, keeping previous snapshot",
+                         institutionConfig.getCode(), e);
+        }
+    }
+}
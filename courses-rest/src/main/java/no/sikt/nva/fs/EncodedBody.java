@@ -0,0 +1,89 @@
+package no.sikt.nva.fs;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import no.sikt.nva.fs.metrics.Metric;
+import no.sikt.nva.fs.metrics.RequestMetrics;
+
+/**
+ * The body of a response as it is sent: a representation of the courses, compressed when the client accepts gzip and
+ * the body is long enough for compressing it to pay off, or a problem as it is. Bodies are immutable, and may be kept
+ * and sent again to any client accepting the same representation and coding.
+ */
+public final class EncodedBody {
+
+    /**
+     * The length below which a body is sent as it is, as compressing it would save less than a packet.
+     */
+    public static final int MIN_COMPRESSED_LENGTH = 1024;
+
+    private final byte[] bytes;
+    private final ContentEncoding encoding;
+
+    private EncodedBody(final byte[] bytes, final ContentEncoding encoding) {
+        this.bytes = bytes;
+        this.encoding = encoding;
+    }
+
+    /**
+     * Writes a response in a representation, and compresses it when the accepted coding calls for it. The time
+     * each takes is recorded in the metrics of the request.
+     */
+    public static EncodedBody encode(final CoursesRepresentation representation,
+                                     final CoursesResponse response,
+                                     final ContentEncoding acceptedEncoding,
+                                     final RequestMetrics metrics) throws JsonProcessingException {
+        final long serializeStart = RequestMetrics.startTimer();
+        final byte[] serialized = representation.write(response);
+        metrics.recordTimeSince(Metric.SERIALIZE_TIME, serializeStart);
+        if (acceptedEncoding == ContentEncoding.IDENTITY || serialized.length < MIN_COMPRESSED_LENGTH) {
+            return new EncodedBody(serialized, ContentEncoding.IDENTITY);
+        }
+        final long compressStart = RequestMetrics.startTimer();
+        final byte[] compressed = acceptedEncoding.encode(serialized);
+        metrics.recordTimeSince(Metric.COMPRESS_TIME, compressStart);
+        return new EncodedBody(compressed, acceptedEncoding);
+    }
+
+    /**
+     * A body sent as it is, without any coding.
+     */
+    public static EncodedBody identity(final byte[] bytes) {
+        return new EncodedBody(bytes.clone(), ContentEncoding.IDENTITY);
+    }
+
+    /**
+     * The coding the body is in, which is sent as {@code Content-Encoding} unless it is the identity.
+     */
+    public ContentEncoding getEncoding() {
+        return encoding;
+    }
+
+    public int getLength() {
+        return bytes.length;
+    }
+
+    public void writeTo(final OutputStream output) throws IOException {
+        output.write(bytes);
+    }
+
+    /**
+     * Tells whether API Gateway must be given the body in base64, which it is when it is compressed.
+     */
+    public boolean isBase64Encoded() {
+        return encoding != ContentEncoding.IDENTITY;
+    }
+
+    /**
+     * The body as the response of a Lambda proxy integration holds it: in base64 when it is compressed, and
+     * otherwise as the JSON text it is. Binary representations are not sent through API Gateway.
+     */
+    public String toApiGatewayBody() {
+        return isBase64Encoded()
+                   ? Base64.getEncoder().encodeToString(bytes)
+                   : new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,69 @@
+package no.sikt.nva.fs;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import java.net.HttpURLConnection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of fetching the courses of one institution in a batch: its courses, or the reason they could not be
+ * fetched, with the status code a single request for the institution would have been answered with. Courses are
+ * marked as stale when they are the last ones known, served while FS cannot be called. The institution code is
+ * missing only from the result of an institution code that was missing from the request.
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+@JsonTypeName("InstitutionCourses")
+public class InstitutionCoursesResult {
+
+    private final Integer institutionCode;
+    private final int status;
+    private final List<Course> courses;
+    private final boolean stale;
+    private final String error;
+
+    @JsonCreator
+    public InstitutionCoursesResult(@JsonProperty("institutionCode") final Integer institutionCode,
+                                    @JsonProperty("status") final int status,
+                                    @JsonProperty("courses") final List<Course> courses,
+                                    @JsonProperty("stale") final boolean stale,
+                                    @JsonProperty("error") final String error) {
+        this.institutionCode = institutionCode;
+        this.status = status;
+        this.courses = courses;
+        this.stale = stale;
+        this.error = error;
+    }
+
+    public static InstitutionCoursesResult found(final int institutionCode, final TaughtCourses taughtCourses) {
+        return new InstitutionCoursesResult(institutionCode, HttpURLConnection.HTTP_OK, taughtCourses.getCourses(),
+                                            taughtCourses.isStale(), null);
+    }
+
+    public static InstitutionCoursesResult failed(final Integer institutionCode, final int status,
+                                                  final String error) {
+        return new InstitutionCoursesResult(institutionCode, status, Collections.emptyList(), false, error);
+    }
+
+    public Integer getInstitutionCode() {
+        return institutionCode;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public List<Course> getCourses() {
+        return courses;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
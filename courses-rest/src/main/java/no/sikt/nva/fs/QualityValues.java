@@ -0,0 +1,56 @@
+package no.sikt.nva.fs;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Parsing of the comma-separated lists of {@code Accept} and {@code Accept-Encoding}, whose elements may carry a
+ * quality value such as {@code q=0.5}.
+ */
+/* default */ final class QualityValues {
+
+    /* default */ static final String PARAMETER_SEPARATOR = ";";
+    /* default */ static final double DEFAULT_QUALITY = 1;
+    private static final String ELEMENT_SEPARATOR = ",";
+    private static final String QUALITY_PARAMETER = "q=";
+
+    private QualityValues() {
+    }
+
+    /**
+     * The elements of all values of a header, such as {@code application/json;q=0.5}, trimmed and without empty
+     * ones.
+     */
+    /* default */ static String[] elements(final Collection<String> headerValues) {
+        return headerValues.stream()
+                   .filter(Objects::nonNull)
+                   .flatMap(value -> Arrays.stream(value.split(ELEMENT_SEPARATOR)))
+                   .map(String::trim)
+                   .filter(element -> !element.isEmpty())
+                   .toArray(String[]::new);
+    }
+
+    /**
+     * The quality of an element split on {@link #PARAMETER_SEPARATOR}, which is 1 unless given by a valid
+     * {@code q} parameter.
+     */
+    /* default */ static double qualityOf(final String... nameAndParameters) {
+        return Arrays.stream(nameAndParameters)
+                   .skip(1)
+                   .map(String::trim)
+                   .filter(parameter -> parameter.startsWith(QUALITY_PARAMETER))
+                   .map(parameter -> parameter.substring(QUALITY_PARAMETER.length()))
+                   .findFirst()
+                   .map(QualityValues::parseQuality)
+                   .orElse(DEFAULT_QUALITY);
+    }
+
+    private static double parseQuality(final String quality) {
+        try {
+            return Double.parseDouble(quality);
+        } catch (NumberFormatException e) {
+            return DEFAULT_QUALITY;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package no.sikt.nva.fs;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Courses currently taught by an institution, with a strong entity tag of them and the time until which they are
+ * fresh. Stale courses are the last ones known, served in place of an error while FS cannot be called.
+ */
+public class TaughtCourses {
+
+    private final CourseCatalog courses;
+    private final String entityTag;
+    private final Instant freshUntil;
+    private final boolean stale;
+
+    public TaughtCourses(final List<Course> courses, final String entityTag, final Instant freshUntil) {
+        this(CourseCatalog.copyOf(courses), entityTag, freshUntil, false);
+    }
+
+    private TaughtCourses(final CourseCatalog courses, final String entityTag, final Instant freshUntil,
+                          final boolean stale) {
+        this.courses = courses;
+        this.entityTag = entityTag;
+        this.freshUntil = freshUntil;
+        this.stale = stale;
+    }
+
+    /**
+     * Returns these courses marked as stale, and no longer fresh from the given time on.
+     */
+    public TaughtCourses asStale(final Instant now) {
+        return new TaughtCourses(courses, entityTag, now, true);
+    }
+
+    public CourseCatalog getCourses() {
+        return courses;
+    }
+
+    public String getEntityTag() {
+        return entityTag;
+    }
+
+    public Instant getFreshUntil() {
+        return freshUntil;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+}
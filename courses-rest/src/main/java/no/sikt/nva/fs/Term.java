@@ -42,6 +42,10 @@ public enum Term {
         return Arrays.stream(Term.values()).filter(t -> t.seqNo < term.seqNo).collect(Collectors.toList());
     }
 
+    public static boolean isSupportedCode(final String code) {
+        return CODE_TO_TERM_MAP.containsKey(code);
+    }
+
     public static Term fromCode(final String code) {
         final Term term = CODE_TO_TERM_MAP.get(code);
         if (term == null) {
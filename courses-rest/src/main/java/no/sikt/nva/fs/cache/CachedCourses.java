@@ -0,0 +1,52 @@
+package no.sikt.nva.fs.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.List;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.CourseCatalog;
+
+/**
+ * Courses as held by the cache, as a {@link CourseCatalog}, with a digest of their content that is computed once
+ * when they are loaded, and the time until which they are fresh.
+ */
+public class CachedCourses {
+
+    private static final byte SEPARATOR = 0;
+
+    private final CourseCatalog courses;
+    private final byte[] digest;
+    private final Instant freshUntil;
+
+    public CachedCourses(final List<Course> courses, final Instant freshUntil) {
+        this.courses = CourseCatalog.copyOf(courses);
+        this.digest = digestOf(this.courses);
+        this.freshUntil = freshUntil;
+    }
+
+    public CourseCatalog getCourses() {
+        return courses;
+    }
+
+    public byte[] getDigest() {
+        return digest.clone();
+    }
+
+    public Instant getFreshUntil() {
+        return freshUntil;
+    }
+
+    private static byte[] digestOf(final CourseCatalog courses) {
+        final MessageDigest messageDigest = Digests.sha256();
+        for (int index = 0; index < courses.size(); index++) {
+            messageDigest.update(courses.getCode(index).getBytes(StandardCharsets.UTF_8));
+            messageDigest.update(SEPARATOR);
+            messageDigest.update(courses.getTerm(index).getCode().getBytes(StandardCharsets.UTF_8));
+            messageDigest.update(SEPARATOR);
+            messageDigest.update(Integer.toString(courses.getYear(index)).getBytes(StandardCharsets.UTF_8));
+            messageDigest.update(SEPARATOR);
+        }
+        return messageDigest.digest();
+    }
+}
@@ -0,0 +1,190 @@
+package no.sikt.nva.fs.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.Term;
+import no.sikt.nva.fs.metrics.Metric;
+import no.sikt.nva.fs.metrics.RequestMetrics;
+import nva.commons.core.Environment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-process cache of courses taught by an institution in a given year, meant to live as long as the Lambda
+ * container does.
+ *
+ * <p>An entry younger than the time-to-live is served as is. An entry that has expired, but is still within the
+ * stale-while-revalidate period, is served at once while a single background refresh replaces it. Entries older
+ * than that are loaded again before being returned.
+ *
+ * <p>Each entry records the terms it was loaded for. A request for terms that are not all covered by the entry
+ * loads the entry again for the union of the terms, so that alternating requests do not evict each other.
+ *
+ * <p>The cache holds at most a given number of entries. When it is full, the entries that expire first are evicted
+ * to make room for a new one.
+ */
+public class CoursesCache {
+
+    public static final String TIME_TO_LIVE_ENV_KEY = "COURSES_CACHE_TIME_TO_LIVE_SECONDS";
+    public static final String STALE_WHILE_REVALIDATE_ENV_KEY = "COURSES_CACHE_STALE_WHILE_REVALIDATE_SECONDS";
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(15);
+    public static final Duration DEFAULT_STALE_WHILE_REVALIDATE = Duration.ofHours(6);
+    public static final String MAX_ENTRIES_ENV_KEY = "COURSES_CACHE_MAX_ENTRIES";
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CoursesCache.class);
+
+    private final Map<CoursesCacheKey, Entry> entries = new ConcurrentHashMap<>();
+    private final Duration timeToLive;
+    private final Duration staleWhileRevalidate;
+    private final int maxEntries;
+    private final Clock clock;
+
+    public CoursesCache(final Duration timeToLive, final Duration staleWhileRevalidate, final Clock clock) {
+        this(timeToLive, staleWhileRevalidate, DEFAULT_MAX_ENTRIES, clock);
+    }
+
+    public CoursesCache(final Duration timeToLive, final Duration staleWhileRevalidate, final int maxEntries,
+                        final Clock clock) {
+        this.timeToLive = timeToLive;
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    public static CoursesCache fromEnvironment(final Environment environment, final Clock clock) {
+        return new CoursesCache(readDuration(environment, TIME_TO_LIVE_ENV_KEY, DEFAULT_TIME_TO_LIVE),
+                                readDuration(environment, STALE_WHILE_REVALIDATE_ENV_KEY,
+                                             DEFAULT_STALE_WHILE_REVALIDATE),
+                                environment.readEnvOpt(MAX_ENTRIES_ENV_KEY)
+                                    .map(Integer::parseInt)
+                                    .orElse(DEFAULT_MAX_ENTRIES),
+                                clock);
+    }
+
+    /**
+     * The number of entries the cache holds at most, which also bounds the {@link LastKnownCourses} kept alongside
+     * it.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Returns cached courses for the key covering at least the given terms, using the loader to fetch them when
+     * they are missing, expired, not covering the terms or due for a background refresh. The loader is given the
+     * terms to fetch and is expected not to block; waiting is left to the caller.
+     */
+    public CompletableFuture<CachedCourses> get(final CoursesCacheKey key,
+                                                final Set<Term> terms,
+                                                final Function<Set<Term>, CompletableFuture<List<Course>>> loader) {
+        return get(key, terms, loader, loader, RequestMetrics.discarding());
+    }
+
+    /**
+     * Like {@link #get(CoursesCacheKey, Set, Function)}, refreshing stale entries in the background with a loader
+     * of their own, and counting in the metrics of a request whether the courses were found in the cache. A stale
+     * entry served while it is refreshed counts as found. The background loader outlives the request that triggered
+     * the refresh, so it must not be bound to its deadline or record in its metrics.
+     */
+    public CompletableFuture<CachedCourses> get(final CoursesCacheKey key,
+                                                final Set<Term> terms,
+                                                final Function<Set<Term>, CompletableFuture<List<Course>>> loader,
+                                                final Function<Set<Term>, CompletableFuture<List<Course>>>
+                                                    backgroundLoader,
+                                                final RequestMetrics metrics) {
+        final Entry entry = entries.get(key);
+        final Instant now = clock.instant();
+        if (entry == null || entry.isExpired(now)) {
+            metrics.count(Metric.CACHE_MISS_COUNT);
+            return load(key, EnumSet.copyOf(terms), loader).thenApply(loadedEntry -> loadedEntry.cachedCourses);
+        }
+        if (!entry.terms.containsAll(terms)) {
+            metrics.count(Metric.CACHE_MISS_COUNT);
+            final Set<Term> union = EnumSet.copyOf(entry.terms);
+            union.addAll(terms);
+            return load(key, union, loader).thenApply(loadedEntry -> loadedEntry.cachedCourses);
+        }
+        metrics.count(Metric.CACHE_HIT_COUNT);
+        if (entry.isStale(now)) {
+            refreshInBackground(key, entry, backgroundLoader);
+        }
+        return CompletableFuture.completedFuture(entry.cachedCourses);
+    }
+
+    private CompletableFuture<Entry> load(final CoursesCacheKey key,
+                                          final Set<Term> terms,
+                                          final Function<Set<Term>, CompletableFuture<List<Course>>> loader) {
+        return CompletableFuture.supplyAsync(() -> loader.apply(terms), Runnable::run)
+                   .thenCompose(Function.identity())
+                   .thenApply(courses -> {
+                       final Entry entry = new Entry(courses, terms, clock.instant());
+                       entries.put(key, entry);
+                       evictEntriesExpiringFirst();
+                       return entry;
+                   });
+    }
+
+    private void evictEntriesExpiringFirst() {
+        while (entries.size() > maxEntries) {
+            entries.entrySet().stream()
+                .min(Comparator.comparing(keyAndEntry -> keyAndEntry.getValue().expiresAt))
+                .ifPresent(keyAndEntry -> entries.remove(keyAndEntry.getKey(), keyAndEntry.getValue()));
+        }
+    }
+
+    private void refreshInBackground(final CoursesCacheKey key,
+                                     final Entry staleEntry,
+                                     final Function<Set<Term>, CompletableFuture<List<Course>>> loader) {
+        if (staleEntry.refreshing.compareAndSet(false, true)) {
+            load(key, staleEntry.terms, loader).exceptionally(throwable -> {
+                LOGGER.warn("Background refresh of {} failed, keeping stale entry", key, throwable);
+                staleEntry.refreshing.set(false);
+                return null;
+            });
+        }
+    }
+
+    private static Duration readDuration(final Environment environment,
+                                         final String envKey,
+                                         final Duration defaultValue) {
+        return environment.readEnvOpt(envKey)
+                   .map(Long::parseLong)
+                   .map(Duration::ofSeconds)
+                   .orElse(defaultValue);
+    }
+
+    private final class Entry {
+
+        private final CachedCourses cachedCourses;
+        private final Set<Term> terms;
+        private final Instant expiresAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+        private Entry(final List<Course> courses, final Set<Term> terms, final Instant loadedAt) {
+            final Instant staleAt = loadedAt.plus(timeToLive);
+            this.cachedCourses = new CachedCourses(courses, staleAt);
+            this.terms = terms;
+            this.expiresAt = staleAt.plus(staleWhileRevalidate);
+        }
+
+        private boolean isStale(final Instant now) {
+            return !now.isBefore(cachedCourses.getFreshUntil());
+        }
+
+        private boolean isExpired(final Instant now) {
+            return !now.isBefore(expiresAt);
+        }
+    }
+}
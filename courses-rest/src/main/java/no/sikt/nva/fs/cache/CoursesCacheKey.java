@@ -0,0 +1,50 @@
+package no.sikt.nva.fs.cache;
+
+import java.util.Objects;
+import nva.commons.core.JacocoGenerated;
+
+/**
+ * Identifies the courses taught by one institution in one year. The key deliberately does not include the terms
+ * of a request, so that the spring and autumn windows can share entries for the same year.
+ */
+public final class CoursesCacheKey {
+
+    private final String fsBaseUri;
+    private final int institutionCode;
+    private final int year;
+
+    public CoursesCacheKey(final String fsBaseUri, final int institutionCode, final int year) {
+        this.fsBaseUri = fsBaseUri;
+        this.institutionCode = institutionCode;
+        this.year = year;
+    }
+
+    @JacocoGenerated
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CoursesCacheKey that = (CoursesCacheKey) o;
+        return institutionCode == that.institutionCode && year == that.year && fsBaseUri.equals(that.fsBaseUri);
+    }
+
+    @JacocoGenerated
+    @Override
+    public int hashCode() {
+        return Objects.hash(fsBaseUri, institutionCode, year);
+    }
+
+    @JacocoGenerated
+    @Override
+    public String toString() {
+        return "CoursesCacheKey{"
+               + "fsBaseUri='" + fsBaseUri + '\''
+               + ", institutionCode=" + institutionCode
+               + ", year=" + year
+               + '}';
+    }
+}
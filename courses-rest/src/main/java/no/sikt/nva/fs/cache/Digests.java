@@ -0,0 +1,21 @@
+package no.sikt.nva.fs.cache;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public final class Digests {
+
+    private static final String SHA_256 = "SHA-256";
+
+    private Digests() {
+    }
+
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance(SHA_256);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256:
+            throw new IllegalStateException(e);
+        }
+    }
+}
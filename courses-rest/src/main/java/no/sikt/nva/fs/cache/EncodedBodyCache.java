@@ -0,0 +1,131 @@
+package no.sikt.nva.fs.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import no.sikt.nva.fs.ContentEncoding;
+import no.sikt.nva.fs.CoursesRepresentation;
+import no.sikt.nva.fs.EncodedBody;
+import nva.commons.core.Environment;
+import nva.commons.core.JacocoGenerated;
+
+/**
+ * In-process cache of the bodies of responses holding all the courses currently taught by an institution, kept for
+ * each version of its courses, as told by their entity tag, and each representation and coding asked for. Repeated
+ * requests then send the stored bytes instead of serializing and compressing the courses again.
+ *
+ * <p>The cache holds at most a given number of bytes of bodies, and evicts the least recently used first. Bodies of
+ * courses that have changed are no longer asked for, and are evicted that way.
+ */
+public class EncodedBodyCache {
+
+    public static final String MAX_BYTES_ENV_KEY = "COURSES_BODY_CACHE_MAX_BYTES";
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final Object lock = new Object();
+    private final Map<BodyKey, EncodedBody> bodies;
+    private final long maxBytes;
+    private long totalBytes;
+
+    public EncodedBodyCache(final long maxBytes) {
+        this.maxBytes = maxBytes;
+        // Iterated in access order, so that the least recently used body comes first:
+        this.bodies = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+    }
+
+    public static EncodedBodyCache fromEnvironment(final Environment environment) {
+        return new EncodedBodyCache(environment.readEnvOpt(MAX_BYTES_ENV_KEY)
+                                        .map(Long::parseLong)
+                                        .orElse(DEFAULT_MAX_BYTES));
+    }
+
+    public Optional<EncodedBody> get(final int institutionCode,
+                                     final String entityTag,
+                                     final CoursesRepresentation representation,
+                                     final ContentEncoding acceptedEncoding) {
+        synchronized (lock) {
+            return Optional.ofNullable(bodies.get(new BodyKey(institutionCode, entityTag, representation,
+                                                          acceptedEncoding)));
+        }
+    }
+
+    /**
+     * Keeps a body, unless it is larger than the cache; bodies used least recently are evicted to make room for it.
+     * Concurrent requests missing the same body each encode it, and the last one to finish is kept.
+     */
+    public void put(final int institutionCode,
+                    final String entityTag,
+                    final CoursesRepresentation representation,
+                    final ContentEncoding acceptedEncoding,
+                    final EncodedBody body) {
+        if (body.getLength() > maxBytes) {
+            return;
+        }
+        synchronized (lock) {
+            final EncodedBody replaced = bodies.put(new BodyKey(institutionCode, entityTag, representation,
+                                                            acceptedEncoding), body);
+            totalBytes += body.getLength() - (replaced == null ? 0 : replaced.getLength());
+            final Iterator<Map.Entry<BodyKey, EncodedBody>> leastRecentlyUsed = bodies.entrySet().iterator();
+            while (totalBytes > maxBytes) {
+                totalBytes -= leastRecentlyUsed.next().getValue().getLength();
+                leastRecentlyUsed.remove();
+            }
+        }
+    }
+
+    /**
+     * The number of bytes of bodies held.
+     */
+    public long getSize() {
+        synchronized (lock) {
+            return totalBytes;
+        }
+    }
+
+    /**
+     * Identifies a body by the courses it holds and the representation and coding the client asked for. The
+     * coding asked for rather than the coding of the body is the key, as short bodies are not compressed.
+     */
+    private static final class BodyKey {
+
+        private final int institutionCode;
+        private final String entityTag;
+        private final CoursesRepresentation representation;
+        private final ContentEncoding acceptedEncoding;
+
+        private BodyKey(final int institutionCode, final String entityTag, final CoursesRepresentation representation,
+                    final ContentEncoding acceptedEncoding) {
+            this.institutionCode = institutionCode;
+            this.entityTag = entityTag;
+            this.representation = representation;
+            this.acceptedEncoding = acceptedEncoding;
+        }
+
+        @JacocoGenerated
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            BodyKey that = (BodyKey) o;
+            return institutionCode == that.institutionCode
+                   && entityTag.equals(that.entityTag)
+                   && representation == that.representation
+                   && acceptedEncoding == that.acceptedEncoding;
+        }
+
+        @JacocoGenerated
+        @Override
+        public int hashCode() {
+            return Objects.hash(institutionCode, entityTag, representation, acceptedEncoding);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package no.sikt.nva.fs.cache;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import no.sikt.nva.fs.TaughtCourses;
+
+/**
+ * The courses last served for each institution, to fall back on while FS is failing.
+ *
+ * <p>It holds the courses of at most a given number of institutions. When it is full, the courses that stopped being
+ * fresh first are evicted to make room for new ones, the way {@link CoursesCache} evicts the entries that expire
+ * first.
+ */
+public class LastKnownCourses {
+
+    private final Map<Integer, TaughtCourses> coursesByInstitution = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    public LastKnownCourses(final int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public Optional<TaughtCourses> find(final int institutionCode) {
+        return Optional.ofNullable(coursesByInstitution.get(institutionCode));
+    }
+
+    public void remember(final int institutionCode, final TaughtCourses taughtCourses) {
+        coursesByInstitution.put(institutionCode, taughtCourses);
+        while (coursesByInstitution.size() > maxEntries) {
+            coursesByInstitution.entrySet().stream()
+                .min(Comparator.comparing(codeAndCourses -> codeAndCourses.getValue().getFreshUntil()))
+                .ifPresent(codeAndCourses -> coursesByInstitution.remove(codeAndCourses.getKey(),
+                                                                         codeAndCourses.getValue()));
+        }
+    }
+}
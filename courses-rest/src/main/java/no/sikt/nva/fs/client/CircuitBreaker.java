@@ -0,0 +1,142 @@
+package no.sikt.nva.fs.client;
+
+import java.net.HttpURLConnection;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import no.sikt.nva.fs.metrics.Metric;
+import no.sikt.nva.fs.metrics.RequestMetrics;
+
+/**
+ * Stops calling FS at a base URI that keeps failing, so that requests fail at once instead of each waiting for FS to
+ * time out, such as during a maintenance window of FS. A call is one request for a page of courses, hedged or not.
+ *
+ * <p>The circuit is closed while calls go through. Calls that fail, or succeed but take at least as long as the slow
+ * call time, open it once there have been as many of them in a row as the failure threshold. While open, no call is
+ * let through. After the open duration it is half open: a few trial calls are let through, and others still are
+ * not. The circuit closes when all the trials succeed, and opens again as soon as one of them fails.
+ *
+ * <p>Only failures telling that FS is unwell count: failing to reach it or read its answer, time-outs, server errors
+ * and throttling. Any other answer from FS, such as one refusing the credentials of an institution, counts as
+ * success, as FS did answer. A call not made because the deadline of its request had passed counts as neither.
+ */
+public class CircuitBreaker {
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final CircuitBreakerSettings settings;
+    private final Clock clock;
+    private final Object lock = new Object();
+    private State state = State.CLOSED;
+    private int failures;
+    private Instant openUntil = Instant.MIN;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    public CircuitBreaker(final CircuitBreakerSettings settings, final Clock clock) {
+        this.settings = settings;
+        this.clock = clock;
+    }
+
+    /**
+     * Makes a call through the circuit, failing at once with a {@link CircuitOpenException}, counted in the metrics,
+     * while the circuit is open, and recording how the call completes otherwise.
+     */
+    public <T> CompletableFuture<T> call(final Supplier<CompletableFuture<T>> call, final RequestMetrics metrics) {
+        final Instant start;
+        try {
+            start = acquire();
+        } catch (CircuitOpenException e) {
+            metrics.count(Metric.FS_CIRCUIT_OPEN_COUNT);
+            return CompletableFuture.failedFuture(e);
+        }
+        return call.get().whenComplete((value, failure) -> onCompletion(start, failure));
+    }
+
+    /**
+     * Asks to make a call, returning the time it starts at when it may be made, to be given to
+     * {@link #onCompletion(Instant, Throwable)} when it completes.
+     *
+     * @throws CircuitOpenException if the circuit is open, or half open with all its trials already started
+     */
+    public Instant acquire() {
+        final Instant now = clock.instant();
+        synchronized (lock) {
+            if (state == State.OPEN && !now.isBefore(openUntil)) {
+                state = State.HALF_OPEN;
+                trialsStarted = 0;
+                trialsSucceeded = 0;
+            }
+            if (state == State.OPEN || state == State.HALF_OPEN && trialsStarted >= settings.getHalfOpenTrials()) {
+                throw new CircuitOpenException(openUntil.toString());
+            }
+            if (state == State.HALF_OPEN) {
+                trialsStarted++;
+            }
+        }
+        return now;
+    }
+
+    /**
+     * Records how a call that was let through completed: with the failure it completed with, or {@code null} if it
+     * succeeded.
+     */
+    public void onCompletion(final Instant start, final Throwable failure) {
+        final Instant now = clock.instant();
+        final Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                                    ? failure.getCause()
+                                    : failure;
+        final boolean failed = cause != null && isFsFailure(cause)
+                               || Duration.between(start, now).compareTo(settings.getSlowCall()) >= 0;
+        synchronized (lock) {
+            if (cause instanceof DeadlineExceededException) {
+                releaseTrial();
+            } else if (failed) {
+                recordFailure(now);
+            } else {
+                recordSuccess();
+            }
+        }
+    }
+
+    private void recordFailure(final Instant now) {
+        failures++;
+        if (state == State.HALF_OPEN || state == State.CLOSED && failures >= settings.getFailureThreshold()) {
+            state = State.OPEN;
+            openUntil = now.plus(settings.getOpenDuration());
+        }
+    }
+
+    private void recordSuccess() {
+        failures = 0;
+        if (state == State.HALF_OPEN) {
+            trialsSucceeded++;
+            if (trialsSucceeded >= settings.getHalfOpenTrials()) {
+                state = State.CLOSED;
+            }
+        }
+    }
+
+    private void releaseTrial() {
+        if (state == State.HALF_OPEN) {
+            trialsStarted--;
+        }
+    }
+
+    private static boolean isFsFailure(final Throwable cause) {
+        if (cause instanceof HttpStatusException) {
+            final int statusCode = ((HttpStatusException) cause).getStatusCode();
+            return statusCode >= HttpURLConnection.HTTP_INTERNAL_ERROR || statusCode == TOO_MANY_REQUESTS;
+        }
+        return cause instanceof HttpException;
+    }
+
+    private enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+}
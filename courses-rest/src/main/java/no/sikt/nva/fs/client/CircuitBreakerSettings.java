@@ -0,0 +1,80 @@
+package no.sikt.nva.fs.client;
+
+import java.time.Duration;
+import nva.commons.core.Environment;
+
+/**
+ * When the circuit breaker of an FS base URI opens, and how it tries to close again; see {@link CircuitBreaker}.
+ */
+public final class CircuitBreakerSettings {
+
+    public static final String FAILURE_THRESHOLD_ENV_KEY = "FS_CIRCUIT_FAILURE_THRESHOLD";
+    public static final String SLOW_CALL_ENV_KEY = "FS_CIRCUIT_SLOW_CALL_SECONDS";
+    public static final String OPEN_DURATION_ENV_KEY = "FS_CIRCUIT_OPEN_SECONDS";
+    public static final String HALF_OPEN_TRIALS_ENV_KEY = "FS_CIRCUIT_HALF_OPEN_TRIALS";
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final Duration DEFAULT_SLOW_CALL = Duration.ofSeconds(20);
+    public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+    public static final int DEFAULT_HALF_OPEN_TRIALS = 1;
+    public static final CircuitBreakerSettings DEFAULT = new CircuitBreakerSettings(DEFAULT_FAILURE_THRESHOLD,
+                                                                                    DEFAULT_SLOW_CALL,
+                                                                                    DEFAULT_OPEN_DURATION,
+                                                                                    DEFAULT_HALF_OPEN_TRIALS);
+
+    private final int failureThreshold;
+    private final Duration slowCall;
+    private final Duration openDuration;
+    private final int halfOpenTrials;
+
+    /**
+     * Settings opening the circuit after as many failed or slow calls in a row as the threshold, where a call, a
+     * request for one page of courses, is slow when it takes at least the given time. The circuit stays open for the
+     * open duration, and then lets through as many trial calls as given, which close it again when all of them
+     * succeed.
+     */
+    public CircuitBreakerSettings(final int failureThreshold, final Duration slowCall, final Duration openDuration,
+                                  final int halfOpenTrials) {
+        this.failureThreshold = failureThreshold;
+        this.slowCall = slowCall;
+        this.openDuration = openDuration;
+        this.halfOpenTrials = halfOpenTrials;
+    }
+
+    public static CircuitBreakerSettings fromEnvironment(final Environment environment) {
+        return new CircuitBreakerSettings(readNumber(environment, FAILURE_THRESHOLD_ENV_KEY,
+                                                     DEFAULT_FAILURE_THRESHOLD),
+                                          readDuration(environment, SLOW_CALL_ENV_KEY, DEFAULT_SLOW_CALL),
+                                          readDuration(environment, OPEN_DURATION_ENV_KEY, DEFAULT_OPEN_DURATION),
+                                          readNumber(environment, HALF_OPEN_TRIALS_ENV_KEY,
+                                                     DEFAULT_HALF_OPEN_TRIALS));
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public Duration getSlowCall() {
+        return slowCall;
+    }
+
+    public Duration getOpenDuration() {
+        return openDuration;
+    }
+
+    public int getHalfOpenTrials() {
+        return halfOpenTrials;
+    }
+
+    private static int readNumber(final Environment environment, final String envKey, final int defaultValue) {
+        return environment.readEnvOpt(envKey).map(Integer::parseInt).orElse(defaultValue);
+    }
+
+    private static Duration readDuration(final Environment environment,
+                                         final String envKey,
+                                         final Duration defaultValue) {
+        return environment.readEnvOpt(envKey)
+                   .map(Long::parseLong)
+                   .map(Duration::ofSeconds)
+                   .orElse(defaultValue);
+    }
+}
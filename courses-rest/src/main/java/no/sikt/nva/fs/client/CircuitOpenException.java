@@ -0,0 +1,13 @@
+package no.sikt.nva.fs.client;
+
+/**
+ * Thrown instead of calling FS while the circuit breaker of its base URI is open.
+ */
+public class CircuitOpenException extends HttpException {
+
+    public static final String CIRCUIT_OPEN_MESSAGE = "FS is failing, not calling it until ";
+
+    public CircuitOpenException(final String openUntil) {
+        super(CIRCUIT_OPEN_MESSAGE + openUntil);
+    }
+}
@@ -0,0 +1,53 @@
+package no.sikt.nva.fs.client;
+
+import java.time.Duration;
+
+/**
+ * The time by which a request has to be answered, which bounds the timeout of every call made to FS while answering
+ * it. A Lambda invocation gets its deadline from the time it has left, so that a stalled call to FS fails in time to
+ * answer rather than using up the timeout of the function. Measured with {@link System#nanoTime()}, so that it is not
+ * moved by changes to the wall clock.
+ */
+public final class Deadline {
+
+    private static final Deadline UNBOUNDED = new Deadline(false, 0);
+
+    private final boolean bounded;
+    private final long expiresAt;
+
+    private Deadline(final boolean bounded, final long expiresAt) {
+        this.bounded = bounded;
+        this.expiresAt = expiresAt;
+    }
+
+    public static Deadline after(final Duration budget) {
+        return new Deadline(true, System.nanoTime() + budget.toNanos());
+    }
+
+    /**
+     * No deadline, for callers whose calls to FS are only bounded by their own timeouts.
+     */
+    public static Deadline none() {
+        return UNBOUNDED;
+    }
+
+    /**
+     * Returns the timeout of a call that may take at most the given time, and must not outlast the deadline. Zero or
+     * negative once the deadline has passed.
+     */
+    public Duration timeout(final Duration maximum) {
+        if (!bounded) {
+            return maximum;
+        }
+        final Duration remaining = Duration.ofNanos(expiresAt - System.nanoTime());
+        return remaining.compareTo(maximum) < 0 ? remaining : maximum;
+    }
+
+    /**
+     * Tells whether the deadline has passed, leaving no time for another call; never for no deadline.
+     */
+    public boolean hasPassed() {
+        final Duration remaining = timeout(Duration.ofNanos(Long.MAX_VALUE));
+        return remaining.isNegative() || remaining.isZero();
+    }
+}
@@ -0,0 +1,13 @@
+package no.sikt.nva.fs.client;
+
+/**
+ * Thrown instead of calling FS when the deadline of the request has passed.
+ */
+public class DeadlineExceededException extends HttpException {
+
+    public static final String DEADLINE_EXCEEDED_MESSAGE = "No time left to call FS before the deadline of the request";
+
+    public DeadlineExceededException() {
+        super(DEADLINE_EXCEEDED_MESSAGE);
+    }
+}
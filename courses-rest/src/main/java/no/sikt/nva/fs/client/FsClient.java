@@ -1,5 +1,16 @@
 package no.sikt.nva.fs.client;
 
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.Term;
+
 public interface FsClient {
-    FsCollectionResponse getTaughtCourses(int year);
+
+    CompletableFuture<List<Course>> getTaughtCoursesAsync(int year, Set<Term> terms);
+
+    default List<Course> getTaughtCourses(int year, Set<Term> terms) {
+        return FsFutures.join(getTaughtCoursesAsync(year, terms));
+    }
 }
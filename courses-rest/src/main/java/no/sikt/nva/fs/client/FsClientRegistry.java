@@ -0,0 +1,153 @@
+package no.sikt.nva.fs.client;
+
+import java.net.http.HttpClient;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import no.sikt.nva.fs.config.InstitutionConfig;
+import no.sikt.nva.fs.metrics.RequestMetrics;
+import nva.commons.core.Environment;
+
+/**
+ * Hands out FS clients backed by one long-lived {@link HttpClient} per FS base URI. Keeping the HTTP clients
+ * between invocations lets connections, TLS sessions and HTTP/2 streams be reused instead of being set up again
+ * for every request. The validators of pages fetched from FS are kept here as well, so that later requests can
+ * revalidate them, and so are the fetches in flight, so that concurrent requests for the same courses share them.
+ * Each base URI has a {@link CircuitBreaker} of its own, so that an FS that keeps failing is not called until it
+ * seems to have recovered, and keeps the recent latencies of FS to hedge requests by; see {@link Hedging}.
+ */
+public class FsClientRegistry {
+
+    public static final String CONNECT_TIMEOUT_ENV_KEY = "FS_CONNECT_TIMEOUT_SECONDS";
+    public static final String REQUEST_TIMEOUT_ENV_KEY = "FS_REQUEST_TIMEOUT_SECONDS";
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(60);
+    public static final String PAGE_SIZE_ENV_KEY = "FS_PAGE_SIZE";
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    private final Map<String, FsEndpoint> endpoints = new ConcurrentHashMap<>();
+    private final ValidatedPageCache validatedPageCache;
+    private final InFlightFetches inFlightFetches = new InFlightFetches();
+    private final Duration connectTimeout;
+    private final Duration requestTimeout;
+    private final int pageSize;
+    private final CircuitBreakerSettings circuitBreakerSettings;
+    private final double hedgePercentile;
+    private final Clock clock;
+
+    public FsClientRegistry(final Duration connectTimeout, final Duration requestTimeout, final int pageSize) {
+        this(connectTimeout, requestTimeout, pageSize, CircuitBreakerSettings.DEFAULT, Hedging.NO_HEDGING,
+             Clock.systemUTC());
+    }
+
+    /**
+     * A registry hedging requests to FS at the given percentile of their recent latency, or not at all with
+     * {@link Hedging#NO_HEDGING}.
+     */
+    public FsClientRegistry(final Duration connectTimeout, final Duration requestTimeout, final int pageSize,
+                            final CircuitBreakerSettings circuitBreakerSettings, final double hedgePercentile,
+                            final Clock clock) {
+        this(connectTimeout, requestTimeout, pageSize, circuitBreakerSettings, hedgePercentile,
+             new ValidatedPageCache(), clock);
+    }
+
+    /**
+     * A registry keeping the validators of pages fetched from FS in the given cache.
+     */
+    public FsClientRegistry(final Duration connectTimeout, final Duration requestTimeout, final int pageSize,
+                            final CircuitBreakerSettings circuitBreakerSettings, final double hedgePercentile,
+                            final ValidatedPageCache validatedPageCache, final Clock clock) {
+        this.validatedPageCache = validatedPageCache;
+        this.connectTimeout = connectTimeout;
+        this.requestTimeout = requestTimeout;
+        this.pageSize = HttpUrlConnectionFsClient.requireValidPageSize(pageSize);
+        this.circuitBreakerSettings = circuitBreakerSettings;
+        this.hedgePercentile = hedgePercentile;
+        this.clock = clock;
+    }
+
+    public static FsClientRegistry fromEnvironment(final Environment environment) {
+        return fromEnvironment(environment, Clock.systemUTC());
+    }
+
+    public static FsClientRegistry fromEnvironment(final Environment environment, final Clock clock) {
+        return new FsClientRegistry(readDuration(environment, CONNECT_TIMEOUT_ENV_KEY, DEFAULT_CONNECT_TIMEOUT),
+                                    readDuration(environment, REQUEST_TIMEOUT_ENV_KEY, DEFAULT_REQUEST_TIMEOUT),
+                                    environment.readEnvOpt(PAGE_SIZE_ENV_KEY)
+                                        .map(Integer::parseInt)
+                                        .orElse(DEFAULT_PAGE_SIZE),
+                                    CircuitBreakerSettings.fromEnvironment(environment),
+                                    environment.readEnvOpt(Hedging.PERCENTILE_ENV_KEY)
+                                        .map(Double::parseDouble)
+                                        .orElse(Hedging.NO_HEDGING),
+                                    ValidatedPageCache.fromEnvironment(environment),
+                                    clock);
+    }
+
+    public FsClient getClient(final String baseUri, final InstitutionConfig institutionConfig) {
+        return getClient(baseUri, institutionConfig, RequestMetrics.discarding());
+    }
+
+    /**
+     * Returns a client recording its requests to FS in the metrics of a request. Fetches shared with concurrent
+     * requests are recorded by the request that started them.
+     */
+    public FsClient getClient(final String baseUri, final InstitutionConfig institutionConfig,
+                              final RequestMetrics metrics) {
+        return getClient(baseUri, institutionConfig, metrics, Deadline.none());
+    }
+
+    /**
+     * Returns a client recording its requests to FS in the metrics of a request, and giving up on them at the
+     * deadline of the request. Fetches shared with concurrent requests keep the deadline of the request that started
+     * them.
+     */
+    public FsClient getClient(final String baseUri, final InstitutionConfig institutionConfig,
+                              final RequestMetrics metrics, final Deadline deadline) {
+        // The pages of a fetch shared by concurrent requests go through the circuit breaker once:
+        final FsClient fsClient = new HttpUrlConnectionFsClient(getEndpoint(baseUri),
+                                                                institutionConfig,
+                                                                requestTimeout,
+                                                                pageSize,
+                                                                validatedPageCache,
+                                                                metrics,
+                                                                deadline);
+        return new SingleFlightFsClient(fsClient, baseUri, institutionConfig.getCode(), inFlightFetches);
+    }
+
+    /* default */ HttpClient getHttpClient(final String baseUri) {
+        return getEndpoint(baseUri).getHttpClient();
+    }
+
+    /* default */ CircuitBreaker getCircuitBreaker(final String baseUri) {
+        return getEndpoint(baseUri).getCircuitBreaker();
+    }
+
+    /* default */ Hedging getHedging(final String baseUri) {
+        return getEndpoint(baseUri).getHedging();
+    }
+
+    private FsEndpoint getEndpoint(final String baseUri) {
+        return endpoints.computeIfAbsent(baseUri, uri -> new FsEndpoint(uri, createHttpClient(),
+                                                                        new CircuitBreaker(circuitBreakerSettings,
+                                                                                           clock),
+                                                                        new Hedging(hedgePercentile)));
+    }
+
+    private HttpClient createHttpClient() {
+        return HttpClient.newBuilder()
+                   .version(HttpClient.Version.HTTP_2)
+                   .connectTimeout(connectTimeout)
+                   .build();
+    }
+
+    private static Duration readDuration(final Environment environment,
+                                         final String envKey,
+                                         final Duration defaultValue) {
+        return environment.readEnvOpt(envKey)
+                   .map(Long::parseLong)
+                   .map(Duration::ofSeconds)
+                   .orElse(defaultValue);
+    }
+}
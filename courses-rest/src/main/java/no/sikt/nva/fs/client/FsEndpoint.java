@@ -0,0 +1,40 @@
+package no.sikt.nva.fs.client;
+
+import java.net.http.HttpClient;
+
+/**
+ * What is kept for one FS base URI and shared by every client calling it: the HTTP client whose connections are
+ * reused, the {@link CircuitBreaker} that each request for a page of courses goes through, and the {@link Hedging}
+ * keeping the recent latencies of those requests.
+ */
+public final class FsEndpoint {
+
+    private final String baseUri;
+    private final HttpClient httpClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Hedging hedging;
+
+    public FsEndpoint(final String baseUri, final HttpClient httpClient, final CircuitBreaker circuitBreaker,
+                      final Hedging hedging) {
+        this.baseUri = baseUri;
+        this.httpClient = httpClient;
+        this.circuitBreaker = circuitBreaker;
+        this.hedging = hedging;
+    }
+
+    public String getBaseUri() {
+        return baseUri;
+    }
+
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public Hedging getHedging() {
+        return hedging;
+    }
+}
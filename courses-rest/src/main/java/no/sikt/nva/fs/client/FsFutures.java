@@ -0,0 +1,29 @@
+package no.sikt.nva.fs.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public final class FsFutures {
+
+    private FsFutures() {
+    }
+
+    /**
+     * Waits for the future and rethrows a failure from FS as the {@link HttpException} it completed with, rather
+     * than wrapped in a {@link CompletionException}.
+     */
+    public static <T> T join(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static RuntimeException unwrap(final Throwable throwable) {
+        final Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+        return cause instanceof RuntimeException
+                   ? (RuntimeException) cause
+                   : new HttpException(HttpUrlConnectionFsClient.PROBLEMS_COMMUNICATING_WITH_SERVER_MESSAGE, cause);
+    }
+}
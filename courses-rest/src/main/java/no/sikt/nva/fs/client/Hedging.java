@@ -0,0 +1,132 @@
+package no.sikt.nva.fs.client;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import no.sikt.nva.fs.metrics.Metric;
+import no.sikt.nva.fs.metrics.RequestMetrics;
+
+/**
+ * Hedges requests to an FS base URI against stalls: a request that has not completed by a percentile of the latency
+ * of recent requests, such as the 95th, is sent once more, and whichever of the two first succeeds is used. A request
+ * fails only when both do. As only the slowest requests are sent twice, FS gets few more requests than before, while
+ * the occasional stalled request no longer decides how long a response takes.
+ *
+ * <p>Latencies are kept of the last requests that succeeded. Requests are not hedged until enough latencies are known,
+ * nor at all when no percentile is given.
+ */
+public class Hedging {
+
+    public static final String PERCENTILE_ENV_KEY = "FS_HEDGE_PERCENTILE";
+    public static final double NO_HEDGING = 0;
+    /* default */ static final int LATENCY_WINDOW = 128;
+    /* default */ static final int MIN_LATENCIES = 20;
+    private static final double HUNDRED_PERCENT = 100;
+
+    private final double percentile;
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private final Object lock = new Object();
+    private int latencyCount;
+    private int nextLatency;
+
+    /**
+     * Hedges requests at the given percentile, between 0 and 100, of recent latency; {@link #NO_HEDGING} turns
+     * hedging off.
+     */
+    public Hedging(final double percentile) {
+        this.percentile = percentile;
+    }
+
+    /**
+     * Sends a request by calling the attempt, and calls it once more if the request has not completed by the time
+     * to hedge. Successes and their latencies are recorded, and hedged requests are counted in the metrics.
+     */
+    public <T> CompletableFuture<T> send(final Supplier<CompletableFuture<T>> attempt, final RequestMetrics metrics) {
+        if (percentile <= NO_HEDGING) {
+            return attempt.get();
+        }
+        final HedgedRequest<T> request = new HedgedRequest<>();
+        final Optional<Duration> hedgeAfter = findHedgeDelay();
+        start(request, attempt);
+        hedgeAfter.ifPresent(delay -> CompletableFuture.delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS)
+                                          .execute(() -> hedge(request, attempt, metrics)));
+        return request.result;
+    }
+
+    /**
+     * The time after which a request is sent again, once enough latencies are known.
+     */
+    /* default */ Optional<Duration> findHedgeDelay() {
+        final long[] known;
+        synchronized (lock) {
+            if (latencyCount < MIN_LATENCIES) {
+                return Optional.empty();
+            }
+            known = Arrays.copyOf(latencies, latencyCount);
+        }
+        Arrays.sort(known);
+        final int rank = (int) Math.ceil(percentile / HUNDRED_PERCENT * known.length);
+        return Optional.of(Duration.ofNanos(known[Math.max(0, Math.min(known.length, rank) - 1)]));
+    }
+
+    /* default */ void recordLatency(final long nanos) {
+        synchronized (lock) {
+            latencies[nextLatency] = nanos;
+            nextLatency = (nextLatency + 1) % LATENCY_WINDOW;
+            latencyCount = Math.min(latencyCount + 1, LATENCY_WINDOW);
+        }
+    }
+
+    private <T> void hedge(final HedgedRequest<T> request, final Supplier<CompletableFuture<T>> attempt,
+                           final RequestMetrics metrics) {
+        if (request.startHedge()) {
+            metrics.count(Metric.FS_HEDGE_COUNT);
+            start(request, attempt);
+        }
+    }
+
+    private <T> void start(final HedgedRequest<T> request, final Supplier<CompletableFuture<T>> attempt) {
+        final long start = System.nanoTime();
+        attempt.get().whenComplete((value, failure) -> {
+            if (failure == null) {
+                recordLatency(System.nanoTime() - start);
+            }
+            request.complete(value, failure);
+        });
+    }
+
+    /**
+     * The attempts at a request in flight, completing the request with the first success, or with the failure of
+     * the last attempt when all of them fail.
+     */
+    private static final class HedgedRequest<T> {
+
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final Object lock = new Object();
+        private int attemptsInFlight = 1;
+
+        private boolean startHedge() {
+            synchronized (lock) {
+                if (result.isDone() || attemptsInFlight == 0) {
+                    return false;
+                }
+                attemptsInFlight++;
+                return true;
+            }
+        }
+
+        private void complete(final T value, final Throwable failure) {
+            synchronized (lock) {
+                attemptsInFlight--;
+                if (failure == null) {
+                    result.complete(value);
+                } else if (attemptsInFlight == 0) {
+                    result.completeExceptionally(failure);
+                }
+            }
+        }
+    }
+}
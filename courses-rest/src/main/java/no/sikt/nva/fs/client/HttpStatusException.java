@@ -5,7 +5,14 @@ public class HttpStatusException extends HttpException {
     public static final String UNEXPECTED_RESPONSE_CODE_RETURNED_BY_SERVER_MESSAGE = "Unexpected response code "
                                                                                     + "returned by sever: ";
 
+    private final int statusCode;
+
     public HttpStatusException(int responseCode) {
         super(UNEXPECTED_RESPONSE_CODE_RETURNED_BY_SERVER_MESSAGE + responseCode);
+        this.statusCode = responseCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
     }
 }
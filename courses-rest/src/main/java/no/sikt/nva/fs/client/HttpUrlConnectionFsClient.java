@@ -1,83 +1,220 @@
 package no.sikt.nva.fs.client;
 
-import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.net.http.HttpResponse.BodyHandlers;
-import java.util.Base64;
-import no.unit.nva.commons.json.JsonUtils;
-import nva.commons.core.paths.UriWrapper;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.net.http.HttpResponse.ResponseInfo;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.CourseCatalog;
+import no.sikt.nva.fs.Term;
+import no.sikt.nva.fs.config.InstitutionConfig;
+import no.sikt.nva.fs.metrics.RequestMetrics;
 
 public class HttpUrlConnectionFsClient implements FsClient {
 
-    private static final String TEACHING_URI_PATH = "undervisning";
-    private static final String DB_IDENTIFIER_QUERY_PARAM_NAME = "dbId";
-    private static final String INSTITUTION_QUERY_PARAM_NAME = "emne.institusjon";
-    private static final String YEAR_QUERY_PARAM_NAME = "semester.ar";
-    private static final String LIMIT_QUERY_PARAM_NAME = "limit";
-    private static final String UNLIMITED = "0";
     public static final String PROBLEMS_READING_RESPONSE_FROM_SERVER_MESSAGE = "Problems reading response from server";
     public static final String PROBLEMS_COMMUNICATING_WITH_SERVER_MESSAGE = "Problems communicating with server";
+    public static final String INVALID_PAGE_SIZE_MESSAGE = "FS page size must be at least 1, but is ";
+    public static final int MIN_PAGE_SIZE = 1;
+    private static final Set<Term> ALL_TERMS = EnumSet.allOf(Term.class);
+    private static final TaughtCoursesPage NO_PAGE = new TaughtCoursesPage(List.of(), 0);
+    private static final String AUTHORIZATION_HEADER = "Authorization";
+    private static final String ENTITY_TAG_HEADER = "ETag";
+    private static final String LAST_MODIFIED_HEADER = "Last-Modified";
+    private static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+    private static final String IF_MODIFIED_SINCE_HEADER = "If-Modified-Since";
     private final HttpClient httpClient;
     private final String baseUri;
+    private final CircuitBreaker circuitBreaker;
     private final int institutionCode;
-    private final String username;
-    private final String password;
+    private final String authorizationHeader;
+    private final Duration requestTimeout;
+    private final int pageSize;
+    private final ValidatedPageCache validatedPageCache;
+    private final Hedging hedging;
+    private final RequestMetrics metrics;
+    private final Deadline deadline;
 
-    public HttpUrlConnectionFsClient(final String baseUri, final int institutionCode, final String username,
-                                     final String password) {
+    /**
+     * A client of an FS endpoint whose requests time out after the request timeout, or at the deadline if that comes
+     * first. The page size must be at least {@link #MIN_PAGE_SIZE}.
+     */
+    public HttpUrlConnectionFsClient(final FsEndpoint endpoint, final InstitutionConfig institutionConfig,
+                                     final Duration requestTimeout, final int pageSize,
+                                     final ValidatedPageCache validatedPageCache, final RequestMetrics metrics,
+                                     final Deadline deadline) {
 
-        this.httpClient = HttpClient.newBuilder().build();
-        this.baseUri = baseUri;
-        this.institutionCode = institutionCode;
-        this.username = username;
-        this.password = password;
+        this.httpClient = endpoint.getHttpClient();
+        this.baseUri = endpoint.getBaseUri();
+        this.circuitBreaker = endpoint.getCircuitBreaker();
+        this.institutionCode = institutionConfig.getCode();
+        this.authorizationHeader = institutionConfig.getBasicAuthenticationHeader();
+        this.requestTimeout = requestTimeout;
+        this.pageSize = requireValidPageSize(pageSize);
+        this.validatedPageCache = validatedPageCache;
+        this.hedging = endpoint.getHedging();
+        this.metrics = metrics;
+        this.deadline = deadline;
     }
 
     @Override
-    public FsCollectionResponse getTaughtCourses(final int year) {
-        final URI uri = UriWrapper.fromUri(baseUri)
-                            .addChild(TEACHING_URI_PATH)
-                            .addQueryParameter(DB_IDENTIFIER_QUERY_PARAM_NAME, "true")
-                            .addQueryParameter(INSTITUTION_QUERY_PARAM_NAME, Integer.toString(institutionCode))
-                            .addQueryParameter(YEAR_QUERY_PARAM_NAME, Integer.toString(year))
-                            .addQueryParameter(LIMIT_QUERY_PARAM_NAME, UNLIMITED)
-                            .getUri();
-
-        final HttpRequest request = HttpRequest.newBuilder(uri)
-                                        .GET()
-                                        .setHeader("Authorization", getBasicAuthenticationHeader())
-                                        .build();
-        final HttpResponse<byte[]> response = sendRequest(request);
+    public CompletableFuture<List<Course>> getTaughtCoursesAsync(final int year, final Set<Term> terms) {
+        if (terms.containsAll(ALL_TERMS)) {
+            return fetchAllPages(createQuery(year).build(), terms);
+        }
+
+        // FS filters on one term per query, so the wanted terms are queried side by side:
+        final List<CompletableFuture<List<Course>>> coursesByTerm =
+            terms.stream()
+                .map(term -> fetchAllPages(createQuery(year).withTerm(term).build(), EnumSet.of(term)))
+                .collect(Collectors.toList());
+
+        return CompletableFuture.allOf(coursesByTerm.toArray(CompletableFuture[]::new))
+                   .thenApply(ignored -> coursesByTerm.stream()
+                                             .flatMap(coursesForTerm -> coursesForTerm.join().stream())
+                                             .collect(Collectors.toList()));
+    }
+
+    /**
+     * Returns the page size if it is at least {@link #MIN_PAGE_SIZE}. FS answers a page size of 0 with everything at
+     * once, which the client cannot tell from a full page; asking for the next page after it would never end.
+     */
+    /* default */ static int requireValidPageSize(final int pageSize) {
+        if (pageSize < MIN_PAGE_SIZE) {
+            throw new IllegalArgumentException(INVALID_PAGE_SIZE_MESSAGE + pageSize);
+        }
+        return pageSize;
+    }
+
+    private TaughtCoursesQuery.Builder createQuery(final int year) {
+        return TaughtCoursesQuery.builder()
+                   .withBaseUri(baseUri)
+                   .withInstitutionCode(institutionCode)
+                   .withYear(year)
+                   .withPageSize(pageSize);
+    }
+
+    private CompletableFuture<List<Course>> fetchAllPages(final TaughtCoursesQuery query, final Set<Term> terms) {
+        return fetchPagesFrom(query, TaughtCoursesQuery.FIRST_PAGE, terms, new ArrayList<>());
+    }
+
+    /*
+        Pages are requested one after the other, and the courses of each page are added as soon as it has been
+        parsed. A page with fewer items than asked for is the last one, and so is an empty page. So is a page with
+        more items than asked for, which means that the limit was not honoured and everything was returned at once.
+     */
+    private CompletableFuture<List<Course>> fetchPagesFrom(final TaughtCoursesQuery query,
+                                                           final int page,
+                                                           final Set<Term> terms,
+                                                           final List<Course> courses) {
+        return fetchPage(query.toUri(page), terms).thenCompose(coursesPage -> {
+            courses.addAll(coursesPage.getCourses());
+            return coursesPage.getItemCount() > 0 && coursesPage.getItemCount() == query.getPageSize()
+                       ? fetchPagesFrom(query, page + 1, terms, courses)
+                       : CompletableFuture.completedFuture(courses);
+        });
+    }
+
+    /*
+        A page fetched before with validators is fetched conditionally. If FS answers that it has not been modified,
+        the courses parsed from it the last time are used again. A page that is slow to arrive may be asked for
+        twice; see Hedging. Each page, hedged or not, is one call through the circuit breaker, so that whether it
+        is slow does not depend on how many pages the courses of a year take.
+     */
+    private CompletableFuture<TaughtCoursesPage> fetchPage(final URI uri, final Set<Term> terms) {
+        final Optional<ValidatedPage> cachedPage = validatedPageCache.find(uri);
+        return circuitBreaker.call(() -> hedging.send(() -> sendPageRequest(uri, terms, cachedPage), metrics),
+                                   metrics);
+    }
+
+    private CompletableFuture<TaughtCoursesPage> sendPageRequest(final URI uri, final Set<Term> terms,
+                                                                 final Optional<ValidatedPage> cachedPage) {
+        final Duration timeout = deadline.timeout(requestTimeout);
+        if (timeout.isNegative() || timeout.isZero()) {
+            return CompletableFuture.failedFuture(new DeadlineExceededException());
+        }
+        final HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(uri)
+                                                       .GET()
+                                                       .timeout(timeout)
+                                                       .setHeader(AUTHORIZATION_HEADER, authorizationHeader);
+        cachedPage.ifPresent(page -> addValidators(requestBuilder, page));
+
+        final long requestStart = RequestMetrics.startTimer();
+        return httpClient.sendAsync(requestBuilder.build(), responseInfo -> createBodySubscriber(responseInfo, terms))
+                   .exceptionally(throwable -> handleCommunicationFailure(throwable, requestStart))
+                   .thenApply(response -> handleResponse(uri, response, cachedPage, requestStart));
+    }
+
+    private static void addValidators(final HttpRequest.Builder requestBuilder, final ValidatedPage page) {
+        page.getEntityTag().ifPresent(entityTag -> requestBuilder.setHeader(IF_NONE_MATCH_HEADER, entityTag));
+        page.getLastModified()
+            .ifPresent(lastModified -> requestBuilder.setHeader(IF_MODIFIED_SINCE_HEADER, lastModified));
+    }
+
+    private BodySubscriber<TaughtCoursesPage> createBodySubscriber(final ResponseInfo responseInfo,
+                                                                   final Set<Term> terms) {
+        return responseInfo.statusCode() == HttpURLConnection.HTTP_OK
+                   ? new TaughtCoursesBodySubscriber(terms, metrics)
+                   : BodySubscribers.replacing(NO_PAGE);
+    }
+
+    private TaughtCoursesPage handleResponse(final URI uri,
+                                             final HttpResponse<TaughtCoursesPage> response,
+                                             final Optional<ValidatedPage> cachedPage,
+                                             final long requestStart) {
         final int statusCode = response.statusCode();
+        // The time of a page includes receiving and parsing its body, which happen as it arrives:
+        metrics.recordFsResponse(statusCode, requestStart);
         if (statusCode == HttpURLConnection.HTTP_OK) {
-            return convertResponseBody(response.body());
+            return rememberValidators(uri, response);
+        } else if (statusCode == HttpURLConnection.HTTP_NOT_MODIFIED && cachedPage.isPresent()) {
+            return cachedPage.get().getPage();
         } else {
             throw new HttpStatusException(statusCode);
         }
     }
 
-    private FsCollectionResponse convertResponseBody(byte[] body) {
-        try {
-            return JsonUtils.dtoObjectMapper.readValue(body, FsCollectionResponse.class);
-        } catch (IOException e) {
-            throw new HttpException(PROBLEMS_READING_RESPONSE_FROM_SERVER_MESSAGE, e);
+    /**
+     * Remembers the validators of a page along with its courses, and returns the page to use. A page that is kept
+     * is returned as it is kept, so that the courses cached from it and the page share their codes.
+     */
+    private TaughtCoursesPage rememberValidators(final URI uri, final HttpResponse<TaughtCoursesPage> response) {
+        final Optional<String> entityTag = response.headers().firstValue(ENTITY_TAG_HEADER);
+        final Optional<String> lastModified = response.headers().firstValue(LAST_MODIFIED_HEADER);
+        if (entityTag.isEmpty() && lastModified.isEmpty()) {
+            // A page that can no longer be revalidated must not be answered from the cache:
+            validatedPageCache.remove(uri);
+            return response.body();
         }
+        final TaughtCoursesPage page = new TaughtCoursesPage(CourseCatalog.copyOf(response.body().getCourses()),
+                                                             response.body().getItemCount());
+        validatedPageCache.put(uri, new ValidatedPage(entityTag.orElse(null), lastModified.orElse(null), page));
+        return page;
     }
 
-    private HttpResponse<byte[]> sendRequest(HttpRequest request) {
-        try {
-            return httpClient.send(request, BodyHandlers.ofByteArray());
-        } catch (IOException | InterruptedException e) {
-            throw new HttpException(PROBLEMS_COMMUNICATING_WITH_SERVER_MESSAGE, e);
+    private HttpResponse<TaughtCoursesPage> handleCommunicationFailure(final Throwable throwable,
+                                                                       final long requestStart) {
+        metrics.recordFsFailure(requestStart);
+        final Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+        // Failures while parsing the body are already described by the body subscriber, but may arrive wrapped:
+        for (Throwable current = cause; current != null; current = current.getCause()) {
+            if (current instanceof HttpException) {
+                throw (HttpException) current;
+            }
         }
-    }
-
-    private String getBasicAuthenticationHeader() {
-        final String valueToEncode = this.username + ":" + this.password;
-        return "Basic " + Base64.getEncoder().encodeToString(valueToEncode.getBytes());
+        throw new HttpException(PROBLEMS_COMMUNICATING_WITH_SERVER_MESSAGE, cause);
     }
 }
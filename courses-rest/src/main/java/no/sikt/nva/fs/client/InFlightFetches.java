@@ -0,0 +1,90 @@
+package no.sikt.nva.fs.client;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.Term;
+import no.sikt.nva.fs.cache.CoursesCacheKey;
+
+/**
+ * Coalesces concurrent fetches of the courses an institution teaches in a year, so that callers asking while a
+ * fetch is in flight share it instead of sending the same queries to FS again.
+ *
+ * <p>A caller joins the fetch in flight when that fetch covers all the terms it asks for, and is given the courses of
+ * its own terms only. Otherwise it starts a new fetch, which later callers join instead. A fetch is forgotten as soon
+ * as it completes, so neither its courses nor its failure are reused by callers that come after it; caching the
+ * courses is left to {@link no.sikt.nva.fs.cache.CoursesCache}.
+ */
+public class InFlightFetches {
+
+    private final Map<CoursesCacheKey, InFlightFetch> fetches = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the courses for the key in the given terms, from the fetch in flight when it covers the terms, or else
+     * from a new fetch made with the loader.
+     */
+    public CompletableFuture<List<Course>> coalesce(final CoursesCacheKey key,
+                                                    final Set<Term> terms,
+                                                    final Function<Set<Term>, CompletableFuture<List<Course>>> loader) {
+        final Set<Term> wantedTerms = EnumSet.noneOf(Term.class);
+        wantedTerms.addAll(terms);
+        final InFlightFetch newFetch = new InFlightFetch(wantedTerms);
+        final InFlightFetch fetch = fetches.compute(key, (ignored, current) -> current != null
+                                                                               && current.covers(wantedTerms)
+                                                                                   ? current
+                                                                                   : newFetch);
+        if (newFetch.equals(fetch)) {
+            start(key, newFetch, loader);
+        }
+        return fetch.coursesIn(wantedTerms);
+    }
+
+    private void start(final CoursesCacheKey key,
+                       final InFlightFetch fetch,
+                       final Function<Set<Term>, CompletableFuture<List<Course>>> loader) {
+        CompletableFuture.supplyAsync(() -> loader.apply(fetch.terms), Runnable::run)
+            .thenCompose(Function.identity())
+            .whenComplete((courses, throwable) -> {
+                // Forgotten before completing, so that callers woken up by it cannot join it again:
+                fetches.remove(key, fetch);
+                if (throwable == null) {
+                    fetch.courses.complete(List.copyOf(courses));
+                } else {
+                    fetch.courses.completeExceptionally(throwable);
+                }
+            });
+    }
+
+    private static final class InFlightFetch {
+
+        private final Set<Term> terms;
+        private final CompletableFuture<List<Course>> courses = new CompletableFuture<>();
+
+        private InFlightFetch(final Set<Term> terms) {
+            this.terms = terms;
+        }
+
+        private boolean covers(final Set<Term> wantedTerms) {
+            return terms.containsAll(wantedTerms);
+        }
+
+        private CompletableFuture<List<Course>> coursesIn(final Set<Term> wantedTerms) {
+            // Every caller gets a future of its own, so that none of them can complete the shared one:
+            return terms.equals(wantedTerms)
+                       ? courses.copy()
+                       : courses.thenApply(allCourses -> allCourses.stream()
+                                                             .filter(course -> isIn(course, wantedTerms))
+                                                             .collect(Collectors.toList()));
+        }
+
+        private static boolean isIn(final Course course, final Set<Term> wantedTerms) {
+            return Term.isSupportedCode(course.getTerm()) && wantedTerms.contains(Term.fromCode(course.getTerm()));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package no.sikt.nva.fs.client;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.Term;
+import no.sikt.nva.fs.cache.CoursesCacheKey;
+
+/**
+ * FS client that shares the fetches of another client between concurrent callers asking for the same FS base URI,
+ * institution and year, through {@link InFlightFetches}. This keeps a burst of requests from one institution, such
+ * as a whole class opening a form at once, from turning into the same burst of queries to FS.
+ */
+public class SingleFlightFsClient implements FsClient {
+
+    private final FsClient fsClient;
+    private final String baseUri;
+    private final int institutionCode;
+    private final InFlightFetches inFlightFetches;
+
+    public SingleFlightFsClient(final FsClient fsClient, final String baseUri, final int institutionCode,
+                                final InFlightFetches inFlightFetches) {
+        this.fsClient = fsClient;
+        this.baseUri = baseUri;
+        this.institutionCode = institutionCode;
+        this.inFlightFetches = inFlightFetches;
+    }
+
+    @Override
+    public CompletableFuture<List<Course>> getTaughtCoursesAsync(final int year, final Set<Term> terms) {
+        return inFlightFetches.coalesce(new CoursesCacheKey(baseUri, institutionCode, year),
+                                        terms,
+                                        fetchedTerms -> fsClient.getTaughtCoursesAsync(year, fetchedTerms));
+    }
+}
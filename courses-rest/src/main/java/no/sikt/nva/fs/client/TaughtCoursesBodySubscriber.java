@@ -0,0 +1,102 @@
+package no.sikt.nva.fs.client;
+
+import java.io.IOException;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import no.sikt.nva.fs.Term;
+import no.sikt.nva.fs.metrics.Metric;
+import no.sikt.nva.fs.metrics.RequestMetrics;
+
+/**
+ * Parses the FS response body chunk by chunk as it is received, so that neither the whole body nor a tree of it
+ * is ever held in memory. The time spent parsing and the size of the body are recorded once the body is complete.
+ */
+public class TaughtCoursesBodySubscriber implements BodySubscriber<TaughtCoursesPage> {
+
+    private final CompletableFuture<TaughtCoursesPage> body = new CompletableFuture<>();
+    private final TaughtCoursesParser parser;
+    private final RequestMetrics metrics;
+    private byte[] buffer = new byte[0];
+    private long bodyBytes;
+    private long parseNanos;
+
+    public TaughtCoursesBodySubscriber(final Set<Term> terms, final RequestMetrics metrics) {
+        this.metrics = metrics;
+        try {
+            this.parser = new TaughtCoursesParser(terms);
+        } catch (IOException e) {
+            throw new HttpException(HttpUrlConnectionFsClient.PROBLEMS_READING_RESPONSE_FROM_SERVER_MESSAGE, e);
+        }
+    }
+
+    @Override
+    public CompletionStage<TaughtCoursesPage> getBody() {
+        return body;
+    }
+
+    @Override
+    public void onSubscribe(final Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(final List<ByteBuffer> items) {
+        if (body.isDone()) {
+            return;
+        }
+        try {
+            for (final ByteBuffer item : items) {
+                final int length = item.remaining();
+                ensureBufferCapacity(length);
+                item.get(buffer, 0, length);
+                bodyBytes += length;
+                final long parseStart = System.nanoTime();
+                parser.feed(buffer, 0, length);
+                parseNanos += System.nanoTime() - parseStart;
+            }
+        } catch (IOException e) {
+            // The rest of the page is ignored rather than cancelled, since cancelling the HTTP/2 stream races
+            // with failing the body and may be reported as a communication failure instead:
+            failReading(e);
+        }
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+        body.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        if (body.isDone()) {
+            return;
+        }
+        try {
+            final long parseStart = System.nanoTime();
+            final TaughtCoursesPage page = parser.finish();
+            parseNanos += System.nanoTime() - parseStart;
+            metrics.record(Metric.FS_RESPONSE_BYTES, bodyBytes);
+            metrics.recordNanos(Metric.PARSE_TIME, parseNanos);
+            metrics.record(Metric.FS_ITEM_COUNT, page.getItemCount());
+            body.complete(page);
+        } catch (IOException e) {
+            failReading(e);
+        }
+    }
+
+    private void ensureBufferCapacity(final int length) {
+        if (buffer.length < length) {
+            buffer = new byte[length];
+        }
+    }
+
+    private void failReading(final IOException exception) {
+        body.completeExceptionally(
+            new HttpException(HttpUrlConnectionFsClient.PROBLEMS_READING_RESPONSE_FROM_SERVER_MESSAGE, exception));
+    }
+}
@@ -0,0 +1,27 @@
+package no.sikt.nva.fs.client;
+
+import java.util.List;
+import no.sikt.nva.fs.Course;
+
+/**
+ * One page of the FS {@code /undervisning} collection. The item count includes items that were dropped while
+ * parsing, and tells whether there may be more pages to fetch.
+ */
+public class TaughtCoursesPage {
+
+    private final List<Course> courses;
+    private final int itemCount;
+
+    public TaughtCoursesPage(final List<Course> courses, final int itemCount) {
+        this.courses = courses;
+        this.itemCount = itemCount;
+    }
+
+    public List<Course> getCourses() {
+        return courses;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+}
@@ -0,0 +1,166 @@
+package no.sikt.nva.fs.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.Term;
+
+/**
+ * Incremental parser of the FS {@code /undervisning} collection. Bytes are fed as they arrive, and only the
+ * course code, year and term of each item are picked out; every other part of the document is passed over
+ * without building objects for it. Items taught in other terms than the requested ones are dropped while parsing.
+ */
+public final class TaughtCoursesParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String ITEMS_FIELD = "items";
+    private static final String ID_FIELD = "id";
+    private static final String COURSE_FIELD = "emne";
+    private static final String COURSE_CODE_FIELD = "kode";
+    private static final String SEMESTER_FIELD = "semester";
+    private static final String YEAR_FIELD = "ar";
+    private static final String TERM_FIELD = "termin";
+    private static final String NOT_SET = "";
+
+    private final Set<Term> terms;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final List<Course> courses = new ArrayList<>();
+    private boolean startOfDocument = true;
+    private boolean itemsFound;
+    private int itemCount;
+    private String code = NOT_SET;
+    private int year;
+    private String termCode = NOT_SET;
+
+    public TaughtCoursesParser(final Set<Term> terms) throws IOException {
+        this.terms = terms;
+        this.parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    public static TaughtCoursesPage parse(final byte[] body, final Set<Term> terms) throws IOException {
+        final TaughtCoursesParser taughtCoursesParser = new TaughtCoursesParser(terms);
+        taughtCoursesParser.feed(body, 0, body.length);
+        return taughtCoursesParser.finish();
+    }
+
+    /**
+     * Parses the given bytes. The array may be reused by the caller once this method returns.
+     */
+    public void feed(final byte[] bytes, final int offset, final int length) throws IOException {
+        feeder.feedInput(bytes, offset, offset + length);
+        parseAvailableTokens();
+    }
+
+    public TaughtCoursesPage finish() throws IOException {
+        feeder.endOfInput();
+        parseAvailableTokens();
+        parser.close();
+        if (!itemsFound) {
+            throw new JsonParseException(parser, "FS response does not contain any items");
+        }
+        return new TaughtCoursesPage(courses, itemCount);
+    }
+
+    private void parseAvailableTokens() throws IOException {
+        JsonToken token = parser.nextToken();
+        while (token != null && token != JsonToken.NOT_AVAILABLE) {
+            handleToken(token);
+            token = parser.nextToken();
+        }
+    }
+
+    private void handleToken(final JsonToken token) throws IOException {
+        if (startOfDocument) {
+            startOfDocument = false;
+            if (token != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "FS response is not a JSON object");
+            }
+        } else if (token == JsonToken.START_ARRAY) {
+            itemsFound |= isItemsArray(parser.getParsingContext());
+        } else if (token == JsonToken.END_OBJECT) {
+            handleEndOfObject();
+        } else if (token.isScalarValue()) {
+            handleValue(token);
+        }
+    }
+
+    private void handleValue(final JsonToken token) throws IOException {
+        final JsonStreamContext context = parser.getParsingContext();
+        final String fieldName = context.getCurrentName();
+        if (COURSE_CODE_FIELD.equals(fieldName) && isItemIdField(context, COURSE_FIELD)) {
+            code = parser.getText();
+        } else if (YEAR_FIELD.equals(fieldName) && token != JsonToken.VALUE_NULL
+                   && isItemIdField(context, SEMESTER_FIELD)) {
+            year = parseYear(token);
+        } else if (TERM_FIELD.equals(fieldName) && isItemIdField(context, SEMESTER_FIELD)) {
+            termCode = parser.getText();
+        }
+    }
+
+    /**
+     * Reads the year of a semester, which FS may send as a number or as a string holding one. A year that is
+     * neither fails the page, rather than adding courses taught in year 0.
+     */
+    private int parseYear(final JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getIntValue();
+        }
+        try {
+            return Integer.parseInt(parser.getText().trim());
+        } catch (NumberFormatException e) {
+            throw new JsonParseException(parser, "FS response has a semester year that is not a number", e);
+        }
+    }
+
+    private void handleEndOfObject() {
+        // The context of an END_OBJECT token is the one enclosing the object just closed:
+        final JsonStreamContext context = parser.getParsingContext();
+        if (context.inArray() && isItemsArray(context)) {
+            itemCount++;
+            if (!code.isEmpty() && Term.isSupportedCode(termCode)) {
+                addCourseIfTermIsRequested(Term.fromCode(termCode));
+            }
+            code = NOT_SET;
+            year = 0;
+            termCode = NOT_SET;
+        }
+    }
+
+    private void addCourseIfTermIsRequested(final Term term) {
+        if (terms.contains(term)) {
+            // The code of the term constant is used, so that courses do not hold a copy of it each:
+            courses.add(new Course(code, term.getCode(), year));
+        }
+    }
+
+    private static boolean isItemIdField(final JsonStreamContext context, final String objectName) {
+        final JsonStreamContext idContext = context.getParent();
+        if (idContext == null || !objectName.equals(idContext.getCurrentName())) {
+            return false;
+        }
+        final JsonStreamContext itemContext = idContext.getParent();
+        return itemContext != null
+               && ID_FIELD.equals(itemContext.getCurrentName())
+               && itemContext.getParent() != null
+               && isItemsArray(itemContext.getParent());
+    }
+
+    private static boolean isItemsArray(final JsonStreamContext context) {
+        final JsonStreamContext collectionContext = context.getParent();
+        return context.inArray()
+               && collectionContext != null
+               && ITEMS_FIELD.equals(collectionContext.getCurrentName())
+               && collectionContext.getParent() != null
+               && collectionContext.getParent().inRoot();
+    }
+}
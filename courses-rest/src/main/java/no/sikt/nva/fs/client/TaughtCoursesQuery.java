@@ -0,0 +1,99 @@
+package no.sikt.nva.fs.client;
+
+import java.net.URI;
+import no.sikt.nva.fs.Term;
+import nva.commons.core.paths.UriWrapper;
+
+/**
+ * Query of the FS {@code /undervisning} resource for the courses an institution teaches in one year, optionally
+ * narrowed down to one term. The results are fetched one page at a time, so that the size of a response does not
+ * depend on the size of the institution.
+ */
+public final class TaughtCoursesQuery {
+
+    private static final String TEACHING_URI_PATH = "undervisning";
+    private static final String DB_IDENTIFIER_QUERY_PARAM_NAME = "dbId";
+    private static final String INSTITUTION_QUERY_PARAM_NAME = "emne.institusjon";
+    private static final String YEAR_QUERY_PARAM_NAME = "semester.ar";
+    private static final String TERM_QUERY_PARAM_NAME = "semester.termin";
+    private static final String LIMIT_QUERY_PARAM_NAME = "limit";
+    private static final String PAGE_QUERY_PARAM_NAME = "page";
+    public static final int FIRST_PAGE = 1;
+
+    private final String baseUri;
+    private final int institutionCode;
+    private final int year;
+    private final Term term;
+    private final int pageSize;
+
+    private TaughtCoursesQuery(final Builder builder) {
+        this.baseUri = builder.baseUri;
+        this.institutionCode = builder.institutionCode;
+        this.year = builder.year;
+        this.term = builder.term;
+        this.pageSize = builder.pageSize;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public URI toUri(final int page) {
+        final UriWrapper uri = UriWrapper.fromUri(baseUri)
+                                   .addChild(TEACHING_URI_PATH)
+                                   .addQueryParameter(DB_IDENTIFIER_QUERY_PARAM_NAME, "true")
+                                   .addQueryParameter(INSTITUTION_QUERY_PARAM_NAME, Integer.toString(institutionCode))
+                                   .addQueryParameter(YEAR_QUERY_PARAM_NAME, Integer.toString(year));
+        final UriWrapper uriWithTerm = term == null
+                                           ? uri
+                                           : uri.addQueryParameter(TERM_QUERY_PARAM_NAME, term.getCode());
+        return uriWithTerm.addQueryParameter(LIMIT_QUERY_PARAM_NAME, Integer.toString(pageSize))
+                   .addQueryParameter(PAGE_QUERY_PARAM_NAME, Integer.toString(page))
+                   .getUri();
+    }
+
+    public static final class Builder {
+
+        private String baseUri;
+        private int institutionCode;
+        private int year;
+        private Term term;
+        private int pageSize;
+
+        private Builder() {
+        }
+
+        public Builder withBaseUri(final String baseUri) {
+            this.baseUri = baseUri;
+            return this;
+        }
+
+        public Builder withInstitutionCode(final int institutionCode) {
+            this.institutionCode = institutionCode;
+            return this;
+        }
+
+        public Builder withYear(final int year) {
+            this.year = year;
+            return this;
+        }
+
+        public Builder withTerm(final Term term) {
+            this.term = term;
+            return this;
+        }
+
+        public Builder withPageSize(final int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        public TaughtCoursesQuery build() {
+            return new TaughtCoursesQuery(this);
+        }
+    }
+}
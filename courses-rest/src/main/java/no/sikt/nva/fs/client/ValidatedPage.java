@@ -0,0 +1,33 @@
+package no.sikt.nva.fs.client;
+
+import java.util.Optional;
+
+/**
+ * A page of courses together with the validators FS sent along with it. The courses are held as a
+ * {@link no.sikt.nva.fs.CourseCatalog}, whose codes are the ones the courses cached from the page refer to, so that
+ * keeping the page costs its columns rather than a second copy of its courses.
+ */
+public class ValidatedPage {
+
+    private final String entityTag;
+    private final String lastModified;
+    private final TaughtCoursesPage page;
+
+    public ValidatedPage(final String entityTag, final String lastModified, final TaughtCoursesPage page) {
+        this.entityTag = entityTag;
+        this.lastModified = lastModified;
+        this.page = page;
+    }
+
+    public Optional<String> getEntityTag() {
+        return Optional.ofNullable(entityTag);
+    }
+
+    public Optional<String> getLastModified() {
+        return Optional.ofNullable(lastModified);
+    }
+
+    public TaughtCoursesPage getPage() {
+        return page;
+    }
+}
@@ -0,0 +1,77 @@
+package no.sikt.nva.fs.client;
+
+import java.net.URI;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import nva.commons.core.Environment;
+
+/**
+ * Remembers the pages FS returned with an {@code ETag} or {@code Last-Modified} header, by the URI they were
+ * fetched from. The page can then be fetched again conditionally, and when FS answers {@code 304 Not Modified},
+ * the courses already parsed from it are used instead of downloading and parsing them again.
+ *
+ * <p>The cache holds at most a given number of pages, and evicts the least recently used first, so that pages of
+ * years and terms no longer asked for do not pile up.
+ */
+public class ValidatedPageCache {
+
+    public static final String MAX_PAGES_ENV_KEY = "FS_VALIDATED_PAGE_CACHE_MAX_PAGES";
+    public static final int DEFAULT_MAX_PAGES = 1024;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final Object lock = new Object();
+    private final Map<URI, ValidatedPage> pages;
+    private final int maxPages;
+
+    public ValidatedPageCache() {
+        this(DEFAULT_MAX_PAGES);
+    }
+
+    public ValidatedPageCache(final int maxPages) {
+        this.maxPages = maxPages;
+        // Iterated in access order, so that the least recently used page comes first:
+        this.pages = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+    }
+
+    public static ValidatedPageCache fromEnvironment(final Environment environment) {
+        return new ValidatedPageCache(environment.readEnvOpt(MAX_PAGES_ENV_KEY)
+                                          .map(Integer::parseInt)
+                                          .orElse(DEFAULT_MAX_PAGES));
+    }
+
+    public Optional<ValidatedPage> find(final URI uri) {
+        synchronized (lock) {
+            return Optional.ofNullable(pages.get(uri));
+        }
+    }
+
+    public void put(final URI uri, final ValidatedPage page) {
+        synchronized (lock) {
+            pages.put(uri, page);
+            final Iterator<ValidatedPage> leastRecentlyUsed = pages.values().iterator();
+            while (pages.size() > maxPages) {
+                leastRecentlyUsed.next();
+                leastRecentlyUsed.remove();
+            }
+        }
+    }
+
+    public void remove(final URI uri) {
+        synchronized (lock) {
+            pages.remove(uri);
+        }
+    }
+
+    /**
+     * The number of pages held.
+     */
+    public int getSize() {
+        synchronized (lock) {
+            return pages.size();
+        }
+    }
+}
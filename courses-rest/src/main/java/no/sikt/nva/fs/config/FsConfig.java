@@ -5,17 +5,21 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 public final class FsConfig {
     private final String baseUri;
     private final List<InstitutionConfig> institutions;
+    private final InstitutionConfigIndex institutionIndex;
 
     @JsonCreator
     public FsConfig(@JsonProperty("baseUri") String baseUri,
                     @JsonProperty("institutions") List<InstitutionConfig> institutions) {
 
         this.baseUri = baseUri;
-        this.institutions = new ArrayList<>(institutions);
+        // A secret without institutions configures none, rather than failing every lookup:
+        this.institutions = new ArrayList<>(Optional.ofNullable(institutions).orElse(List.of()));
+        this.institutionIndex = new InstitutionConfigIndex(this.institutions);
     }
 
     public String getBaseUri() {
@@ -25,4 +29,8 @@ public final class FsConfig {
     public List<InstitutionConfig> getInstitutions() {
         return Collections.unmodifiableList(institutions);
     }
+
+    public Optional<InstitutionConfig> findInstitution(final int institutionCode) {
+        return institutionIndex.find(institutionCode);
+    }
 }
@@ -0,0 +1,129 @@
+package no.sikt.nva.fs.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import no.sikt.nva.fs.metrics.Metric;
+import no.sikt.nva.fs.metrics.RequestMetrics;
+import no.unit.nva.commons.json.JsonUtils;
+import nva.commons.core.Environment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the parsed FS configuration between invocations, so that the secret is neither fetched nor parsed on
+ * every request.
+ *
+ * <p>The secret is fetched again when the refresh interval has passed, and only parsed again if its value has
+ * changed. Lookups of institutions that are not configured are answered from the parsed configuration as well,
+ * so they do not cause extra secret fetches. If a refresh fails, the configuration already held is kept until
+ * the next refresh interval has passed. Requests are not held up by a refresh made by another request.
+ */
+public class FsConfigHolder {
+
+    public static final String REFRESH_INTERVAL_ENV_KEY = "FS_CONFIG_REFRESH_INTERVAL_SECONDS";
+    public static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofMinutes(5);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FsConfigHolder.class);
+
+    private final Supplier<String> secretSupplier;
+    private final Duration refreshInterval;
+    private final Clock clock;
+    private final Object lock = new Object();
+    private final AtomicReference<HeldConfig> held = new AtomicReference<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+    public FsConfigHolder(final Supplier<String> secretSupplier, final Duration refreshInterval, final Clock clock) {
+        this.secretSupplier = secretSupplier;
+        this.refreshInterval = refreshInterval;
+        this.clock = clock;
+    }
+
+    public static FsConfigHolder fromEnvironment(final Environment environment,
+                                                 final Supplier<String> secretSupplier,
+                                                 final Clock clock) {
+        final Duration refreshInterval = environment.readEnvOpt(REFRESH_INTERVAL_ENV_KEY)
+                                             .map(Long::parseLong)
+                                             .map(Duration::ofSeconds)
+                                             .orElse(DEFAULT_REFRESH_INTERVAL);
+        return new FsConfigHolder(secretSupplier, refreshInterval, clock);
+    }
+
+    public FsConfig getFsConfig() throws JsonProcessingException {
+        return getFsConfig(RequestMetrics.discarding());
+    }
+
+    /**
+     * Returns the FS configuration, recording how long fetching the secret took when it had to be fetched. Only
+     * the first request waits for the secret; once a configuration is held, one request refreshes it when the
+     * refresh interval has passed while concurrent requests are answered from the configuration held.
+     */
+    public FsConfig getFsConfig(final RequestMetrics metrics) throws JsonProcessingException {
+        final HeldConfig current = held.get();
+        if (current == null) {
+            return loadFirst(metrics);
+        }
+        final Instant now = clock.instant();
+        if (!now.isBefore(current.refreshAt) && refreshing.compareAndSet(false, true)) {
+            try {
+                held.set(refreshKeepingCurrentOnFailure(current, now, metrics));
+            } finally {
+                refreshing.set(false);
+            }
+        }
+        return held.get().fsConfig;
+    }
+
+    private FsConfig loadFirst(final RequestMetrics metrics) throws JsonProcessingException {
+        synchronized (lock) {
+            if (held.get() == null) {
+                held.set(fetch(null, clock.instant(), metrics));
+            }
+            return held.get().fsConfig;
+        }
+    }
+
+    private HeldConfig refreshKeepingCurrentOnFailure(final HeldConfig current, final Instant now,
+                                                      final RequestMetrics metrics) {
+        try {
+            return fetch(current, now, metrics);
+        } catch (JsonProcessingException | RuntimeException e) {
+            LOGGER.warn("Refreshing FS configuration failed, keeping current configuration", e);
+            return new HeldConfig(current.secretValue, current.fsConfig, now.plus(refreshInterval));
+        }
+    }
+
+    /**
+     * Fetches the secret, parsing it only if it differs from the secret of the configuration held, if any.
+     */
+    private HeldConfig fetch(final HeldConfig current, final Instant now, final RequestMetrics metrics)
+        throws JsonProcessingException {
+        final long fetchStart = RequestMetrics.startTimer();
+        final String secretValue = secretSupplier.get();
+        metrics.recordTimeSince(Metric.SECRET_FETCH_TIME, fetchStart);
+        final FsConfig fsConfig = current != null && secretValue.equals(current.secretValue)
+                                      ? current.fsConfig
+                                      : JsonUtils.dtoObjectMapper.readValue(secretValue, FsConfig.class);
+        return new HeldConfig(secretValue, fsConfig, now.plus(refreshInterval));
+    }
+
+    /**
+     * A parsed configuration, the secret it was parsed from and when to fetch the secret again.
+     */
+    private static final class HeldConfig {
+
+        private final String secretValue;
+        private final FsConfig fsConfig;
+        private final Instant refreshAt;
+
+        private HeldConfig(final String secretValue, final FsConfig fsConfig, final Instant refreshAt) {
+            this.secretValue = secretValue;
+            this.fsConfig = fsConfig;
+            this.refreshAt = refreshAt;
+        }
+    }
+}
@@ -1,13 +1,17 @@
 package no.sikt.nva.fs.config;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 
 public class InstitutionConfig {
 
     private final int code;
     private final String username;
     private final String password;
+    private final String basicAuthenticationHeader;
 
     @JsonCreator
     public InstitutionConfig(@JsonProperty("code") final int code,
@@ -17,6 +21,7 @@ public class InstitutionConfig {
         this.code = code;
         this.username = username;
         this.password = password;
+        this.basicAuthenticationHeader = createBasicAuthenticationHeader(username, password);
     }
 
     public final int getCode() {
@@ -30,4 +35,14 @@ public class InstitutionConfig {
     public final String getPassword() {
         return password;
     }
+
+    @JsonIgnore
+    public final String getBasicAuthenticationHeader() {
+        return basicAuthenticationHeader;
+    }
+
+    private static String createBasicAuthenticationHeader(final String username, final String password) {
+        final String valueToEncode = username + ":" + password;
+        return "Basic " + Base64.getEncoder().encodeToString(valueToEncode.getBytes(StandardCharsets.UTF_8));
+    }
 }
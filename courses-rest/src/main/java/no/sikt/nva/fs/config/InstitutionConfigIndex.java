@@ -0,0 +1,41 @@
+package no.sikt.nva.fs.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Immutable lookup of institution configurations by institution code. Codes are kept in a sorted {@code int[]}
+ * searched with binary search, so lookups neither box the code nor scan the configured institutions. Of institutions
+ * configured more than once, the first is kept, as a scan of the configured institutions would find it.
+ */
+public final class InstitutionConfigIndex {
+
+    private final int[] codes;
+    private final InstitutionConfig[] institutions;
+
+    public InstitutionConfigIndex(final List<InstitutionConfig> institutions) {
+        this.institutions = firstOfEachCode(institutions).toArray(new InstitutionConfig[0]);
+        this.codes = Arrays.stream(this.institutions).mapToInt(InstitutionConfig::getCode).toArray();
+    }
+
+    public Optional<InstitutionConfig> find(final int institutionCode) {
+        final int position = Arrays.binarySearch(codes, institutionCode);
+        return position >= 0 ? Optional.of(institutions[position]) : Optional.empty();
+    }
+
+    private static List<InstitutionConfig> firstOfEachCode(final List<InstitutionConfig> institutions) {
+        final List<InstitutionConfig> sorted = new ArrayList<>(institutions);
+        // The sort is stable, so the first of institutions sharing a code comes first among them:
+        sorted.sort(Comparator.comparingInt(InstitutionConfig::getCode));
+        final List<InstitutionConfig> distinct = new ArrayList<>(sorted.size());
+        for (final InstitutionConfig institution : sorted) {
+            if (distinct.isEmpty() || distinct.get(distinct.size() - 1).getCode() != institution.getCode()) {
+                distinct.add(institution);
+            }
+        }
+        return distinct;
+    }
+}
@@ -0,0 +1,138 @@
+package no.sikt.nva.fs.metrics;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import nva.commons.core.Environment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the metrics of a request as one line in CloudWatch Embedded Metric Format, which CloudWatch turns into
+ * metrics from the log of the Lambda function without any call to CloudWatch. Metrics are published per institution.
+ * FS status codes are written alongside them, for looking up in the log rather than as metrics.
+ *
+ * <p>The line is generated straight into a buffered writer and flushed once, so that writing the metrics of a request
+ * costs a single write to standard output.
+ */
+public class EmfWriter {
+
+    public static final String NAMESPACE_ENV_KEY = "METRICS_NAMESPACE";
+    public static final String DEFAULT_NAMESPACE = "NvaCourses";
+    /* default */ static final String INSTITUTION_DIMENSION = "Institution";
+    /* default */ static final String FS_STATUS_CODES_PROPERTY = "FsStatusCodes";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EmfWriter.class);
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+                                                        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                                                        .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+    private static final int BUFFER_SIZE = 8192;
+    private static final char END_OF_LINE = '\n';
+
+    private final Writer writer;
+    private final String namespace;
+    private final Clock clock;
+    private final Object lock = new Object();
+
+    public EmfWriter(final Writer writer, final String namespace, final Clock clock) {
+        this.writer = writer;
+        this.namespace = namespace;
+        this.clock = clock;
+    }
+
+    /**
+     * Writes to standard output, which Lambda sends to the log of the function.
+     */
+    public static EmfWriter fromEnvironment(final Environment environment, final Clock clock) {
+        return new EmfWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8),
+                                                BUFFER_SIZE),
+                             environment.readEnvOpt(NAMESPACE_ENV_KEY).orElse(DEFAULT_NAMESPACE),
+                             clock);
+    }
+
+    /**
+     * Writes the metrics recorded so far. Failing to write them is logged rather than failing the request.
+     */
+    public void write(final RequestMetrics metrics) {
+        final Optional<Integer> institutionCode = metrics.getInstitutionCode();
+        final EnumMap<Metric, List<Double>> values = metrics.getAllValues();
+        final List<Integer> fsStatusCodes = metrics.getFsStatusCodes();
+        synchronized (lock) {
+            try {
+                try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+                    generator.writeStartObject();
+                    writeMetadata(generator, institutionCode.isPresent(), values);
+                    if (institutionCode.isPresent()) {
+                        generator.writeStringField(INSTITUTION_DIMENSION, institutionCode.orElseThrow().toString());
+                    }
+                    writeValues(generator, values);
+                    if (!fsStatusCodes.isEmpty()) {
+                        generator.writeArrayFieldStart(FS_STATUS_CODES_PROPERTY);
+                        for (final Integer statusCode : fsStatusCodes) {
+                            generator.writeNumber(statusCode);
+                        }
+                        generator.writeEndArray();
+                    }
+                    generator.writeEndObject();
+                }
+                writer.write(END_OF_LINE);
+                writer.flush();
+            } catch (IOException e) {
+                LOGGER.warn("Writing metrics failed", e);
+            }
+        }
+    }
+
+    private void writeMetadata(final JsonGenerator generator, final boolean perInstitution,
+                               final EnumMap<Metric, List<Double>> values) throws IOException {
+        generator.writeObjectFieldStart("_aws");
+        generator.writeNumberField("Timestamp", clock.millis());
+        generator.writeArrayFieldStart("CloudWatchMetrics");
+        generator.writeStartObject();
+        generator.writeStringField("Namespace", namespace);
+        generator.writeArrayFieldStart("Dimensions");
+        generator.writeStartArray();
+        if (perInstitution) {
+            generator.writeString(INSTITUTION_DIMENSION);
+        }
+        generator.writeEndArray();
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("Metrics");
+        for (final Metric metric : values.keySet()) {
+            generator.writeStartObject();
+            generator.writeStringField("Name", metric.getName());
+            generator.writeStringField("Unit", metric.getUnit());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static void writeValues(final JsonGenerator generator, final EnumMap<Metric, List<Double>> values)
+        throws IOException {
+        for (final Map.Entry<Metric, List<Double>> metricValues : values.entrySet()) {
+            final List<Double> recorded = metricValues.getValue();
+            // A count is summed over the request, so it has one value; other metrics have one for each time:
+            if (metricValues.getKey().isCount()) {
+                generator.writeNumberField(metricValues.getKey().getName(), recorded.get(0));
+            } else {
+                generator.writeArrayFieldStart(metricValues.getKey().getName());
+                for (final Double value : recorded) {
+                    generator.writeNumber(value);
+                }
+                generator.writeEndArray();
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package no.sikt.nva.fs.metrics;
+
+/**
+ * The metrics recorded while answering a request, with the names and units they are published under. Counts are
+ * summed over the request; every other metric keeps one value for each time it was recorded, such as one FS
+ * request time for each page fetched.
+ */
+public enum Metric {
+
+    SECRET_FETCH_TIME("SecretFetchTime", Metric.MILLISECONDS),
+    FS_REQUEST_TIME("FsRequestTime", Metric.MILLISECONDS),
+    FS_REQUEST_COUNT("FsRequestCount", Metric.COUNT),
+    FS_ERROR_COUNT("FsErrorCount", Metric.COUNT),
+    FS_RESPONSE_BYTES("FsResponseBytes", Metric.BYTES),
+    FS_ITEM_COUNT("FsItemCount", Metric.COUNT),
+    FS_CIRCUIT_OPEN_COUNT("FsCircuitOpenCount", Metric.COUNT),
+    FS_HEDGE_COUNT("FsHedgeCount", Metric.COUNT),
+    STALE_FALLBACK_COUNT("StaleFallbackCount", Metric.COUNT),
+    COURSE_COUNT("CourseCount", Metric.COUNT),
+    PARSE_TIME("ParseTime", Metric.MILLISECONDS),
+    SORT_TIME("SortTime", Metric.MILLISECONDS),
+    SERIALIZE_TIME("SerializeTime", Metric.MILLISECONDS),
+    COMPRESS_TIME("CompressTime", Metric.MILLISECONDS),
+    RESPONSE_BYTES("ResponseBytes", Metric.BYTES),
+    BODY_CACHE_HIT_COUNT("BodyCacheHitCount", Metric.COUNT),
+    BODY_CACHE_MISS_COUNT("BodyCacheMissCount", Metric.COUNT),
+    CACHE_HIT_COUNT("CacheHitCount", Metric.COUNT),
+    CACHE_MISS_COUNT("CacheMissCount", Metric.COUNT),
+    SNAPSHOT_READ_TIME("SnapshotReadTime", Metric.MILLISECONDS),
+    SNAPSHOT_HIT_COUNT("SnapshotHitCount", Metric.COUNT),
+    SNAPSHOT_MISS_COUNT("SnapshotMissCount", Metric.COUNT);
+
+    private static final String MILLISECONDS = "Milliseconds";
+    private static final String BYTES = "Bytes";
+    private static final String COUNT = "Count";
+
+    private final String name;
+    private final String unit;
+
+    Metric(final String name, final String unit) {
+        this.name = name;
+        this.unit = unit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public boolean isCount() {
+        return COUNT.equals(unit);
+    }
+}
@@ -0,0 +1,142 @@
+package no.sikt.nva.fs.metrics;
+
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The metrics of answering one request, handed along to where they are measured and written by {@link EmfWriter}
+ * once the request has been answered. FS pages are fetched and parsed on threads of the HTTP client, so metrics may
+ * be recorded from several threads at a time. Metrics recorded after they have been written, such as by a background
+ * refresh of the cache that outlives the request, are not written.
+ */
+public final class RequestMetrics {
+
+    /**
+     * CloudWatch takes at most this many values of a metric in one record; later values are left out.
+     */
+    /* default */ static final int MAX_VALUES = 100;
+    private static final double NANOS_PER_MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final boolean kept;
+    private final Object lock = new Object();
+    private final EnumMap<Metric, List<Double>> values = new EnumMap<>(Metric.class);
+    private final List<Integer> fsStatusCodes = new ArrayList<>();
+    private Integer institutionCode;
+
+    public RequestMetrics() {
+        this(true);
+    }
+
+    private RequestMetrics(final boolean kept) {
+        this.kept = kept;
+    }
+
+    /**
+     * Metrics that are not kept, for callers outside of a request, such as the snapshot warmer and benchmarks.
+     */
+    public static RequestMetrics discarding() {
+        return new RequestMetrics(false);
+    }
+
+    /**
+     * Returns the current time to measure from, as given to {@link #recordTimeSince(Metric, long)}.
+     */
+    public static long startTimer() {
+        return System.nanoTime();
+    }
+
+    public void setInstitutionCode(final int institutionCode) {
+        synchronized (lock) {
+            this.institutionCode = institutionCode;
+        }
+    }
+
+    public void count(final Metric metric) {
+        record(metric, 1);
+    }
+
+    public void recordTimeSince(final Metric metric, final long startTime) {
+        recordNanos(metric, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Records a time given in nanoseconds, such as the sum of the times spent on each part of a body.
+     */
+    public void recordNanos(final Metric metric, final long nanos) {
+        record(metric, nanos / NANOS_PER_MILLISECOND);
+    }
+
+    public void recordFsResponse(final int statusCode, final long startTime) {
+        recordTimeSince(Metric.FS_REQUEST_TIME, startTime);
+        count(Metric.FS_REQUEST_COUNT);
+        if (statusCode >= HttpURLConnection.HTTP_BAD_REQUEST) {
+            count(Metric.FS_ERROR_COUNT);
+        }
+        if (kept) {
+            synchronized (lock) {
+                if (fsStatusCodes.size() < MAX_VALUES) {
+                    fsStatusCodes.add(statusCode);
+                }
+            }
+        }
+    }
+
+    /**
+     * Records an FS request that got no answer, such as when the connection failed or timed out.
+     */
+    public void recordFsFailure(final long startTime) {
+        recordTimeSince(Metric.FS_REQUEST_TIME, startTime);
+        count(Metric.FS_REQUEST_COUNT);
+        count(Metric.FS_ERROR_COUNT);
+    }
+
+    /**
+     * Records a value of the metric; a count is added to the count recorded so far.
+     */
+    public void record(final Metric metric, final double value) {
+        if (!kept) {
+            return;
+        }
+        synchronized (lock) {
+            final List<Double> metricValues = values.computeIfAbsent(metric, ignored -> new ArrayList<>());
+            if (metric.isCount() && !metricValues.isEmpty()) {
+                metricValues.set(0, metricValues.get(0) + value);
+            } else if (metricValues.size() < MAX_VALUES) {
+                metricValues.add(value);
+            }
+        }
+    }
+
+    /**
+     * Returns the values recorded of the metric, in the order they were recorded.
+     */
+    public List<Double> getValues(final Metric metric) {
+        synchronized (lock) {
+            return List.copyOf(values.getOrDefault(metric, List.of()));
+        }
+    }
+
+    /* default */ Optional<Integer> getInstitutionCode() {
+        synchronized (lock) {
+            return Optional.ofNullable(institutionCode);
+        }
+    }
+
+    /* default */ EnumMap<Metric, List<Double>> getAllValues() {
+        synchronized (lock) {
+            final EnumMap<Metric, List<Double>> copy = new EnumMap<>(Metric.class);
+            values.forEach((metric, metricValues) -> copy.put(metric, List.copyOf(metricValues)));
+            return copy;
+        }
+    }
+
+    /* default */ List<Integer> getFsStatusCodes() {
+        synchronized (lock) {
+            return List.copyOf(fsStatusCodes);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package no.sikt.nva.fs.server;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import no.sikt.nva.fs.CachingHeaders;
+import no.sikt.nva.fs.ContentEncoding;
+import no.sikt.nva.fs.CourseCodesQuery;
+import no.sikt.nva.fs.CourseCodesResponse;
+import no.sikt.nva.fs.CoursesQuery;
+import no.sikt.nva.fs.CoursesRepresentation;
+import no.sikt.nva.fs.CoursesResponse;
+import no.sikt.nva.fs.CoursesService;
+import no.sikt.nva.fs.EncodedBody;
+import no.sikt.nva.fs.FailedFsResponseException;
+import no.sikt.nva.fs.TaughtCourses;
+import no.sikt.nva.fs.client.Deadline;
+import no.sikt.nva.fs.metrics.EmfWriter;
+import no.sikt.nva.fs.metrics.Metric;
+import no.sikt.nva.fs.metrics.RequestMetrics;
+import no.unit.nva.commons.json.JsonUtils;
+import nva.commons.apigateway.exceptions.BadRequestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Answers {@code GET /} with the courses currently taught by the institution of the logged-in user, like the Lambda
+ * handler does, {@code GET /codes} with completions of a course code among them, and {@code GET /health} for the
+ * load balancer. The user's institution is read from a header holding the Cristin identifier of its top level
+ * organization, the same value the API Gateway authorizer gives the Lambda handler as a claim. The metrics of
+ * answering courses and codes are written once for each request; those of health checks are not.
+ */
+/* default */ class CoursesHttpHandler implements HttpHandler {
+
+    /* default */ static final String COURSES_PATH = "/";
+    /* default */ static final String CODES_PATH = "/codes";
+    /* default */ static final String HEALTH_PATH = "/health";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CoursesHttpHandler.class);
+    private static final String GET_METHOD = "GET";
+    private static final String ALLOW_HEADER = "Allow";
+    private static final String CONTENT_TYPE_HEADER = "Content-Type";
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+    private static final String ACCESS_CONTROL_ALLOW_ORIGIN_HEADER = "Access-Control-Allow-Origin";
+    private static final String APPLICATION_JSON = "application/json";
+    private static final String APPLICATION_PROBLEM_JSON = "application/problem+json";
+    private static final String RETRY_AFTER_SECONDS = "1";
+    private static final String BAD_REQUEST_TITLE = "Bad Request";
+    private static final String PARAMETER_SEPARATOR = "&";
+    private static final String NAME_VALUE_SEPARATOR = "=";
+    private static final int NO_BODY = -1;
+    private static final Set<CoursesRepresentation> REPRESENTATIONS = EnumSet.allOf(CoursesRepresentation.class);
+
+    private final CoursesService coursesService;
+    private final String institutionHeader;
+    private final Optional<String> allowedOrigin;
+    private final Clock clock;
+    private final EmfWriter metricsWriter;
+
+    /* default */ CoursesHttpHandler(final CoursesService coursesService, final String institutionHeader,
+                                     final Optional<String> allowedOrigin, final Clock clock,
+                                     final EmfWriter metricsWriter) {
+        this.coursesService = coursesService;
+        this.institutionHeader = institutionHeader;
+        this.allowedOrigin = allowedOrigin;
+        this.clock = clock;
+        this.metricsWriter = metricsWriter;
+    }
+
+    @Override
+    public void handle(final HttpExchange exchange) throws IOException {
+        try {
+            allowedOrigin.ifPresent(origin -> exchange.getResponseHeaders().set(ACCESS_CONTROL_ALLOW_ORIGIN_HEADER,
+                                                                                 origin));
+            route(exchange);
+        } catch (FailedFsResponseException e) {
+            LOGGER.warn("FS failed to answer", e);
+            sendProblem(exchange, HttpURLConnection.HTTP_BAD_GATEWAY, "Bad Gateway");
+        } catch (RuntimeException e) {
+            LOGGER.error("Answering {} {} failed", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+            sendProblem(exchange, HttpURLConnection.HTTP_INTERNAL_ERROR, "Internal Server Error");
+        } finally {
+            release(exchange);
+        }
+    }
+
+    private void route(final HttpExchange exchange) throws IOException, FailedFsResponseException {
+        if (LoadSheddingExecutor.isShedding()) {
+            exchange.getResponseHeaders().set(RETRY_AFTER_HEADER, RETRY_AFTER_SECONDS);
+            sendProblem(exchange, HttpURLConnection.HTTP_UNAVAILABLE, "Service Unavailable");
+            return;
+        }
+        final String path = exchange.getRequestURI().getPath();
+        if (!COURSES_PATH.equals(path) && !CODES_PATH.equals(path) && !HEALTH_PATH.equals(path)) {
+            sendProblem(exchange, HttpURLConnection.HTTP_NOT_FOUND, "Not Found");
+            return;
+        }
+        if (!GET_METHOD.equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set(ALLOW_HEADER, GET_METHOD);
+            sendProblem(exchange, HttpURLConnection.HTTP_BAD_METHOD, "Method Not Allowed");
+            return;
+        }
+        if (HEALTH_PATH.equals(path)) {
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, NO_BODY);
+            return;
+        }
+        final RequestMetrics metrics = new RequestMetrics();
+        try {
+            if (CODES_PATH.equals(path)) {
+                respondWithCourseCodes(exchange, metrics);
+            } else {
+                respondWithCourses(exchange, metrics);
+            }
+        } finally {
+            metricsWriter.write(metrics);
+        }
+    }
+
+    private void respondWithCourseCodes(final HttpExchange exchange, final RequestMetrics metrics)
+        throws IOException, FailedFsResponseException {
+        final Optional<Integer> institutionCode;
+        final CourseCodesQuery query;
+        try {
+            institutionCode = findInstitutionCode(exchange.getRequestHeaders());
+            query = CourseCodesQuery.fromParameters(queryParameters(exchange.getRequestURI()));
+        } catch (IllegalArgumentException e) {
+            sendProblem(exchange, HttpURLConnection.HTTP_BAD_REQUEST, BAD_REQUEST_TITLE);
+            return;
+        } catch (BadRequestException e) {
+            sendProblem(exchange, HttpURLConnection.HTTP_BAD_REQUEST, BAD_REQUEST_TITLE, e.getMessage());
+            return;
+        }
+        institutionCode.ifPresent(metrics::setInstitutionCode);
+        final Optional<List<String>> codes = institutionCode.isPresent()
+                                                 ? coursesService.completeCourseCode(institutionCode.orElseThrow(),
+                                                                                     query.getPrefix(),
+                                                                                     query.getLimit(),
+                                                                                     metrics,
+                                                                                     Deadline.none())
+                                                 : Optional.empty();
+        sendJson(exchange, HttpURLConnection.HTTP_OK, APPLICATION_JSON,
+                 codes.map(CourseCodesResponse::new).orElseGet(CourseCodesResponse::new), metrics);
+    }
+
+    private void respondWithCourses(final HttpExchange exchange, final RequestMetrics metrics)
+        throws IOException, FailedFsResponseException {
+        final Optional<Integer> institutionCode;
+        final CoursesQuery query;
+        try {
+            institutionCode = findInstitutionCode(exchange.getRequestHeaders());
+            query = CoursesQuery.fromParameters(queryParameters(exchange.getRequestURI()));
+        } catch (IllegalArgumentException e) {
+            sendProblem(exchange, HttpURLConnection.HTTP_BAD_REQUEST, BAD_REQUEST_TITLE);
+            return;
+        } catch (BadRequestException e) {
+            sendProblem(exchange, HttpURLConnection.HTTP_BAD_REQUEST, BAD_REQUEST_TITLE, e.getMessage());
+            return;
+        }
+        institutionCode.ifPresent(metrics::setInstitutionCode);
+        final CoursesRepresentation representation = CoursesRepresentation.negotiate(
+            headerValues(exchange.getRequestHeaders(), CachingHeaders.ACCEPT_HEADER), REPRESENTATIONS);
+        final ContentEncoding acceptedEncoding = ContentEncoding.negotiate(
+            headerValues(exchange.getRequestHeaders(), CachingHeaders.ACCEPT_ENCODING_HEADER));
+        exchange.getResponseHeaders().set(CachingHeaders.VARY_HEADER, CachingHeaders.NEGOTIATED_HEADERS);
+        // Unlike a Lambda invocation, a request to the server has no deadline; FS calls only time out on their own:
+        final Optional<TaughtCourses> taughtCourses = institutionCode.isPresent()
+                                                          ? coursesService.getCurrentlyTaughtCourses(
+                                                              institutionCode.orElseThrow(), metrics, Deadline.none())
+                                                          : Optional.empty();
+        if (taughtCourses.isEmpty()) {
+            sendCourses(exchange, representation,
+                        EncodedBody.encode(representation, new CoursesResponse(), acceptedEncoding, metrics), metrics);
+            return;
+        }
+        final TaughtCourses courses = taughtCourses.orElseThrow();
+        final Headers responseHeaders = exchange.getResponseHeaders();
+        CachingHeaders.headers(courses, representation, acceptedEncoding, clock.instant())
+            .forEach(responseHeaders::set);
+        if (CachingHeaders.matchesIfNoneMatch(headerValues(exchange.getRequestHeaders(),
+                                                           CachingHeaders.IF_NONE_MATCH_HEADER),
+                                              representation.entityTagOf(courses.getEntityTag()))) {
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_MODIFIED, NO_BODY);
+            return;
+        }
+        final EncodedBody body;
+        try {
+            body = coursesService.encodeCourses(institutionCode.orElseThrow(), courses, query, representation,
+                                                acceptedEncoding, metrics);
+        } catch (BadRequestException e) {
+            sendProblem(exchange, HttpURLConnection.HTTP_BAD_REQUEST, BAD_REQUEST_TITLE, e.getMessage());
+            return;
+        }
+        sendCourses(exchange, representation, body, metrics);
+    }
+
+    private static List<String> headerValues(final Headers headers, final String name) {
+        return Optional.ofNullable(headers.get(name)).orElse(List.of());
+    }
+
+    private Optional<Integer> findInstitutionCode(final Headers requestHeaders) {
+        return Optional.ofNullable(requestHeaders.getFirst(institutionHeader))
+                   .map(URI::create)
+                   .map(CoursesService::institutionCodeOf);
+    }
+
+    /**
+     * Decodes the parameters of the query of a request URI; of a parameter given more than once, the first value
+     * counts.
+     */
+    private static Map<String, String> queryParameters(final URI requestUri) {
+        return Optional.ofNullable(requestUri.getRawQuery())
+                   .stream()
+                   .flatMap(query -> Arrays.stream(query.split(PARAMETER_SEPARATOR)))
+                   .filter(parameter -> !parameter.isEmpty())
+                   .map(parameter -> parameter.split(NAME_VALUE_SEPARATOR, 2))
+                   .collect(Collectors.toMap(nameAndValue -> decode(nameAndValue[0]),
+                                             nameAndValue -> nameAndValue.length == 2 ? decode(nameAndValue[1]) : "",
+                                             (first, second) -> first));
+    }
+
+    private static String decode(final String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Closes the exchange, which is what lets the server reuse the connection, whether or not a body was sent.
+     */
+    private static void release(final HttpExchange exchange) {
+        exchange.close();
+    }
+
+    private static void sendProblem(final HttpExchange exchange, final int statusCode, final String title)
+        throws IOException {
+        sendJson(exchange, statusCode, APPLICATION_PROBLEM_JSON, Map.of("title", title, "status", statusCode));
+    }
+
+    private static void sendProblem(final HttpExchange exchange, final int statusCode, final String title,
+                                    final String detail) throws IOException {
+        sendJson(exchange, statusCode, APPLICATION_PROBLEM_JSON,
+                 Map.of("title", title, "status", statusCode, "detail", detail));
+    }
+
+    private static void sendJson(final HttpExchange exchange, final int statusCode, final String contentType,
+                                 final Object body) throws IOException {
+        sendJson(exchange, statusCode, contentType, body, RequestMetrics.discarding());
+    }
+
+    private static void sendJson(final HttpExchange exchange, final int statusCode, final String contentType,
+                                 final Object body, final RequestMetrics metrics) throws IOException {
+        final long serializeStart = RequestMetrics.startTimer();
+        final byte[] bytes = JsonUtils.dtoObjectMapper.writeValueAsBytes(body);
+        metrics.recordTimeSince(Metric.SERIALIZE_TIME, serializeStart);
+        exchange.getResponseHeaders().set(CONTENT_TYPE_HEADER, contentType);
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(bytes);
+        }
+    }
+
+    private static void sendCourses(final HttpExchange exchange, final CoursesRepresentation representation,
+                                    final EncodedBody body, final RequestMetrics metrics) throws IOException {
+        exchange.getResponseHeaders().set(CONTENT_TYPE_HEADER, representation.getMediaType());
+        if (body.getEncoding() != ContentEncoding.IDENTITY) {
+            exchange.getResponseHeaders().set(CachingHeaders.CONTENT_ENCODING_HEADER, body.getEncoding().getName());
+        }
+        metrics.record(Metric.RESPONSE_BYTES, body.getLength());
+        exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, body.getLength());
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            body.writeTo(responseBody);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package no.sikt.nva.fs.server;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Clock;
+import java.time.ZoneId;
+import no.sikt.nva.fs.ColdStartPriming;
+import no.sikt.nva.fs.CoursesService;
+import no.sikt.nva.fs.metrics.EmfWriter;
+import no.sikt.nva.fs.snapshot.CoursesSnapshotStore;
+import no.sikt.nva.fs.snapshot.InMemoryCoursesSnapshotStore;
+import no.sikt.nva.fs.snapshot.S3CoursesSnapshotStore;
+import nva.commons.core.Environment;
+import nva.commons.core.JacocoGenerated;
+import nva.commons.secrets.SecretsReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves the courses endpoint from a long-running process, such as a container behind a load balancer, instead of
+ * from Lambda. The caches, FS connections and FS configuration then stay warm for as long as the process runs.
+ *
+ * <p>Exchanges are handled by a bounded pool of worker threads. Requests arriving while all workers are busy and the
+ * queue in front of them is full are answered with 503 Service Unavailable at once.
+ *
+ * <p>The server takes the top level organization of the logged-in user from a request header as it is, without
+ * authenticating anyone. It must only be reachable through a proxy that authenticates the user and overwrites that
+ * header, such as {@code X-Top-Org-Cristin-Id}, on every request; a client reaching it directly could ask for the
+ * courses of any institution. The name of the header has no default, so that the server refuses to start until it
+ * is configured.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads") // Runs as a process of its own, not in a J2EE container
+public final class CoursesServer implements AutoCloseable {
+
+    public static final String PORT_ENV_KEY = "SERVER_PORT";
+    public static final String WORKER_THREADS_ENV_KEY = "SERVER_WORKER_THREADS";
+    public static final String QUEUE_CAPACITY_ENV_KEY = "SERVER_QUEUE_CAPACITY";
+    public static final String INSTITUTION_HEADER_ENV_KEY = "SERVER_TOP_ORG_CRISTIN_ID_HEADER";
+    public static final String ALLOWED_ORIGIN_ENV_KEY = "ALLOWED_ORIGIN";
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_WORKER_THREADS = 32;
+    public static final int DEFAULT_QUEUE_CAPACITY = 128;
+    public static final String MISSING_INSTITUTION_HEADER_MESSAGE =
+        "The header holding the top level organization of the user must be configured in "
+        + INSTITUTION_HEADER_ENV_KEY;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CoursesServer.class);
+    private static final int STOP_DELAY_SECONDS = 5;
+
+    private final HttpServer server;
+    private final LoadSheddingExecutor executor;
+
+    private CoursesServer(final HttpServer server, final LoadSheddingExecutor executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    @JacocoGenerated
+    public static void main(final String... args) throws IOException {
+        ColdStartPriming.prime();
+        final Environment environment = new Environment();
+        final Clock clock = Clock.system(ZoneId.systemDefault());
+        final CoursesService coursesService =
+            CoursesService.fromEnvironment(environment, SecretsReader.defaultSecretsManagerClient(),
+                                           createSnapshotStore(environment), clock);
+        Runtime.getRuntime().addShutdownHook(new Thread(start(coursesService, environment, clock)::close));
+    }
+
+    /**
+     * Starts serving courses on the port and with the worker pool configured in the environment.
+     *
+     * @throws IllegalStateException if the header holding the top level organization of the user is not configured
+     */
+    public static CoursesServer start(final CoursesService coursesService,
+                                      final Environment environment,
+                                      final Clock clock) throws IOException {
+        return start(coursesService, environment, clock, EmfWriter.fromEnvironment(environment, clock));
+    }
+
+    /* default */ static CoursesServer start(final CoursesService coursesService,
+                                             final Environment environment,
+                                             final Clock clock,
+                                             final EmfWriter metricsWriter) throws IOException {
+        final String institutionHeader = environment.readEnvOpt(INSTITUTION_HEADER_ENV_KEY).orElseThrow(
+            () -> new IllegalStateException(MISSING_INSTITUTION_HEADER_MESSAGE));
+        final LoadSheddingExecutor executor =
+            new LoadSheddingExecutor(readInt(environment, WORKER_THREADS_ENV_KEY, DEFAULT_WORKER_THREADS),
+                                     readInt(environment, QUEUE_CAPACITY_ENV_KEY, DEFAULT_QUEUE_CAPACITY));
+        final HttpServer server = HttpServer.create(
+            new InetSocketAddress(readInt(environment, PORT_ENV_KEY, DEFAULT_PORT)), 0);
+        server.createContext(CoursesHttpHandler.COURSES_PATH, new CoursesHttpHandler(
+            coursesService,
+            institutionHeader,
+            environment.readEnvOpt(ALLOWED_ORIGIN_ENV_KEY),
+            clock,
+            metricsWriter));
+        server.setExecutor(executor);
+        server.start();
+        LOGGER.info("Serving courses on port {}", server.getAddress().getPort());
+        return new CoursesServer(server, executor);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, and gives the exchanges in progress a few seconds to finish.
+     */
+    @Override
+    public void close() {
+        server.stop(STOP_DELAY_SECONDS);
+        executor.shutdown();
+    }
+
+    @JacocoGenerated
+    private static CoursesSnapshotStore createSnapshotStore(final Environment environment) {
+        // Without a bucket, every request is answered from the caches and FS:
+        return environment.readEnvOpt(S3CoursesSnapshotStore.BUCKET_ENV_KEY).isPresent()
+                   ? S3CoursesSnapshotStore.fromEnvironment(environment)
+                   : new InMemoryCoursesSnapshotStore();
+    }
+
+    private static int readInt(final Environment environment, final String envKey, final int defaultValue) {
+        return environment.readEnvOpt(envKey).map(Integer::parseInt).orElse(defaultValue);
+    }
+}
@@ -0,0 +1,63 @@
+package no.sikt.nva.fs.server;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs exchanges on a fixed number of worker threads with a bounded queue in front of them. When both are full, the
+ * exchange is run at once on the thread handing it over, marked as {@link #isShedding() shedding}, so that it can be
+ * turned away quickly instead of waiting for a worker for longer than the client would.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads") // The worker pool of the standalone server
+/* default */ class LoadSheddingExecutor implements Executor {
+
+    private static final ThreadLocal<Boolean> SHEDDING = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final ThreadPoolExecutor workers;
+
+    /* default */ LoadSheddingExecutor(final int workerThreads, final int queueCapacity) {
+        final BlockingQueue<Runnable> queue = queueCapacity == 0
+                                                  ? new SynchronousQueue<>()
+                                                  : new ArrayBlockingQueue<>(queueCapacity);
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0, TimeUnit.MILLISECONDS, queue,
+                                              Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Tells whether the exchange being run on this thread is to be turned away because the workers are busy.
+     */
+    /* default */ static boolean isShedding() {
+        return SHEDDING.get();
+    }
+
+    @Override
+    public void execute(final Runnable exchange) {
+        try {
+            workers.execute(exchange);
+        } catch (RejectedExecutionException e) {
+            if (workers.isShutdown()) {
+                throw e;
+            }
+            shed(exchange);
+        }
+    }
+
+    /* default */ void shutdown() {
+        workers.shutdown();
+    }
+
+    private static void shed(final Runnable exchange) {
+        SHEDDING.set(Boolean.TRUE);
+        try {
+            exchange.run();
+        } finally {
+            SHEDDING.remove();
+        }
+    }
+}
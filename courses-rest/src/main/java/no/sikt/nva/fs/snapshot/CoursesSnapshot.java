@@ -0,0 +1,73 @@
+package no.sikt.nva.fs.snapshot;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.Instant;
+import java.util.List;
+import no.sikt.nva.fs.AcademicWindow;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.TaughtCourses;
+
+/**
+ * Sorted courses of an institution for an academic window, precomputed so that they can be served without
+ * calling FS.
+ */
+public class CoursesSnapshot {
+
+    private final int institutionCode;
+    private final String window;
+    private final List<Course> courses;
+    private final String entityTag;
+    private final Instant freshUntil;
+
+    @JsonCreator
+    public CoursesSnapshot(@JsonProperty("institutionCode") final int institutionCode,
+                           @JsonProperty("window") final String window,
+                           @JsonProperty("courses") final List<Course> courses,
+                           @JsonProperty("entityTag") final String entityTag,
+                           @JsonProperty("freshUntil") final Instant freshUntil) {
+        this.institutionCode = institutionCode;
+        this.window = window;
+        this.courses = courses;
+        this.entityTag = entityTag;
+        this.freshUntil = freshUntil;
+    }
+
+    public static CoursesSnapshot fromTaughtCourses(final int institutionCode,
+                                                    final AcademicWindow academicWindow,
+                                                    final TaughtCourses taughtCourses,
+                                                    final Instant freshUntil) {
+        return new CoursesSnapshot(institutionCode, academicWindow.getKey(), taughtCourses.getCourses(),
+                                   taughtCourses.getEntityTag(), freshUntil);
+    }
+
+    public int getInstitutionCode() {
+        return institutionCode;
+    }
+
+    public String getWindow() {
+        return window;
+    }
+
+    public List<Course> getCourses() {
+        return courses;
+    }
+
+    public String getEntityTag() {
+        return entityTag;
+    }
+
+    public Instant getFreshUntil() {
+        return freshUntil;
+    }
+
+    public boolean isFor(final AcademicWindow academicWindow) {
+        return window.equals(academicWindow.getKey());
+    }
+
+    @JsonIgnore
+    public TaughtCourses toTaughtCourses() {
+        return new TaughtCourses(courses, entityTag, freshUntil);
+    }
+}
@@ -0,0 +1,274 @@
+package no.sikt.nva.fs.snapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.CourseCatalog;
+import no.sikt.nva.fs.Term;
+
+/**
+ * Binary form of a {@link CoursesSnapshot}. It is either decoded straight into the columns of a
+ * {@link CourseCatalog} without creating an object for each course, or mapped, leaving the courses in the buffer to be
+ * decoded when they are asked for; see {@link MappedCourses}.
+ *
+ * <p>All numbers are big-endian. Version 1 is laid out as follows:
+ * <pre>
+ *   int     magic                      "NVAC"
+ *   short   version                    1
+ *   short   reserved                   0
+ *   int     institution code
+ *   long    fresh until                epoch milliseconds
+ *   int     number of courses          n
+ *   int     number of course codes     c
+ *   string  academic window            int length followed by UTF-8 bytes
+ *   string  entity tag                 int length followed by UTF-8 bytes
+ *   int[]   course code offsets        c + 1 offsets into the course code bytes
+ *   byte[]  course code bytes          UTF-8, padded with zeros to a multiple of 4
+ *   record[] courses                   n records of 8 bytes, in the order the courses were sorted in
+ *   record  int course code index, short year, byte term ordinal, byte reserved
+ * </pre>
+ * Each course code is stored once, however many terms and years it is taught in.
+ */
+public final class CoursesSnapshotFormat {
+
+    public static final int MAGIC = 0x4E564143; // NVAC
+    public static final short VERSION = 1;
+
+    /* default */ static final int RECORD_SIZE = 8;
+    /* default */ static final String CORRUPT_MESSAGE = "Courses snapshot is corrupt: ";
+
+    private static final int ALIGNMENT = 4;
+    private static final int HEADER_SIZE = 28;
+    private static final Term[] TERMS = Term.values();
+    private static final String TRUNCATED_MESSAGE = "Courses snapshot is truncated";
+
+    private CoursesSnapshotFormat() {
+    }
+
+    public static byte[] write(final CoursesSnapshot snapshot) throws IOException {
+        final LinkedHashMap<String, Integer> codeIndexes = new LinkedHashMap<>();
+        for (final Course course : snapshot.getCourses()) {
+            codeIndexes.putIfAbsent(course.getCode(), codeIndexes.size());
+        }
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(MAGIC);
+        output.writeShort(VERSION);
+        output.writeShort(0);
+        output.writeInt(snapshot.getInstitutionCode());
+        output.writeLong(snapshot.getFreshUntil().toEpochMilli());
+        output.writeInt(snapshot.getCourses().size());
+        output.writeInt(codeIndexes.size());
+        writeString(output, snapshot.getWindow());
+        writeString(output, snapshot.getEntityTag());
+        writeCodes(output, codeIndexes);
+        for (final Course course : snapshot.getCourses()) {
+            output.writeInt(codeIndexes.get(course.getCode()));
+            output.writeShort(course.getYear());
+            output.writeByte(Term.fromCode(course.getTerm()).ordinal());
+            output.writeByte(0);
+        }
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads the snapshot held by the buffer, decoding every course into a {@link CourseCatalog} in one pass. Counts,
+     * lengths, offsets, course code indexes and term ordinals are all checked while decoding, so that a snapshot
+     * that is truncated or corrupt fails to be read rather than failing once its courses are served.
+     */
+    public static CoursesSnapshot read(final ByteBuffer buffer) throws IOException {
+        final Layout layout = readLayout(buffer);
+        final ByteBuffer snapshotBuffer = layout.buffer;
+        final String[] codes = readCodes(snapshotBuffer, layout.codeOffsets, layout.codesStart);
+        snapshotBuffer.position(layout.recordsStart);
+        return layout.toSnapshot(readCourses(snapshotBuffer, codes, layout.courseCount));
+    }
+
+    /**
+     * Reads the snapshot held by the buffer, such as a memory-mapped file, without decoding its courses; they are
+     * decoded from the buffer when they are asked for, so the buffer must not be changed as long as the snapshot is in
+     * use. The header, strings and course code offsets are checked here, and the length of the buffer against them;
+     * the course code index and term ordinal of a course are checked when it is decoded.
+     */
+    public static CoursesSnapshot map(final ByteBuffer buffer) throws IOException {
+        final Layout layout = readLayout(buffer);
+        final int codeCount = layout.codeOffsets.length - 1;
+        return layout.toSnapshot(new MappedCourses(layout.buffer, layout.courseCount, codeCount,
+                                                   layout.codesStart - (codeCount + 1) * Integer.BYTES,
+                                                   layout.recordsStart));
+    }
+
+    private static Layout readLayout(final ByteBuffer buffer) throws IOException {
+        final ByteBuffer snapshotBuffer = buffer.slice();
+        readVersion(snapshotBuffer);
+        final int institutionCode = snapshotBuffer.getInt();
+        final Instant freshUntil = Instant.ofEpochMilli(snapshotBuffer.getLong());
+        final int courseCount = readCount(snapshotBuffer);
+        final int codeCount = readCount(snapshotBuffer);
+        final String window = readString(snapshotBuffer);
+        final String entityTag = readString(snapshotBuffer);
+        final int[] codeOffsets = readCodeOffsets(snapshotBuffer, codeCount);
+        final int codesStart = snapshotBuffer.position();
+        final long recordsStart = align((long) codesStart + codeOffsets[codeCount]);
+        requireLength(snapshotBuffer, recordsStart + (long) courseCount * RECORD_SIZE);
+        return new Layout(snapshotBuffer, institutionCode, freshUntil, courseCount, window, entityTag, codeOffsets,
+                          codesStart, (int) recordsStart);
+    }
+
+    private static void readVersion(final ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a courses snapshot");
+        }
+        final short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported courses snapshot version: " + version);
+        }
+        buffer.getShort();
+    }
+
+    private static void requireLength(final ByteBuffer buffer, final long length) throws IOException {
+        if (buffer.limit() != length) {
+            throw new IOException(TRUNCATED_MESSAGE);
+        }
+    }
+
+    private static void requireRemaining(final ByteBuffer buffer, final long length) throws IOException {
+        if (length < 0) {
+            throw new IOException(CORRUPT_MESSAGE + "negative length " + length);
+        }
+        if (length > buffer.remaining()) {
+            throw new IOException(TRUNCATED_MESSAGE);
+        }
+    }
+
+    private static int readCount(final ByteBuffer buffer) throws IOException {
+        final int count = buffer.getInt();
+        if (count < 0) {
+            throw new IOException(CORRUPT_MESSAGE + "negative count " + count);
+        }
+        return count;
+    }
+
+    private static int[] readCodeOffsets(final ByteBuffer buffer, final int codeCount) throws IOException {
+        requireRemaining(buffer, (codeCount + 1L) * Integer.BYTES);
+        final int[] codeOffsets = new int[codeCount + 1];
+        int previousOffset = 0;
+        for (int index = 0; index < codeOffsets.length; index++) {
+            codeOffsets[index] = buffer.getInt();
+            if (codeOffsets[index] < previousOffset) {
+                throw new IOException(CORRUPT_MESSAGE + "course code offset " + codeOffsets[index] + " out of order");
+            }
+            previousOffset = codeOffsets[index];
+        }
+        requireRemaining(buffer, previousOffset);
+        return codeOffsets;
+    }
+
+    private static String[] readCodes(final ByteBuffer buffer, final int[] codeOffsets, final int codesStart) {
+        final String[] codes = new String[codeOffsets.length - 1];
+        final ByteBuffer codeBuffer = buffer.duplicate();
+        for (int index = 0; index < codes.length; index++) {
+            codeBuffer.limit(codesStart + codeOffsets[index + 1]).position(codesStart + codeOffsets[index]);
+            codes[index] = StandardCharsets.UTF_8.decode(codeBuffer).toString();
+        }
+        return codes;
+    }
+
+    private static CourseCatalog readCourses(final ByteBuffer buffer, final String[] codes, final int courseCount)
+        throws IOException {
+        final int[] codeIndexes = new int[courseCount];
+        final int[] years = new int[courseCount];
+        final byte[] terms = new byte[courseCount];
+        for (int index = 0; index < courseCount; index++) {
+            codeIndexes[index] = buffer.getInt();
+            if (codeIndexes[index] < 0 || codeIndexes[index] >= codes.length) {
+                throw new IOException(CORRUPT_MESSAGE + "course code index " + codeIndexes[index] + " out of bounds");
+            }
+            years[index] = buffer.getShort();
+            terms[index] = buffer.get();
+            if (terms[index] < 0 || terms[index] >= TERMS.length) {
+                throw new IOException(CORRUPT_MESSAGE + "term ordinal " + terms[index] + " out of bounds");
+            }
+            buffer.get();
+        }
+        return CourseCatalog.fromColumns(codes, codeIndexes, years, terms);
+    }
+
+    private static void writeString(final DataOutputStream output, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(final ByteBuffer buffer) throws IOException {
+        requireRemaining(buffer, Integer.BYTES);
+        final int length = buffer.getInt();
+        requireRemaining(buffer, length);
+        final ByteBuffer stringBuffer = buffer.slice();
+        stringBuffer.limit(length);
+        buffer.position(buffer.position() + length);
+        return StandardCharsets.UTF_8.decode(stringBuffer).toString();
+    }
+
+    private static void writeCodes(final DataOutputStream output, final Map<String, Integer> codeIndexes)
+        throws IOException {
+        final ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+        output.writeInt(0);
+        for (final String code : codeIndexes.keySet()) {
+            codeBytes.write(code.getBytes(StandardCharsets.UTF_8));
+            output.writeInt(codeBytes.size());
+        }
+        codeBytes.writeTo(output);
+        final int codesEnd = output.size();
+        for (int position = codesEnd; position < align(codesEnd); position++) {
+            output.writeByte(0);
+        }
+    }
+
+    private static long align(final long position) {
+        return (position + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    /**
+     * Where the parts of a snapshot are found in its buffer, once its header has been read and checked.
+     */
+    private static final class Layout {
+
+        private final ByteBuffer buffer;
+        private final int institutionCode;
+        private final Instant freshUntil;
+        private final int courseCount;
+        private final String window;
+        private final String entityTag;
+        private final int[] codeOffsets;
+        private final int codesStart;
+        private final int recordsStart;
+
+        private Layout(final ByteBuffer buffer, final int institutionCode, final Instant freshUntil,
+                       final int courseCount, final String window, final String entityTag, final int[] codeOffsets,
+                       final int codesStart, final int recordsStart) {
+            this.buffer = buffer;
+            this.institutionCode = institutionCode;
+            this.freshUntil = freshUntil;
+            this.courseCount = courseCount;
+            this.window = window;
+            this.entityTag = entityTag;
+            this.codeOffsets = codeOffsets;
+            this.codesStart = codesStart;
+            this.recordsStart = recordsStart;
+        }
+
+        private CoursesSnapshot toSnapshot(final List<Course> courses) {
+            return new CoursesSnapshot(institutionCode, window, courses, entityTag, freshUntil);
+        }
+    }
+}
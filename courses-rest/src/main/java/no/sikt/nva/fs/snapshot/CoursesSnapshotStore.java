@@ -0,0 +1,24 @@
+package no.sikt.nva.fs.snapshot;
+
+import java.io.IOException;
+import java.util.Optional;
+import no.sikt.nva.fs.client.Deadline;
+
+/**
+ * Where precomputed course snapshots are kept, one per institution. A saved snapshot replaces the one held for the
+ * same institution.
+ */
+public interface CoursesSnapshotStore {
+
+    Optional<CoursesSnapshot> find(int institutionCode) throws IOException;
+
+    /**
+     * Finds the snapshot of an institution, giving up at the deadline of a request. Stores that are read without
+     * waiting on the network need not bound the read.
+     */
+    default Optional<CoursesSnapshot> find(int institutionCode, Deadline deadline) throws IOException {
+        return find(institutionCode);
+    }
+
+    void save(CoursesSnapshot snapshot) throws IOException;
+}
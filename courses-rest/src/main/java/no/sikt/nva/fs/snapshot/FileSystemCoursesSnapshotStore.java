@@ -0,0 +1,61 @@
+package no.sikt.nva.fs.snapshot;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Keeps snapshots as files in a local directory, such as the {@code /tmp} directory of a Lambda container, written
+ * in {@link CoursesSnapshotFormat}. Files are memory-mapped when read, and only the header and course code offsets
+ * are read up front, so finding a snapshot costs about the same however many courses it holds; see
+ * {@link MappedCourses}.
+ *
+ * <p>A snapshot is written to a temporary file that is then moved into place, so that readers never see a file that
+ * is only partly written. Snapshots already mapped keep the content of the file they were mapped from.
+ */
+public class FileSystemCoursesSnapshotStore implements CoursesSnapshotStore {
+
+    private static final String FILE_NAME_TEMPLATE = "courses-%d.snapshot";
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    private final Path directory;
+
+    public FileSystemCoursesSnapshotStore(final Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public Optional<CoursesSnapshot> find(final int institutionCode) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotFile(institutionCode), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed:
+            return Optional.of(CoursesSnapshotFormat.map(channel.map(FileChannel.MapMode.READ_ONLY,
+                                                                     0, channel.size())));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void save(final CoursesSnapshot snapshot) throws IOException {
+        Files.createDirectories(directory);
+        final Path snapshotFile = snapshotFile(snapshot.getInstitutionCode());
+        final Path temporaryFile = Files.createTempFile(directory, snapshotFile.getFileName().toString(),
+                                                        TEMPORARY_FILE_SUFFIX);
+        try {
+            Files.write(temporaryFile, CoursesSnapshotFormat.write(snapshot));
+            Files.move(temporaryFile, snapshotFile, StandardCopyOption.ATOMIC_MOVE,
+                       StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private Path snapshotFile(final int institutionCode) {
+        return directory.resolve(String.format(FILE_NAME_TEMPLATE, institutionCode));
+    }
+}
@@ -0,0 +1,23 @@
+package no.sikt.nva.fs.snapshot;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps snapshots in the heap. Meant for tests and for running locally without a bucket.
+ */
+public class InMemoryCoursesSnapshotStore implements CoursesSnapshotStore {
+
+    private final Map<Integer, CoursesSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<CoursesSnapshot> find(final int institutionCode) {
+        return Optional.ofNullable(snapshots.get(institutionCode));
+    }
+
+    @Override
+    public void save(final CoursesSnapshot snapshot) {
+        snapshots.put(snapshot.getInstitutionCode(), snapshot);
+    }
+}
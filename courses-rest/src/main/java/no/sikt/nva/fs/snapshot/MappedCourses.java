@@ -0,0 +1,117 @@
+package no.sikt.nva.fs.snapshot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Objects;
+import java.util.RandomAccess;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.Term;
+
+/**
+ * The courses of a snapshot read with {@link CoursesSnapshotFormat#map}, left in the buffer they were read from: a
+ * dictionary of course codes and one fixed-width record per course. Nothing is decoded until it is asked for, and
+ * each course code is decoded the first time it is asked for and shared by every course with that code afterwards.
+ *
+ * <p>A record whose course code index or term ordinal is out of bounds fails with an {@link UncheckedIOException}
+ * when it is decoded.
+ */
+public final class MappedCourses extends AbstractList<Course> implements RandomAccess {
+
+    private static final Term[] TERMS = Term.values();
+    private static final int YEAR_OFFSET = Integer.BYTES;
+    private static final int TERM_OFFSET = YEAR_OFFSET + Short.BYTES;
+
+    private final ByteBuffer buffer;
+    private final int courseCount;
+    private final int codeOffsetsStart;
+    private final int codesStart;
+    private final int recordsStart;
+    private final String[] codes;
+
+    /**
+     * Courses whose records start at the given position of the buffer, after a dictionary of as many codes as
+     * given. The course code offsets are read from the buffer, and must already have been checked.
+     */
+    /* default */ MappedCourses(final ByteBuffer buffer, final int courseCount, final int codeCount,
+                                final int codeOffsetsStart, final int recordsStart) {
+        super();
+        this.buffer = buffer;
+        this.courseCount = courseCount;
+        this.codeOffsetsStart = codeOffsetsStart;
+        this.codesStart = codeOffsetsStart + (codeCount + 1) * Integer.BYTES;
+        this.recordsStart = recordsStart;
+        this.codes = new String[codeCount];
+    }
+
+    @Override
+    public Course get(final int index) {
+        return new Course(getCode(index), getTerm(index).getCode(), getYear(index));
+    }
+
+    @Override
+    public int size() {
+        return courseCount;
+    }
+
+    /**
+     * The number of distinct course codes in the dictionary.
+     */
+    public int getCodeCount() {
+        return codes.length;
+    }
+
+    /**
+     * The course code at an index of the dictionary.
+     */
+    public String getDictionaryCode(final int codeIndex) {
+        String code = codes[Objects.checkIndex(codeIndex, codes.length)];
+        if (code == null) {
+            // Decoding the same code twice in a race is harmless, as the results are equal:
+            final int start = codesStart + buffer.getInt(codeOffsetsStart + codeIndex * Integer.BYTES);
+            final int end = codesStart + buffer.getInt(codeOffsetsStart + (codeIndex + 1) * Integer.BYTES);
+            final ByteBuffer codeBuffer = buffer.duplicate();
+            codeBuffer.limit(end).position(start);
+            code = StandardCharsets.UTF_8.decode(codeBuffer).toString();
+            codes[codeIndex] = code;
+        }
+        return code;
+    }
+
+    /**
+     * The index in the dictionary of the code of a course.
+     */
+    public int getCodeIndex(final int index) {
+        final int codeIndex = buffer.getInt(record(index));
+        if (codeIndex < 0 || codeIndex >= codes.length) {
+            throw corrupt("course code index " + codeIndex + " out of bounds");
+        }
+        return codeIndex;
+    }
+
+    public String getCode(final int index) {
+        return getDictionaryCode(getCodeIndex(index));
+    }
+
+    public int getYear(final int index) {
+        return buffer.getShort(record(index) + YEAR_OFFSET);
+    }
+
+    public Term getTerm(final int index) {
+        final byte termOrdinal = buffer.get(record(index) + TERM_OFFSET);
+        if (termOrdinal < 0 || termOrdinal >= TERMS.length) {
+            throw corrupt("term ordinal " + termOrdinal + " out of bounds");
+        }
+        return TERMS[termOrdinal];
+    }
+
+    private int record(final int index) {
+        return recordsStart + Objects.checkIndex(index, courseCount) * CoursesSnapshotFormat.RECORD_SIZE;
+    }
+
+    private static UncheckedIOException corrupt(final String reason) {
+        return new UncheckedIOException(new IOException(CoursesSnapshotFormat.CORRUPT_MESSAGE + reason));
+    }
+}
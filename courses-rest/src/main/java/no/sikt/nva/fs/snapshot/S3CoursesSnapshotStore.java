@@ -0,0 +1,85 @@
+package no.sikt.nva.fs.snapshot;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import no.sikt.nva.fs.client.Deadline;
+import nva.commons.core.Environment;
+import nva.commons.core.JacocoGenerated;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+/**
+ * Keeps snapshots as objects in an S3 bucket, so that they are shared by the warmer and every container serving
+ * requests. The objects are written in {@link CoursesSnapshotFormat}.
+ */
+public class S3CoursesSnapshotStore implements CoursesSnapshotStore {
+
+    public static final String BUCKET_ENV_KEY = "COURSES_SNAPSHOT_BUCKET";
+
+    /* default */ static final Duration READ_TIMEOUT = Duration.ofSeconds(5);
+    /* default */ static final String NO_TIME_LEFT_MESSAGE =
+        "No time left to read the snapshot before the deadline of the request";
+    private static final String OBJECT_KEY_TEMPLATE = "courses/%d.snapshot";
+    private static final String APPLICATION_OCTET_STREAM = "application/octet-stream";
+
+    private final S3Client s3Client;
+    private final String bucket;
+
+    public S3CoursesSnapshotStore(final S3Client s3Client, final String bucket) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+    }
+
+    @JacocoGenerated
+    public static S3CoursesSnapshotStore fromEnvironment(final Environment environment) {
+        return new S3CoursesSnapshotStore(S3Client.create(), environment.readEnv(BUCKET_ENV_KEY));
+    }
+
+    @Override
+    public Optional<CoursesSnapshot> find(final int institutionCode) throws IOException {
+        return find(institutionCode, Deadline.none());
+    }
+
+    /**
+     * Reads the snapshot object, taking at most {@link #READ_TIMEOUT} and giving up at the deadline if that comes
+     * first.
+     */
+    @Override
+    public Optional<CoursesSnapshot> find(final int institutionCode, final Deadline deadline) throws IOException {
+        final Duration timeout = deadline.timeout(READ_TIMEOUT);
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IOException(NO_TIME_LEFT_MESSAGE);
+        }
+        final GetObjectRequest request = GetObjectRequest.builder()
+                                             .bucket(bucket)
+                                             .key(objectKey(institutionCode))
+                                             .overrideConfiguration(config -> config.apiCallTimeout(timeout))
+                                             .build();
+        try {
+            final ResponseBytes<GetObjectResponse> object = s3Client.getObjectAsBytes(request);
+            return Optional.of(CoursesSnapshotFormat.read(object.asByteBuffer()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void save(final CoursesSnapshot snapshot) throws IOException {
+        final PutObjectRequest request = PutObjectRequest.builder()
+                                             .bucket(bucket)
+                                             .key(objectKey(snapshot.getInstitutionCode()))
+                                             .contentType(APPLICATION_OCTET_STREAM)
+                                             .build();
+        s3Client.putObject(request, RequestBody.fromBytes(CoursesSnapshotFormat.write(snapshot)));
+    }
+
+    private static String objectKey(final int institutionCode) {
+        return String.format(OBJECT_KEY_TEMPLATE, institutionCode);
+    }
+}
@@ -0,0 +1,20 @@
+package no.sikt.nva.fs;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.StringContains.containsString;
+import nva.commons.logutils.LogUtils;
+import org.junit.jupiter.api.Test;
+
+class ColdStartPrimingTest {
+
+    @Test
+    void shouldRunEveryPrimedPathWithoutFailing() {
+        final var appender = LogUtils.getTestingAppenderForRootLogger();
+
+        ColdStartPriming.prime();
+
+        assertThat(appender.getMessages(), containsString("Primed cold start paths in"));
+        assertThat(appender.getMessages(), not(containsString("Priming cold start paths failed")));
+    }
+}
@@ -0,0 +1,47 @@
+package no.sikt.nva.fs;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.util.List;
+import no.unit.nva.commons.json.JsonUtils;
+import org.junit.jupiter.api.Test;
+
+class CompactCoursesResponseTest {
+
+    private static final List<Course> SORTED_COURSES = List.of(new Course("A", "H\u00D8ST", 2022), // HØST
+                                                               new Course("B", "H\u00D8ST", 2022), // HØST
+                                                               new Course("A", "V\u00C5R", 2023), // VÅR
+                                                               new Course("C", "V\u00C5R", 2023), // VÅR
+                                                               new Course("A", "SOM", 2023));
+
+    @Test
+    void shouldGroupCodesByYearAndTerm() throws JsonProcessingException {
+        var response = new CoursesResponse(CourseCatalog.copyOf(SORTED_COURSES), "next");
+
+        var json = JsonUtils.dtoObjectMapper.writeValueAsString(CompactCoursesResponse.from(response));
+
+        assertThat(json, equalTo("{\"type\":\"CompactCourseList\",\"terms\":["
+                                 + "{\"year\":2022,\"term\":\"H\u00D8ST\",\"codes\":[\"A\",\"B\"]}," // HØST
+                                 + "{\"year\":2023,\"term\":\"V\u00C5R\",\"codes\":[\"A\",\"C\"]}," // VÅR
+                                 + "{\"year\":2023,\"term\":\"SOM\",\"codes\":[\"A\"]}],"
+                                 + "\"nextCursor\":\"next\"}"));
+    }
+
+    @Test
+    void shouldWriteNoTermsAndNoCursorOfEmptyLastPage() throws JsonProcessingException {
+        var json = JsonUtils.dtoObjectMapper.writeValueAsString(CompactCoursesResponse.from(new CoursesResponse()));
+
+        assertThat(json, equalTo("{\"type\":\"CompactCourseList\",\"terms\":[]}"));
+    }
+
+    @Test
+    void shouldGroupCoursesGivenAsPlainList() throws JsonProcessingException {
+        var response = new CoursesResponse(SORTED_COURSES.subList(2, 4));
+
+        var json = JsonUtils.dtoObjectMapper.writeValueAsString(CompactCoursesResponse.from(response));
+
+        assertThat(json, equalTo("{\"type\":\"CompactCourseList\",\"terms\":["
+                                 + "{\"year\":2023,\"term\":\"V\u00C5R\",\"codes\":[\"A\",\"C\"]}]}")); // VÅR
+    }
+}
@@ -0,0 +1,61 @@
+package no.sikt.nva.fs;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsSame.sameInstance;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class ContentEncodingTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "gzip|GZIP",
+        "GZIP|GZIP",
+        "gzip, deflate, br|GZIP",
+        "br;q=1.0, gzip;q=0.8|GZIP",
+        "*|GZIP",
+        "br, *;q=0.1|GZIP",
+        "gzip;q=oops|GZIP",
+        "identity|IDENTITY",
+        "br, deflate|IDENTITY",
+        "gzip;q=0|IDENTITY",
+        "gzip;q=0, *|IDENTITY",
+        "*;q=0|IDENTITY"
+    })
+    void shouldNegotiateEncodingFromAcceptEncodingHeader(final String acceptEncoding,
+                                                         final ContentEncoding expected) {
+        assertThat(ContentEncoding.negotiate(List.of(acceptEncoding)), equalTo(expected));
+    }
+
+    @Test
+    void shouldSendBodyAsItIsWithoutAcceptEncodingHeader() {
+        assertThat(ContentEncoding.negotiate(List.of()), equalTo(ContentEncoding.IDENTITY));
+    }
+
+    @Test
+    void shouldWeakenEntityTagOfCompressedBodiesOnly() {
+        assertThat(ContentEncoding.IDENTITY.entityTagOf("\"abc\""), equalTo("\"abc\""));
+        assertThat(ContentEncoding.GZIP.entityTagOf("\"abc\""), equalTo("W/\"abc\""));
+        assertThat(ContentEncoding.GZIP.entityTagOf("W/\"abc\""), equalTo("W/\"abc\""));
+    }
+
+    @Test
+    void shouldCompressBodyThatDecompressesToTheSameBytes() throws IOException {
+        final byte[] body = "{\"courses\":[]}".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+        final byte[] compressed = ContentEncoding.GZIP.encode(body);
+
+        try (GZIPInputStream decompressed = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertThat(decompressed.readAllBytes(), equalTo(body));
+        }
+        assertThat(ContentEncoding.GZIP.getName(), equalTo("gzip"));
+        assertThat(ContentEncoding.IDENTITY.encode(body), sameInstance(body));
+    }
+}
@@ -0,0 +1,117 @@
+package no.sikt.nva.fs;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsEmptyCollection.empty;
+import static org.hamcrest.collection.IsIterableContainingInAnyOrder.containsInAnyOrder;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.util.ArrayList;
+import java.util.List;
+import no.unit.nva.commons.json.JsonUtils;
+import org.junit.jupiter.api.Test;
+
+class CourseCatalogTest {
+
+    private static final Course A_FALL_2022 = new Course("A", "H\u00D8ST", 2022); // HØST
+    private static final Course B_FALL_2022 = new Course("B", "H\u00D8ST", 2022); // HØST
+    private static final Course A_WINTER_2022 = new Course("A", "VIT", 2022);
+    private static final Course A_SPRING_2023 = new Course("A", "V\u00C5R", 2023); // VÅR
+    private static final Course C_SPRING_2023 = new Course("C", "V\u00C5R", 2023); // VÅR
+    private static final Course A_SUMMER_2023 = new Course("A", "SOM", 2023);
+    private static final List<Course> SORTED_COURSES = List.of(A_FALL_2022, B_FALL_2022, A_WINTER_2022,
+                                                               A_SPRING_2023, C_SPRING_2023, A_SUMMER_2023);
+
+    @Test
+    void shouldHoldTheCoursesInTheOrderGiven() {
+        var catalog = CourseCatalog.copyOf(SORTED_COURSES);
+
+        assertThat(catalog, equalTo(SORTED_COURSES));
+        assertThat(catalog.getCode(1), equalTo("B"));
+        assertThat(catalog.getTerm(2), equalTo(Term.WINTER));
+        assertThat(catalog.getYear(3), equalTo(2023));
+    }
+
+    @Test
+    void shouldStoreEachCodeOnce() {
+        var catalog = CourseCatalog.copyOf(SORTED_COURSES);
+
+        assertThat(catalog.getCode(3), sameInstance(catalog.getCode(0)));
+        assertThat(catalog.distinctCodes(), contains("A", "B", "C"));
+    }
+
+    @Test
+    void shouldReturnCatalogAsItIs() {
+        var catalog = CourseCatalog.copyOf(SORTED_COURSES);
+
+        assertThat(CourseCatalog.copyOf(catalog), sameInstance(catalog));
+    }
+
+    @Test
+    void shouldFindRangeOfYearAndTerm() {
+        var catalog = CourseCatalog.copyOf(SORTED_COURSES);
+
+        assertThat(catalog.range(2023, Term.SPRING), contains(A_SPRING_2023, C_SPRING_2023));
+        assertThat(catalog.range(2022, Term.WINTER), contains(A_WINTER_2022));
+        assertThat(catalog.range(2022, Term.SPRING), empty());
+        assertThat(catalog.range(2024, Term.FALL), empty());
+    }
+
+    @Test
+    void shouldFindRangeWithinSubList() {
+        var subList = CourseCatalog.copyOf(SORTED_COURSES).subList(1, 5);
+
+        assertThat(subList.range(2022, Term.FALL), contains(B_FALL_2022));
+        assertThat(subList.range(2023, Term.SPRING), contains(A_SPRING_2023, C_SPRING_2023));
+        assertThat(subList.distinctCodes(), contains("B", "A", "C"));
+    }
+
+    @Test
+    void shouldRejectIndexOutsideOfSubList() {
+        var subList = CourseCatalog.copyOf(SORTED_COURSES).subList(1, 3);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> subList.get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> subList.subList(0, 3));
+    }
+
+    @Test
+    void shouldConcatenateRangesOfTheSameCatalog() {
+        var catalog = CourseCatalog.copyOf(SORTED_COURSES);
+
+        var concatenated = CourseCatalog.concat(List.of(catalog.range(2022, Term.FALL),
+                                                        catalog.range(2023, Term.SUMMER)));
+
+        assertThat(concatenated, contains(A_FALL_2022, B_FALL_2022, A_SUMMER_2023));
+        assertThat(concatenated.getCode(2), sameInstance(catalog.getCode(0)));
+    }
+
+    @Test
+    void shouldConcatenateCatalogsOfDifferentDictionaries() {
+        var fall = CourseCatalog.copyOf(List.of(A_FALL_2022, B_FALL_2022));
+        var spring = CourseCatalog.copyOf(List.of(A_SPRING_2023, C_SPRING_2023));
+
+        var concatenated = CourseCatalog.concat(List.of(fall, spring));
+
+        assertThat(concatenated, contains(A_FALL_2022, B_FALL_2022, A_SPRING_2023, C_SPRING_2023));
+        assertThat(concatenated.distinctCodes(), containsInAnyOrder("A", "B", "C"));
+    }
+
+    @Test
+    void shouldConcatenateNoCatalogsToEmptyCatalog() {
+        assertThat(CourseCatalog.concat(List.of()), empty());
+        assertThat(CourseCatalog.empty(), empty());
+    }
+
+    @Test
+    void shouldWriteTheSameJsonAsListOfCourses() throws JsonProcessingException {
+        var catalog = CourseCatalog.copyOf(SORTED_COURSES).subList(1, 4);
+
+        var catalogJson = JsonUtils.dtoObjectMapper.writeValueAsString(new CoursesResponse(catalog, "next"));
+        var listJson = JsonUtils.dtoObjectMapper.writeValueAsString(new CoursesResponse(new ArrayList<>(catalog),
+                                                                                        "next"));
+
+        assertThat(catalogJson, equalTo(listJson));
+    }
+}
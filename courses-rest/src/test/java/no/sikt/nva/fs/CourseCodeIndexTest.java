@@ -0,0 +1,74 @@
+package no.sikt.nva.fs;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsEmptyCollection.empty;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsEqual.equalTo;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class CourseCodeIndexTest {
+
+    private static final String FALL = Term.FALL.getCode();
+    private static final String SPRING = Term.SPRING.getCode();
+    private static final CourseCodeIndex INDEX = CourseCodeIndex.build(taughtCourses(
+        new Course("MAT100", FALL, 2022),
+        new Course("mat-110", FALL, 2022),
+        new Course("MATA", FALL, 2022),
+        new Course("A1", FALL, 2022),
+        new Course("\u00C51", FALL, 2022), // Å1
+        new Course("AAR100", FALL, 2022),
+        new Course("\u00D8KO200", FALL, 2022), // ØKO200
+        new Course("MAT100", SPRING, 2023),
+        new Course("B1", SPRING, 2023)));
+
+    @Test
+    void shouldCompleteCodesStartingWithPrefixRegardlessOfCase() {
+        assertThat(INDEX.complete("mat1", 10), contains("MAT100", "mat-110"));
+        assertThat(INDEX.complete("MAT", 10), contains("MAT100", "mat-110", "MATA"));
+    }
+
+    @Test
+    void shouldCompleteCodesTheWayCodesAreSorted() {
+        assertThat(INDEX.complete("\u00F8", 10), contains("\u00D8KO200")); // ø, ØKO200
+        assertThat(INDEX.complete("aa", 10), contains("\u00C51", "AAR100")); // Å1
+        assertThat(INDEX.complete("a", 10), contains("A1"));
+    }
+
+    @Test
+    void shouldCompleteEachCodeOnceAndAtMostLimitCodes() {
+        assertThat(INDEX.size(), equalTo(8));
+        assertThat(INDEX.complete("", 3), contains("A1", "B1", "MAT100"));
+    }
+
+    @Test
+    void shouldCompleteNothingWhenNoCodeStartsWithPrefix() {
+        assertThat(INDEX.complete("x", 10), empty());
+        assertThat(INDEX.complete("\u00E6", 10), empty()); // æ
+    }
+
+    @Test
+    void shouldCompleteSameCodesAsMatchedWhenSelectingCourses() throws Exception {
+        var taughtCourses = taughtCourses(IntStream.range(0, 300)
+                                              .mapToObj(i -> new Course((char) ('A' + i % 5) + "-" + i, FALL, 2022))
+                                              .toArray(Course[]::new));
+        var index = CourseCodeIndex.build(taughtCourses);
+
+        var selectedCodes = CoursesQuery.fromParameters(Map.of(CoursesQuery.CODE_PREFIX_PARAMETER, "c1"))
+                                .select(taughtCourses)
+                                .getCourses()
+                                .stream()
+                                .map(Course::getCode)
+                                .collect(Collectors.toList());
+
+        assertThat(index.complete("c1", 300), equalTo(selectedCodes));
+    }
+
+    private static TaughtCourses taughtCourses(final Course... courses) {
+        return new TaughtCourses(CourseSorter.sort(List.of(courses)), "\"tag\"", Instant.EPOCH);
+    }
+}
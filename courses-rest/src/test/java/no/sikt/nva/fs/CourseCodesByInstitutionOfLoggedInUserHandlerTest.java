@@ -0,0 +1,133 @@
+package no.sikt.nva.fs;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static no.sikt.nva.fs.CoursesByInstitutionOfLoggedInUserHandler.FS_CONFIG_SECRET_NAME_ENV_KEY;
+import static no.sikt.nva.fs.TestConfig.restApiMapper;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsEmptyIterable.emptyIterable;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Map;
+import no.sikt.nva.fs.snapshot.InMemoryCoursesSnapshotStore;
+import no.unit.nva.stubs.FakeSecretsManagerClient;
+import no.unit.nva.testutils.HandlerRequestBuilder;
+import nva.commons.apigateway.GatewayResponse;
+import nva.commons.core.Environment;
+import nva.commons.core.ioutils.IoUtils;
+import nva.commons.core.paths.UriWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.zalando.problem.Problem;
+
+@WireMockTest
+class CourseCodesByInstitutionOfLoggedInUserHandlerTest {
+
+    private static final Clock AFTER_SUMMER = Clock.fixed(Instant.parse("2022-08-10T10:15:30.00Z"),
+                                                          TimeProvider.ZONE_ID);
+    private static final String EXAMPLE_COM_URI = "https://example.com";
+    private static final String NON_SUPPORTED_INSTITUTION_PATH = "100.0.0.0.0";
+    private static final String SUPPORTED_INSTITUTION_PATH = "215.0.0.0.0";
+    private static final int REMAINING_TIME_MILLIS = 900_000;
+    private static final String TAUGHT_COURSES_URL_PATH = "/undervisning";
+    private static final String YEAR_QUERY_PARAM_NAME = "semester.ar";
+    private static final String SECRET_NAME = new Environment().readEnv(FS_CONFIG_SECRET_NAME_ENV_KEY);
+    private Context context;
+    private ByteArrayOutputStream output;
+    private CourseCodesByInstitutionOfLoggedInUserHandler handler;
+
+    @BeforeEach
+    public void init(final WireMockRuntimeInfo wmRuntimeInfo) {
+        context = mock(Context.class);
+        when(context.getRemainingTimeInMillis()).thenReturn(REMAINING_TIME_MILLIS);
+        output = new ByteArrayOutputStream();
+
+        final String fsConfigString = IoUtils.stringFromResources(Path.of("fsConfig.json"))
+                                          .replace("@@BASE_URI@@", wmRuntimeInfo.getHttpBaseUrl());
+        final FakeSecretsManagerClient fakeSecretsManagerClient = new FakeSecretsManagerClient();
+        fakeSecretsManagerClient.putPlainTextSecret(SECRET_NAME, fsConfigString);
+        handler = new CourseCodesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient,
+                                                                    new InMemoryCoursesSnapshotStore(),
+                                                                    AFTER_SUMMER);
+    }
+
+    @Test
+    void shouldCompleteCourseCodeWithCodesOfCurrentlyTaughtCourses() throws IOException {
+        // prepare:
+        stubRequestForCourses(2022, "oslometUndervisningResponse2022.json");
+        stubRequestForCourses(2023, "oslometUndervisningResponse2023.json");
+
+        // execute:
+        handler.handleRequest(createRequest(SUPPORTED_INSTITUTION_PATH,
+                                            Map.of(CourseCodesQuery.PREFIX_PARAMETER, "\u00E5")), // å
+                              output, context);
+
+        // verify:
+        final var gatewayResponse = GatewayResponse.fromOutputStream(output, CourseCodesResponse.class);
+
+        assertEquals(HttpURLConnection.HTTP_OK, gatewayResponse.getStatusCode());
+        assertThat(gatewayResponse.getBodyObject(CourseCodesResponse.class).getCodes(),
+                   contains("\u00C5")); // Å
+    }
+
+    @Test
+    void shouldCompleteNoCourseCodesWhenInstitutionIsNotConfiguredForFsIntegration() throws IOException {
+        // execute:
+        handler.handleRequest(createRequest(NON_SUPPORTED_INSTITUTION_PATH,
+                                            Map.of(CourseCodesQuery.PREFIX_PARAMETER, "a")),
+                              output, context);
+
+        // verify:
+        final var gatewayResponse = GatewayResponse.fromOutputStream(output, CourseCodesResponse.class);
+
+        assertEquals(HttpURLConnection.HTTP_OK, gatewayResponse.getStatusCode());
+        assertThat(gatewayResponse.getBodyObject(CourseCodesResponse.class).getCodes(), emptyIterable());
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenLimitIsNotPositive() throws IOException {
+        // execute:
+        handler.handleRequest(createRequest(SUPPORTED_INSTITUTION_PATH,
+                                            Map.of(CourseCodesQuery.LIMIT_PARAMETER, "0")),
+                              output, context);
+
+        // verify:
+        final var gatewayResponse = GatewayResponse.fromOutputStream(output, Problem.class);
+
+        assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, gatewayResponse.getStatusCode());
+    }
+
+    private InputStream createRequest(final String institutionPath, final Map<String, String> queryParameters)
+        throws JsonProcessingException {
+        final URI topLevelCristinOrgId = UriWrapper.fromUri(EXAMPLE_COM_URI).addChild(institutionPath).getUri();
+        return new HandlerRequestBuilder<Void>(restApiMapper)
+                   .withTopLevelCristinOrgId(topLevelCristinOrgId)
+                   .withQueryParameters(queryParameters)
+                   .build();
+    }
+
+    private static void stubRequestForCourses(final int year, final String responseBody) {
+        stubFor(get(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                    .withQueryParam(YEAR_QUERY_PARAM_NAME, WireMock.equalTo(Integer.toString(year)))
+                    .willReturn(WireMock.ok()
+                                    .withHeader(CONTENT_TYPE, "application/json")
+                                    .withBody(IoUtils.stringFromResources(Path.of(responseBody)))));
+    }
+}
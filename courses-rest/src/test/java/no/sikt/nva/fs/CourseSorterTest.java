@@ -0,0 +1,70 @@
+package no.sikt.nva.fs;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsEqual.equalTo;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class CourseSorterTest {
+
+    private static final String[] CODES = {
+        "A", "a", "B", "AA", "Aa", "Z", "MAT1000", "MAT100", "ENG-101", "eng101", "O",
+        "\u00C6", "\u00D8", "\u00C5", "\u00E5", "\u00D6" // Æ, Ø, Å, å, Ö
+    };
+
+    @Test
+    void shouldSortOnYearThenTermThenNorwegianCode() {
+        var courses = List.of(new Course("\u00C5", "V\u00C5R", 2023), // Å, VÅR
+                              new Course("A", "V\u00C5R", 2023), // VÅR
+                              new Course("\u00D8", "H\u00D8ST", 2022), // Ø, HØST
+                              new Course("Z", "H\u00D8ST", 2022), // HØST
+                              new Course("B", "SOM", 2022));
+
+        assertThat(CourseSorter.sort(courses), contains(new Course("B", "SOM", 2022),
+                                                        new Course("Z", "H\u00D8ST", 2022), // HØST
+                                                        new Course("\u00D8", "H\u00D8ST", 2022), // Ø, HØST
+                                                        new Course("A", "V\u00C5R", 2023), // VÅR
+                                                        new Course("\u00C5", "V\u00C5R", 2023))); // Å, VÅR
+    }
+
+    @Test
+    void shouldSortInSameOrderAsComparingWithCollatorBelowParallelThreshold() {
+        var courses = randomCourses(CourseSorter.PARALLEL_SORT_THRESHOLD - 1);
+
+        assertThat(CourseSorter.sort(courses), equalTo(sortWithCollator(courses)));
+    }
+
+    @Test
+    void shouldSortInSameOrderAsComparingWithCollatorAboveParallelThreshold() {
+        var courses = randomCourses(CourseSorter.PARALLEL_SORT_THRESHOLD * 2);
+
+        assertThat(CourseSorter.sort(courses), equalTo(sortWithCollator(courses)));
+    }
+
+    private static List<Course> randomCourses(final int count) {
+        var random = new Random(42);
+        var terms = Term.values();
+        var courses = new ArrayList<Course>(count);
+        for (int i = 0; i < count; i++) {
+            courses.add(new Course(CODES[random.nextInt(CODES.length)] + random.nextInt(50),
+                                   terms[random.nextInt(terms.length)].getCode(),
+                                   2022 + random.nextInt(2)));
+        }
+        return courses;
+    }
+
+    private static List<Course> sortWithCollator(final List<Course> courses) {
+        var collator = Collator.getInstance(new Locale("nb", "NO"));
+        Comparator<Course> comparator = Comparator.comparingInt(Course::getYear)
+                                            .thenComparingInt(course -> Term.fromCode(course.getTerm()).getSeqNo())
+                                            .thenComparing(Course::getCode, collator);
+        return courses.stream().sorted(comparator).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,144 @@
+package no.sikt.nva.fs;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static no.sikt.nva.fs.CoursesByInstitutionOfLoggedInUserHandler.FS_CONFIG_SECRET_NAME_ENV_KEY;
+import static nva.commons.core.StringUtils.EMPTY_STRING;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsEmptyCollection.empty;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import no.sikt.nva.fs.snapshot.InMemoryCoursesSnapshotStore;
+import no.unit.nva.commons.json.JsonUtils;
+import no.unit.nva.stubs.FakeSecretsManagerClient;
+import nva.commons.core.Environment;
+import nva.commons.core.ioutils.IoUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+@WireMockTest
+class CoursesBatchHandlerTest {
+
+    private static final Clock AFTER_SUMMER = Clock.fixed(Instant.parse("2022-08-10T10:15:30.00Z"),
+                                                          TimeProvider.ZONE_ID);
+    private static final String SECRET_NAME = new Environment().readEnv(FS_CONFIG_SECRET_NAME_ENV_KEY);
+    private static final String FS_CONFIG_TEMPLATE = "{\"baseUri\": \"%s\", \"institutions\": ["
+                                                     + "{\"code\": 185, \"username\": \"u\", \"password\": \"p\"},"
+                                                     + "{\"code\": 215, \"username\": \"u\", \"password\": \"p\"}]}";
+    private static final int REMAINING_TIME_MILLIS = 900_000;
+    private static final String TAUGHT_COURSES_URL_PATH = "/undervisning";
+    private static final String APPLICATION_JSON_CONTENT_TYPE_VALUE = "application/json";
+
+    private Context context;
+    private FakeSecretsManagerClient fakeSecretsManagerClient;
+    private CoursesBatchHandler handler;
+
+    @BeforeEach
+    public void init(final WireMockRuntimeInfo wmRuntimeInfo) {
+        context = mock(Context.class);
+        when(context.getRemainingTimeInMillis()).thenReturn(REMAINING_TIME_MILLIS);
+        fakeSecretsManagerClient = new FakeSecretsManagerClient();
+        fakeSecretsManagerClient.putPlainTextSecret(SECRET_NAME,
+                                                    String.format(FS_CONFIG_TEMPLATE, wmRuntimeInfo.getHttpBaseUrl()));
+        handler = new CoursesBatchHandler(fakeSecretsManagerClient, new InMemoryCoursesSnapshotStore(), AFTER_SUMMER);
+    }
+
+    @Test
+    void shouldReturnOneResultPerDistinctInstitutionInOrderAsked() throws IOException {
+        stubRequestForCourses(215, 2022, "oslometUndervisningResponse2022.json");
+        stubRequestForCourses(215, 2023, "oslometUndervisningResponse2023.json");
+        stubRequestForCourses(185, 2022, "oslometUndervisningResponse2022.json");
+        stubRequestForCourses(185, 2023, "oslometUndervisningResponse2023.json");
+
+        var results = handleBatch("{\"institutionCodes\": [215, 185, 215]}");
+
+        assertThat(institutionCodes(results), contains(215, 185));
+        assertThat(results.get(0).getStatus(), equalTo(HttpURLConnection.HTTP_OK));
+        assertThat(results.get(0).getCourses().size(), equalTo(5));
+        assertThat(results.get(1).getCourses().size(), equalTo(5));
+    }
+
+    @Test
+    void shouldReportFailingInstitutionsWithoutFailingOthers() throws IOException {
+        stubRequestForCourses(215, 2022, "oslometUndervisningResponse2022.json");
+        stubRequestForCourses(215, 2023, "oslometUndervisningResponse2023.json");
+
+        var results = handleBatch("{\"institutionCodes\": [100, 185, 215]}");
+
+        assertThat(institutionCodes(results), contains(100, 185, 215));
+        assertThat(results.get(0).getStatus(), equalTo(HttpURLConnection.HTTP_NOT_FOUND));
+        assertThat(results.get(0).getError(), equalTo("Institution is not configured for FS"));
+        assertThat(results.get(0).getCourses(), empty());
+        assertThat(results.get(1).getStatus(), equalTo(HttpURLConnection.HTTP_BAD_GATEWAY));
+        assertThat(results.get(2).getStatus(), equalTo(HttpURLConnection.HTTP_OK));
+        assertThat(results.get(2).getCourses().size(), equalTo(5));
+    }
+
+    @Test
+    void shouldReportInternalErrorForEveryInstitutionWhenFsConfigIsNotProperlyFormattedJson() throws IOException {
+        fakeSecretsManagerClient.putPlainTextSecret(SECRET_NAME, EMPTY_STRING);
+        handler = new CoursesBatchHandler(fakeSecretsManagerClient, new InMemoryCoursesSnapshotStore(), AFTER_SUMMER);
+
+        var results = handleBatch("{\"institutionCodes\": [185, 215]}");
+
+        assertThat(results.stream().map(InstitutionCoursesResult::getStatus).collect(Collectors.toList()),
+                   contains(HttpURLConnection.HTTP_INTERNAL_ERROR, HttpURLConnection.HTTP_INTERNAL_ERROR));
+    }
+
+    @Test
+    void shouldReportBadRequestWhenInstitutionCodesAreMissing() throws IOException {
+        var results = handleBatch("{}");
+
+        assertThat(results.get(0).getStatus(), equalTo(HttpURLConnection.HTTP_BAD_REQUEST));
+        assertThat(results.get(0).getError(), equalTo(CoursesService.MISSING_INSTITUTION_CODES_MESSAGE));
+    }
+
+    @Test
+    void shouldReportBadRequestForMissingInstitutionCodeWithoutFailingOthers() throws IOException {
+        stubRequestForCourses(215, 2022, "oslometUndervisningResponse2022.json");
+        stubRequestForCourses(215, 2023, "oslometUndervisningResponse2023.json");
+
+        var results = handleBatch("{\"institutionCodes\": [null, 215]}");
+
+        assertThat(institutionCodes(results), contains(null, 215));
+        assertThat(results.get(0).getStatus(), equalTo(HttpURLConnection.HTTP_BAD_REQUEST));
+        assertThat(results.get(1).getStatus(), equalTo(HttpURLConnection.HTTP_OK));
+        assertThat(results.get(1).isStale(), equalTo(false));
+    }
+
+    private List<InstitutionCoursesResult> handleBatch(final String request) throws IOException {
+        final var output = new ByteArrayOutputStream();
+        handler.handleRequest(new ByteArrayInputStream(request.getBytes(StandardCharsets.UTF_8)), output, context);
+        return JsonUtils.dtoObjectMapper.readValue(output.toByteArray(), CoursesBatchResponse.class).getResults();
+    }
+
+    private static List<Integer> institutionCodes(final List<InstitutionCoursesResult> results) {
+        return results.stream().map(InstitutionCoursesResult::getInstitutionCode).collect(Collectors.toList());
+    }
+
+    private static void stubRequestForCourses(final int institutionCode, final int year, final String responseBody) {
+        stubFor(get(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                    .withQueryParam("emne.institusjon", WireMock.equalTo(Integer.toString(institutionCode)))
+                    .withQueryParam("semester.ar", WireMock.equalTo(Integer.toString(year)))
+                    .willReturn(WireMock.ok()
+                                    .withHeader("Content-Type", APPLICATION_JSON_CONTENT_TYPE_VALUE)
+                                    .withBody(IoUtils.stringFromResources(Path.of(responseBody)))));
+    }
+}
@@ -2,11 +2,20 @@ package no.sikt.nva.fs;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.google.common.net.HttpHeaders.ACCEPT;
+import static com.google.common.net.HttpHeaders.ACCEPT_ENCODING;
 import static com.google.common.net.HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN;
 import static com.google.common.net.HttpHeaders.AUTHORIZATION;
+import static com.google.common.net.HttpHeaders.CACHE_CONTROL;
+import static com.google.common.net.HttpHeaders.CONTENT_ENCODING;
 import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static com.google.common.net.HttpHeaders.ETAG;
+import static com.google.common.net.HttpHeaders.IF_NONE_MATCH;
+import static com.google.common.net.HttpHeaders.VARY;
 import static no.sikt.nva.fs.CoursesByInstitutionOfLoggedInUserHandler.FS_CONFIG_NOT_PROPERLY_FORMATTED_JSON;
 import static no.sikt.nva.fs.CoursesByInstitutionOfLoggedInUserHandler.FS_CONFIG_SECRET_NAME_ENV_KEY;
 import static no.sikt.nva.fs.TestConfig.restApiMapper;
@@ -18,23 +27,38 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.collection.IsEmptyIterable.emptyIterable;
 import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
 import static org.hamcrest.collection.IsIterableWithSize.iterableWithSize;
+import static org.hamcrest.collection.IsMapContaining.hasEntry;
 import static org.hamcrest.collection.IsMapContaining.hasKey;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsNull.notNullValue;
 import static org.hamcrest.core.StringContains.containsString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.time.Clock;
 import java.time.Instant;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import no.sikt.nva.fs.client.FsClientRegistry;
+import no.sikt.nva.fs.snapshot.CoursesSnapshot;
+import no.sikt.nva.fs.snapshot.InMemoryCoursesSnapshotStore;
 import no.unit.nva.stubs.FakeSecretsManagerClient;
 import no.unit.nva.testutils.HandlerRequestBuilder;
 import nva.commons.apigateway.GatewayResponse;
@@ -57,13 +81,16 @@ class CoursesByInstitutionOfLoggedInUserHandlerTest {
     private static final String EXAMPLE_COM_URI = "https://example.com";
     private static final String NON_SUPPORTED_INSTITUTION_PATH = "100.0.0.0.0";
     private static final String SUPPORTED_INSTITUTION_PATH = "215.0.0.0.0";
+    private static final int REMAINING_TIME_MILLIS = 900_000;
     private static final String TAUGHT_COURSES_URL_PATH = "/undervisning";
     private static final String DB_ID_QUERY_PARAM_NAME = "dbId";
     private static final String INSTITUTION_QUERY_PARAM_NAME = "emne.institusjon";
     private static final String LIMIT_QUERY_PARAM_NAME = "limit";
+    private static final String PAGE_QUERY_PARAM_NAME = "page";
     private static final String YEAR_QUERY_PARAM_NAME = "semester.ar";
     private static final String SUCCESS_AUTHORIZATION_HEADER_VALUE = "Basic ZHVtbXlVc2VybmFtZTpkdW1teVBhc3N3b3Jk";
     private static final String APPLICATION_JSON_CONTENT_TYPE_VALUE = "application/json";
+    private static final String COMPACT_JSON_CONTENT_TYPE_VALUE = "application/vnd.nva.courses.compact+json";
     private static final Course COURSE_B_SPRING_2022 = new Course("B", "V\u00C5R", 2022); // VÅR
     private static final Course COURSE_OE_SPRING_2022 = new Course("\u00D8", "V\u00C5R", 2022); // Ø, VÅR
     private static final Course COURSE_AA_SPRING_2022 = new Course("\u00C5", "V\u00C5R", 2022); // Å, VÅR
@@ -76,11 +103,13 @@ class CoursesByInstitutionOfLoggedInUserHandlerTest {
     private CoursesByInstitutionOfLoggedInUserHandler handler;
     private ByteArrayOutputStream output;
     private FakeSecretsManagerClient fakeSecretsManagerClient;
+    private InMemoryCoursesSnapshotStore snapshotStore;
     private static final String SECRET_NAME = new Environment().readEnv(FS_CONFIG_SECRET_NAME_ENV_KEY);
 
     @BeforeEach
     public void init(final WireMockRuntimeInfo wmRuntimeInfo) {
         context = mock(Context.class);
+        when(context.getRemainingTimeInMillis()).thenReturn(REMAINING_TIME_MILLIS);
         output = new ByteArrayOutputStream();
 
         final String fsBaseUri = UriWrapper.fromUri(wmRuntimeInfo.getHttpBaseUrl()).toString();
@@ -88,6 +117,7 @@ class CoursesByInstitutionOfLoggedInUserHandlerTest {
                                           .replace("@@BASE_URI@@", fsBaseUri);
         fakeSecretsManagerClient = new FakeSecretsManagerClient();
         fakeSecretsManagerClient.putPlainTextSecret(SECRET_NAME, fsConfigString);
+        snapshotStore = new InMemoryCoursesSnapshotStore();
     }
 
     @Test
@@ -97,7 +127,7 @@ class CoursesByInstitutionOfLoggedInUserHandlerTest {
         final InputStream input = createRequest(SUPPORTED_INSTITUTION_PATH);
         var appender = LogUtils.getTestingAppenderForRootLogger();
 
-        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient,
+        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient, snapshotStore,
                                                                      AFTER_SUMMER);
         handler.handleRequest(input, output, context);
 
@@ -122,7 +152,7 @@ class CoursesByInstitutionOfLoggedInUserHandlerTest {
         fakeSecretsManagerClient.putPlainTextSecret(SECRET_NAME, fsConfigJsonAsString);
 
         var appender = LogUtils.getTestingAppenderForRootLogger();
-        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient,
+        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient, snapshotStore,
                                                                      AFTER_SUMMER);
 
         // execute:
@@ -141,6 +171,20 @@ class CoursesByInstitutionOfLoggedInUserHandlerTest {
         assertThat(problem.getDetail(), containsString(PROBLEMS_COMMUNICATING_WITH_SERVER_MESSAGE));
     }
 
+    @Test
+    void shouldReturnBadGatewayWithoutCallingFsWhenNoTimeIsLeftBeforeLambdaTimesOut() throws IOException {
+        final InputStream input = createRequest(SUPPORTED_INSTITUTION_PATH);
+        when(context.getRemainingTimeInMillis()).thenReturn((int) CoursesService.RESPONSE_TIME_RESERVE.toMillis());
+        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient, snapshotStore,
+                                                                     AFTER_SUMMER);
+
+        handler.handleRequest(input, output, context);
+
+        var gatewayResponse = GatewayResponse.fromOutputStream(output, Problem.class);
+        assertEquals(HttpURLConnection.HTTP_BAD_GATEWAY, gatewayResponse.getStatusCode());
+        verify(0, getRequestedFor(urlPathEqualTo(TAUGHT_COURSES_URL_PATH)));
+    }
+
     @Test
     void shouldReturnBadGatewayAndLogProblemIfFsReturnsInvalidData() throws IOException {
         // prepare:
@@ -151,7 +195,7 @@ class CoursesByInstitutionOfLoggedInUserHandlerTest {
 
         var appender = LogUtils.getTestingAppenderForRootLogger();
 
-        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient,
+        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient, snapshotStore,
                                                                      AFTER_SUMMER);
 
         // execute:
@@ -181,7 +225,7 @@ class CoursesByInstitutionOfLoggedInUserHandlerTest {
 
         final TestAppender appender = LogUtils.getTestingAppenderForRootLogger();
 
-        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient,
+        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient, snapshotStore,
                                                                      AFTER_SUMMER);
 
         // execute:
@@ -207,7 +251,7 @@ class CoursesByInstitutionOfLoggedInUserHandlerTest {
         // prepare:
         final InputStream input = createRequest(NON_SUPPORTED_INSTITUTION_PATH);
 
-        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient,
+        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient, snapshotStore,
                                                                      AFTER_SUMMER);
 
         // execute:
@@ -227,7 +271,7 @@ class CoursesByInstitutionOfLoggedInUserHandlerTest {
         // prepare:
         final InputStream input = new HandlerRequestBuilder<Void>(restApiMapper).build();
 
-        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient,
+        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient, snapshotStore,
                                                                      AFTER_SUMMER);
 
         // execute:
@@ -250,7 +294,7 @@ class CoursesByInstitutionOfLoggedInUserHandlerTest {
         stubRequestForCourses(2022, IoUtils.stringFromResources(Path.of("oslometUndervisningResponse2022.json")));
         stubRequestForCourses(2023, IoUtils.stringFromResources(Path.of("oslometUndervisningResponse2023.json")));
 
-        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient,
+        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient, snapshotStore,
                                                                      AFTER_SUMMER);
 
         // execute:
@@ -280,7 +324,7 @@ class CoursesByInstitutionOfLoggedInUserHandlerTest {
         final String responseBody = IoUtils.stringFromResources(Path.of("oslometUndervisningResponse2022.json"));
         stubRequestForCourses(2022, responseBody);
 
-        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient,
+        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient, snapshotStore,
                                                                      BEFORE_SUMMER);
 
         // execute:
@@ -302,12 +346,284 @@ class CoursesByInstitutionOfLoggedInUserHandlerTest {
                                      COURSE_AE_AUTUMN_2022));
     }
 
+    @Test
+    void shouldServeCachedCoursesWithoutCallingFsAgainWhenHandlerIsWarm() throws IOException {
+        // prepare:
+        stubRequestForCourses(2022, IoUtils.stringFromResources(Path.of("oslometUndervisningResponse2022.json")));
+        stubRequestForCourses(2023, IoUtils.stringFromResources(Path.of("oslometUndervisningResponse2023.json")));
+
+        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient, snapshotStore,
+                                                                     AFTER_SUMMER);
+        handler.handleRequest(createRequest(SUPPORTED_INSTITUTION_PATH), output, context);
+
+        // FS becomes unavailable, but the warm handler should not need it:
+        WireMock.reset();
+        final ByteArrayOutputStream secondOutput = new ByteArrayOutputStream();
+
+        // execute:
+        handler.handleRequest(createRequest(SUPPORTED_INSTITUTION_PATH), secondOutput, context);
+
+        // verify:
+        final var gatewayResponse = GatewayResponse.fromOutputStream(secondOutput, CoursesResponse.class);
+
+        assertEquals(HttpURLConnection.HTTP_OK, gatewayResponse.getStatusCode());
+        assertThat(gatewayResponse.getBodyObject(CoursesResponse.class).getCourses(),
+                   contains(COURSE_A_AUTUMN_2022,
+                            COURSE_AE_AUTUMN_2022,
+                            COURSE_A_SPRING_2023,
+                            COURSE_OE_SPRING_2023,
+                            COURSE_AA_SPRING_2023));
+    }
+
+    @Test
+    void shouldReturnPageOfCoursesMatchingQueryParametersWithNextCursor() throws IOException {
+        // prepare:
+        stubRequestForCourses(2022, IoUtils.stringFromResources(Path.of("oslometUndervisningResponse2022.json")));
+        stubRequestForCourses(2023, IoUtils.stringFromResources(Path.of("oslometUndervisningResponse2023.json")));
+
+        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient, snapshotStore,
+                                                                     AFTER_SUMMER);
+
+        // execute:
+        handler.handleRequest(createRequest(SUPPORTED_INSTITUTION_PATH, Map.of(),
+                                            Map.of(CoursesQuery.TERM_PARAMETER, "V\u00C5R", // VÅR
+                                                   CoursesQuery.LIMIT_PARAMETER, "2")),
+                              output, context);
+
+        // verify:
+        final var gatewayResponse = GatewayResponse.fromOutputStream(output, CoursesResponse.class);
+
+        assertEquals(HttpURLConnection.HTTP_OK, gatewayResponse.getStatusCode());
+        final var response = gatewayResponse.getBodyObject(CoursesResponse.class);
+        assertThat(response.getCourses(), contains(COURSE_A_SPRING_2023, COURSE_OE_SPRING_2023));
+        assertThat(response.getNextCursor(), notNullValue());
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenQueryParametersAreInvalid() throws IOException {
+        // prepare:
+        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient, snapshotStore,
+                                                                     AFTER_SUMMER);
+
+        // execute:
+        handler.handleRequest(createRequest(SUPPORTED_INSTITUTION_PATH, Map.of(),
+                                            Map.of(CoursesQuery.YEAR_PARAMETER, "next")),
+                              output, context);
+
+        // verify:
+        final var gatewayResponse = GatewayResponse.fromOutputStream(output, Problem.class);
+
+        assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, gatewayResponse.getStatusCode());
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenRequestIsNotProxyIntegrationEvent() throws IOException {
+        // prepare:
+        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient, snapshotStore,
+                                                                     AFTER_SUMMER);
+
+        // execute:
+        handler.handleRequest(new ByteArrayInputStream("{\"headers\": [".getBytes(StandardCharsets.UTF_8)), output,
+                              context);
+
+        // verify:
+        final var gatewayResponse = GatewayResponse.fromOutputStream(output, Problem.class);
+
+        assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, gatewayResponse.getStatusCode());
+        assertThat(gatewayResponse.getHeaders(), hasEntry(CONTENT_TYPE, "application/problem+json"));
+        assertThat(gatewayResponse.getHeaders(), hasKey(ACCESS_CONTROL_ALLOW_ORIGIN));
+        assertThat(gatewayResponse.getBodyObject(Problem.class).getDetail(),
+                   containsString(CoursesByInstitutionOfLoggedInUserHandler.MALFORMED_REQUEST));
+    }
+
+    @Test
+    void shouldSendEntityTagAndCacheControlWithCourses() throws IOException {
+        // prepare:
+        stubRequestForCourses(2022, IoUtils.stringFromResources(Path.of("oslometUndervisningResponse2022.json")));
+
+        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient, snapshotStore,
+                                                                     BEFORE_SUMMER);
+
+        // execute:
+        handler.handleRequest(createRequest(SUPPORTED_INSTITUTION_PATH), output, context);
+
+        // verify:
+        final var gatewayResponse = GatewayResponse.fromOutputStream(output, CoursesResponse.class);
+
+        assertEquals(HttpURLConnection.HTTP_OK, gatewayResponse.getStatusCode());
+        assertThat(gatewayResponse.getHeaders(), hasKey(ETAG));
+        assertThat(gatewayResponse.getHeaders(), hasEntry(CACHE_CONTROL, "private, max-age=900"));
+    }
+
+    @Test
+    void shouldReturnNotModifiedWhenIfNoneMatchHoldsCurrentEntityTag() throws IOException {
+        // prepare:
+        stubRequestForCourses(2022, IoUtils.stringFromResources(Path.of("oslometUndervisningResponse2022.json")));
+
+        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient, snapshotStore,
+                                                                     BEFORE_SUMMER);
+        handler.handleRequest(createRequest(SUPPORTED_INSTITUTION_PATH), output, context);
+        final String entityTag = GatewayResponse.fromOutputStream(output, CoursesResponse.class)
+                                     .getHeaders()
+                                     .get(ETAG);
+        final ByteArrayOutputStream secondOutput = new ByteArrayOutputStream();
+
+        // execute:
+        handler.handleRequest(createRequest(SUPPORTED_INSTITUTION_PATH, Map.of(IF_NONE_MATCH, entityTag)),
+                              secondOutput, context);
+
+        // verify:
+        final var gatewayResponse = GatewayResponse.fromOutputStream(secondOutput, CoursesResponse.class);
+
+        assertEquals(HttpURLConnection.HTTP_NOT_MODIFIED, gatewayResponse.getStatusCode());
+        assertThat(gatewayResponse.getHeaders(), hasEntry(ETAG, entityTag));
+        assertThat(gatewayResponse.getHeaders(), not(hasKey(CONTENT_TYPE)));
+    }
+
+    @Test
+    void shouldReturnCoursesWhenIfNoneMatchHoldsAnotherEntityTag() throws IOException {
+        // prepare:
+        stubRequestForCourses(2022, IoUtils.stringFromResources(Path.of("oslometUndervisningResponse2022.json")));
+
+        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient, snapshotStore,
+                                                                     BEFORE_SUMMER);
+
+        // execute:
+        handler.handleRequest(createRequest(SUPPORTED_INSTITUTION_PATH, Map.of(IF_NONE_MATCH, "W/\"outdated\"")),
+                              output, context);
+
+        // verify:
+        final var gatewayResponse = GatewayResponse.fromOutputStream(output, CoursesResponse.class);
+
+        assertEquals(HttpURLConnection.HTTP_OK, gatewayResponse.getStatusCode());
+        assertThat(gatewayResponse.getBodyObject(CoursesResponse.class).getCourses(), iterableWithSize(5));
+    }
+
+    @Test
+    void shouldReturnCompactCoursesWithTheirOwnEntityTagWhenAccepted() throws IOException {
+        // prepare:
+        stubRequestForCourses(2022, IoUtils.stringFromResources(Path.of("oslometUndervisningResponse2022.json")));
+
+        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient, snapshotStore,
+                                                                     BEFORE_SUMMER);
+        handler.handleRequest(createRequest(SUPPORTED_INSTITUTION_PATH), output, context);
+        final String entityTag = GatewayResponse.fromOutputStream(output, CoursesResponse.class)
+                                     .getHeaders()
+                                     .get(ETAG);
+        final ByteArrayOutputStream secondOutput = new ByteArrayOutputStream();
+
+        // execute:
+        handler.handleRequest(createRequest(SUPPORTED_INSTITUTION_PATH,
+                                            Map.of(ACCEPT, COMPACT_JSON_CONTENT_TYPE_VALUE,
+                                                   IF_NONE_MATCH, entityTag)),
+                              secondOutput, context);
+
+        // verify:
+        final var gatewayResponse = GatewayResponse.fromOutputStream(secondOutput, Object.class);
+
+        assertEquals(HttpURLConnection.HTTP_OK, gatewayResponse.getStatusCode());
+        assertThat(gatewayResponse.getHeaders(), hasEntry(CONTENT_TYPE, COMPACT_JSON_CONTENT_TYPE_VALUE));
+        assertThat(gatewayResponse.getHeaders(), hasEntry(VARY, ACCEPT + ", " + ACCEPT_ENCODING));
+        assertThat(gatewayResponse.getHeaders(), not(hasEntry(ETAG, entityTag)));
+        final var terms = restApiMapper.readTree(gatewayResponse.getBody()).get("terms");
+        assertThat(terms.size(), is(2));
+        assertThat(terms.get(0).get("term").asText(), is("V\u00C5R")); // VÅR
+        assertThat(terms.get(0).get("codes").size(), is(3));
+    }
+
+    @Test
+    void shouldServeSnapshotOfCurrentAcademicWindowWithoutCallingFs() throws IOException {
+        // prepare:
+        final Instant freshUntil = AFTER_SUMMER.instant().plusSeconds(60);
+        snapshotStore.save(new CoursesSnapshot(215, AcademicWindow.forMonth(2022, 8).getKey(),
+                                               List.of(COURSE_A_AUTUMN_2022, COURSE_A_SPRING_2023),
+                                               "\"snapshot\"", freshUntil));
+
+        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient, snapshotStore,
+                                                                     AFTER_SUMMER);
+
+        // execute:
+        handler.handleRequest(createRequest(SUPPORTED_INSTITUTION_PATH), output, context);
+
+        // verify:
+        final var gatewayResponse = GatewayResponse.fromOutputStream(output, CoursesResponse.class);
+
+        assertEquals(HttpURLConnection.HTTP_OK, gatewayResponse.getStatusCode());
+        assertThat(gatewayResponse.getHeaders(), hasEntry(ETAG, "\"snapshot\""));
+        assertThat(gatewayResponse.getHeaders(), hasEntry(CACHE_CONTROL, "private, max-age=60"));
+        assertThat(gatewayResponse.getBodyObject(CoursesResponse.class).getCourses(),
+                   contains(COURSE_A_AUTUMN_2022, COURSE_A_SPRING_2023));
+    }
+
+    @Test
+    void shouldReturnCoursesCompressedInBase64WhenGzipIsAccepted() throws IOException {
+        // prepare:
+        final List<Course> manyCourses = IntStream.range(0, 100)
+                                             .mapToObj(i -> new Course("C" + i, "H\u00D8ST", 2022)) // HØST
+                                             .collect(Collectors.toList());
+        snapshotStore.save(new CoursesSnapshot(215, AcademicWindow.forMonth(2022, 8).getKey(), manyCourses,
+                                               "\"snapshot\"", AFTER_SUMMER.instant().plusSeconds(60)));
+
+        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient, snapshotStore,
+                                                                     AFTER_SUMMER);
+
+        // execute:
+        handler.handleRequest(createRequest(SUPPORTED_INSTITUTION_PATH, Map.of(ACCEPT_ENCODING, "gzip, br")),
+                              output, context);
+
+        // verify:
+        final var gatewayResponse = restApiMapper.readTree(output.toByteArray());
+
+        assertThat(gatewayResponse.get("statusCode").asInt(), is(HttpURLConnection.HTTP_OK));
+        assertThat(gatewayResponse.get("isBase64Encoded").asBoolean(), is(true));
+        assertThat(gatewayResponse.get("headers").get(CONTENT_ENCODING).asText(), is("gzip"));
+        assertThat(gatewayResponse.get("headers").get(ETAG).asText(), is("W/\"snapshot\""));
+        final byte[] compressed = Base64.getDecoder().decode(gatewayResponse.get("body").asText());
+        try (GZIPInputStream body = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertThat(restApiMapper.readValue(body, CoursesResponse.class).getCourses(), is(manyCourses));
+        }
+    }
+
+    @Test
+    void shouldFetchCoursesFromFsWhenSnapshotIsForAnotherAcademicWindow() throws IOException {
+        // prepare:
+        snapshotStore.save(new CoursesSnapshot(215, AcademicWindow.forMonth(2021, 8).getKey(),
+                                               List.of(COURSE_A_AUTUMN_2022), "\"snapshot\"",
+                                               BEFORE_SUMMER.instant()));
+        stubRequestForCourses(2022, IoUtils.stringFromResources(Path.of("oslometUndervisningResponse2022.json")));
+
+        this.handler = new CoursesByInstitutionOfLoggedInUserHandler(fakeSecretsManagerClient, snapshotStore,
+                                                                     BEFORE_SUMMER);
+
+        // execute:
+        handler.handleRequest(createRequest(SUPPORTED_INSTITUTION_PATH), output, context);
+
+        // verify:
+        final var gatewayResponse = GatewayResponse.fromOutputStream(output, CoursesResponse.class);
+
+        assertEquals(HttpURLConnection.HTTP_OK, gatewayResponse.getStatusCode());
+        assertThat(gatewayResponse.getBodyObject(CoursesResponse.class).getCourses(), iterableWithSize(5));
+    }
+
     private InputStream createRequest(String institutionPath)
         throws com.fasterxml.jackson.core.JsonProcessingException {
+        return createRequest(institutionPath, Map.of());
+    }
+
+    private InputStream createRequest(String institutionPath, Map<String, String> headers)
+        throws com.fasterxml.jackson.core.JsonProcessingException {
+        return createRequest(institutionPath, headers, Map.of());
+    }
+
+    private InputStream createRequest(String institutionPath, Map<String, String> headers,
+                                      Map<String, String> queryParameters)
+        throws com.fasterxml.jackson.core.JsonProcessingException {
         final URI topLevelCristinOrgId =
             UriWrapper.fromUri(EXAMPLE_COM_URI).addChild(institutionPath).getUri();
         return new HandlerRequestBuilder<Void>(restApiMapper)
                    .withTopLevelCristinOrgId(topLevelCristinOrgId)
+                   .withHeaders(headers)
+                   .withQueryParameters(queryParameters)
                    .build();
     }
 
@@ -317,7 +633,9 @@ class CoursesByInstitutionOfLoggedInUserHandlerTest {
                     .withQueryParam(YEAR_QUERY_PARAM_NAME, equalTo(Integer.toString(year)))
                     .withQueryParam(DB_ID_QUERY_PARAM_NAME, equalTo("true"))
                     .withQueryParam(INSTITUTION_QUERY_PARAM_NAME, equalTo("215"))
-                    .withQueryParam(LIMIT_QUERY_PARAM_NAME, equalTo("0"))
+                    .withQueryParam(LIMIT_QUERY_PARAM_NAME,
+                                    equalTo(Integer.toString(FsClientRegistry.DEFAULT_PAGE_SIZE)))
+                    .withQueryParam(PAGE_QUERY_PARAM_NAME, equalTo("1"))
                     .willReturn(WireMock.ok()
                                     .withHeader(CONTENT_TYPE, APPLICATION_JSON_CONTENT_TYPE_VALUE)
                                     .withBody(responseBody)));
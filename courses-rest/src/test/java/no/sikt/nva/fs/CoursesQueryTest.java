@@ -0,0 +1,214 @@
+package no.sikt.nva.fs;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import nva.commons.apigateway.exceptions.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+class CoursesQueryTest {
+
+    private static final String SPRING = Term.SPRING.getCode();
+    private static final String FALL = Term.FALL.getCode();
+    private static final Course MAT100_FALL_2022 = new Course("MAT100", FALL, 2022);
+    private static final Course MAT_100_FALL_2022 = new Course("MAT-100", FALL, 2022);
+    private static final Course MATA_FALL_2022 = new Course("MATA", FALL, 2022);
+    private static final Course A1_FALL_2022 = new Course("A1", FALL, 2022);
+    private static final Course AB1_FALL_2022 = new Course("ab1", FALL, 2022);
+    private static final Course AA1_FALL_2022 = new Course("\u00C51", FALL, 2022); // Å1
+    private static final Course AAR100_FALL_2022 = new Course("AAR100", FALL, 2022);
+    private static final Course MAT100_SPRING_2023 = new Course("MAT100", SPRING, 2023);
+    private static final Course B1_SPRING_2023 = new Course("B1", SPRING, 2023);
+    private static final TaughtCourses TAUGHT_COURSES = taughtCourses(
+        List.of(MAT100_FALL_2022, MAT_100_FALL_2022, MATA_FALL_2022, A1_FALL_2022, AB1_FALL_2022, AA1_FALL_2022,
+                AAR100_FALL_2022, MAT100_SPRING_2023, B1_SPRING_2023), "\"tag\"");
+
+    @Test
+    void shouldSelectAllCoursesWithoutParameters() throws BadRequestException {
+        var response = CoursesQuery.fromParameters(Map.of()).select(TAUGHT_COURSES);
+
+        assertThat(response.getCourses(), equalTo(TAUGHT_COURSES.getCourses()));
+        assertThat(response.getNextCursor(), nullValue());
+    }
+
+    @Test
+    void shouldSelectCoursesOfYearAndTerm() throws BadRequestException {
+        var response = select(Map.of(CoursesQuery.YEAR_PARAMETER, "2023",
+                                     CoursesQuery.TERM_PARAMETER, SPRING));
+
+        assertThat(response.getCourses(), contains(B1_SPRING_2023, MAT100_SPRING_2023));
+    }
+
+    @Test
+    void shouldSelectCoursesStartingWithCodePrefixInEveryTerm() throws BadRequestException {
+        var response = select(Map.of(CoursesQuery.CODE_PREFIX_PARAMETER, "mat1"));
+
+        assertThat(response.getCourses(), contains(MAT100_FALL_2022, MAT_100_FALL_2022, MAT100_SPRING_2023));
+    }
+
+    @Test
+    void shouldMatchCodePrefixTheWayCodesAreSorted() throws BadRequestException {
+        assertThat(select(Map.of(CoursesQuery.CODE_PREFIX_PARAMETER, "a")).getCourses(),
+                   contains(A1_FALL_2022, AB1_FALL_2022));
+        assertThat(select(Map.of(CoursesQuery.CODE_PREFIX_PARAMETER, "aa")).getCourses(),
+                   contains(AA1_FALL_2022, AAR100_FALL_2022));
+    }
+
+    @Test
+    void shouldSelectNoCoursesOfYearWithoutCourses() throws BadRequestException {
+        var response = select(Map.of(CoursesQuery.YEAR_PARAMETER, "2024"));
+
+        assertThat(response.getCourses().isEmpty(), equalTo(true));
+        assertThat(response.getNextCursor(), nullValue());
+    }
+
+    @Test
+    void shouldPageThroughMatchingCoursesWithCursors() throws BadRequestException {
+        var firstPage = select(Map.of(CoursesQuery.CODE_PREFIX_PARAMETER, "mat1",
+                                      CoursesQuery.LIMIT_PARAMETER, "2"));
+        var secondPage = select(Map.of(CoursesQuery.CODE_PREFIX_PARAMETER, "mat1",
+                                       CoursesQuery.LIMIT_PARAMETER, "2",
+                                       CoursesQuery.CURSOR_PARAMETER, firstPage.getNextCursor()));
+
+        assertThat(firstPage.getCourses(), contains(MAT100_FALL_2022, MAT_100_FALL_2022));
+        assertThat(firstPage.getNextCursor(), notNullValue());
+        assertThat(secondPage.getCourses(), contains(MAT100_SPRING_2023));
+        assertThat(secondPage.getNextCursor(), nullValue());
+    }
+
+    @Test
+    void shouldSelectSameCoursesPageByPageAsAllAtOnce() throws BadRequestException {
+        var taughtCourses = taughtCourses(randomCourses(), "\"random\"");
+        for (final Map<String, String> filter : List.of(Map.of(CoursesQuery.TERM_PARAMETER, FALL),
+                                                         Map.of(CoursesQuery.YEAR_PARAMETER, "2023"),
+                                                         Map.of(CoursesQuery.CODE_PREFIX_PARAMETER, "b1"))) {
+            var allCourses = CoursesQuery.fromParameters(filter).select(taughtCourses).getCourses();
+
+            for (final int limit : List.of(1, 7, 100)) {
+                assertThat(selectPageByPage(taughtCourses, filter, limit), equalTo(allCourses));
+            }
+        }
+    }
+
+    @Test
+    void shouldSelectSameCoursesAsFilteringOnYearAndTerm() throws BadRequestException {
+        var taughtCourses = taughtCourses(randomCourses(), "\"random\"");
+
+        var response = CoursesQuery.fromParameters(Map.of(CoursesQuery.YEAR_PARAMETER, "2022",
+                                                          CoursesQuery.TERM_PARAMETER, FALL))
+                           .select(taughtCourses);
+
+        assertThat(response.getCourses(), equalTo(taughtCourses.getCourses().stream()
+                                                      .filter(course -> course.getYear() == 2022)
+                                                      .filter(course -> FALL.equals(course.getTerm()))
+                                                      .collect(Collectors.toList())));
+    }
+
+    @Test
+    void shouldRejectCursorIntoCoursesThatHaveChanged() throws BadRequestException {
+        var cursor = select(Map.of(CoursesQuery.LIMIT_PARAMETER, "1")).getNextCursor();
+        var changedCourses = taughtCourses(TAUGHT_COURSES.getCourses(), "\"changed\"");
+        var query = CoursesQuery.fromParameters(Map.of(CoursesQuery.CURSOR_PARAMETER, cursor));
+
+        var exception = assertThrows(BadRequestException.class, () -> query.select(changedCourses));
+
+        assertThat(exception.getMessage(), equalTo(CoursesQuery.OUTDATED_CURSOR_MESSAGE));
+    }
+
+    @Test
+    void shouldRejectCursorGivenForAnotherYearTermOrCodePrefix() throws BadRequestException {
+        var cursor = select(Map.of(CoursesQuery.CODE_PREFIX_PARAMETER, "mat1",
+                                   CoursesQuery.LIMIT_PARAMETER, "1")).getNextCursor();
+
+        for (final Map<String, String> filter : List.of(Map.of(CoursesQuery.CODE_PREFIX_PARAMETER, "a"),
+                                                         Map.of(CoursesQuery.YEAR_PARAMETER, "2022"),
+                                                         Map.of(CoursesQuery.TERM_PARAMETER, FALL),
+                                                         Map.<String, String>of())) {
+            final Map<String, String> parameters = new HashMap<>(filter);
+            parameters.put(CoursesQuery.CURSOR_PARAMETER, cursor);
+            var query = CoursesQuery.fromParameters(parameters);
+
+            var exception = assertThrows(BadRequestException.class, () -> query.select(TAUGHT_COURSES));
+
+            assertThat(exception.getMessage(), equalTo(CoursesQuery.MISMATCHED_CURSOR_MESSAGE));
+        }
+    }
+
+    @Test
+    void shouldAcceptCursorForCodePrefixMatchingSameCodes() throws BadRequestException {
+        var cursor = select(Map.of(CoursesQuery.CODE_PREFIX_PARAMETER, "mat1",
+                                   CoursesQuery.LIMIT_PARAMETER, "2")).getNextCursor();
+
+        var secondPage = select(Map.of(CoursesQuery.CODE_PREFIX_PARAMETER, "MAT-1",
+                                       CoursesQuery.LIMIT_PARAMETER, "2",
+                                       CoursesQuery.CURSOR_PARAMETER, cursor));
+
+        assertThat(secondPage.getCourses(), contains(MAT100_SPRING_2023));
+    }
+
+    @Test
+    void shouldRejectCursorThatWasNotGiven() throws BadRequestException {
+        var query = CoursesQuery.fromParameters(Map.of(CoursesQuery.CURSOR_PARAMETER, "not a cursor"));
+
+        var exception = assertThrows(BadRequestException.class, () -> query.select(TAUGHT_COURSES));
+
+        assertThat(exception.getMessage(), equalTo(CoursesQuery.INVALID_CURSOR_MESSAGE));
+    }
+
+    @Test
+    void shouldRejectInvalidParameters() {
+        assertThrows(BadRequestException.class,
+                     () -> CoursesQuery.fromParameters(Map.of(CoursesQuery.YEAR_PARAMETER, "last")));
+        assertThrows(BadRequestException.class,
+                     () -> CoursesQuery.fromParameters(Map.of(CoursesQuery.TERM_PARAMETER, "FALL")));
+        assertThrows(BadRequestException.class,
+                     () -> CoursesQuery.fromParameters(Map.of(CoursesQuery.LIMIT_PARAMETER, "0")));
+        assertThrows(BadRequestException.class,
+                     () -> CoursesQuery.fromParameters(Map.of(CoursesQuery.LIMIT_PARAMETER, "-1")));
+    }
+
+    private static CoursesResponse select(final Map<String, String> parameters) throws BadRequestException {
+        return CoursesQuery.fromParameters(parameters).select(TAUGHT_COURSES);
+    }
+
+    private static List<Course> selectPageByPage(final TaughtCourses taughtCourses, final Map<String, String> filter,
+                                                 final int limit) throws BadRequestException {
+        final List<Course> courses = new ArrayList<>();
+        final Map<String, String> parameters = new HashMap<>(filter);
+        parameters.put(CoursesQuery.LIMIT_PARAMETER, Integer.toString(limit));
+        CoursesResponse page = CoursesQuery.fromParameters(parameters).select(taughtCourses);
+        courses.addAll(page.getCourses());
+        while (page.getNextCursor() != null) {
+            parameters.put(CoursesQuery.CURSOR_PARAMETER, page.getNextCursor());
+            page = CoursesQuery.fromParameters(parameters).select(taughtCourses);
+            courses.addAll(page.getCourses());
+        }
+        return courses;
+    }
+
+    private static List<Course> randomCourses() {
+        var random = new Random(42);
+        var terms = Term.values();
+        var courses = new ArrayList<Course>();
+        for (int i = 0; i < 500; i++) {
+            courses.add(new Course((char) ('A' + random.nextInt(4)) + Integer.toString(random.nextInt(200)),
+                                   terms[random.nextInt(terms.length)].getCode(),
+                                   2022 + random.nextInt(2)));
+        }
+        return courses;
+    }
+
+    private static TaughtCourses taughtCourses(final List<Course> courses, final String entityTag) {
+        return new TaughtCourses(CourseSorter.sort(courses), entityTag, Instant.EPOCH);
+    }
+}
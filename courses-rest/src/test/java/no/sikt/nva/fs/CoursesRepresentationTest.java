@@ -0,0 +1,78 @@
+package no.sikt.nva.fs;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsEqual.equalTo;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class CoursesRepresentationTest {
+
+    private static final Set<CoursesRepresentation> ALL = EnumSet.allOf(CoursesRepresentation.class);
+    private static final String ENTITY_TAG = "\"abc\"";
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "application/json|JSON",
+        "application/vnd.nva.courses.compact+json|COMPACT_JSON",
+        "application/cbor|CBOR",
+        "APPLICATION/CBOR; q=0.9|CBOR",
+        "application/cbor, application/json|CBOR",
+        "application/json, application/cbor|JSON",
+        "application/json;q=0.5, application/cbor|CBOR",
+        "application/json;q=0.5, */*|COMPACT_JSON",
+        "*/*;q=0.8, application/cbor|CBOR",
+        "application/*|JSON",
+        "*/*|JSON",
+        "text/html, */*;q=0.1|JSON",
+        "text/html|JSON",
+        "application/cbor;q=0, application/json;q=0|JSON",
+        "application/cbor;q=oops, application/json;q=0.5|CBOR",
+        "application/json;charset=utf-8;q=0.4, application/vnd.nva.courses.compact+json;q=0.6|COMPACT_JSON"
+    })
+    void shouldNegotiateRepresentationFromAcceptHeader(final String accept,
+                                                       final CoursesRepresentation expected) {
+        assertThat(CoursesRepresentation.negotiate(List.of(accept), ALL), equalTo(expected));
+    }
+
+    @Test
+    void shouldSendDefaultJsonWithoutAcceptHeader() {
+        assertThat(CoursesRepresentation.negotiate(List.of(), ALL), equalTo(CoursesRepresentation.JSON));
+    }
+
+    @Test
+    void shouldOnlyPickRepresentationsThatCanBeSent() {
+        var available = EnumSet.of(CoursesRepresentation.JSON, CoursesRepresentation.COMPACT_JSON);
+
+        assertThat(CoursesRepresentation.negotiate(List.of("application/cbor"), available),
+                   equalTo(CoursesRepresentation.JSON));
+        assertThat(CoursesRepresentation.negotiate(List.of("application/cbor",
+                                                           "application/vnd.nva.courses.compact+json;q=0.5"),
+                                                   available),
+                   equalTo(CoursesRepresentation.COMPACT_JSON));
+    }
+
+    @Test
+    void shouldGiveEachRepresentationItsOwnEntityTag() {
+        assertThat(CoursesRepresentation.JSON.entityTagOf(ENTITY_TAG), equalTo(ENTITY_TAG));
+        assertThat(CoursesRepresentation.COMPACT_JSON.entityTagOf(ENTITY_TAG), equalTo("\"abc-compact\""));
+        assertThat(CoursesRepresentation.CBOR.entityTagOf(ENTITY_TAG), equalTo("\"abc-cbor\""));
+    }
+
+    @Test
+    void shouldWriteCoursesAsCborReadableIntoCoursesResponse() throws IOException {
+        var courses = List.of(new Course("A", "V\u00C5R", 2023), new Course("B", "H\u00D8ST", 2023)); // VÅR, HØST
+
+        var bytes = CoursesRepresentation.CBOR.write(new CoursesResponse(CourseCatalog.copyOf(courses), "next"));
+        var response = new CBORMapper().readValue(bytes, CoursesResponse.class);
+
+        assertThat(response.getCourses(), contains(courses.toArray()));
+        assertThat(response.getNextCursor(), equalTo("next"));
+    }
+}
@@ -0,0 +1,346 @@
+package no.sikt.nva.fs;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.number.OrderingComparison.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import java.net.HttpURLConnection;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import no.sikt.nva.fs.cache.CoursesCache;
+import no.sikt.nva.fs.client.CircuitBreakerSettings;
+import no.sikt.nva.fs.client.Deadline;
+import no.sikt.nva.fs.client.FsClientRegistry;
+import no.sikt.nva.fs.client.Hedging;
+import no.sikt.nva.fs.config.FsConfigHolder;
+import no.sikt.nva.fs.metrics.Metric;
+import no.sikt.nva.fs.metrics.RequestMetrics;
+import no.sikt.nva.fs.snapshot.CoursesSnapshot;
+import no.sikt.nva.fs.snapshot.InMemoryCoursesSnapshotStore;
+import nva.commons.core.ioutils.IoUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+@WireMockTest
+class CoursesServiceTest {
+
+    private static final Instant NOW = Instant.parse("2022-08-10T10:15:30.00Z");
+    private static final Instant FRESH_UNTIL = NOW.plus(CoursesService.MIN_COURSE_CODE_INDEX_CHECK_INTERVAL)
+                                                  .plusSeconds(60);
+    private static final int INSTITUTION_CODE = 215;
+    private static final int UNCONFIGURED_INSTITUTION_CODE = 185;
+    private static final String TAUGHT_COURSES_URL_PATH = "/undervisning";
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+    private static final Duration AWAIT_TIMEOUT = Duration.ofSeconds(5);
+
+    private Clock clock;
+    private InMemoryCoursesSnapshotStore snapshotStore;
+    private CoursesService coursesService;
+
+    @BeforeEach
+    public void init(final WireMockRuntimeInfo wmRuntimeInfo) {
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(NOW);
+        when(clock.getZone()).thenReturn(TimeProvider.ZONE_ID);
+        snapshotStore = new InMemoryCoursesSnapshotStore();
+        coursesService = createFsCoursesService(wmRuntimeInfo);
+    }
+
+    @Test
+    void shouldCompleteCourseCodeFromSameIndexWhileCoursesAreFresh() throws FailedFsResponseException {
+        saveSnapshot("\"first\"", "MAT100");
+        completeCourseCode("mat");
+        saveSnapshot("\"second\"", "MAT200");
+
+        when(clock.instant()).thenReturn(FRESH_UNTIL.minusSeconds(1));
+
+        assertThat(completeCourseCode("mat"), contains("MAT100"));
+    }
+
+    @Test
+    void shouldCompleteCourseCodeFromNewIndexWhenCoursesHaveChanged() throws FailedFsResponseException {
+        saveSnapshot("\"first\"", "MAT100");
+        completeCourseCode("mat");
+        saveSnapshot("\"second\"", "MAT200");
+
+        when(clock.instant()).thenReturn(FRESH_UNTIL);
+
+        assertThat(completeCourseCode("mat"), contains("MAT200"));
+    }
+
+    @Test
+    void shouldCheckCoursesThatAreNoLongerFreshAtMostOncePerInterval() throws FailedFsResponseException {
+        when(clock.instant()).thenReturn(FRESH_UNTIL.plusSeconds(1));
+        saveSnapshot("\"first\"", "MAT100");
+        completeCourseCode("mat");
+        saveSnapshot("\"second\"", "MAT200");
+
+        when(clock.instant()).thenReturn(FRESH_UNTIL.plus(CoursesService.MIN_COURSE_CODE_INDEX_CHECK_INTERVAL));
+
+        assertThat(completeCourseCode("mat"), contains("MAT100"));
+    }
+
+    @Test
+    void shouldServeSnapshotThatIsStaleWithinGracePeriodWithoutCallingFs() throws FailedFsResponseException {
+        saveSnapshot("\"first\"", "MAT100");
+        when(clock.instant()).thenReturn(FRESH_UNTIL.plus(CoursesService.DEFAULT_SNAPSHOT_GRACE_PERIOD)
+                                             .minusSeconds(1));
+        var metrics = new RequestMetrics();
+
+        var courses = coursesService.getCurrentlyTaughtCourses(INSTITUTION_CODE, metrics, Deadline.none())
+                          .orElseThrow();
+
+        assertThat(courses.getEntityTag(), equalTo("\"first\""));
+        assertThat(countFsRequests(), equalTo(0));
+        assertThat(metrics.getValues(Metric.SNAPSHOT_HIT_COUNT), contains(1.0));
+    }
+
+    @Test
+    void shouldFetchCoursesFromFsWhenSnapshotHasBeenStaleForLongerThanGracePeriod()
+        throws FailedFsResponseException {
+        saveSnapshot("\"first\"", "MAT100");
+        when(clock.instant()).thenReturn(FRESH_UNTIL.plus(CoursesService.DEFAULT_SNAPSHOT_GRACE_PERIOD));
+        stubFsAnswering(WireMock.ok().withBody(IoUtils.stringFromResources(
+            Path.of("oslometUndervisningResponse2022.json"))));
+        var metrics = new RequestMetrics();
+
+        var courses = coursesService.getCurrentlyTaughtCourses(INSTITUTION_CODE, metrics, Deadline.none())
+                          .orElseThrow();
+
+        assertThat(courses.getEntityTag(), not(equalTo("\"first\"")));
+        assertThat(countFsRequests(), greaterThan(0));
+        assertThat(metrics.getValues(Metric.SNAPSHOT_MISS_COUNT), contains(1.0));
+    }
+
+    @Test
+    void shouldNotServeSnapshotOfInstitutionThatIsNotConfigured() throws FailedFsResponseException {
+        snapshotStore.save(new CoursesSnapshot(UNCONFIGURED_INSTITUTION_CODE,
+                                               AcademicWindow.forMonth(2022, 8).getKey(),
+                                               List.of(new Course("MAT100", Term.FALL.getCode(), 2022)),
+                                               "\"first\"", FRESH_UNTIL));
+
+        var courses = coursesService.getCurrentlyTaughtCourses(UNCONFIGURED_INSTITUTION_CODE, new RequestMetrics(),
+                                                               Deadline.none());
+
+        assertThat(courses.isPresent(), equalTo(false));
+    }
+
+    @Test
+    void shouldReadSnapshotOnceWhileItsCoursesAreFreshAndRecordReadTime(final WireMockRuntimeInfo wmRuntimeInfo)
+        throws FailedFsResponseException {
+        var reads = new AtomicInteger();
+        snapshotStore = new InMemoryCoursesSnapshotStore() {
+            @Override
+            public Optional<CoursesSnapshot> find(final int institutionCode) {
+                reads.incrementAndGet();
+                return super.find(institutionCode);
+            }
+        };
+        saveSnapshot("\"first\"", "MAT100");
+        var countingCoursesService = createFsCoursesService(wmRuntimeInfo);
+        var firstMetrics = new RequestMetrics();
+        var secondMetrics = new RequestMetrics();
+
+        countingCoursesService.getCurrentlyTaughtCourses(INSTITUTION_CODE, firstMetrics, Deadline.none());
+        when(clock.instant()).thenReturn(FRESH_UNTIL.minusSeconds(1));
+        countingCoursesService.getCurrentlyTaughtCourses(INSTITUTION_CODE, secondMetrics, Deadline.none());
+
+        assertThat(reads.get(), equalTo(1));
+        assertThat(firstMetrics.getValues(Metric.SNAPSHOT_READ_TIME), hasSize(1));
+        assertThat(secondMetrics.getValues(Metric.SNAPSHOT_READ_TIME), hasSize(0));
+        assertThat(secondMetrics.getValues(Metric.SNAPSHOT_HIT_COUNT), contains(1.0));
+    }
+
+    @Test
+    void shouldServeCoursesOfLastSnapshotMarkedAsStaleWhileCircuitIsOpen() throws FailedFsResponseException {
+        saveSnapshot("\"first\"", "MAT100");
+        coursesService.getCurrentlyTaughtCourses(INSTITUTION_CODE, new RequestMetrics(), Deadline.none());
+        when(clock.instant()).thenReturn(FRESH_UNTIL.plus(CoursesService.DEFAULT_SNAPSHOT_GRACE_PERIOD));
+        stubFsAnswering(WireMock.aResponse().withStatus(HttpURLConnection.HTTP_UNAVAILABLE));
+        assertThrows(FailedFsResponseException.class,
+                     () -> coursesService.getCurrentlyTaughtCourses(INSTITUTION_CODE, new RequestMetrics(),
+                                                                    Deadline.none()));
+
+        var stale = coursesService.getCurrentlyTaughtCourses(INSTITUTION_CODE, new RequestMetrics(),
+                                                             Deadline.none())
+                        .orElseThrow();
+
+        assertThat(stale.isStale(), equalTo(true));
+        assertThat(stale.getEntityTag(), equalTo("\"first\""));
+    }
+
+    @Test
+    void shouldMarkBatchResultOfLastKnownCoursesAsStaleWhileCircuitIsOpen() throws FailedFsResponseException {
+        saveSnapshot("\"first\"", "MAT100");
+        coursesService.getCurrentlyTaughtCourses(INSTITUTION_CODE, new RequestMetrics(), Deadline.none());
+        when(clock.instant()).thenReturn(FRESH_UNTIL.plus(CoursesService.DEFAULT_SNAPSHOT_GRACE_PERIOD));
+        stubFsAnswering(WireMock.aResponse().withStatus(HttpURLConnection.HTTP_UNAVAILABLE));
+        assertThrows(FailedFsResponseException.class,
+                     () -> coursesService.getCurrentlyTaughtCourses(INSTITUTION_CODE, new RequestMetrics(),
+                                                                    Deadline.none()));
+
+        var results = coursesService.getCurrentlyTaughtCourses(List.of(INSTITUTION_CODE), Runnable::run,
+                                                               Deadline.none());
+
+        assertThat(results.get(0).getStatus(), equalTo(HttpURLConnection.HTTP_OK));
+        assertThat(results.get(0).isStale(), equalTo(true));
+        assertThat(results.get(0).getCourses(), hasSize(1));
+    }
+
+    @Test
+    void shouldAnswerMissingInstitutionCodesWithBadRequestResult() {
+        var results = coursesService.getCurrentlyTaughtCourses(null, Runnable::run, Deadline.none());
+
+        assertThat(results, hasSize(1));
+        assertThat(results.get(0).getInstitutionCode(), equalTo(null));
+        assertThat(results.get(0).getStatus(), equalTo(HttpURLConnection.HTTP_BAD_REQUEST));
+        assertThat(results.get(0).getError(), equalTo(CoursesService.MISSING_INSTITUTION_CODES_MESSAGE));
+    }
+
+    @Test
+    void shouldAnswerMissingInstitutionCodeWithBadRequestResultWithoutFailingOthers() {
+        saveSnapshot("\"first\"", "MAT100");
+
+        var results = coursesService.getCurrentlyTaughtCourses(Arrays.asList(INSTITUTION_CODE, null),
+                                                               Runnable::run, Deadline.none());
+
+        assertThat(results.get(0).getStatus(), equalTo(HttpURLConnection.HTTP_OK));
+        assertThat(results.get(0).isStale(), equalTo(false));
+        assertThat(results.get(1).getInstitutionCode(), equalTo(null));
+        assertThat(results.get(1).getStatus(), equalTo(HttpURLConnection.HTTP_BAD_REQUEST));
+        assertThat(results.get(1).getError(), equalTo(CoursesService.MISSING_INSTITUTION_CODE_MESSAGE));
+    }
+
+    @Test
+    void shouldServeLastKnownCoursesMarkedAsStaleWhileCircuitIsOpen(final WireMockRuntimeInfo wmRuntimeInfo)
+        throws FailedFsResponseException {
+        var fsCoursesService = createFsCoursesService(wmRuntimeInfo);
+        stubFsAnswering(WireMock.ok().withBody(IoUtils.stringFromResources(
+            Path.of("oslometUndervisningResponse2022.json"))));
+        final var lastKnown = fsCoursesService.getCurrentlyTaughtCourses(INSTITUTION_CODE, new RequestMetrics(),
+                                                                         Deadline.none())
+                                  .orElseThrow();
+        stubFsAnswering(WireMock.aResponse().withStatus(HttpURLConnection.HTTP_UNAVAILABLE));
+        assertThrows(FailedFsResponseException.class,
+                     () -> fsCoursesService.getCurrentlyTaughtCourses(INSTITUTION_CODE, new RequestMetrics(),
+                                                                          Deadline.none()));
+        var metrics = new RequestMetrics();
+        final int fsRequests = countFsRequests();
+
+        var stale = fsCoursesService.getCurrentlyTaughtCourses(INSTITUTION_CODE, metrics, Deadline.none())
+                        .orElseThrow();
+
+        assertThat(countFsRequests(), equalTo(fsRequests));
+        assertThat(stale.isStale(), equalTo(true));
+        assertThat(stale.getCourses(), equalTo(lastKnown.getCourses()));
+        assertThat(stale.getEntityTag(), equalTo(lastKnown.getEntityTag()));
+        final var headers = CachingHeaders.headers(stale, CoursesRepresentation.JSON, ContentEncoding.IDENTITY, NOW);
+        assertThat(headers.get(CachingHeaders.CACHE_CONTROL_HEADER), equalTo("private, max-age=0"));
+        assertThat(headers.get(CachingHeaders.WARNING_HEADER), equalTo(CachingHeaders.STALE_WARNING));
+        assertThat(metrics.getValues(Metric.STALE_FALLBACK_COUNT), contains(1.0));
+    }
+
+    @Test
+    void shouldFailWhileCircuitIsOpenWhenNoCoursesAreKnown(final WireMockRuntimeInfo wmRuntimeInfo) {
+        var fsCoursesService = createFsCoursesService(wmRuntimeInfo);
+        stubFsAnswering(WireMock.aResponse().withStatus(HttpURLConnection.HTTP_UNAVAILABLE));
+        assertThrows(FailedFsResponseException.class,
+                     () -> fsCoursesService.getCurrentlyTaughtCourses(INSTITUTION_CODE, new RequestMetrics(),
+                                                                          Deadline.none()));
+        final int fsRequests = countFsRequests();
+
+        assertThrows(FailedFsResponseException.class,
+                     () -> fsCoursesService.getCurrentlyTaughtCourses(INSTITUTION_CODE, new RequestMetrics(),
+                                                                          Deadline.none()));
+        assertThat(countFsRequests(), equalTo(fsRequests));
+    }
+
+    @Test
+    void shouldRefreshStaleCoursesInBackgroundBeyondDeadlineOfRequestServingThem(
+        final WireMockRuntimeInfo wmRuntimeInfo) throws FailedFsResponseException, InterruptedException {
+        var fsCoursesService = createFsCoursesService(wmRuntimeInfo,
+                                                      new CoursesCache(Duration.ZERO, Duration.ofHours(1), clock));
+        stubFsAnswering(WireMock.ok().withBody(IoUtils.stringFromResources(
+            Path.of("oslometUndervisningResponse2022.json"))));
+        final var cached = fsCoursesService.getCurrentlyTaughtCourses(INSTITUTION_CODE, new RequestMetrics(),
+                                                                      Deadline.none())
+                               .orElseThrow();
+        final int fsRequests = countFsRequests();
+        var metrics = new RequestMetrics();
+
+        var served = fsCoursesService.getCurrentlyTaughtCourses(INSTITUTION_CODE, metrics,
+                                                                Deadline.after(Duration.ZERO))
+                         .orElseThrow();
+        awaitFsRequestsAfter(fsRequests);
+
+        assertThat(served.getEntityTag(), equalTo(cached.getEntityTag()));
+        assertThat(metrics.getValues(Metric.FS_REQUEST_COUNT), hasSize(0));
+    }
+
+    private CoursesService createFsCoursesService(final WireMockRuntimeInfo wmRuntimeInfo) {
+        return createFsCoursesService(wmRuntimeInfo, new CoursesCache(Duration.ZERO, Duration.ZERO, clock));
+    }
+
+    /**
+     * A service calling FS whenever the given cache misses, with a circuit that opens at the first failure.
+     */
+    private CoursesService createFsCoursesService(final WireMockRuntimeInfo wmRuntimeInfo,
+                                                  final CoursesCache coursesCache) {
+        final String fsConfig = IoUtils.stringFromResources(Path.of("fsConfig.json"))
+                                    .replace("@@BASE_URI@@", wmRuntimeInfo.getHttpBaseUrl());
+        final CircuitBreakerSettings settings = new CircuitBreakerSettings(1, Duration.ofSeconds(20), OPEN_DURATION,
+                                                                           1);
+        return new CoursesService(new FsConfigHolder(() -> fsConfig, Duration.ofMinutes(5), clock),
+                                  coursesCache,
+                                  new FsClientRegistry(Duration.ofSeconds(1), Duration.ofSeconds(1), 1000, settings,
+                                                       Hedging.NO_HEDGING, clock),
+                                  snapshotStore,
+                                  clock);
+    }
+
+    private static void stubFsAnswering(final ResponseDefinitionBuilder answer) {
+        stubFor(get(urlPathEqualTo(TAUGHT_COURSES_URL_PATH)).willReturn(answer));
+    }
+
+    private static int countFsRequests() {
+        return WireMock.findAll(getRequestedFor(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))).size();
+    }
+
+    private static void awaitFsRequestsAfter(final int fsRequests) throws InterruptedException {
+        final Instant giveUpAt = Instant.now().plus(AWAIT_TIMEOUT);
+        while (countFsRequests() == fsRequests && Instant.now().isBefore(giveUpAt)) {
+            Thread.sleep(10);
+        }
+        assertThat(countFsRequests(), greaterThan(fsRequests));
+    }
+
+    private List<String> completeCourseCode(final String prefix) throws FailedFsResponseException {
+        return coursesService.completeCourseCode(INSTITUTION_CODE, prefix, 10, new RequestMetrics(), Deadline.none())
+                   .orElseThrow();
+    }
+
+    private void saveSnapshot(final String entityTag, final String code) {
+        snapshotStore.save(new CoursesSnapshot(INSTITUTION_CODE, AcademicWindow.forMonth(2022, 8).getKey(),
+                                               List.of(new Course(code, Term.FALL.getCode(), 2022)), entityTag,
+                                               FRESH_UNTIL));
+    }
+}
@@ -0,0 +1,130 @@
+package no.sikt.nva.fs;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static no.sikt.nva.fs.CoursesByInstitutionOfLoggedInUserHandler.FS_CONFIG_NOT_PROPERLY_FORMATTED_JSON;
+import static no.sikt.nva.fs.CoursesByInstitutionOfLoggedInUserHandler.FS_CONFIG_SECRET_NAME_ENV_KEY;
+import static nva.commons.core.StringUtils.EMPTY_STRING;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Map;
+import no.sikt.nva.fs.snapshot.InMemoryCoursesSnapshotStore;
+import no.unit.nva.stubs.FakeSecretsManagerClient;
+import nva.commons.core.Environment;
+import nva.commons.core.ioutils.IoUtils;
+import nva.commons.logutils.LogUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+@WireMockTest
+class CoursesSnapshotWarmerHandlerTest {
+
+    private static final Clock AFTER_SUMMER = Clock.fixed(Instant.parse("2022-08-10T10:15:30.00Z"),
+                                                          TimeProvider.ZONE_ID);
+    private static final String SECRET_NAME = new Environment().readEnv(FS_CONFIG_SECRET_NAME_ENV_KEY);
+    private static final String FS_CONFIG_TEMPLATE = "{\"baseUri\": \"%s\", \"institutions\": ["
+                                                     + "{\"code\": 185, \"username\": \"u\", \"password\": \"p\"},"
+                                                     + "{\"code\": 215, \"username\": \"u\", \"password\": \"p\"}]}";
+    private static final String TAUGHT_COURSES_URL_PATH = "/undervisning";
+    private static final String APPLICATION_JSON_CONTENT_TYPE_VALUE = "application/json";
+    private static final int REMAINING_TIME_MILLIS = 900_000;
+
+    private Context context;
+    private FakeSecretsManagerClient fakeSecretsManagerClient;
+    private InMemoryCoursesSnapshotStore snapshotStore;
+    private CoursesSnapshotWarmerHandler handler;
+
+    @BeforeEach
+    public void init(final WireMockRuntimeInfo wmRuntimeInfo) {
+        context = mock(Context.class);
+        when(context.getRemainingTimeInMillis()).thenReturn(REMAINING_TIME_MILLIS);
+        fakeSecretsManagerClient = new FakeSecretsManagerClient();
+        fakeSecretsManagerClient.putPlainTextSecret(SECRET_NAME,
+                                                    String.format(FS_CONFIG_TEMPLATE, wmRuntimeInfo.getHttpBaseUrl()));
+        snapshotStore = new InMemoryCoursesSnapshotStore();
+        handler = new CoursesSnapshotWarmerHandler(fakeSecretsManagerClient, snapshotStore, AFTER_SUMMER);
+    }
+
+    @Test
+    void shouldStoreSnapshotOfCurrentlyTaughtCoursesForInstitution() {
+        stubRequestForCourses(215, 2022, "oslometUndervisningResponse2022.json");
+        stubRequestForCourses(215, 2023, "oslometUndervisningResponse2023.json");
+
+        handler.handleRequest(Map.of(), context);
+
+        final var snapshot = snapshotStore.find(215).orElseThrow();
+        assertTrue(snapshot.isFor(AcademicWindow.forMonth(2022, 8)));
+        assertEquals(AFTER_SUMMER.instant().plus(CoursesSnapshotWarmerHandler.DEFAULT_SNAPSHOT_TIME_TO_LIVE),
+                     snapshot.getFreshUntil());
+        assertThat(snapshot.getCourses(), contains(new Course("A", "H\u00D8ST", 2022), // HØST
+                                                   new Course("\u00C6", "H\u00D8ST", 2022), // Æ, HØST
+                                                   new Course("A", "V\u00C5R", 2023), // VÅR
+                                                   new Course("\u00D8", "V\u00C5R", 2023), // Ø, VÅR
+                                                   new Course("\u00C5", "V\u00C5R", 2023))); // Å, VÅR
+    }
+
+    @Test
+    void shouldKeepWarmingOtherInstitutionsWhenOneFails() {
+        final var appender = LogUtils.getTestingAppenderForRootLogger();
+        stubRequestForCourses(215, 2022, "oslometUndervisningResponse2022.json");
+        stubRequestForCourses(215, 2023, "oslometUndervisningResponse2023.json");
+
+        handler.handleRequest(Map.of(), context);
+
+        assertTrue(snapshotStore.find(185).isEmpty());
+        assertTrue(snapshotStore.find(215).isPresent());
+        assertThat(appender.getMessages(), containsString("Warming snapshot for institution '185' failed"));
+    }
+
+    @Test
+    void shouldSkipInstitutionsWithoutCallingFsOnceOutOfTime() {
+        final var appender = LogUtils.getTestingAppenderForRootLogger();
+        stubRequestForCourses(215, 2022, "oslometUndervisningResponse2022.json");
+        stubRequestForCourses(215, 2023, "oslometUndervisningResponse2023.json");
+        when(context.getRemainingTimeInMillis()).thenReturn((int) CoursesService.RESPONSE_TIME_RESERVE.toMillis());
+
+        handler.handleRequest(Map.of(), context);
+
+        assertTrue(snapshotStore.find(215).isEmpty());
+        verify(0, getRequestedFor(urlPathEqualTo(TAUGHT_COURSES_URL_PATH)));
+        assertThat(appender.getMessages(),
+                   containsString("Out of time before warming snapshot for institution '215'"));
+    }
+
+    @Test
+    void shouldFailWhenFsConfigSecretIsNotProperlyFormattedJson() {
+        fakeSecretsManagerClient.putPlainTextSecret(SECRET_NAME, EMPTY_STRING);
+        handler = new CoursesSnapshotWarmerHandler(fakeSecretsManagerClient, snapshotStore, AFTER_SUMMER);
+
+        var exception = assertThrows(RuntimeException.class, () -> handler.handleRequest(Map.of(), context));
+
+        assertThat(exception.getMessage(), containsString(FS_CONFIG_NOT_PROPERLY_FORMATTED_JSON));
+    }
+
+    private static void stubRequestForCourses(final int institutionCode, final int year, final String resource) {
+        stubFor(get(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                    .withQueryParam("emne.institusjon", equalTo(Integer.toString(institutionCode)))
+                    .withQueryParam("semester.ar", equalTo(Integer.toString(year)))
+                    .willReturn(WireMock.ok()
+                                    .withHeader(CONTENT_TYPE, APPLICATION_JSON_CONTENT_TYPE_VALUE)
+                                    .withBody(IoUtils.stringFromResources(Path.of(resource)))));
+    }
+}
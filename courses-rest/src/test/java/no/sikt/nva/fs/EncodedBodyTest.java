@@ -0,0 +1,73 @@
+package no.sikt.nva.fs;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsEqual.equalTo;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import no.sikt.nva.fs.metrics.Metric;
+import no.sikt.nva.fs.metrics.RequestMetrics;
+import no.unit.nva.commons.json.JsonUtils;
+import org.junit.jupiter.api.Test;
+
+class EncodedBodyTest {
+
+    private static final List<Course> MANY_COURSES =
+        IntStream.range(0, 100).mapToObj(i -> new Course("C" + i, "H\u00D8ST", 2022)) // HØST
+            .collect(Collectors.toList());
+    private static final List<Course> ONE_COURSE = List.of(new Course("A", "H\u00D8ST", 2022)); // HØST
+
+    @Test
+    void shouldCompressLongBodyWhenGzipIsAccepted() throws IOException {
+        var metrics = new RequestMetrics();
+
+        var body = EncodedBody.encode(CoursesRepresentation.JSON, new CoursesResponse(MANY_COURSES),
+                                      ContentEncoding.GZIP, metrics);
+
+        assertThat(body.getEncoding(), equalTo(ContentEncoding.GZIP));
+        assertThat(body.isBase64Encoded(), equalTo(true));
+        var compressed = Base64.getDecoder().decode(body.toApiGatewayBody());
+        assertThat(compressed.length, equalTo(body.getLength()));
+        try (GZIPInputStream decompressed = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertThat(JsonUtils.dtoObjectMapper.readValue(decompressed, CoursesResponse.class).getCourses(),
+                       equalTo(MANY_COURSES));
+        }
+        assertThat(metrics.getValues(Metric.SERIALIZE_TIME), hasSize(1));
+        assertThat(metrics.getValues(Metric.COMPRESS_TIME), hasSize(1));
+    }
+
+    @Test
+    void shouldSendShortBodyAsItIsEvenWhenGzipIsAccepted() throws IOException {
+        var metrics = new RequestMetrics();
+
+        var body = EncodedBody.encode(CoursesRepresentation.JSON, new CoursesResponse(ONE_COURSE),
+                                      ContentEncoding.GZIP, metrics);
+
+        assertThat(body.getEncoding(), equalTo(ContentEncoding.IDENTITY));
+        assertThat(body.isBase64Encoded(), equalTo(false));
+        var written = new ByteArrayOutputStream();
+        body.writeTo(written);
+        assertThat(JsonUtils.dtoObjectMapper.readValue(written.toByteArray(), CoursesResponse.class).getCourses(),
+                   contains(ONE_COURSE.get(0)));
+        assertThat(JsonUtils.dtoObjectMapper.readValue(body.toApiGatewayBody(), CoursesResponse.class).getCourses(),
+                   contains(ONE_COURSE.get(0)));
+        assertThat(metrics.getValues(Metric.COMPRESS_TIME), hasSize(0));
+    }
+
+    @Test
+    void shouldSendIdentityBodyAsTextItHolds() {
+        var body = EncodedBody.identity("{\"status\":400}".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(body.getEncoding(), equalTo(ContentEncoding.IDENTITY));
+        assertThat(body.isBase64Encoded(), equalTo(false));
+        assertThat(body.toApiGatewayBody(), equalTo("{\"status\":400}"));
+    }
+}
@@ -0,0 +1,36 @@
+package no.sikt.nva.fs.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNot.not;
+import java.time.Instant;
+import java.util.List;
+import no.sikt.nva.fs.Course;
+import org.junit.jupiter.api.Test;
+
+class CachedCoursesTest {
+
+    private static final Instant FRESH_UNTIL = Instant.parse("2022-08-10T10:30:30.00Z");
+    private static final Course FIRST_COURSE = new Course("A", "H\u00D8ST", 2022); // HØST
+    private static final Course SECOND_COURSE = new Course("B", "H\u00D8ST", 2022); // HØST
+
+    @Test
+    void shouldHaveSameDigestForSameCourses() {
+        var cachedCourses = new CachedCourses(List.of(FIRST_COURSE, SECOND_COURSE), FRESH_UNTIL);
+        var sameCachedCourses = new CachedCourses(List.of(new Course("A", "H\u00D8ST", 2022), // HØST
+                                                          new Course("B", "H\u00D8ST", 2022)), // HØST
+                                                  FRESH_UNTIL.plusSeconds(1));
+
+        assertThat(cachedCourses.getDigest(), equalTo(sameCachedCourses.getDigest()));
+    }
+
+    @Test
+    void shouldHaveDifferentDigestWhenCoursesDiffer() {
+        var cachedCourses = new CachedCourses(List.of(FIRST_COURSE, SECOND_COURSE), FRESH_UNTIL);
+        var reorderedCourses = new CachedCourses(List.of(SECOND_COURSE, FIRST_COURSE), FRESH_UNTIL);
+        var fewerCourses = new CachedCourses(List.of(FIRST_COURSE), FRESH_UNTIL);
+
+        assertThat(cachedCourses.getDigest(), not(equalTo(reorderedCourses.getDigest())));
+        assertThat(cachedCourses.getDigest(), not(equalTo(fewerCourses.getDigest())));
+    }
+}
@@ -0,0 +1,194 @@
+package no.sikt.nva.fs.cache;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.Term;
+import no.sikt.nva.fs.metrics.Metric;
+import no.sikt.nva.fs.metrics.RequestMetrics;
+import nva.commons.core.Environment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CoursesCacheTest {
+
+    private static final Instant LOADED_AT = Instant.parse("2022-08-10T10:15:30.00Z");
+    private static final Duration TIME_TO_LIVE = Duration.ofMinutes(15);
+    private static final Duration STALE_WHILE_REVALIDATE = Duration.ofHours(1);
+    private static final CoursesCacheKey KEY = new CoursesCacheKey("https://fs.example.com", 215, 2022);
+    private static final CoursesCacheKey OTHER_KEY = new CoursesCacheKey("https://fs.example.com", 185, 2022);
+    private static final Course FIRST_COURSE = new Course("A", "H\u00D8ST", 2022); // HØST
+    private static final Course SECOND_COURSE = new Course("B", "H\u00D8ST", 2022); // HØST
+    private static final Set<Term> FALL = EnumSet.of(Term.FALL);
+
+    private Clock clock;
+    private CoursesCache coursesCache;
+
+    @BeforeEach
+    public void init() {
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(LOADED_AT);
+        coursesCache = new CoursesCache(TIME_TO_LIVE, STALE_WHILE_REVALIDATE, clock);
+    }
+
+    @Test
+    void shouldServeFreshEntryWithoutCallingLoader() {
+        var loader = new CountingLoader(List.of(FIRST_COURSE), List.of(SECOND_COURSE));
+
+        coursesCache.get(KEY, FALL, loader).join();
+        when(clock.instant()).thenReturn(LOADED_AT.plus(TIME_TO_LIVE).minusSeconds(1));
+        var courses = coursesCache.get(KEY, FALL, loader).join().getCourses();
+
+        assertThat(courses, contains(FIRST_COURSE));
+        assertThat(loader.requestedTerms.size(), equalTo(1));
+    }
+
+    @Test
+    void shouldServeStaleEntryAndRefreshItInBackground() {
+        var loader = new CountingLoader(List.of(FIRST_COURSE), List.of(SECOND_COURSE));
+
+        coursesCache.get(KEY, FALL, loader).join();
+        when(clock.instant()).thenReturn(LOADED_AT.plus(TIME_TO_LIVE));
+        var staleCourses = coursesCache.get(KEY, FALL, loader).join().getCourses();
+        var refreshedCourses = coursesCache.get(KEY, FALL, loader).join().getCourses();
+
+        assertThat(staleCourses, contains(FIRST_COURSE));
+        assertThat(refreshedCourses, contains(SECOND_COURSE));
+        assertThat(loader.requestedTerms.size(), equalTo(2));
+    }
+
+    @Test
+    void shouldRefreshStaleEntryWithBackgroundLoader() {
+        var loader = new CountingLoader(List.of(FIRST_COURSE));
+        var backgroundLoader = new CountingLoader(List.of(SECOND_COURSE));
+
+        coursesCache.get(KEY, FALL, loader, backgroundLoader, RequestMetrics.discarding()).join();
+        when(clock.instant()).thenReturn(LOADED_AT.plus(TIME_TO_LIVE));
+        coursesCache.get(KEY, FALL, loader, backgroundLoader, RequestMetrics.discarding()).join();
+        var refreshedCourses = coursesCache.get(KEY, FALL, loader, backgroundLoader, RequestMetrics.discarding())
+                                   .join().getCourses();
+
+        assertThat(refreshedCourses, contains(SECOND_COURSE));
+        assertThat(loader.requestedTerms, contains(FALL));
+        assertThat(backgroundLoader.requestedTerms, contains(FALL));
+    }
+
+    @Test
+    void shouldEvictEntryExpiringFirstWhenFull() {
+        var cache = new CoursesCache(TIME_TO_LIVE, STALE_WHILE_REVALIDATE, 1, clock);
+        var loader = new CountingLoader(List.of(FIRST_COURSE), List.of(SECOND_COURSE), List.of(SECOND_COURSE));
+
+        cache.get(KEY, FALL, loader).join();
+        when(clock.instant()).thenReturn(LOADED_AT.plusSeconds(1));
+        cache.get(OTHER_KEY, FALL, loader).join();
+        cache.get(OTHER_KEY, FALL, loader).join();
+        var courses = cache.get(KEY, FALL, loader).join().getCourses();
+
+        assertThat(courses, contains(SECOND_COURSE));
+        assertThat(loader.requestedTerms.size(), equalTo(3));
+    }
+
+    @Test
+    void shouldCountMissesAndServedEntriesIncludingStaleOnesAsHits() {
+        var loader = new CountingLoader(List.of(FIRST_COURSE), List.of(FIRST_COURSE), List.of(SECOND_COURSE));
+        var metrics = new RequestMetrics();
+
+        coursesCache.get(KEY, FALL, loader, loader, metrics).join();
+        coursesCache.get(KEY, EnumSet.of(Term.SPRING), loader, loader, metrics).join();
+        when(clock.instant()).thenReturn(LOADED_AT.plus(TIME_TO_LIVE));
+        coursesCache.get(KEY, FALL, loader, loader, metrics).join();
+
+        assertThat(metrics.getValues(Metric.CACHE_MISS_COUNT), contains(2.0));
+        assertThat(metrics.getValues(Metric.CACHE_HIT_COUNT), contains(1.0));
+    }
+
+    @Test
+    void shouldKeepStaleEntryAndRetryRefreshWhenBackgroundRefreshFails() {
+        coursesCache.get(KEY, FALL, terms -> completedFuture(List.of(FIRST_COURSE))).join();
+        when(clock.instant()).thenReturn(LOADED_AT.plus(TIME_TO_LIVE));
+
+        var coursesWhenRefreshFails = coursesCache.get(KEY, FALL, terms -> {
+            throw new IllegalStateException("FS is down");
+        }).join().getCourses();
+        Function<Set<Term>, CompletableFuture<List<Course>>> loader = terms -> completedFuture(List.of(SECOND_COURSE));
+        var coursesWhenRetryingRefresh = coursesCache.get(KEY, FALL, loader).join().getCourses();
+        var coursesAfterRefresh = coursesCache.get(KEY, FALL, loader).join().getCourses();
+
+        assertThat(coursesWhenRefreshFails, contains(FIRST_COURSE));
+        assertThat(coursesWhenRetryingRefresh, contains(FIRST_COURSE));
+        assertThat(coursesAfterRefresh, contains(SECOND_COURSE));
+    }
+
+    @Test
+    void shouldLoadAgainWhenEntryIsOlderThanStaleWhileRevalidatePeriod() {
+        var loader = new CountingLoader(List.of(FIRST_COURSE), List.of(SECOND_COURSE));
+
+        coursesCache.get(KEY, FALL, loader).join();
+        when(clock.instant()).thenReturn(LOADED_AT.plus(TIME_TO_LIVE).plus(STALE_WHILE_REVALIDATE));
+        var courses = coursesCache.get(KEY, FALL, loader).join().getCourses();
+
+        assertThat(courses, contains(SECOND_COURSE));
+        assertThat(loader.requestedTerms.size(), equalTo(2));
+    }
+
+    @Test
+    void shouldUseDefaultDurationsWhenNotConfiguredInEnvironment() {
+        var environment = mock(Environment.class);
+        var cache = CoursesCache.fromEnvironment(environment, clock);
+        var loader = new CountingLoader(List.of(FIRST_COURSE), List.of(SECOND_COURSE));
+
+        cache.get(KEY, FALL, loader).join();
+        when(clock.instant()).thenReturn(LOADED_AT.plus(CoursesCache.DEFAULT_TIME_TO_LIVE).minusSeconds(1));
+
+        assertThat(cache.get(KEY, FALL, loader).join().getCourses(), contains(FIRST_COURSE));
+    }
+
+    @Test
+    void shouldLoadUnionOfTermsWhenEntryDoesNotCoverRequestedTerms() {
+        var loader = new CountingLoader(List.of(FIRST_COURSE), List.of(FIRST_COURSE, SECOND_COURSE));
+
+        coursesCache.get(KEY, FALL, loader).join();
+        var courses = coursesCache.get(KEY, EnumSet.of(Term.SPRING), loader).join().getCourses();
+        coursesCache.get(KEY, EnumSet.of(Term.SPRING, Term.FALL), loader).join();
+
+        assertThat(courses, contains(FIRST_COURSE, SECOND_COURSE));
+        assertThat(loader.requestedTerms, contains(FALL, EnumSet.of(Term.SPRING, Term.FALL)));
+    }
+
+    @Test
+    void shouldKeepCoursesFreshUntilTimeToLiveHasPassed() {
+        var cachedCourses = coursesCache.get(KEY, FALL, terms -> completedFuture(List.of(FIRST_COURSE))).join();
+
+        assertThat(cachedCourses.getFreshUntil(), equalTo(LOADED_AT.plus(TIME_TO_LIVE)));
+    }
+
+    private static final class CountingLoader implements Function<Set<Term>, CompletableFuture<List<Course>>> {
+
+        private final List<Set<Term>> requestedTerms = new ArrayList<>();
+        private final List<List<Course>> results;
+
+        @SafeVarargs
+        private CountingLoader(final List<Course>... results) {
+            this.results = List.of(results);
+        }
+
+        @Override
+        public CompletableFuture<List<Course>> apply(final Set<Term> terms) {
+            requestedTerms.add(terms);
+            return completedFuture(results.get(requestedTerms.size() - 1));
+        }
+    }
+}
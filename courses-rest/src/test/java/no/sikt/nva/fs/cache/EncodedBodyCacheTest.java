@@ -0,0 +1,95 @@
+package no.sikt.nva.fs.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.util.List;
+import java.util.Optional;
+import no.sikt.nva.fs.ContentEncoding;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.CoursesRepresentation;
+import no.sikt.nva.fs.CoursesResponse;
+import no.sikt.nva.fs.EncodedBody;
+import no.sikt.nva.fs.metrics.RequestMetrics;
+import nva.commons.core.Environment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class EncodedBodyCacheTest {
+
+    private static final int INSTITUTION_CODE = 215;
+    private static final String FIRST_TAG = "\"first\"";
+    private static final String SECOND_TAG = "\"second\"";
+    private static final String THIRD_TAG = "\"third\"";
+
+    private EncodedBody body;
+
+    @BeforeEach
+    public void init() throws JsonProcessingException {
+        body = EncodedBody.encode(CoursesRepresentation.JSON,
+                                  new CoursesResponse(List.of(new Course("A", "H\u00D8ST", 2022))), // HØST
+                                  ContentEncoding.IDENTITY,
+                                  RequestMetrics.discarding());
+    }
+
+    @Test
+    void shouldReturnBodyKeptForSameCoursesRepresentationAndCoding() {
+        var cache = new EncodedBodyCache(EncodedBodyCache.DEFAULT_MAX_BYTES);
+
+        cache.put(INSTITUTION_CODE, FIRST_TAG, CoursesRepresentation.JSON, ContentEncoding.IDENTITY, body);
+
+        assertThat(cache.get(INSTITUTION_CODE, FIRST_TAG, CoursesRepresentation.JSON, ContentEncoding.IDENTITY),
+                   equalTo(Optional.of(body)));
+        assertThat(cache.get(INSTITUTION_CODE, SECOND_TAG, CoursesRepresentation.JSON, ContentEncoding.IDENTITY),
+                   equalTo(Optional.empty()));
+        assertThat(cache.get(INSTITUTION_CODE, FIRST_TAG, CoursesRepresentation.COMPACT_JSON,
+                             ContentEncoding.IDENTITY),
+                   equalTo(Optional.empty()));
+        assertThat(cache.get(INSTITUTION_CODE, FIRST_TAG, CoursesRepresentation.JSON, ContentEncoding.GZIP),
+                   equalTo(Optional.empty()));
+        assertThat(cache.get(185, FIRST_TAG, CoursesRepresentation.JSON, ContentEncoding.IDENTITY),
+                   equalTo(Optional.empty()));
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedBodyWhenFull() {
+        var cache = new EncodedBodyCache(2L * body.getLength());
+        cache.put(INSTITUTION_CODE, FIRST_TAG, CoursesRepresentation.JSON, ContentEncoding.IDENTITY, body);
+        cache.put(INSTITUTION_CODE, SECOND_TAG, CoursesRepresentation.JSON, ContentEncoding.IDENTITY, body);
+        cache.get(INSTITUTION_CODE, FIRST_TAG, CoursesRepresentation.JSON, ContentEncoding.IDENTITY);
+
+        cache.put(INSTITUTION_CODE, THIRD_TAG, CoursesRepresentation.JSON, ContentEncoding.IDENTITY, body);
+
+        assertThat(cache.get(INSTITUTION_CODE, SECOND_TAG, CoursesRepresentation.JSON, ContentEncoding.IDENTITY),
+                   equalTo(Optional.empty()));
+        assertThat(cache.get(INSTITUTION_CODE, FIRST_TAG, CoursesRepresentation.JSON, ContentEncoding.IDENTITY),
+                   equalTo(Optional.of(body)));
+        assertThat(cache.getSize(), equalTo(2L * body.getLength()));
+    }
+
+    @Test
+    void shouldCountReplacedBodyOnce() {
+        var cache = new EncodedBodyCache(EncodedBodyCache.DEFAULT_MAX_BYTES);
+
+        cache.put(INSTITUTION_CODE, FIRST_TAG, CoursesRepresentation.JSON, ContentEncoding.IDENTITY, body);
+        cache.put(INSTITUTION_CODE, FIRST_TAG, CoursesRepresentation.JSON, ContentEncoding.IDENTITY, body);
+
+        assertThat(cache.getSize(), equalTo((long) body.getLength()));
+    }
+
+    @Test
+    void shouldNotKeepBodyLargerThanCache() {
+        var environment = mock(Environment.class);
+        when(environment.readEnvOpt(EncodedBodyCache.MAX_BYTES_ENV_KEY))
+            .thenReturn(Optional.of(String.valueOf(body.getLength() - 1)));
+        var cache = EncodedBodyCache.fromEnvironment(environment);
+
+        cache.put(INSTITUTION_CODE, FIRST_TAG, CoursesRepresentation.JSON, ContentEncoding.IDENTITY, body);
+
+        assertThat(cache.get(INSTITUTION_CODE, FIRST_TAG, CoursesRepresentation.JSON, ContentEncoding.IDENTITY),
+                   equalTo(Optional.empty()));
+        assertThat(cache.getSize(), equalTo(0L));
+    }
+}
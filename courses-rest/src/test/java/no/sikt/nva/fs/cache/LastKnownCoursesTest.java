@@ -0,0 +1,44 @@
+package no.sikt.nva.fs.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.TaughtCourses;
+import org.junit.jupiter.api.Test;
+
+class LastKnownCoursesTest {
+
+    private static final Instant FRESH_UNTIL = Instant.parse("2022-08-10T10:15:30.00Z");
+    private static final List<Course> COURSES = List.of(new Course("A", "H\u00D8ST", 2022)); // HØST
+
+    @Test
+    void shouldFindCoursesLastRememberedForInstitution() {
+        var lastKnownCourses = new LastKnownCourses(CoursesCache.DEFAULT_MAX_ENTRIES);
+        var first = new TaughtCourses(COURSES, "\"first\"", FRESH_UNTIL);
+        var second = new TaughtCourses(COURSES, "\"second\"", FRESH_UNTIL.plusSeconds(1));
+
+        lastKnownCourses.remember(215, first);
+        lastKnownCourses.remember(215, second);
+
+        assertThat(lastKnownCourses.find(215), equalTo(Optional.of(second)));
+        assertThat(lastKnownCourses.find(185), equalTo(Optional.empty()));
+    }
+
+    @Test
+    void shouldEvictCoursesThatStoppedBeingFreshFirstWhenFull() {
+        var lastKnownCourses = new LastKnownCourses(2);
+        var fresherCourses = new TaughtCourses(COURSES, "\"185\"", FRESH_UNTIL.plusSeconds(2));
+        var newCourses = new TaughtCourses(COURSES, "\"1\"", FRESH_UNTIL.plusSeconds(1));
+
+        lastKnownCourses.remember(185, fresherCourses);
+        lastKnownCourses.remember(215, new TaughtCourses(COURSES, "\"215\"", FRESH_UNTIL));
+        lastKnownCourses.remember(1, newCourses);
+
+        assertThat(lastKnownCourses.find(215), equalTo(Optional.empty()));
+        assertThat(lastKnownCourses.find(185), equalTo(Optional.of(fresherCourses)));
+        assertThat(lastKnownCourses.find(1), equalTo(Optional.of(newCourses)));
+    }
+}
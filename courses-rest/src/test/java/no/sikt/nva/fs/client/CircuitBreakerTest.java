@@ -0,0 +1,136 @@
+package no.sikt.nva.fs.client;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.net.HttpURLConnection;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import nva.commons.core.Environment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+    private static final Instant NOW = Instant.parse("2022-08-10T10:15:30.00Z");
+    private static final Duration SLOW_CALL = Duration.ofSeconds(20);
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final HttpException UNAVAILABLE = new HttpStatusException(HttpURLConnection.HTTP_UNAVAILABLE);
+
+    private Clock clock;
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    public void init() {
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(NOW);
+        circuitBreaker = new CircuitBreaker(new CircuitBreakerSettings(FAILURE_THRESHOLD, SLOW_CALL, OPEN_DURATION,
+                                                                       2),
+                                            clock);
+    }
+
+    @Test
+    void shouldOpenAfterFailuresInARowReachThreshold() {
+        callFailing(FAILURE_THRESHOLD - 1);
+        callSucceeding();
+        callFailing(FAILURE_THRESHOLD - 1);
+
+        assertThat(circuitBreaker.acquire(), equalTo(NOW));
+
+        circuitBreaker.onCompletion(NOW, new CompletionException(UNAVAILABLE));
+
+        assertThrows(CircuitOpenException.class, circuitBreaker::acquire);
+    }
+
+    @Test
+    void shouldCountSlowCallsAsFailures() {
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            circuitBreaker.onCompletion(circuitBreaker.acquire().minus(SLOW_CALL), null);
+        }
+
+        assertThrows(CircuitOpenException.class, circuitBreaker::acquire);
+    }
+
+    @Test
+    void shouldNotCountAnswersOfFsThatAreNotFailuresOfFs() {
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            circuitBreaker.onCompletion(circuitBreaker.acquire(),
+                                        new HttpStatusException(HttpURLConnection.HTTP_UNAUTHORIZED));
+            circuitBreaker.onCompletion(circuitBreaker.acquire(), new IllegalStateException());
+        }
+
+        assertThat(circuitBreaker.acquire(), equalTo(NOW));
+    }
+
+    @Test
+    void shouldLetTrialsThroughOnceOpenDurationHasPassedAndCloseWhenAllSucceed() {
+        callFailing(FAILURE_THRESHOLD);
+        when(clock.instant()).thenReturn(NOW.plus(OPEN_DURATION).minusSeconds(1));
+        assertThrows(CircuitOpenException.class, circuitBreaker::acquire);
+
+        when(clock.instant()).thenReturn(NOW.plus(OPEN_DURATION));
+        final Instant firstTrial = circuitBreaker.acquire();
+        final Instant secondTrial = circuitBreaker.acquire();
+        assertThrows(CircuitOpenException.class, circuitBreaker::acquire);
+        circuitBreaker.onCompletion(firstTrial, null);
+        assertThrows(CircuitOpenException.class, circuitBreaker::acquire);
+        circuitBreaker.onCompletion(secondTrial, null);
+
+        callFailing(FAILURE_THRESHOLD - 1);
+        assertThat(circuitBreaker.acquire(), equalTo(NOW.plus(OPEN_DURATION)));
+    }
+
+    @Test
+    void shouldOpenAgainWhenTrialFails() {
+        callFailing(FAILURE_THRESHOLD);
+        when(clock.instant()).thenReturn(NOW.plus(OPEN_DURATION));
+
+        circuitBreaker.onCompletion(circuitBreaker.acquire(), UNAVAILABLE);
+
+        when(clock.instant()).thenReturn(NOW.plus(OPEN_DURATION).plus(OPEN_DURATION).minusSeconds(1));
+        assertThrows(CircuitOpenException.class, circuitBreaker::acquire);
+    }
+
+    @Test
+    void shouldNotCountCallsGivenUpAtDeadlineOfRequest() {
+        callFailing(FAILURE_THRESHOLD);
+        when(clock.instant()).thenReturn(NOW.plus(OPEN_DURATION));
+
+        circuitBreaker.onCompletion(circuitBreaker.acquire(), new DeadlineExceededException());
+        circuitBreaker.onCompletion(circuitBreaker.acquire(), null);
+        circuitBreaker.onCompletion(circuitBreaker.acquire(), null);
+
+        callFailing(FAILURE_THRESHOLD - 1);
+        assertThat(circuitBreaker.acquire(), equalTo(NOW.plus(OPEN_DURATION)));
+    }
+
+    @Test
+    void shouldReadSettingsFromEnvironment() {
+        var environment = mock(Environment.class);
+        when(environment.readEnvOpt(CircuitBreakerSettings.FAILURE_THRESHOLD_ENV_KEY)).thenReturn(Optional.of("7"));
+        when(environment.readEnvOpt(CircuitBreakerSettings.OPEN_DURATION_ENV_KEY)).thenReturn(Optional.of("60"));
+
+        var settings = CircuitBreakerSettings.fromEnvironment(environment);
+
+        assertThat(settings.getFailureThreshold(), equalTo(7));
+        assertThat(settings.getSlowCall(), equalTo(CircuitBreakerSettings.DEFAULT_SLOW_CALL));
+        assertThat(settings.getOpenDuration(), equalTo(Duration.ofSeconds(60)));
+        assertThat(settings.getHalfOpenTrials(), equalTo(CircuitBreakerSettings.DEFAULT_HALF_OPEN_TRIALS));
+    }
+
+    private void callFailing(final int times) {
+        for (int i = 0; i < times; i++) {
+            circuitBreaker.onCompletion(circuitBreaker.acquire(), UNAVAILABLE);
+        }
+    }
+
+    private void callSucceeding() {
+        circuitBreaker.onCompletion(circuitBreaker.acquire(), null);
+    }
+}
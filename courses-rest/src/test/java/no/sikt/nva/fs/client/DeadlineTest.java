@@ -0,0 +1,43 @@
+package no.sikt.nva.fs.client;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class DeadlineTest {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    @Test
+    void shouldLeaveTimeoutAsIsWithoutDeadline() {
+        assertThat(Deadline.none().timeout(REQUEST_TIMEOUT), equalTo(REQUEST_TIMEOUT));
+    }
+
+    @Test
+    void shouldLeaveTimeoutAsIsWhenDeadlineIsLater() {
+        assertThat(Deadline.after(Duration.ofMinutes(15)).timeout(REQUEST_TIMEOUT), equalTo(REQUEST_TIMEOUT));
+    }
+
+    @Test
+    void shouldShortenTimeoutToTimeLeftUntilDeadline() {
+        var timeout = Deadline.after(Duration.ofSeconds(10)).timeout(REQUEST_TIMEOUT);
+
+        assertThat(timeout.compareTo(Duration.ofSeconds(10)) <= 0, equalTo(true));
+        assertThat(timeout.compareTo(Duration.ofSeconds(9)) > 0, equalTo(true));
+    }
+
+    @Test
+    void shouldLeaveNoTimeOncePassed() {
+        var timeout = Deadline.after(Duration.ofSeconds(-1)).timeout(REQUEST_TIMEOUT);
+
+        assertThat(timeout.isNegative(), equalTo(true));
+    }
+
+    @Test
+    void shouldTellWhetherDeadlineHasPassed() {
+        assertThat(Deadline.none().hasPassed(), equalTo(false));
+        assertThat(Deadline.after(Duration.ofMinutes(15)).hasPassed(), equalTo(false));
+        assertThat(Deadline.after(Duration.ofSeconds(-1)).hasPassed(), equalTo(true));
+    }
+}
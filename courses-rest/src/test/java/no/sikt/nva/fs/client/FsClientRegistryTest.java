@@ -0,0 +1,82 @@
+package no.sikt.nva.fs.client;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Optional;
+import no.sikt.nva.fs.config.InstitutionConfig;
+import nva.commons.core.Environment;
+import org.junit.jupiter.api.Test;
+
+class FsClientRegistryTest {
+
+    private static final String FS_BASE_URI = "https://fs.example.com";
+    private static final String OTHER_FS_BASE_URI = "https://fs2.example.com";
+
+    @Test
+    void shouldRejectPageSizeOfZeroFromEnvironment() {
+        var environment = mock(Environment.class);
+        when(environment.readEnvOpt(FsClientRegistry.PAGE_SIZE_ENV_KEY)).thenReturn(Optional.of("0"));
+
+        var exception = assertThrows(IllegalArgumentException.class,
+                                     () -> FsClientRegistry.fromEnvironment(environment));
+
+        assertThat(exception.getMessage(), equalTo(HttpUrlConnectionFsClient.INVALID_PAGE_SIZE_MESSAGE + 0));
+    }
+
+    @Test
+    void shouldRejectNegativePageSize() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> new FsClientRegistry(Duration.ofSeconds(1), Duration.ofSeconds(1), -1));
+    }
+
+    @Test
+    void shouldReuseHttpClientForSameBaseUri() {
+        var registry = FsClientRegistry.fromEnvironment(mock(Environment.class));
+
+        assertThat(registry.getHttpClient(FS_BASE_URI), sameInstance(registry.getHttpClient(FS_BASE_URI)));
+        assertThat(registry.getHttpClient(FS_BASE_URI), not(sameInstance(registry.getHttpClient(OTHER_FS_BASE_URI))));
+    }
+
+    @Test
+    void shouldKeepOneCircuitBreakerPerBaseUri() {
+        var registry = FsClientRegistry.fromEnvironment(mock(Environment.class));
+
+        assertThat(registry.getCircuitBreaker(FS_BASE_URI), sameInstance(registry.getCircuitBreaker(FS_BASE_URI)));
+        assertThat(registry.getCircuitBreaker(FS_BASE_URI),
+                   not(sameInstance(registry.getCircuitBreaker(OTHER_FS_BASE_URI))));
+    }
+
+    @Test
+    void shouldKeepLatenciesToHedgeByPerBaseUri() {
+        var registry = FsClientRegistry.fromEnvironment(mock(Environment.class));
+
+        assertThat(registry.getHedging(FS_BASE_URI), sameInstance(registry.getHedging(FS_BASE_URI)));
+        assertThat(registry.getHedging(FS_BASE_URI), not(sameInstance(registry.getHedging(OTHER_FS_BASE_URI))));
+    }
+
+    @Test
+    void shouldCreateHttpClientsUsingHttp2AndConfiguredConnectTimeout() {
+        var registry = FsClientRegistry.fromEnvironment(mock(Environment.class));
+        HttpClient httpClient = registry.getHttpClient(FS_BASE_URI);
+
+        assertThat(httpClient.version(), equalTo(HttpClient.Version.HTTP_2));
+        assertThat(httpClient.connectTimeout(), equalTo(Optional.of(FsClientRegistry.DEFAULT_CONNECT_TIMEOUT)));
+    }
+
+    @Test
+    void shouldPrecomputeBasicAuthenticationHeaderPerInstitution() {
+        var institutionConfig = new InstitutionConfig(215, "dummyUsername", "dummyPassword");
+
+        assertThat(institutionConfig.getUsername(), equalTo("dummyUsername"));
+        assertThat(institutionConfig.getPassword(), equalTo("dummyPassword"));
+        assertThat(institutionConfig.getBasicAuthenticationHeader(),
+                   equalTo("Basic ZHVtbXlVc2VybmFtZTpkdW1teVBhc3N3b3Jk"));
+    }
+}
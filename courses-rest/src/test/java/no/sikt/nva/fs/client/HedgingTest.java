@@ -0,0 +1,137 @@
+package no.sikt.nva.fs.client;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.collection.IsEmptyCollection.empty;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import no.sikt.nva.fs.metrics.Metric;
+import no.sikt.nva.fs.metrics.RequestMetrics;
+import org.junit.jupiter.api.Test;
+
+class HedgingTest {
+
+    private static final long MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void shouldHedgeAtPercentileOfRecentLatencyOnceEnoughIsKnown() {
+        var hedging = new Hedging(95);
+        for (int i = 1; i < Hedging.MIN_LATENCIES; i++) {
+            hedging.recordLatency(i * MILLISECOND);
+        }
+        assertThat(hedging.findHedgeDelay(), equalTo(Optional.empty()));
+
+        hedging.recordLatency(Hedging.MIN_LATENCIES * MILLISECOND);
+
+        assertThat(hedging.findHedgeDelay(), equalTo(Optional.of(Duration.ofMillis(19))));
+    }
+
+    @Test
+    void shouldOnlyKeepLatenciesOfMostRecentRequests() {
+        var hedging = new Hedging(50);
+        for (int i = 0; i < Hedging.LATENCY_WINDOW; i++) {
+            hedging.recordLatency(1000 * MILLISECOND);
+        }
+        for (int i = 0; i < Hedging.LATENCY_WINDOW; i++) {
+            hedging.recordLatency(MILLISECOND);
+        }
+
+        assertThat(hedging.findHedgeDelay(), equalTo(Optional.of(Duration.ofMillis(1))));
+    }
+
+    @Test
+    void shouldSendAgainWhenFirstAttemptIsSlowAndUseFirstToSucceed() throws Exception {
+        var hedging = hedgingAfterOneMillisecond();
+        var attempts = new Attempts();
+        var metrics = new RequestMetrics();
+
+        var result = hedging.send(attempts, metrics);
+        attempts.awaitAttempts(2);
+        attempts.get(1).complete("second");
+
+        assertThat(result.get(1, TimeUnit.SECONDS), equalTo("second"));
+        assertThat(metrics.getValues(Metric.FS_HEDGE_COUNT), contains(1.0));
+    }
+
+    @Test
+    void shouldNotSendAgainWhenFirstAttemptSucceedsInTime() throws Exception {
+        var hedging = hedgingAfterOneMillisecond();
+        var attempts = new Attempts();
+        attempts.completeImmediately = true;
+        var metrics = new RequestMetrics();
+
+        var result = hedging.send(attempts, metrics);
+        Thread.sleep(50);
+
+        assertThat(result.get(), equalTo("first"));
+        assertThat(attempts.futures, hasSize(1));
+        assertThat(metrics.getValues(Metric.FS_HEDGE_COUNT), empty());
+    }
+
+    @Test
+    void shouldFailOnlyWhenEveryAttemptHasFailed() throws Exception {
+        var hedging = hedgingAfterOneMillisecond();
+        var attempts = new Attempts();
+
+        var result = hedging.send(attempts, new RequestMetrics());
+        attempts.awaitAttempts(2);
+        attempts.get(1).completeExceptionally(new HttpStatusException(503));
+        assertThat(result.isDone(), equalTo(false));
+        attempts.get(0).completeExceptionally(new HttpStatusException(502));
+
+        var failure = assertThrows(ExecutionException.class, result::get);
+        assertThat(((HttpStatusException) failure.getCause()).getStatusCode(), equalTo(502));
+    }
+
+    @Test
+    void shouldSendOnceWithoutHedging() {
+        var hedging = new Hedging(Hedging.NO_HEDGING);
+        var attempts = new Attempts();
+
+        var result = hedging.send(attempts, new RequestMetrics());
+
+        assertThat(result, equalTo(attempts.get(0)));
+    }
+
+    private static Hedging hedgingAfterOneMillisecond() {
+        var hedging = new Hedging(50);
+        for (int i = 0; i < Hedging.MIN_LATENCIES; i++) {
+            hedging.recordLatency(MILLISECOND);
+        }
+        return hedging;
+    }
+
+    private static final class Attempts implements Supplier<CompletableFuture<String>> {
+
+        private final List<CompletableFuture<String>> futures = new CopyOnWriteArrayList<>();
+        private boolean completeImmediately;
+
+        @Override
+        public CompletableFuture<String> get() {
+            final CompletableFuture<String> future = completeImmediately
+                                                         ? CompletableFuture.completedFuture("first")
+                                                         : new CompletableFuture<>();
+            futures.add(future);
+            return future;
+        }
+
+        private CompletableFuture<String> get(final int attempt) {
+            return futures.get(attempt);
+        }
+
+        private void awaitAttempts(final int count) throws InterruptedException {
+            while (futures.size() < count) {
+                Thread.sleep(1);
+            }
+        }
+    }
+}
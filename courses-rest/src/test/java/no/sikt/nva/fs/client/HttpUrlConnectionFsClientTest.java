@@ -0,0 +1,378 @@
+package no.sikt.nva.fs.client;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.absent;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static no.sikt.nva.fs.client.HttpStatusException.UNEXPECTED_RESPONSE_CODE_RETURNED_BY_SERVER_MESSAGE;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.collection.IsEmptyCollection.empty;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.Term;
+import no.sikt.nva.fs.config.InstitutionConfig;
+import no.sikt.nva.fs.metrics.Metric;
+import no.sikt.nva.fs.metrics.RequestMetrics;
+import nva.commons.core.Environment;
+import nva.commons.core.ioutils.IoUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+@WireMockTest
+class HttpUrlConnectionFsClientTest {
+
+    private static final String TAUGHT_COURSES_URL_PATH = "/undervisning";
+    private static final InstitutionConfig INSTITUTION = new InstitutionConfig(215, "dummyUsername", "dummyPassword");
+    private static final Set<Term> ALL_TERMS = EnumSet.allOf(Term.class);
+    private static final String TERM_QUERY_PARAM_NAME = "semester.termin";
+    private static final String PAGE_QUERY_PARAM_NAME = "page";
+    private static final String LAST_MODIFIED = "Wed, 10 Aug 2022 10:15:30 GMT";
+    private static final String HEDGING_SCENARIO = "hedging";
+    private static final String HEDGED_STATE = "hedged";
+    private static final String SUMMER_COURSE_ITEM = "{\"id\": {\"emne\": {\"kode\": \"%s\"}, "
+                                                     + "\"semester\": {\"ar\": 2022, \"termin\": \"SOM\"}}}";
+
+    private static final int SLOW_CALL_MILLIS = 500;
+    private static final int PAGE_DELAY_MILLIS = 200;
+
+    private FsClient fsClient;
+
+    @BeforeEach
+    public void init(final WireMockRuntimeInfo wmRuntimeInfo) {
+        fsClient = FsClientRegistry.fromEnvironment(mock(Environment.class))
+                       .getClient(wmRuntimeInfo.getHttpBaseUrl(), INSTITUTION);
+    }
+
+    @Test
+    void shouldReturnTaughtCoursesOfRequestedTermsWhenCalledBlocking() {
+        stubFor(get(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                    .willReturn(WireMock.ok()
+                                    .withBody(IoUtils.stringFromResources(
+                                        Path.of("oslometUndervisningResponse2022.json")))));
+
+        assertThat(fsClient.getTaughtCourses(2022, EnumSet.of(Term.FALL)),
+                   contains(new Course("\u00C6", "H\u00D8ST", 2022), // Æ, HØST
+                            new Course("A", "H\u00D8ST", 2022))); // HØST
+    }
+
+    @Test
+    void shouldAskFsForEachRequestedTermWhenNotAllTermsAreRequested() {
+        stubFor(get(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                    .willReturn(WireMock.ok()
+                                    .withBody(IoUtils.stringFromResources(
+                                        Path.of("oslometUndervisningResponse2022.json")))));
+
+        fsClient.getTaughtCourses(2022, EnumSet.of(Term.SPRING, Term.FALL));
+
+        verify(2, getRequestedFor(urlPathEqualTo(TAUGHT_COURSES_URL_PATH)));
+        verify(getRequestedFor(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                   .withQueryParam(TERM_QUERY_PARAM_NAME, WireMock.equalTo("V\u00C5R"))); // VÅR
+        verify(getRequestedFor(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                   .withQueryParam(TERM_QUERY_PARAM_NAME, WireMock.equalTo("H\u00D8ST"))); // HØST
+    }
+
+    @Test
+    void shouldNotFilterOnTermInFsWhenAllTermsAreRequested() {
+        stubFor(get(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                    .willReturn(WireMock.ok()
+                                    .withBody(IoUtils.stringFromResources(
+                                        Path.of("oslometUndervisningResponse2022.json")))));
+
+        fsClient.getTaughtCourses(2022, ALL_TERMS);
+
+        verify(1, getRequestedFor(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                      .withQueryParam(TERM_QUERY_PARAM_NAME, absent()));
+    }
+
+    @Test
+    void shouldFetchNextPageUntilPageIsNotFull(final WireMockRuntimeInfo wmRuntimeInfo) {
+        stubPage(1, "A", "B");
+        stubPage(2, "C", "D");
+        stubPage(3, "E");
+        var pagingFsClient = new FsClientRegistry(Duration.ofSeconds(1), Duration.ofSeconds(1), 2)
+                                 .getClient(wmRuntimeInfo.getHttpBaseUrl(), INSTITUTION);
+
+        assertThat(pagingFsClient.getTaughtCourses(2022, ALL_TERMS),
+                   contains(summerCourse("A"), summerCourse("B"), summerCourse("C"), summerCourse("D"),
+                            summerCourse("E")));
+        verify(getRequestedFor(urlPathEqualTo(TAUGHT_COURSES_URL_PATH)).withQueryParam("limit", WireMock.equalTo("2")));
+    }
+
+    @Test
+    void shouldStopPagingAtEmptyPage(final WireMockRuntimeInfo wmRuntimeInfo) {
+        var pagingFsClient = new FsClientRegistry(Duration.ofSeconds(1), Duration.ofSeconds(1), 2)
+                                 .getClient(wmRuntimeInfo.getHttpBaseUrl(), INSTITUTION);
+        stubPage(1, "A", "B");
+        stubPage(2);
+
+        assertThat(pagingFsClient.getTaughtCourses(2022, ALL_TERMS), contains(summerCourse("A"), summerCourse("B")));
+        verify(2, getRequestedFor(urlPathEqualTo(TAUGHT_COURSES_URL_PATH)));
+    }
+
+    @Test
+    void shouldReturnNoCoursesWhenFirstPageIsEmpty(final WireMockRuntimeInfo wmRuntimeInfo) {
+        var pagingFsClient = new FsClientRegistry(Duration.ofSeconds(1), Duration.ofSeconds(1), 1)
+                                 .getClient(wmRuntimeInfo.getHttpBaseUrl(), INSTITUTION);
+        stubPage(1);
+
+        assertThat(pagingFsClient.getTaughtCourses(2022, ALL_TERMS), empty());
+        verify(1, getRequestedFor(urlPathEqualTo(TAUGHT_COURSES_URL_PATH)));
+    }
+
+    @Test
+    void shouldStopPagingWhenFsReturnsMoreItemsThanPageSize(final WireMockRuntimeInfo wmRuntimeInfo) {
+        var pagingFsClient = new FsClientRegistry(Duration.ofSeconds(1), Duration.ofSeconds(1), 2)
+                                 .getClient(wmRuntimeInfo.getHttpBaseUrl(), INSTITUTION);
+        stubPage(1, "A", "B", "C");
+
+        assertThat(pagingFsClient.getTaughtCourses(2022, ALL_TERMS),
+                   contains(summerCourse("A"), summerCourse("B"), summerCourse("C")));
+        verify(1, getRequestedFor(urlPathEqualTo(TAUGHT_COURSES_URL_PATH)));
+    }
+
+    @Test
+    void shouldReuseCoursesWhenFsAnswersNotModifiedToEntityTag() {
+        stubFor(get(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                    .willReturn(WireMock.ok()
+                                    .withHeader("ETag", "\"v1\"")
+                                    .withBody(IoUtils.stringFromResources(
+                                        Path.of("oslometUndervisningResponse2022.json")))));
+        var courses = fsClient.getTaughtCourses(2022, ALL_TERMS);
+
+        stubFor(get(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                    .withHeader("If-None-Match", WireMock.equalTo("\"v1\""))
+                    .willReturn(WireMock.aResponse().withStatus(HttpURLConnection.HTTP_NOT_MODIFIED)));
+        var revalidatedCourses = fsClient.getTaughtCourses(2022, ALL_TERMS);
+
+        assertThat(revalidatedCourses, equalTo(courses));
+        verify(getRequestedFor(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                   .withHeader("If-None-Match", WireMock.equalTo("\"v1\"")));
+    }
+
+    @Test
+    void shouldRevalidateWithLastModifiedAndForgetValidatorsWhenModifiedPageHasNone() {
+        stubFor(get(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                    .willReturn(WireMock.ok()
+                                    .withHeader("Last-Modified", LAST_MODIFIED)
+                                    .withBody(IoUtils.stringFromResources(
+                                        Path.of("oslometUndervisningResponse2022.json")))));
+        fsClient.getTaughtCourses(2022, ALL_TERMS);
+
+        stubPage(1, "A");
+        var modifiedCourses = fsClient.getTaughtCourses(2022, ALL_TERMS);
+
+        fsClient.getTaughtCourses(2022, ALL_TERMS);
+
+        assertThat(modifiedCourses, contains(summerCourse("A")));
+        verify(1, getRequestedFor(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                      .withHeader("If-Modified-Since", WireMock.equalTo(LAST_MODIFIED)));
+    }
+
+    @Test
+    void shouldCompleteExceptionallyWithHttpExceptionWhenFsReturnsInvalidData() {
+        stubFor(get(urlPathEqualTo(TAUGHT_COURSES_URL_PATH)).willReturn(WireMock.ok().withBody("[]")));
+
+        var future = fsClient.getTaughtCoursesAsync(2022, ALL_TERMS);
+        var exception = assertThrows(HttpException.class, () -> FsFutures.join(future));
+
+        assertThat(exception.getMessage(),
+                   equalTo(HttpUrlConnectionFsClient.PROBLEMS_READING_RESPONSE_FROM_SERVER_MESSAGE));
+    }
+
+    @Test
+    void shouldCompleteExceptionallyWithHttpStatusExceptionWhenFsReturnsNonSuccess() {
+        stubFor(get(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                    .willReturn(WireMock.aResponse().withStatus(HttpURLConnection.HTTP_UNAVAILABLE)));
+
+        var future = fsClient.getTaughtCoursesAsync(2022, ALL_TERMS);
+        var exception = assertThrows(HttpStatusException.class, () -> FsFutures.join(future));
+
+        assertThat(exception.getMessage(),
+                   equalTo(UNEXPECTED_RESPONSE_CODE_RETURNED_BY_SERVER_MESSAGE + HttpURLConnection.HTTP_UNAVAILABLE));
+    }
+
+    @Test
+    void shouldRecordTimeOfEachRequestToFs(final WireMockRuntimeInfo wmRuntimeInfo) {
+        stubPage(1, "A", "B");
+        stubPage(2, "C");
+        var metrics = new RequestMetrics();
+        var pagingFsClient = new FsClientRegistry(Duration.ofSeconds(1), Duration.ofSeconds(1), 2)
+                                 .getClient(wmRuntimeInfo.getHttpBaseUrl(), INSTITUTION, metrics);
+
+        pagingFsClient.getTaughtCourses(2022, ALL_TERMS);
+
+        assertThat(metrics.getValues(Metric.FS_REQUEST_TIME), hasSize(2));
+        assertThat(metrics.getValues(Metric.FS_REQUEST_COUNT), contains(2.0));
+        assertThat(metrics.getValues(Metric.FS_ERROR_COUNT), empty());
+    }
+
+    @Test
+    void shouldRecordErrorWhenFsReturnsNonSuccess(final WireMockRuntimeInfo wmRuntimeInfo) {
+        stubFor(get(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                    .willReturn(WireMock.aResponse().withStatus(HttpURLConnection.HTTP_UNAVAILABLE)));
+        var metrics = new RequestMetrics();
+        var measuredFsClient = FsClientRegistry.fromEnvironment(mock(Environment.class))
+                                   .getClient(wmRuntimeInfo.getHttpBaseUrl(), INSTITUTION, metrics);
+
+        assertThrows(HttpStatusException.class, () -> measuredFsClient.getTaughtCourses(2022, ALL_TERMS));
+
+        assertThat(metrics.getValues(Metric.FS_ERROR_COUNT), contains(1.0));
+    }
+
+    @Test
+    void shouldRecordErrorWhenFsCannotBeReached() throws IOException {
+        final int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        var metrics = new RequestMetrics();
+        var unreachableFsClient = FsClientRegistry.fromEnvironment(mock(Environment.class))
+                                      .getClient("http://localhost:" + closedPort, INSTITUTION, metrics);
+
+        assertThrows(HttpException.class, () -> unreachableFsClient.getTaughtCourses(2022, ALL_TERMS));
+
+        assertThat(metrics.getValues(Metric.FS_REQUEST_COUNT), contains(1.0));
+        assertThat(metrics.getValues(Metric.FS_ERROR_COUNT), contains(1.0));
+    }
+
+    @Test
+    void shouldFailWithoutCallingFsWhileCircuitIsOpen(final WireMockRuntimeInfo wmRuntimeInfo) {
+        stubFor(get(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                    .willReturn(WireMock.aResponse().withStatus(HttpURLConnection.HTTP_UNAVAILABLE)));
+        var settings = new CircuitBreakerSettings(2, Duration.ofSeconds(20), Duration.ofSeconds(30), 1);
+        var registry = new FsClientRegistry(Duration.ofSeconds(1), Duration.ofSeconds(1), 2, settings,
+                                            Hedging.NO_HEDGING, Clock.systemUTC());
+        var failingFsClient = registry.getClient(wmRuntimeInfo.getHttpBaseUrl(), INSTITUTION);
+        assertThrows(HttpStatusException.class, () -> failingFsClient.getTaughtCourses(2022, ALL_TERMS));
+        assertThrows(HttpStatusException.class, () -> failingFsClient.getTaughtCourses(2022, ALL_TERMS));
+        var metrics = new RequestMetrics();
+
+        assertThrows(CircuitOpenException.class,
+                     () -> registry.getClient(wmRuntimeInfo.getHttpBaseUrl(), INSTITUTION, metrics)
+                               .getTaughtCourses(2022, ALL_TERMS));
+
+        verify(2, getRequestedFor(urlPathEqualTo(TAUGHT_COURSES_URL_PATH)));
+        assertThat(metrics.getValues(Metric.FS_CIRCUIT_OPEN_COUNT), contains(1.0));
+        assertThat(metrics.getValues(Metric.FS_REQUEST_COUNT), empty());
+    }
+
+    @Test
+    void shouldNotCountFetchOfManyFastPagesAsSlowCall(final WireMockRuntimeInfo wmRuntimeInfo) {
+        stubPage(1, PAGE_DELAY_MILLIS, "A", "B");
+        stubPage(2, PAGE_DELAY_MILLIS, "C", "D");
+        stubPage(3, PAGE_DELAY_MILLIS, "E");
+        var registry = registryOpeningAtFirstSlowPage();
+        var pagingFsClient = registry.getClient(wmRuntimeInfo.getHttpBaseUrl(), INSTITUTION);
+        pagingFsClient.getTaughtCourses(2022, ALL_TERMS);
+
+        assertThat(pagingFsClient.getTaughtCourses(2022, ALL_TERMS), hasSize(5));
+    }
+
+    @Test
+    void shouldOpenCircuitWhenRequestForPageIsSlow(final WireMockRuntimeInfo wmRuntimeInfo) {
+        stubPage(1, SLOW_CALL_MILLIS + PAGE_DELAY_MILLIS, "A");
+        var registry = registryOpeningAtFirstSlowPage();
+        var slowFsClient = registry.getClient(wmRuntimeInfo.getHttpBaseUrl(), INSTITUTION);
+        slowFsClient.getTaughtCourses(2022, ALL_TERMS);
+
+        assertThrows(CircuitOpenException.class, () -> slowFsClient.getTaughtCourses(2022, ALL_TERMS));
+    }
+
+    @Test
+    void shouldNotCallFsOnceDeadlineHasPassed(final WireMockRuntimeInfo wmRuntimeInfo) {
+        var lateFsClient = FsClientRegistry.fromEnvironment(mock(Environment.class))
+                               .getClient(wmRuntimeInfo.getHttpBaseUrl(), INSTITUTION, new RequestMetrics(),
+                                          Deadline.after(Duration.ZERO));
+
+        assertThrows(DeadlineExceededException.class, () -> lateFsClient.getTaughtCourses(2022, ALL_TERMS));
+
+        verify(0, getRequestedFor(urlPathEqualTo(TAUGHT_COURSES_URL_PATH)));
+    }
+
+    @Test
+    void shouldGiveUpOnFsAtDeadlineBeforeRequestTimesOut(final WireMockRuntimeInfo wmRuntimeInfo) {
+        stubFor(get(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                    .willReturn(WireMock.ok().withBody("{\"items\": []}").withFixedDelay(5000)));
+        var boundedFsClient = FsClientRegistry.fromEnvironment(mock(Environment.class))
+                                  .getClient(wmRuntimeInfo.getHttpBaseUrl(), INSTITUTION, new RequestMetrics(),
+                                             Deadline.after(Duration.ofMillis(200)));
+        final long start = System.nanoTime();
+
+        assertThrows(HttpException.class, () -> boundedFsClient.getTaughtCourses(2022, ALL_TERMS));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(2)) < 0, equalTo(true));
+    }
+
+    @Test
+    void shouldHedgeRequestThatIsSlowerThanRecentRequests(final WireMockRuntimeInfo wmRuntimeInfo) {
+        stubFor(get(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                    .inScenario(HEDGING_SCENARIO)
+                    .whenScenarioStateIs(Scenario.STARTED)
+                    .willSetStateTo(HEDGED_STATE)
+                    .willReturn(WireMock.ok().withBody("{\"items\": []}").withFixedDelay(5000)));
+        stubFor(get(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                    .inScenario(HEDGING_SCENARIO)
+                    .whenScenarioStateIs(HEDGED_STATE)
+                    .willReturn(WireMock.ok().withBody("{\"items\": [" + String.format(SUMMER_COURSE_ITEM, "A")
+                                                       + "]}")));
+        var registry = new FsClientRegistry(Duration.ofSeconds(1), Duration.ofSeconds(10), 1000,
+                                            CircuitBreakerSettings.DEFAULT, 95, Clock.systemUTC());
+        for (int i = 0; i < Hedging.MIN_LATENCIES; i++) {
+            registry.getHedging(wmRuntimeInfo.getHttpBaseUrl()).recordLatency(Duration.ofMillis(50).toNanos());
+        }
+        var metrics = new RequestMetrics();
+        final long start = System.nanoTime();
+
+        var courses = registry.getClient(wmRuntimeInfo.getHttpBaseUrl(), INSTITUTION, metrics)
+                          .getTaughtCourses(2022, ALL_TERMS);
+
+        assertThat(courses, contains(summerCourse("A")));
+        assertThat(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(2)) < 0, equalTo(true));
+        assertThat(metrics.getValues(Metric.FS_HEDGE_COUNT), contains(1.0));
+    }
+
+    private static void stubPage(final int page, final String... courseCodes) {
+        stubPage(page, 0, courseCodes);
+    }
+
+    private static void stubPage(final int page, final int delayMillis, final String... courseCodes) {
+        var items = Arrays.stream(courseCodes)
+                        .map(code -> String.format(SUMMER_COURSE_ITEM, code))
+                        .collect(Collectors.joining(","));
+        stubFor(get(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                    .withQueryParam(PAGE_QUERY_PARAM_NAME, WireMock.equalTo(Integer.toString(page)))
+                    .willReturn(WireMock.ok()
+                                    .withBody("{\"items\": [" + items + "]}")
+                                    .withFixedDelay(delayMillis)));
+    }
+
+    private static FsClientRegistry registryOpeningAtFirstSlowPage() {
+        var settings = new CircuitBreakerSettings(1, Duration.ofMillis(SLOW_CALL_MILLIS), Duration.ofSeconds(30), 1);
+        return new FsClientRegistry(Duration.ofSeconds(1), Duration.ofSeconds(5), 2, settings, Hedging.NO_HEDGING,
+                                    Clock.systemUTC());
+    }
+
+    private static Course summerCourse(final String code) {
+        return new Course(code, Term.SUMMER.getCode(), 2022);
+    }
+}
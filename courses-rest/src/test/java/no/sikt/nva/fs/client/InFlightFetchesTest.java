@@ -0,0 +1,142 @@
+package no.sikt.nva.fs.client;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.Term;
+import no.sikt.nva.fs.cache.CoursesCacheKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class InFlightFetchesTest {
+
+    private static final CoursesCacheKey KEY = new CoursesCacheKey("https://fs.example.com", 215, 2022);
+    private static final CoursesCacheKey OTHER_KEY = new CoursesCacheKey("https://fs.example.com", 185, 2022);
+    private static final Course FALL_COURSE = new Course("A", "H\u00D8ST", 2022); // HØST
+    private static final Course WINTER_COURSE = new Course("B", "VIT", 2022);
+    private static final Set<Term> FALL = EnumSet.of(Term.FALL);
+    private static final Set<Term> FALL_AND_WINTER = EnumSet.of(Term.FALL, Term.WINTER);
+
+    private InFlightFetches inFlightFetches;
+    private PendingLoader loader;
+
+    @BeforeEach
+    public void init() {
+        inFlightFetches = new InFlightFetches();
+        loader = new PendingLoader();
+    }
+
+    @Test
+    void shouldShareFetchInFlightBetweenConcurrentCallers() {
+        var firstCaller = inFlightFetches.coalesce(KEY, FALL, loader);
+        var secondCaller = inFlightFetches.coalesce(KEY, FALL, loader);
+
+        loader.complete(0, List.of(FALL_COURSE));
+
+        assertThat(firstCaller.join(), contains(FALL_COURSE));
+        assertThat(secondCaller.join(), contains(FALL_COURSE));
+        assertThat(loader.requestedTerms, contains(FALL));
+    }
+
+    @Test
+    void shouldGiveCallerCoursesOfItsOwnTermsWhenJoiningFetchOfMoreTerms() {
+        var callerOfAllTerms = inFlightFetches.coalesce(KEY, FALL_AND_WINTER, loader);
+        var callerOfFall = inFlightFetches.coalesce(KEY, FALL, loader);
+
+        loader.complete(0, List.of(FALL_COURSE, WINTER_COURSE));
+
+        assertThat(callerOfAllTerms.join(), contains(FALL_COURSE, WINTER_COURSE));
+        assertThat(callerOfFall.join(), contains(FALL_COURSE));
+        assertThat(loader.requestedTerms.size(), equalTo(1));
+    }
+
+    @Test
+    void shouldStartNewFetchWhenFetchInFlightDoesNotCoverTerms() {
+        var callerOfFall = inFlightFetches.coalesce(KEY, FALL, loader);
+        final var callerOfAllTerms = inFlightFetches.coalesce(KEY, FALL_AND_WINTER, loader);
+        final var laterCallerOfFall = inFlightFetches.coalesce(KEY, FALL, loader);
+
+        loader.complete(0, List.of(FALL_COURSE));
+        loader.complete(1, List.of(FALL_COURSE, WINTER_COURSE));
+
+        assertThat(callerOfFall.join(), contains(FALL_COURSE));
+        assertThat(callerOfAllTerms.join(), contains(FALL_COURSE, WINTER_COURSE));
+        assertThat(laterCallerOfFall.join(), contains(FALL_COURSE));
+        assertThat(loader.requestedTerms, contains(FALL, FALL_AND_WINTER));
+    }
+
+    @Test
+    void shouldNotShareFetchesOfDifferentKeys() {
+        inFlightFetches.coalesce(KEY, FALL, loader);
+        inFlightFetches.coalesce(OTHER_KEY, FALL, loader);
+
+        assertThat(loader.requestedTerms.size(), equalTo(2));
+    }
+
+    @Test
+    void shouldFailEveryCallerAndFetchAgainAfterFailure() {
+        var firstCaller = inFlightFetches.coalesce(KEY, FALL, loader);
+        var secondCaller = inFlightFetches.coalesce(KEY, FALL, loader);
+        var failure = new IllegalStateException("FS is down");
+
+        loader.pendingFetches.get(0).completeExceptionally(failure);
+        final var laterCaller = inFlightFetches.coalesce(KEY, FALL, loader);
+
+        assertThat(assertThrows(CompletionException.class, firstCaller::join).getCause(), sameInstance(failure));
+        assertThat(assertThrows(CompletionException.class, secondCaller::join).getCause(), sameInstance(failure));
+        assertThat(loader.requestedTerms.size(), equalTo(2));
+        assertFalse(laterCaller.isDone());
+    }
+
+    @Test
+    void shouldFailCallersWhenLoaderThrows() {
+        Function<Set<Term>, CompletableFuture<List<Course>>> throwingLoader = terms -> {
+            throw new IllegalStateException("FS is down");
+        };
+
+        var caller = inFlightFetches.coalesce(KEY, FALL, throwingLoader);
+
+        assertThat(assertThrows(CompletionException.class, caller::join).getCause().getMessage(),
+                   equalTo("FS is down"));
+    }
+
+    @Test
+    void shouldNotLetCallerCompleteFetchSharedWithOthers() {
+        var firstCaller = inFlightFetches.coalesce(KEY, FALL, loader);
+        var secondCaller = inFlightFetches.coalesce(KEY, FALL, loader);
+
+        firstCaller.complete(List.of(WINTER_COURSE));
+        loader.complete(0, List.of(FALL_COURSE));
+
+        assertThat(secondCaller.join(), contains(FALL_COURSE));
+    }
+
+    private static final class PendingLoader implements Function<Set<Term>, CompletableFuture<List<Course>>> {
+
+        private final List<Set<Term>> requestedTerms = new ArrayList<>();
+        private final List<CompletableFuture<List<Course>>> pendingFetches = new ArrayList<>();
+
+        @Override
+        public CompletableFuture<List<Course>> apply(final Set<Term> terms) {
+            requestedTerms.add(terms);
+            final CompletableFuture<List<Course>> pendingFetch = new CompletableFuture<>();
+            pendingFetches.add(pendingFetch);
+            return pendingFetch;
+        }
+
+        private void complete(final int fetch, final List<Course> courses) {
+            pendingFetches.get(fetch).complete(courses);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package no.sikt.nva.fs.client;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.Term;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightFsClientTest {
+
+    private static final String FS_BASE_URI = "https://fs.example.com";
+    private static final Course COURSE_2022 = new Course("A", "H\u00D8ST", 2022); // HØST
+    private static final Course COURSE_2023 = new Course("A", "V\u00C5R", 2023); // VÅR
+
+    @Test
+    void shouldShareFetchOfSameYearBetweenClientsOfSameInstitution() {
+        var fsClient = mock(FsClient.class);
+        var pendingCourses = new CompletableFuture<List<Course>>();
+        when(fsClient.getTaughtCoursesAsync(eq(2022), anySet())).thenReturn(pendingCourses);
+        var inFlightFetches = new InFlightFetches();
+        var firstClient = new SingleFlightFsClient(fsClient, FS_BASE_URI, 215, inFlightFetches);
+        var secondClient = new SingleFlightFsClient(fsClient, FS_BASE_URI, 215, inFlightFetches);
+
+        var firstCourses = firstClient.getTaughtCoursesAsync(2022, EnumSet.of(Term.FALL));
+        var secondCourses = secondClient.getTaughtCoursesAsync(2022, EnumSet.of(Term.FALL));
+        pendingCourses.complete(List.of(COURSE_2022));
+
+        assertThat(firstCourses.join(), contains(COURSE_2022));
+        assertThat(secondCourses.join(), contains(COURSE_2022));
+        verify(fsClient, times(1)).getTaughtCoursesAsync(2022, EnumSet.of(Term.FALL));
+    }
+
+    @Test
+    void shouldFetchDifferentYearsSeparately() {
+        var fsClient = mock(FsClient.class);
+        when(fsClient.getTaughtCoursesAsync(eq(2022), anySet()))
+            .thenReturn(CompletableFuture.completedFuture(List.of(COURSE_2022)));
+        when(fsClient.getTaughtCoursesAsync(eq(2023), anySet()))
+            .thenReturn(CompletableFuture.completedFuture(List.of(COURSE_2023)));
+        var client = new SingleFlightFsClient(fsClient, FS_BASE_URI, 215, new InFlightFetches());
+
+        assertThat(client.getTaughtCourses(2022, EnumSet.of(Term.FALL)), contains(COURSE_2022));
+        assertThat(client.getTaughtCourses(2023, EnumSet.of(Term.SPRING)), contains(COURSE_2023));
+    }
+}
@@ -0,0 +1,86 @@
+package no.sikt.nva.fs.client;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.Term;
+import no.sikt.nva.fs.metrics.Metric;
+import no.sikt.nva.fs.metrics.RequestMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TaughtCoursesBodySubscriberTest {
+
+    private static final String BODY = "{\"items\": [{\"id\": {\"emne\": {\"kode\": \"A\"}, "
+                                       + "\"semester\": {\"ar\": 2022, \"termin\": \"SOM\"}}}]}";
+
+    private RequestMetrics metrics;
+    private Flow.Subscription subscription;
+    private TaughtCoursesBodySubscriber bodySubscriber;
+
+    @BeforeEach
+    public void init() {
+        metrics = new RequestMetrics();
+        subscription = mock(Flow.Subscription.class);
+        bodySubscriber = new TaughtCoursesBodySubscriber(EnumSet.allOf(Term.class), metrics);
+        bodySubscriber.onSubscribe(subscription);
+    }
+
+    @Test
+    void shouldCompleteWithCoursesParsedFromAllChunks() {
+        var bytes = BODY.getBytes(StandardCharsets.UTF_8);
+        bodySubscriber.onNext(List.of(ByteBuffer.wrap(bytes, 0, 20), ByteBuffer.wrap(bytes, 20, 20)));
+        bodySubscriber.onNext(List.of(ByteBuffer.wrap(bytes, 40, bytes.length - 40).asReadOnlyBuffer()));
+        bodySubscriber.onComplete();
+
+        assertThat(bodySubscriber.getBody().toCompletableFuture().join().getCourses(),
+                   contains(new Course("A", "SOM", 2022)));
+    }
+
+    @Test
+    void shouldRecordSizeOfBodyAndItemsAndTimeSpentParsingWhenComplete() {
+        var bytes = BODY.getBytes(StandardCharsets.UTF_8);
+        bodySubscriber.onNext(List.of(ByteBuffer.wrap(bytes, 0, 20), ByteBuffer.wrap(bytes, 20, bytes.length - 20)));
+        bodySubscriber.onComplete();
+
+        assertThat(metrics.getValues(Metric.FS_RESPONSE_BYTES), contains((double) bytes.length));
+        assertThat(metrics.getValues(Metric.FS_ITEM_COUNT), contains(1.0));
+        assertThat(metrics.getValues(Metric.PARSE_TIME), hasSize(1));
+    }
+
+    @Test
+    void shouldFailAndIgnoreRestOfBodyWhenBodyIsNotValid() {
+        bodySubscriber.onNext(List.of(ByteBuffer.wrap("[]".getBytes(StandardCharsets.UTF_8))));
+        bodySubscriber.onNext(List.of(ByteBuffer.wrap(BODY.getBytes(StandardCharsets.UTF_8))));
+        bodySubscriber.onComplete();
+
+        var exception = assertThrows(CompletionException.class,
+                                     () -> bodySubscriber.getBody().toCompletableFuture().join());
+        assertThat(exception.getCause(), instanceOf(HttpException.class));
+        verify(subscription, never()).cancel();
+    }
+
+    @Test
+    void shouldFailWithErrorFromPublisher() {
+        var error = new IOException("Connection reset");
+        bodySubscriber.onError(error);
+
+        var exception = assertThrows(CompletionException.class,
+                                     () -> bodySubscriber.getBody().toCompletableFuture().join());
+        assertThat(exception.getCause(), sameInstance(error));
+    }
+}
@@ -0,0 +1,97 @@
+package no.sikt.nva.fs.client;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsEmptyCollection.empty;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Set;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.Term;
+import nva.commons.core.ioutils.IoUtils;
+import org.junit.jupiter.api.Test;
+
+class TaughtCoursesParserTest {
+
+    private static final Set<Term> ALL_TERMS = EnumSet.allOf(Term.class);
+
+    @Test
+    void shouldParseCoursesOfRequestedTermsOnly() throws IOException {
+        var body = IoUtils.stringFromResources(Path.of("oslometUndervisningResponse2022.json"))
+                       .getBytes(StandardCharsets.UTF_8);
+
+        assertThat(TaughtCoursesParser.parse(body, EnumSet.of(Term.SPRING)).getCourses(),
+                   contains(new Course("\u00C5", "V\u00C5R", 2022), // Å, VÅR
+                            new Course("\u00D8", "V\u00C5R", 2022), // Ø, VÅR
+                            new Course("B", "V\u00C5R", 2022))); // VÅR
+    }
+
+    @Test
+    void shouldParseCoursesWhenBodyArrivesInSmallChunks() throws IOException {
+        var body = IoUtils.stringFromResources(Path.of("oslometUndervisningResponse2022.json"))
+                       .getBytes(StandardCharsets.UTF_8);
+        var parser = new TaughtCoursesParser(EnumSet.of(Term.FALL));
+        for (int offset = 0; offset < body.length; offset += 7) {
+            parser.feed(body, offset, Math.min(7, body.length - offset));
+        }
+
+        assertThat(parser.finish().getCourses(), contains(new Course("\u00C6", "H\u00D8ST", 2022), // Æ, HØST
+                                                          new Course("A", "H\u00D8ST", 2022))); // HØST
+    }
+
+    @Test
+    void shouldIgnoreFieldsWithSameNameOutsideItemIdentifiers() throws IOException {
+        var body = ("{\"kode\": \"X\", \"items\": [{\"kode\": \"Y\", \"id\": {\"emne\": {\"kode\": \"A\"},"
+                    + "\"semester\": {\"ar\": 2022, \"termin\": \"SOM\", \"kode\": \"Z\"}}},"
+                    + "{\"id\": {\"emne\": {\"kode\": \"B\"}, \"semester\": {\"ar\": 2022, \"termin\": \"UKJENT\"}}}]}")
+                       .getBytes(StandardCharsets.UTF_8);
+
+        var page = TaughtCoursesParser.parse(body, ALL_TERMS);
+
+        assertThat(page.getCourses(), contains(new Course("A", "SOM", 2022)));
+        assertThat(page.getItemCount(), equalTo(2));
+    }
+
+    @Test
+    void shouldParseYearSentAsString() throws IOException {
+        var body = ("{\"items\": [{\"id\": {\"emne\": {\"kode\": \"A\"},"
+                    + "\"semester\": {\"ar\": \"2022\", \"termin\": \"SOM\"}}}]}")
+                       .getBytes(StandardCharsets.UTF_8);
+
+        assertThat(TaughtCoursesParser.parse(body, ALL_TERMS).getCourses(), contains(new Course("A", "SOM", 2022)));
+    }
+
+    @Test
+    void shouldThrowWhenYearIsNotNumber() {
+        var body = ("{\"items\": [{\"id\": {\"emne\": {\"kode\": \"A\"},"
+                    + "\"semester\": {\"ar\": \"i fjor\", \"termin\": \"SOM\"}}}]}")
+                       .getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(IOException.class, () -> TaughtCoursesParser.parse(body, ALL_TERMS));
+    }
+
+    @Test
+    void shouldReturnNoCoursesWhenItemsAreEmpty() throws IOException {
+        var body = "{\"items\": []}".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(TaughtCoursesParser.parse(body, ALL_TERMS).getCourses(), empty());
+    }
+
+    @Test
+    void shouldThrowWhenResponseIsNotCollection() {
+        var body = "[]".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(IOException.class, () -> TaughtCoursesParser.parse(body, ALL_TERMS));
+    }
+
+    @Test
+    void shouldThrowWhenResponseHasNoItems() {
+        var body = "{\"size\": 0}".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(IOException.class, () -> TaughtCoursesParser.parse(body, ALL_TERMS));
+    }
+}
@@ -0,0 +1,57 @@
+package no.sikt.nva.fs.client;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+import no.sikt.nva.fs.Course;
+import nva.commons.core.Environment;
+import org.junit.jupiter.api.Test;
+
+class ValidatedPageCacheTest {
+
+    private static final URI FIRST_PAGE = URI.create("https://fs.example.com/undervisning?side=1");
+    private static final URI SECOND_PAGE = URI.create("https://fs.example.com/undervisning?side=2");
+    private static final URI THIRD_PAGE = URI.create("https://fs.example.com/undervisning?side=3");
+    private static final ValidatedPage PAGE =
+        new ValidatedPage("\"abc\"", null, new TaughtCoursesPage(List.of(new Course("A", "SOM", 2022)), 1));
+
+    @Test
+    void shouldEvictLeastRecentlyUsedPageWhenFull() {
+        var cache = new ValidatedPageCache(2);
+        cache.put(FIRST_PAGE, PAGE);
+        cache.put(SECOND_PAGE, PAGE);
+        cache.find(FIRST_PAGE);
+
+        cache.put(THIRD_PAGE, PAGE);
+
+        assertThat(cache.find(SECOND_PAGE), equalTo(Optional.empty()));
+        assertThat(cache.find(FIRST_PAGE), equalTo(Optional.of(PAGE)));
+        assertThat(cache.getSize(), equalTo(2));
+    }
+
+    @Test
+    void shouldForgetRemovedPage() {
+        var cache = new ValidatedPageCache();
+        cache.put(FIRST_PAGE, PAGE);
+
+        cache.remove(FIRST_PAGE);
+
+        assertThat(cache.find(FIRST_PAGE), equalTo(Optional.empty()));
+    }
+
+    @Test
+    void shouldReadMaxPagesFromEnvironment() {
+        var environment = mock(Environment.class);
+        when(environment.readEnvOpt(ValidatedPageCache.MAX_PAGES_ENV_KEY)).thenReturn(Optional.of("1"));
+        var cache = ValidatedPageCache.fromEnvironment(environment);
+
+        cache.put(FIRST_PAGE, PAGE);
+        cache.put(SECOND_PAGE, PAGE);
+
+        assertThat(cache.getSize(), equalTo(1));
+    }
+}
@@ -0,0 +1,186 @@
+package no.sikt.nva.fs.config;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsIterableWithSize.iterableWithSize;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import no.sikt.nva.fs.metrics.Metric;
+import no.sikt.nva.fs.metrics.RequestMetrics;
+import nva.commons.core.Environment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FsConfigHolderTest {
+
+    private static final Instant NOW = Instant.parse("2022-08-10T10:15:30.00Z");
+    private static final Duration REFRESH_INTERVAL = Duration.ofMinutes(5);
+    private static final String FS_CONFIG = "{\"baseUri\": \"https://fs.example.com\", \"institutions\": ["
+                                            + "{\"code\": 215, \"username\": \"user215\", \"password\": \"pw\"},"
+                                            + "{\"code\": 185, \"username\": \"user185\", \"password\": \"pw\"}]}";
+    private static final String UPDATED_FS_CONFIG = FS_CONFIG.replace("fs.example.com", "fs2.example.com");
+
+    private Clock clock;
+    private AtomicReference<String> secret;
+    private AtomicInteger secretFetches;
+    private FsConfigHolder fsConfigHolder;
+
+    @BeforeEach
+    public void init() {
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(NOW);
+        secret = new AtomicReference<>(FS_CONFIG);
+        secretFetches = new AtomicInteger();
+        final Supplier<String> secretSupplier = () -> {
+            secretFetches.incrementAndGet();
+            return secret.get();
+        };
+        fsConfigHolder = new FsConfigHolder(secretSupplier, REFRESH_INTERVAL, clock);
+    }
+
+    @Test
+    void shouldIndexInstitutionsByCode() throws JsonProcessingException {
+        var fsConfig = fsConfigHolder.getFsConfig();
+
+        assertThat(fsConfig.getInstitutions(), iterableWithSize(2));
+        assertThat(fsConfig.findInstitution(185).orElseThrow().getUsername(), equalTo("user185"));
+        assertThat(fsConfig.findInstitution(215).orElseThrow().getUsername(), equalTo("user215"));
+        assertThat(fsConfig.findInstitution(100).isPresent(), equalTo(false));
+    }
+
+    @Test
+    void shouldConfigureNoInstitutionsWhenSecretHasNone() throws JsonProcessingException {
+        secret.set("{\"baseUri\": \"https://fs.example.com\"}");
+
+        var fsConfig = fsConfigHolder.getFsConfig();
+
+        assertThat(fsConfig.getInstitutions(), iterableWithSize(0));
+        assertThat(fsConfig.findInstitution(215).isPresent(), equalTo(false));
+    }
+
+    @Test
+    void shouldFindFirstOfInstitutionsConfiguredMoreThanOnce() throws JsonProcessingException {
+        secret.set("{\"baseUri\": \"https://fs.example.com\", \"institutions\": ["
+                   + "{\"code\": 215, \"username\": \"first\", \"password\": \"pw\"},"
+                   + "{\"code\": 185, \"username\": \"user185\", \"password\": \"pw\"},"
+                   + "{\"code\": 215, \"username\": \"second\", \"password\": \"pw\"}]}");
+
+        assertThat(fsConfigHolder.getFsConfig().findInstitution(215).orElseThrow().getUsername(),
+                   equalTo("first"));
+    }
+
+    @Test
+    void shouldNotFetchSecretAgainWithinRefreshIntervalAlsoForUnknownInstitutions() throws JsonProcessingException {
+        var first = fsConfigHolder.getFsConfig();
+        fsConfigHolder.getFsConfig().findInstitution(100);
+        when(clock.instant()).thenReturn(NOW.plus(REFRESH_INTERVAL).minusSeconds(1));
+        var second = fsConfigHolder.getFsConfig();
+
+        assertThat(second, sameInstance(first));
+        assertThat(secretFetches.get(), equalTo(1));
+    }
+
+    @Test
+    void shouldRecordSecretFetchTimeOnlyWhenSecretIsFetched() throws JsonProcessingException {
+        var metrics = new RequestMetrics();
+        fsConfigHolder.getFsConfig(metrics);
+        fsConfigHolder.getFsConfig(metrics);
+
+        assertThat(metrics.getValues(Metric.SECRET_FETCH_TIME), iterableWithSize(1));
+    }
+
+    @Test
+    void shouldKeepParsedConfigWhenSecretIsUnchangedAfterRefreshInterval() throws JsonProcessingException {
+        var first = fsConfigHolder.getFsConfig();
+        when(clock.instant()).thenReturn(NOW.plus(REFRESH_INTERVAL));
+        var second = fsConfigHolder.getFsConfig();
+
+        assertThat(second, sameInstance(first));
+        assertThat(secretFetches.get(), equalTo(2));
+    }
+
+    @Test
+    void shouldParseSecretAgainWhenChangedAfterRefreshInterval() throws JsonProcessingException {
+        fsConfigHolder.getFsConfig();
+        secret.set(UPDATED_FS_CONFIG);
+        when(clock.instant()).thenReturn(NOW.plus(REFRESH_INTERVAL));
+
+        assertThat(fsConfigHolder.getFsConfig().getBaseUri(), equalTo("https://fs2.example.com"));
+    }
+
+    @Test
+    void shouldKeepCurrentConfigWhenRefreshFails() throws JsonProcessingException {
+        var first = fsConfigHolder.getFsConfig();
+        secret.set("");
+        when(clock.instant()).thenReturn(NOW.plus(REFRESH_INTERVAL));
+
+        assertThat(fsConfigHolder.getFsConfig(), sameInstance(first));
+    }
+
+    @Test
+    void shouldServeHeldConfigWhileAnotherRequestRefreshesIt() throws Exception {
+        var fetches = new AtomicInteger();
+        var refreshStarted = new CountDownLatch(1);
+        var releaseRefresh = new CountDownLatch(1);
+        var holder = new FsConfigHolder(() -> {
+            if (fetches.incrementAndGet() > 1) {
+                refreshStarted.countDown();
+                awaitQuietly(releaseRefresh);
+            }
+            return UPDATED_FS_CONFIG;
+        }, REFRESH_INTERVAL, clock);
+        var first = holder.getFsConfig();
+        when(clock.instant()).thenReturn(NOW.plus(REFRESH_INTERVAL));
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<FsConfig> refreshed = executor.submit(() -> holder.getFsConfig());
+            refreshStarted.await();
+
+            var served = holder.getFsConfig();
+            releaseRefresh.countDown();
+
+            assertThat(served, sameInstance(first));
+            assertThat(refreshed.get(), sameInstance(first));
+            assertThat(fetches.get(), equalTo(2));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldThrowWhenInitialConfigIsNotProperlyFormatted() {
+        secret.set("");
+
+        assertThrows(JsonProcessingException.class, () -> fsConfigHolder.getFsConfig());
+    }
+
+    @Test
+    void shouldUseDefaultRefreshIntervalWhenNotConfiguredInEnvironment() throws JsonProcessingException {
+        var holder = FsConfigHolder.fromEnvironment(mock(Environment.class), secret::get, clock);
+        var first = holder.getFsConfig();
+        secret.set(UPDATED_FS_CONFIG);
+        when(clock.instant()).thenReturn(NOW.plus(FsConfigHolder.DEFAULT_REFRESH_INTERVAL).minusSeconds(1));
+
+        assertThat(holder.getFsConfig(), sameInstance(first));
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
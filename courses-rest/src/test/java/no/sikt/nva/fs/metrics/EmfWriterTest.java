@@ -0,0 +1,123 @@
+package no.sikt.nva.fs.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.mockito.Mockito.mock;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import nva.commons.core.Environment;
+import org.junit.jupiter.api.Test;
+
+class EmfWriterTest {
+
+    private static final Instant NOW = Instant.parse("2022-08-10T10:15:30.00Z");
+    private static final Clock CLOCK = Clock.fixed(NOW, ZoneOffset.UTC);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Test
+    void shouldWriteMetricsOfInstitutionAsOneLineOfEmbeddedMetricFormat() throws IOException {
+        var metrics = new RequestMetrics();
+        metrics.setInstitutionCode(215);
+        metrics.recordFsResponse(200, RequestMetrics.startTimer());
+        metrics.recordFsResponse(503, RequestMetrics.startTimer());
+        var output = new StringWriter();
+
+        new EmfWriter(output, "Courses", CLOCK).write(metrics);
+
+        assertThat(output.toString().endsWith("}\n"), equalTo(true));
+        assertThat(output.toString().indexOf('\n'), equalTo(output.toString().length() - 1));
+        var record = OBJECT_MAPPER.readTree(output.toString());
+        var metadata = record.get("_aws");
+        assertThat(metadata.get("Timestamp").asLong(), equalTo(NOW.toEpochMilli()));
+        var directive = metadata.get("CloudWatchMetrics").get(0);
+        assertThat(directive.get("Namespace").asText(), equalTo("Courses"));
+        assertThat(texts(directive.get("Dimensions").get(0)), contains(EmfWriter.INSTITUTION_DIMENSION));
+        assertThat(texts(directive.get("Metrics").findValues("Name")),
+                   contains("FsRequestTime", "FsRequestCount", "FsErrorCount"));
+        assertThat(directive.get("Metrics").get(0).get("Unit").asText(), equalTo("Milliseconds"));
+        assertThat(record.get(EmfWriter.INSTITUTION_DIMENSION).asText(), equalTo("215"));
+        assertThat(record.get("FsRequestTime").size(), equalTo(2));
+        assertThat(record.get("FsRequestCount").asDouble(), equalTo(2.0));
+        assertThat(texts(record.get(EmfWriter.FS_STATUS_CODES_PROPERTY)), contains("200", "503"));
+    }
+
+    @Test
+    void shouldWriteMetricsWithoutDimensionWhenInstitutionIsUnknown() throws IOException {
+        var metrics = new RequestMetrics();
+        metrics.recordNanos(Metric.SERIALIZE_TIME, 1_500_000);
+        var output = new StringWriter();
+
+        new EmfWriter(output, "Courses", CLOCK).write(metrics);
+
+        var record = OBJECT_MAPPER.readTree(output.toString());
+        assertThat(record.get("_aws").get("CloudWatchMetrics").get(0).get("Dimensions").get(0).size(), equalTo(0));
+        assertThat(record.has(EmfWriter.INSTITUTION_DIMENSION), equalTo(false));
+        assertThat(record.has(EmfWriter.FS_STATUS_CODES_PROPERTY), equalTo(false));
+        assertThat(record.get("SerializeTime").get(0).asDouble(), equalTo(1.5));
+    }
+
+    @Test
+    void shouldWriteToStandardOutputInDefaultNamespaceWhenNotConfiguredInEnvironment() throws IOException {
+        var standardOutput = System.out;
+        var output = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8));
+            EmfWriter.fromEnvironment(mock(Environment.class), CLOCK).write(new RequestMetrics());
+        } finally {
+            System.setOut(standardOutput);
+        }
+
+        var record = OBJECT_MAPPER.readTree(output.toString(StandardCharsets.UTF_8));
+        assertThat(record.get("_aws").get("CloudWatchMetrics").get(0).get("Namespace").asText(),
+                   equalTo(EmfWriter.DEFAULT_NAMESPACE));
+    }
+
+    @Test
+    void shouldNotFailWhenMetricsCannotBeWritten() {
+        var metrics = new RequestMetrics();
+        metrics.count(Metric.CACHE_HIT_COUNT);
+
+        new EmfWriter(new FailingWriter(), "Courses", CLOCK).write(metrics);
+    }
+
+    private static List<String> texts(final JsonNode array) {
+        final List<String> texts = new ArrayList<>();
+        array.forEach(element -> texts.add(element.asText()));
+        return texts;
+    }
+
+    private static List<String> texts(final List<JsonNode> nodes) {
+        final List<String> texts = new ArrayList<>();
+        nodes.forEach(node -> texts.add(node.asText()));
+        return texts;
+    }
+
+    private static final class FailingWriter extends Writer {
+
+        @Override
+        public void write(final char[] buffer, final int offset, final int length) throws IOException {
+            throw new IOException("Closed");
+        }
+
+        @Override
+        public void flush() throws IOException {
+            throw new IOException("Closed");
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package no.sikt.nva.fs.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.collection.IsEmptyCollection.empty;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsEqual.equalTo;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class RequestMetricsTest {
+
+    @Test
+    void shouldSumCountsAndKeepEachValueOfOtherMetrics() {
+        var metrics = new RequestMetrics();
+        metrics.count(Metric.CACHE_HIT_COUNT);
+        metrics.count(Metric.CACHE_HIT_COUNT);
+        metrics.record(Metric.FS_RESPONSE_BYTES, 10);
+        metrics.record(Metric.FS_RESPONSE_BYTES, 20);
+
+        assertThat(metrics.getValues(Metric.CACHE_HIT_COUNT), contains(2.0));
+        assertThat(metrics.getValues(Metric.FS_RESPONSE_BYTES), contains(10.0, 20.0));
+        assertThat(metrics.getValues(Metric.SORT_TIME), empty());
+    }
+
+    @Test
+    void shouldCountFsRequestsAndErrorsAndKeepStatusCodes() {
+        var metrics = new RequestMetrics();
+        metrics.recordFsResponse(200, RequestMetrics.startTimer());
+        metrics.recordFsResponse(304, RequestMetrics.startTimer());
+        metrics.recordFsResponse(503, RequestMetrics.startTimer());
+        metrics.recordFsFailure(RequestMetrics.startTimer());
+
+        assertThat(metrics.getValues(Metric.FS_REQUEST_TIME), hasSize(4));
+        assertThat(metrics.getValues(Metric.FS_REQUEST_COUNT), contains(4.0));
+        assertThat(metrics.getValues(Metric.FS_ERROR_COUNT), contains(2.0));
+        assertThat(metrics.getFsStatusCodes(), contains(200, 304, 503));
+    }
+
+    @Test
+    void shouldKeepAtMostAsManyValuesOfMetricAsCloudWatchTakes() {
+        var metrics = new RequestMetrics();
+        IntStream.rangeClosed(0, RequestMetrics.MAX_VALUES).forEach(value -> {
+            metrics.record(Metric.PARSE_TIME, value);
+            metrics.recordFsResponse(200, RequestMetrics.startTimer());
+        });
+
+        assertThat(metrics.getValues(Metric.PARSE_TIME), hasSize(RequestMetrics.MAX_VALUES));
+        assertThat(metrics.getFsStatusCodes(), hasSize(RequestMetrics.MAX_VALUES));
+        assertThat(metrics.getValues(Metric.FS_REQUEST_COUNT), contains(RequestMetrics.MAX_VALUES + 1.0));
+    }
+
+    @Test
+    void shouldKeepNothingWhenDiscarding() {
+        var metrics = RequestMetrics.discarding();
+        metrics.setInstitutionCode(215);
+        metrics.count(Metric.CACHE_MISS_COUNT);
+        metrics.recordFsResponse(200, RequestMetrics.startTimer());
+
+        assertThat(metrics.getAllValues().isEmpty(), equalTo(true));
+        assertThat(metrics.getFsStatusCodes(), empty());
+        assertThat(metrics.getInstitutionCode(), equalTo(Optional.of(215)));
+    }
+}
@@ -0,0 +1,435 @@
+package no.sikt.nva.fs.server;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static nva.commons.core.StringUtils.EMPTY_STRING;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.hamcrest.collection.IsEmptyCollection.empty;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNot.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.CourseCodesResponse;
+import no.sikt.nva.fs.CoursesResponse;
+import no.sikt.nva.fs.CoursesService;
+import no.sikt.nva.fs.TimeProvider;
+import no.sikt.nva.fs.metrics.EmfWriter;
+import no.sikt.nva.fs.snapshot.InMemoryCoursesSnapshotStore;
+import no.unit.nva.commons.json.JsonUtils;
+import no.unit.nva.stubs.FakeSecretsManagerClient;
+import nva.commons.core.Environment;
+import nva.commons.core.ioutils.IoUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+@WireMockTest
+class CoursesServerTest {
+
+    private static final Clock AFTER_SUMMER = Clock.fixed(Instant.parse("2022-08-10T10:15:30.00Z"),
+                                                          TimeProvider.ZONE_ID);
+    private static final String SECRET_NAME = "fs-config";
+    private static final String INSTITUTION_HEADER = "X-Top-Org-Cristin-Id";
+    private static final String SUPPORTED_INSTITUTION = "https://example.com/215.0.0.0.0";
+    private static final String TAUGHT_COURSES_URL_PATH = "/undervisning";
+    private static final Course COURSE_A_AUTUMN_2022 = new Course("A", "H\u00D8ST", 2022); // HØST
+    private static final Course COURSE_AE_AUTUMN_2022 = new Course("\u00C6", "H\u00D8ST", 2022); // Æ, HØST
+    private static final Course COURSE_A_SPRING_2023 = new Course("A", "V\u00C5R", 2023); // VÅR
+    private static final Course COURSE_OE_SPRING_2023 = new Course("\u00D8", "V\u00C5R", 2023); // Ø, VÅR
+    private static final Course COURSE_AA_SPRING_2023 = new Course("\u00C5", "V\u00C5R", 2023); // Å, VÅR
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private FakeSecretsManagerClient fakeSecretsManagerClient;
+    private Environment environment;
+    private CoursesServer server;
+
+    @BeforeEach
+    public void init(final WireMockRuntimeInfo wmRuntimeInfo) {
+        final String fsConfigString = IoUtils.stringFromResources(Path.of("fsConfig.json"))
+                                          .replace("@@BASE_URI@@", wmRuntimeInfo.getHttpBaseUrl());
+        fakeSecretsManagerClient = new FakeSecretsManagerClient();
+        fakeSecretsManagerClient.putPlainTextSecret(SECRET_NAME, fsConfigString);
+        environment = mock(Environment.class);
+        when(environment.readEnvOpt(CoursesServer.PORT_ENV_KEY)).thenReturn(Optional.of("0"));
+        when(environment.readEnvOpt(CoursesServer.INSTITUTION_HEADER_ENV_KEY)).thenReturn(
+            Optional.of(INSTITUTION_HEADER));
+    }
+
+    @AfterEach
+    public void stop() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    void shouldServeCoursesOfInstitutionInHeaderWithCachingHeaders() throws Exception {
+        stubRequestForCourses(2022, "oslometUndervisningResponse2022.json");
+        stubRequestForCourses(2023, "oslometUndervisningResponse2023.json");
+        startServer();
+
+        var response = send(requestTo("/").header(INSTITUTION_HEADER, SUPPORTED_INSTITUTION));
+
+        assertThat(response.statusCode(), equalTo(HttpURLConnection.HTTP_OK));
+        assertThat(response.headers().firstValue("Content-Type"), equalTo(Optional.of("application/json")));
+        assertThat(response.headers().firstValue("ETag").isPresent(), equalTo(true));
+        assertThat(response.headers().firstValue("Cache-Control").orElseThrow(),
+                   equalTo("private, max-age=900"));
+        assertThat(readCourses(response), contains(COURSE_A_AUTUMN_2022,
+                                                   COURSE_AE_AUTUMN_2022,
+                                                   COURSE_A_SPRING_2023,
+                                                   COURSE_OE_SPRING_2023,
+                                                   COURSE_AA_SPRING_2023));
+    }
+
+    @Test
+    void shouldWriteMetricsOfEachRequestForCoursesButNotOfHealthChecks() throws Exception {
+        stubRequestForCourses(2022, "oslometUndervisningResponse2022.json");
+        stubRequestForCourses(2023, "oslometUndervisningResponse2023.json");
+        var metricsOutput = new StringWriter();
+        startServer(new EmfWriter(metricsOutput, EmfWriter.DEFAULT_NAMESPACE, AFTER_SUMMER));
+
+        send(requestTo("/").header(INSTITUTION_HEADER, SUPPORTED_INSTITUTION));
+        // The metrics are written once the response has been sent:
+        while (metricsOutput.toString().isEmpty()) {
+            Thread.sleep(10);
+        }
+        send(requestTo("/health"));
+
+        var lines = metricsOutput.toString().lines().collect(Collectors.toList());
+        assertThat(lines, hasSize(1));
+        var record = JsonUtils.dtoObjectMapper.readTree(lines.get(0));
+        assertThat(record.get("Institution").asText(), equalTo("215"));
+        assertThat(record.get("CourseCount").asInt(), equalTo(5));
+        for (final String metric : List.of("SecretFetchTime", "FsRequestTime", "FsResponseBytes", "FsItemCount",
+                                           "ParseTime", "SortTime", "SerializeTime", "CacheMissCount",
+                                           "ResponseBytes", "BodyCacheMissCount")) {
+            assertThat(metric, record.has(metric), equalTo(true));
+        }
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWhenIfNoneMatchHoldsCurrentEntityTag() throws Exception {
+        stubRequestForCourses(2022, "oslometUndervisningResponse2022.json");
+        stubRequestForCourses(2023, "oslometUndervisningResponse2023.json");
+        startServer();
+        var entityTag = send(requestTo("/").header(INSTITUTION_HEADER, SUPPORTED_INSTITUTION))
+                            .headers().firstValue("ETag").orElseThrow();
+
+        var response = send(requestTo("/").header(INSTITUTION_HEADER, SUPPORTED_INSTITUTION)
+                                .header("If-None-Match", entityTag));
+
+        assertThat(response.statusCode(), equalTo(HttpURLConnection.HTTP_NOT_MODIFIED));
+        assertThat(response.body(), equalTo(EMPTY_STRING));
+    }
+
+    @Test
+    void shouldServeCompactCoursesWithTheirOwnEntityTagWhenAccepted() throws Exception {
+        stubRequestForCourses(2022, "oslometUndervisningResponse2022.json");
+        stubRequestForCourses(2023, "oslometUndervisningResponse2023.json");
+        startServer();
+        var entityTag = send(requestTo("/").header(INSTITUTION_HEADER, SUPPORTED_INSTITUTION))
+                            .headers().firstValue("ETag").orElseThrow();
+
+        var response = send(requestTo("/").header(INSTITUTION_HEADER, SUPPORTED_INSTITUTION)
+                                .header("Accept", "application/vnd.nva.courses.compact+json, application/json;q=0.5")
+                                .header("If-None-Match", entityTag));
+
+        assertThat(response.statusCode(), equalTo(HttpURLConnection.HTTP_OK));
+        assertThat(response.headers().firstValue("Content-Type"),
+                   equalTo(Optional.of("application/vnd.nva.courses.compact+json")));
+        assertThat(response.headers().firstValue("Vary"), equalTo(Optional.of("Accept, Accept-Encoding")));
+        assertThat(response.headers().firstValue("ETag").orElseThrow(), not(equalTo(entityTag)));
+        var terms = JsonUtils.dtoObjectMapper.readTree(response.body()).get("terms");
+        assertThat(terms.size(), equalTo(2));
+        assertThat(terms.get(1).get("term").asText(), equalTo("V\u00C5R")); // VÅR
+        assertThat(terms.get(1).get("codes").toString(), equalTo("[\"A\",\"\u00D8\",\"\u00C5\"]")); // Ø, Å
+    }
+
+    @Test
+    void shouldServeCoursesAsCborWhenAccepted() throws Exception {
+        stubRequestForCourses(2022, "oslometUndervisningResponse2022.json");
+        stubRequestForCourses(2023, "oslometUndervisningResponse2023.json");
+        startServer();
+
+        var response = httpClient.send(requestTo("/").header(INSTITUTION_HEADER, SUPPORTED_INSTITUTION)
+                                           .header("Accept", "application/cbor").build(),
+                                       BodyHandlers.ofByteArray());
+
+        assertThat(response.statusCode(), equalTo(HttpURLConnection.HTTP_OK));
+        assertThat(response.headers().firstValue("Content-Type"), equalTo(Optional.of("application/cbor")));
+        assertThat(new CBORMapper().readValue(response.body(), CoursesResponse.class).getCourses(),
+                   contains(COURSE_A_AUTUMN_2022,
+                            COURSE_AE_AUTUMN_2022,
+                            COURSE_A_SPRING_2023,
+                            COURSE_OE_SPRING_2023,
+                            COURSE_AA_SPRING_2023));
+    }
+
+    @Test
+    void shouldSendKeptBodyWithWeakEntityTagWhenGzipIsAccepted() throws Exception {
+        stubRequestForCourses(2022, "oslometUndervisningResponse2022.json");
+        stubRequestForCourses(2023, "oslometUndervisningResponse2023.json");
+        var metricsOutput = new StringWriter();
+        startServer(new EmfWriter(metricsOutput, EmfWriter.DEFAULT_NAMESPACE, AFTER_SUMMER));
+        send(requestTo("/").header(INSTITUTION_HEADER, SUPPORTED_INSTITUTION).header("Accept-Encoding", "gzip"));
+
+        var response = send(requestTo("/").header(INSTITUTION_HEADER, SUPPORTED_INSTITUTION)
+                                .header("Accept-Encoding", "gzip"));
+        // The metrics are written once the response has been sent:
+        while (metricsOutput.toString().lines().count() < 2) {
+            Thread.sleep(10);
+        }
+
+        assertThat(response.statusCode(), equalTo(HttpURLConnection.HTTP_OK));
+        assertThat(response.headers().firstValue("Vary"), equalTo(Optional.of("Accept, Accept-Encoding")));
+        // Five courses are too few to be worth compressing, but the tag is that of any body sent for gzip:
+        assertThat(response.headers().firstValue("Content-Encoding"), equalTo(Optional.empty()));
+        var entityTag = response.headers().firstValue("ETag").orElseThrow();
+        assertThat(entityTag.startsWith("W/"), equalTo(true));
+        assertThat(readCourses(response), hasSize(5));
+        var lines = metricsOutput.toString().lines().collect(Collectors.toList());
+        assertThat(JsonUtils.dtoObjectMapper.readTree(lines.get(1)).has("BodyCacheHitCount"), equalTo(true));
+
+        var notModified = send(requestTo("/").header(INSTITUTION_HEADER, SUPPORTED_INSTITUTION)
+                                   .header("Accept-Encoding", "gzip")
+                                   .header("If-None-Match", entityTag));
+
+        assertThat(notModified.statusCode(), equalTo(HttpURLConnection.HTTP_NOT_MODIFIED));
+    }
+
+    @Test
+    void shouldServePageOfCoursesMatchingQueryWithNextCursor() throws Exception {
+        stubRequestForCourses(2022, "oslometUndervisningResponse2022.json");
+        stubRequestForCourses(2023, "oslometUndervisningResponse2023.json");
+        startServer();
+
+        var response = send(requestTo("/?year=2023&limit=2").header(INSTITUTION_HEADER, SUPPORTED_INSTITUTION));
+        var page = JsonUtils.dtoObjectMapper.readValue(response.body(), CoursesResponse.class);
+        var nextPage = JsonUtils.dtoObjectMapper.readValue(
+            send(requestTo("/?year=2023&limit=2&cursor=" + page.getNextCursor())
+                     .header(INSTITUTION_HEADER, SUPPORTED_INSTITUTION)).body(), CoursesResponse.class);
+
+        assertThat(response.statusCode(), equalTo(HttpURLConnection.HTTP_OK));
+        assertThat(page.getCourses(), contains(COURSE_A_SPRING_2023, COURSE_OE_SPRING_2023));
+        assertThat(nextPage.getCourses(), contains(COURSE_AA_SPRING_2023));
+        assertThat(nextPage.getNextCursor(), equalTo(null));
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenQueryIsInvalid() throws Exception {
+        stubRequestForCourses(2022, "oslometUndervisningResponse2022.json");
+        stubRequestForCourses(2023, "oslometUndervisningResponse2023.json");
+        startServer();
+
+        var response = send(requestTo("/?limit=0").header(INSTITUTION_HEADER, SUPPORTED_INSTITUTION));
+
+        assertThat(response.statusCode(), equalTo(HttpURLConnection.HTTP_BAD_REQUEST));
+        assertThat(response.headers().firstValue("Content-Type"), equalTo(Optional.of("application/problem+json")));
+    }
+
+    @Test
+    void shouldCompleteCourseCodeFromIndexWithoutCallingFsAgain() throws Exception {
+        stubRequestForCourses(2022, "oslometUndervisningResponse2022.json");
+        stubRequestForCourses(2023, "oslometUndervisningResponse2023.json");
+        startServer();
+        var firstResponse = send(requestTo("/codes?prefix=").header(INSTITUTION_HEADER, SUPPORTED_INSTITUTION));
+
+        // FS becomes unavailable, but the index of the courses is still fresh:
+        WireMock.reset();
+        var response = send(requestTo("/codes?prefix=%C3%98&limit=3") // Ø
+                                .header(INSTITUTION_HEADER, SUPPORTED_INSTITUTION));
+
+        assertThat(readCodes(firstResponse), contains("A", "\u00C6", "\u00D8", "\u00C5")); // Æ, Ø, Å
+        assertThat(response.statusCode(), equalTo(HttpURLConnection.HTTP_OK));
+        assertThat(readCodes(response), contains("\u00D8")); // Ø
+    }
+
+    @Test
+    void shouldCompleteNoCourseCodesWithoutInstitutionHeader() throws Exception {
+        startServer();
+
+        var response = send(requestTo("/codes?prefix=a"));
+
+        assertThat(response.statusCode(), equalTo(HttpURLConnection.HTTP_OK));
+        assertThat(readCodes(response), empty());
+    }
+
+    @Test
+    void shouldReturnNoCoursesWithoutInstitutionHeader() throws Exception {
+        startServer();
+
+        var response = send(requestTo("/"));
+
+        assertThat(response.statusCode(), equalTo(HttpURLConnection.HTTP_OK));
+        assertThat(readCourses(response), empty());
+    }
+
+    @Test
+    void shouldReadInstitutionFromConfiguredHeaderAndAllowConfiguredOrigin() throws Exception {
+        when(environment.readEnvOpt(CoursesServer.INSTITUTION_HEADER_ENV_KEY)).thenReturn(Optional.of("X-Org"));
+        when(environment.readEnvOpt(CoursesServer.ALLOWED_ORIGIN_ENV_KEY)).thenReturn(Optional.of("*"));
+        stubRequestForCourses(2022, "oslometUndervisningResponse2022.json");
+        stubRequestForCourses(2023, "oslometUndervisningResponse2023.json");
+        startServer();
+
+        var response = send(requestTo("/").header("X-Org", SUPPORTED_INSTITUTION));
+
+        assertThat(response.headers().firstValue("Access-Control-Allow-Origin"), equalTo(Optional.of("*")));
+        assertThat(readCourses(response).size(), equalTo(5));
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenInstitutionHeaderIsNotCristinIdentifier() throws Exception {
+        startServer();
+
+        var response = send(requestTo("/").header(INSTITUTION_HEADER, "https://example.com/unknown"));
+
+        assertThat(response.statusCode(), equalTo(HttpURLConnection.HTTP_BAD_REQUEST));
+    }
+
+    @Test
+    void shouldReturnBadGatewayWhenFsIsUnavailable() throws Exception {
+        fakeSecretsManagerClient.putPlainTextSecret(
+            SECRET_NAME, IoUtils.stringFromResources(Path.of("fsConfig.json"))
+                             .replace("@@BASE_URI@@", "http://localhost:9090"));
+        startServer();
+
+        var response = send(requestTo("/").header(INSTITUTION_HEADER, SUPPORTED_INSTITUTION));
+
+        assertThat(response.statusCode(), equalTo(HttpURLConnection.HTTP_BAD_GATEWAY));
+        assertThat(response.headers().firstValue("Content-Type"), equalTo(Optional.of("application/problem+json")));
+    }
+
+    @Test
+    void shouldReturnInternalServerErrorWhenFsConfigIsNotProperlyFormattedJson() throws Exception {
+        fakeSecretsManagerClient.putPlainTextSecret(SECRET_NAME, EMPTY_STRING);
+        startServer();
+
+        var response = send(requestTo("/").header(INSTITUTION_HEADER, SUPPORTED_INSTITUTION));
+
+        assertThat(response.statusCode(), equalTo(HttpURLConnection.HTTP_INTERNAL_ERROR));
+    }
+
+    @Test
+    void shouldRefuseToStartWhenInstitutionHeaderIsNotConfigured() {
+        when(environment.readEnvOpt(CoursesServer.INSTITUTION_HEADER_ENV_KEY)).thenReturn(Optional.empty());
+
+        var exception = assertThrows(IllegalStateException.class, this::startServer);
+
+        assertThat(exception.getMessage(), equalTo(CoursesServer.MISSING_INSTITUTION_HEADER_MESSAGE));
+    }
+
+    @Test
+    void shouldAnswerHealthCheck() throws Exception {
+        startServer();
+
+        assertThat(send(requestTo("/health")).statusCode(), equalTo(HttpURLConnection.HTTP_OK));
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownPath() throws Exception {
+        startServer();
+
+        assertThat(send(requestTo("/unknown")).statusCode(), equalTo(HttpURLConnection.HTTP_NOT_FOUND));
+    }
+
+    @Test
+    void shouldReturnMethodNotAllowedForOtherMethodsThanGet() throws Exception {
+        startServer();
+
+        var response = send(requestTo("/").POST(HttpRequest.BodyPublishers.noBody()));
+
+        assertThat(response.statusCode(), equalTo(HttpURLConnection.HTTP_BAD_METHOD));
+        assertThat(response.headers().firstValue("Allow"), equalTo(Optional.of("GET")));
+    }
+
+    @Test
+    void shouldReturnServiceUnavailableWhenWorkersAndQueueAreFull() throws Exception {
+        when(environment.readEnvOpt(CoursesServer.WORKER_THREADS_ENV_KEY)).thenReturn(Optional.of("1"));
+        when(environment.readEnvOpt(CoursesServer.QUEUE_CAPACITY_ENV_KEY)).thenReturn(Optional.of("0"));
+        stubFor(get(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                    .willReturn(WireMock.ok().withFixedDelay(1000).withBody("{\"items\": []}")));
+        startServer();
+        final CompletableFuture<HttpResponse<String>> slowResponse = httpClient.sendAsync(
+            requestTo("/").header(INSTITUTION_HEADER, SUPPORTED_INSTITUTION).build(), BodyHandlers.ofString());
+        awaitFsRequest();
+
+        var response = send(requestTo("/health"));
+
+        assertThat(response.statusCode(), equalTo(HttpURLConnection.HTTP_UNAVAILABLE));
+        assertThat(response.headers().firstValue("Retry-After"), equalTo(Optional.of("1")));
+        assertThat(slowResponse.join().statusCode(), equalTo(HttpURLConnection.HTTP_OK));
+    }
+
+    private void startServer() throws IOException {
+        final CoursesService coursesService = CoursesService.fromEnvironment(new Environment(),
+                                                                             fakeSecretsManagerClient,
+                                                                             new InMemoryCoursesSnapshotStore(),
+                                                                             AFTER_SUMMER);
+        server = CoursesServer.start(coursesService, environment, AFTER_SUMMER);
+    }
+
+    private void startServer(final EmfWriter metricsWriter) throws IOException {
+        final CoursesService coursesService = CoursesService.fromEnvironment(new Environment(),
+                                                                             fakeSecretsManagerClient,
+                                                                             new InMemoryCoursesSnapshotStore(),
+                                                                             AFTER_SUMMER);
+        server = CoursesServer.start(coursesService, environment, AFTER_SUMMER, metricsWriter);
+    }
+
+    private HttpRequest.Builder requestTo(final String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path));
+    }
+
+    private HttpResponse<String> send(final HttpRequest.Builder request) throws IOException, InterruptedException {
+        return httpClient.send(request.build(), BodyHandlers.ofString());
+    }
+
+    private static List<Course> readCourses(final HttpResponse<String> response) throws IOException {
+        return JsonUtils.dtoObjectMapper.readValue(response.body(), CoursesResponse.class).getCourses();
+    }
+
+    private static List<String> readCodes(final HttpResponse<String> response) throws IOException {
+        return JsonUtils.dtoObjectMapper.readValue(response.body(), CourseCodesResponse.class).getCodes();
+    }
+
+    private static void awaitFsRequest() throws InterruptedException {
+        while (WireMock.findAll(getRequestedFor(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))).isEmpty()) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void stubRequestForCourses(final int year, final String responseBody) {
+        stubFor(get(urlPathEqualTo(TAUGHT_COURSES_URL_PATH))
+                    .withQueryParam("semester.ar", WireMock.equalTo(Integer.toString(year)))
+                    .willReturn(WireMock.ok()
+                                    .withHeader("Content-Type", "application/json")
+                                    .withBody(IoUtils.stringFromResources(Path.of(responseBody)))));
+    }
+}
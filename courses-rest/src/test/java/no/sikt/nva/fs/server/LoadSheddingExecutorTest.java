@@ -0,0 +1,64 @@
+package no.sikt.nva.fs.server;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class LoadSheddingExecutorTest {
+
+    private final LoadSheddingExecutor executor = new LoadSheddingExecutor(1, 0);
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void shouldRunExchangeOnWorkerWithoutSheddingWhenWorkerIsFree() {
+        var shedding = new CompletableFuture<Boolean>();
+
+        executor.execute(() -> shedding.complete(LoadSheddingExecutor.isShedding()));
+
+        assertFalse(shedding.join());
+    }
+
+    @Test
+    void shouldShedExchangeOnCallingThreadWhenWorkersAndQueueAreFull() throws InterruptedException {
+        var workerStarted = new CountDownLatch(1);
+        var releaseWorker = new CountDownLatch(1);
+        executor.execute(() -> {
+            workerStarted.countDown();
+            awaitQuietly(releaseWorker);
+        });
+        workerStarted.await();
+        var shedding = new CompletableFuture<Boolean>();
+        var callingThread = Thread.currentThread();
+
+        executor.execute(() -> shedding.complete(LoadSheddingExecutor.isShedding()
+                                                 && Thread.currentThread() == callingThread));
+        releaseWorker.countDown();
+
+        assertTrue(shedding.join());
+        assertFalse(LoadSheddingExecutor.isShedding());
+    }
+
+    @Test
+    void shouldRejectExchangeAfterShutdown() {
+        executor.shutdown();
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
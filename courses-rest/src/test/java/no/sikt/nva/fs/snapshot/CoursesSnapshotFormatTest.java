@@ -0,0 +1,220 @@
+package no.sikt.nva.fs.snapshot;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.Term;
+import org.junit.jupiter.api.Test;
+
+class CoursesSnapshotFormatTest {
+
+    private static final Course COURSE_A_AUTUMN_2022 = new Course("A", "H\u00D8ST", 2022); // HØST
+    private static final Course COURSE_AE_AUTUMN_2022 = new Course("\u00C6", "H\u00D8ST", 2022); // Æ, HØST
+    private static final Course COURSE_A_SPRING_2023 = new Course("A", "V\u00C5R", 2023); // VÅR
+    private static final Course COURSE_AA_SUMMER_2023 = new Course("\u00C5S", "SOM", 2023); // ÅS
+    private static final CoursesSnapshot SNAPSHOT =
+        new CoursesSnapshot(215, "{2022=[FALL, WINTER], 2023=[SPRING, SUMMER]}",
+                            List.of(COURSE_A_AUTUMN_2022, COURSE_AE_AUTUMN_2022, COURSE_A_SPRING_2023,
+                                    COURSE_AA_SUMMER_2023),
+                            "\"tag\"", Instant.parse("2022-08-10T10:30:30.00Z"));
+    private static final int HEADER_SIZE = 28;
+    private static final int COURSE_COUNT_POSITION = 20;
+    private static final int RECORD_SIZE = 8;
+
+    @Test
+    void shouldReadBackWrittenSnapshotInSameOrder() throws IOException {
+        var snapshot = CoursesSnapshotFormat.read(ByteBuffer.wrap(CoursesSnapshotFormat.write(SNAPSHOT)));
+
+        assertThat(snapshot.getInstitutionCode(), equalTo(215));
+        assertThat(snapshot.getWindow(), equalTo(SNAPSHOT.getWindow()));
+        assertThat(snapshot.getEntityTag(), equalTo("\"tag\""));
+        assertThat(snapshot.getFreshUntil(), equalTo(SNAPSHOT.getFreshUntil()));
+        assertThat(snapshot.getCourses(), contains(COURSE_A_AUTUMN_2022,
+                                                   COURSE_AE_AUTUMN_2022,
+                                                   COURSE_A_SPRING_2023,
+                                                   COURSE_AA_SUMMER_2023));
+    }
+
+    @Test
+    void shouldShareDecodedCourseCodeBetweenCourses() throws IOException {
+        var courses = CoursesSnapshotFormat.read(ByteBuffer.wrap(CoursesSnapshotFormat.write(SNAPSHOT))).getCourses();
+
+        assertThat(courses.get(2).getCode(), sameInstance(courses.get(0).getCode()));
+        assertThat(courses.get(2).getTerm(), sameInstance(Term.SPRING.getCode()));
+    }
+
+    @Test
+    void shouldReadSnapshotFromBufferNotStartingAtZero() throws IOException {
+        final byte[] bytes = CoursesSnapshotFormat.write(SNAPSHOT);
+        final byte[] paddedBytes = new byte[bytes.length + 3];
+        System.arraycopy(bytes, 0, paddedBytes, 3, bytes.length);
+
+        var snapshot = CoursesSnapshotFormat.read(ByteBuffer.wrap(paddedBytes, 3, bytes.length));
+
+        assertThat(snapshot.getCourses().get(3), equalTo(COURSE_AA_SUMMER_2023));
+    }
+
+    @Test
+    void shouldRejectBufferThatIsNotSnapshot() {
+        var exception = assertThrows(IOException.class,
+                                     () -> CoursesSnapshotFormat.read(ByteBuffer.wrap(new byte[64])));
+
+        assertThat(exception.getMessage(), containsString("Not a courses snapshot"));
+    }
+
+    @Test
+    void shouldRejectUnsupportedVersion() throws IOException {
+        final byte[] bytes = CoursesSnapshotFormat.write(SNAPSHOT);
+        bytes[5] = 2;
+
+        var exception = assertThrows(IOException.class, () -> CoursesSnapshotFormat.read(ByteBuffer.wrap(bytes)));
+
+        assertThat(exception.getMessage(), containsString("version: 2"));
+    }
+
+    @Test
+    void shouldRejectTruncatedSnapshot() throws IOException {
+        final byte[] bytes = CoursesSnapshotFormat.write(SNAPSHOT);
+
+        var exception = assertThrows(IOException.class, () -> CoursesSnapshotFormat.read(
+            ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 1))));
+
+        assertThat(exception.getMessage(), containsString("truncated"));
+    }
+
+    @Test
+    void shouldRejectSnapshotTruncatedWithinHeaderStrings() throws IOException {
+        final byte[] bytes = CoursesSnapshotFormat.write(SNAPSHOT);
+
+        var exception = assertThrows(IOException.class, () -> CoursesSnapshotFormat.read(
+            ByteBuffer.wrap(Arrays.copyOf(bytes, HEADER_SIZE + 2))));
+
+        assertThat(exception.getMessage(), containsString("truncated"));
+    }
+
+    @Test
+    void shouldRejectNegativeCourseCount() throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(CoursesSnapshotFormat.write(SNAPSHOT));
+        buffer.putInt(COURSE_COUNT_POSITION, -1);
+
+        var exception = assertThrows(IOException.class, () -> CoursesSnapshotFormat.read(buffer));
+
+        assertThat(exception.getMessage(), containsString("negative count"));
+    }
+
+    @Test
+    void shouldRejectStringLongerThanSnapshot() throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(CoursesSnapshotFormat.write(SNAPSHOT));
+        buffer.putInt(HEADER_SIZE, Integer.MAX_VALUE);
+
+        var exception = assertThrows(IOException.class, () -> CoursesSnapshotFormat.read(buffer));
+
+        assertThat(exception.getMessage(), containsString("truncated"));
+    }
+
+    @Test
+    void shouldRejectCourseCodeOffsetsOutOfOrder() throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(CoursesSnapshotFormat.write(SNAPSHOT));
+        buffer.putInt(codeOffsetsStart() + Integer.BYTES, -1);
+
+        var exception = assertThrows(IOException.class, () -> CoursesSnapshotFormat.read(buffer));
+
+        assertThat(exception.getMessage(), containsString("course code offset -1 out of order"));
+    }
+
+    @Test
+    void shouldRejectCourseCodeIndexOutOfBounds() throws IOException {
+        final byte[] bytes = CoursesSnapshotFormat.write(SNAPSHOT);
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.putInt(bytes.length - RECORD_SIZE, 3);
+
+        var exception = assertThrows(IOException.class, () -> CoursesSnapshotFormat.read(buffer));
+
+        assertThat(exception.getMessage(), containsString("course code index 3 out of bounds"));
+    }
+
+    @Test
+    void shouldRejectTermOrdinalOutOfBounds() throws IOException {
+        final byte[] bytes = CoursesSnapshotFormat.write(SNAPSHOT);
+        bytes[bytes.length - 2] = (byte) Term.values().length;
+
+        var exception = assertThrows(IOException.class, () -> CoursesSnapshotFormat.read(ByteBuffer.wrap(bytes)));
+
+        assertThat(exception.getMessage(), containsString("term ordinal " + Term.values().length + " out of bounds"));
+    }
+
+    @Test
+    void shouldThrowIndexOutOfBoundsForCourseBeyondSnapshot() throws IOException {
+        var courses = CoursesSnapshotFormat.read(ByteBuffer.wrap(CoursesSnapshotFormat.write(SNAPSHOT))).getCourses();
+
+        assertThrows(IndexOutOfBoundsException.class, () -> courses.get(4));
+    }
+
+    @Test
+    void shouldMapWrittenSnapshotWithoutDecodingCourses() throws IOException {
+        var snapshot = CoursesSnapshotFormat.map(ByteBuffer.wrap(CoursesSnapshotFormat.write(SNAPSHOT)));
+
+        assertThat(snapshot.getEntityTag(), equalTo("\"tag\""));
+        assertThat(snapshot.getCourses(), contains(COURSE_A_AUTUMN_2022,
+                                                   COURSE_AE_AUTUMN_2022,
+                                                   COURSE_A_SPRING_2023,
+                                                   COURSE_AA_SUMMER_2023));
+    }
+
+    @Test
+    void shouldExposeCodeDictionaryAndRecordsOfMappedCourses() throws IOException {
+        var courses = (MappedCourses) CoursesSnapshotFormat.map(
+            ByteBuffer.wrap(CoursesSnapshotFormat.write(SNAPSHOT))).getCourses();
+
+        assertThat(courses.getCodeCount(), equalTo(3));
+        assertThat(courses.getDictionaryCode(2), equalTo("\u00C5S")); // ÅS
+        assertThat(courses.getCodeIndex(2), equalTo(0));
+        assertThat(courses.getCode(2), sameInstance(courses.getCode(0)));
+        assertThat(courses.getYear(3), equalTo(2023));
+        assertThat(courses.getTerm(3), equalTo(Term.SUMMER));
+        assertThrows(IndexOutOfBoundsException.class, () -> courses.get(4));
+    }
+
+    @Test
+    void shouldRejectTruncatedSnapshotWhenMapping() throws IOException {
+        final byte[] bytes = CoursesSnapshotFormat.write(SNAPSHOT);
+
+        var exception = assertThrows(IOException.class, () -> CoursesSnapshotFormat.map(
+            ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 1))));
+
+        assertThat(exception.getMessage(), containsString("truncated"));
+    }
+
+    @Test
+    void shouldRejectCorruptRecordOfMappedSnapshotWhenItIsDecoded() throws IOException {
+        final byte[] bytes = CoursesSnapshotFormat.write(SNAPSHOT);
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.putInt(bytes.length - RECORD_SIZE, 3);
+        bytes[bytes.length - RECORD_SIZE - 2] = (byte) Term.values().length;
+        var courses = CoursesSnapshotFormat.map(buffer).getCourses();
+
+        assertThat(courses.get(0), equalTo(COURSE_A_AUTUMN_2022));
+        var codeException = assertThrows(UncheckedIOException.class, () -> courses.get(3));
+        var termException = assertThrows(UncheckedIOException.class, () -> courses.get(2));
+
+        assertThat(codeException.getMessage(), containsString("course code index 3 out of bounds"));
+        assertThat(termException.getMessage(), containsString("term ordinal " + Term.values().length));
+    }
+
+    private static int codeOffsetsStart() {
+        final byte[] window = SNAPSHOT.getWindow().getBytes(StandardCharsets.UTF_8);
+        final byte[] entityTag = SNAPSHOT.getEntityTag().getBytes(StandardCharsets.UTF_8);
+        return HEADER_SIZE + Integer.BYTES + window.length + Integer.BYTES + entityTag.length;
+    }
+}
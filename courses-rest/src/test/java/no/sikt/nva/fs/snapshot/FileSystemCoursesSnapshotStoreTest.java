@@ -0,0 +1,61 @@
+package no.sikt.nva.fs.snapshot;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import no.sikt.nva.fs.Course;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileSystemCoursesSnapshotStoreTest {
+
+    private static final Course FIRST_COURSE = new Course("A", "H\u00D8ST", 2022); // HØST
+    private static final Course SECOND_COURSE = new Course("B", "H\u00D8ST", 2022); // HØST
+    private static final Instant FRESH_UNTIL = Instant.parse("2022-08-10T10:30:30.00Z");
+
+    @TempDir
+    /* default */ Path directory;
+
+    @Test
+    void shouldFindSavedSnapshotOfInstitution() throws IOException {
+        var snapshotStore = new FileSystemCoursesSnapshotStore(directory.resolve("snapshots"));
+        snapshotStore.save(snapshot(215, FIRST_COURSE, SECOND_COURSE));
+
+        var snapshot = snapshotStore.find(215).orElseThrow();
+
+        assertThat(snapshot.getInstitutionCode(), equalTo(215));
+        assertThat(snapshot.getCourses(), contains(FIRST_COURSE, SECOND_COURSE));
+        assertTrue(snapshotStore.find(185).isEmpty());
+    }
+
+    @Test
+    void shouldReplaceSnapshotWithoutLeavingTemporaryFiles() throws IOException {
+        var snapshotStore = new FileSystemCoursesSnapshotStore(directory);
+        snapshotStore.save(snapshot(215, FIRST_COURSE));
+        var firstSnapshot = snapshotStore.find(215).orElseThrow();
+
+        snapshotStore.save(snapshot(215, SECOND_COURSE));
+
+        assertThat(snapshotStore.find(215).orElseThrow().getCourses(), contains(SECOND_COURSE));
+        assertThat(firstSnapshot.getCourses(), contains(FIRST_COURSE));
+        assertThat(listFileNames(), contains("courses-215.snapshot"));
+    }
+
+    private List<String> listFileNames() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).collect(Collectors.toList());
+        }
+    }
+
+    private static CoursesSnapshot snapshot(final int institutionCode, final Course... courses) {
+        return new CoursesSnapshot(institutionCode, "window", List.of(courses), "\"tag\"", FRESH_UNTIL);
+    }
+}
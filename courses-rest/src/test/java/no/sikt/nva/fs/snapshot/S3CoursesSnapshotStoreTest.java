@@ -0,0 +1,105 @@
+package no.sikt.nva.fs.snapshot;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import no.sikt.nva.fs.AcademicWindow;
+import no.sikt.nva.fs.Course;
+import no.sikt.nva.fs.client.Deadline;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+class S3CoursesSnapshotStoreTest {
+
+    private static final String BUCKET = "courses-snapshots";
+    private static final CoursesSnapshot SNAPSHOT =
+        new CoursesSnapshot(215, AcademicWindow.forMonth(2022, 8).getKey(),
+                            List.of(new Course("A", "H\u00D8ST", 2022)), // HØST
+                            "\"tag\"", Instant.parse("2022-08-10T10:30:30.00Z"));
+
+    private S3Client s3Client;
+    private S3CoursesSnapshotStore snapshotStore;
+
+    @BeforeEach
+    public void init() {
+        s3Client = mock(S3Client.class);
+        snapshotStore = new S3CoursesSnapshotStore(s3Client, BUCKET);
+    }
+
+    @Test
+    void shouldReadBackSavedSnapshotFromInstitutionObject() throws IOException {
+        snapshotStore.save(SNAPSHOT);
+        var putRequest = ArgumentCaptor.forClass(PutObjectRequest.class);
+        var requestBody = ArgumentCaptor.forClass(RequestBody.class);
+        verify(s3Client).putObject(putRequest.capture(), requestBody.capture());
+        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class)))
+            .thenReturn(ResponseBytes.fromByteArray(GetObjectResponse.builder().build(), readAll(requestBody)));
+
+        var snapshot = snapshotStore.find(215).orElseThrow();
+
+        assertThat(putRequest.getValue().bucket(), equalTo(BUCKET));
+        assertThat(putRequest.getValue().key(), equalTo("courses/215.snapshot"));
+        assertTrue(snapshot.isFor(AcademicWindow.forMonth(2022, 8)));
+        assertThat(snapshot.getInstitutionCode(), equalTo(215));
+        assertThat(snapshot.getCourses(), contains(new Course("A", "H\u00D8ST", 2022))); // HØST
+        assertThat(snapshot.getEntityTag(), equalTo("\"tag\""));
+        assertThat(snapshot.getFreshUntil(), equalTo(SNAPSHOT.getFreshUntil()));
+    }
+
+    @Test
+    void shouldFindNoSnapshotWhenInstitutionObjectIsMissing() throws IOException {
+        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class)))
+            .thenThrow(NoSuchKeyException.builder().build());
+
+        assertTrue(snapshotStore.find(215).isEmpty());
+    }
+
+    @Test
+    void shouldBoundSnapshotReadByReadTimeout() throws IOException {
+        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class)))
+            .thenThrow(NoSuchKeyException.builder().build());
+
+        snapshotStore.find(215, Deadline.after(Duration.ofMinutes(1)));
+
+        var getRequest = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3Client).getObjectAsBytes(getRequest.capture());
+        assertThat(getRequest.getValue().overrideConfiguration().orElseThrow().apiCallTimeout(),
+                   equalTo(Optional.of(S3CoursesSnapshotStore.READ_TIMEOUT)));
+    }
+
+    @Test
+    void shouldNotReadSnapshotWhenDeadlineHasPassed() {
+        var exception = assertThrows(IOException.class,
+                                     () -> snapshotStore.find(215, Deadline.after(Duration.ZERO)));
+
+        assertThat(exception.getMessage(), equalTo(S3CoursesSnapshotStore.NO_TIME_LEFT_MESSAGE));
+        verifyNoInteractions(s3Client);
+    }
+
+    private static byte[] readAll(final ArgumentCaptor<RequestBody> requestBody) throws IOException {
+        try (InputStream content = requestBody.getValue().contentStreamProvider().newStream()) {
+            return content.readAllBytes();
+        }
+    }
+}